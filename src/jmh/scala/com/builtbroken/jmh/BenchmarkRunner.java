@@ -0,0 +1,44 @@
+package com.builtbroken.jmh;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the engine benchmarks and writes the results as JSON so builds can be compared.
+ * <p>
+ * Any normal JMH command line option can be passed, such as a regex to pick benchmarks
+ * or -p size=10 to limit params. Results go to build/reports/jmh/results.json unless
+ * -rff is given. The benchmark classes are in this source set, they need the main and
+ * test classes plus JMH on the classpath.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class BenchmarkRunner
+{
+    /** Default file results are written to */
+    public static final String RESULT_FILE = "build/reports/jmh/results.json";
+
+    public static void main(String... args) throws RunnerException, CommandLineOptionException
+    {
+        final CommandLineOptions cmd = new CommandLineOptions(args);
+        final String resultFile = cmd.getResult().orElse(RESULT_FILE);
+        new File(resultFile).getAbsoluteFile().getParentFile().mkdirs();
+
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(cmd)
+                .resultFormat(cmd.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(resultFile);
+        if (cmd.getIncludes().isEmpty())
+        {
+            builder.include("com\\.builtbroken\\.jmh\\..*");
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package com.builtbroken.jmh;
+
+import com.builtbroken.mc.testing.junit.world.FakeWorld;
+import net.minecraft.block.Block;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.world.World;
+
+/**
+ * Creates worlds for benchmarks using the same fake world as the unit tests.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class BenchmarkWorld
+{
+    /** Y level used as the center of benchmark blasts */
+    public static final int CENTER_Y = 64;
+
+    private static boolean bootstrapped = false;
+
+    private BenchmarkWorld()
+    {
+    }
+
+    /**
+     * Creates a new fake world, registers blocks and items the first time it is called
+     *
+     * @param name - name of the world
+     * @return world
+     */
+    public static synchronized World newWorld(String name)
+    {
+        if (!bootstrapped)
+        {
+            Bootstrap.func_151354_b();
+            bootstrapped = true;
+        }
+        return FakeWorld.newWorld(name);
+    }
+
+    /**
+     * Fills a cube around the center of the world
+     *
+     * @param world  - world
+     * @param radius - half size of the cube
+     * @param block  - block to place
+     */
+    public static void fill(World world, int radius, Block block)
+    {
+        for (int x = -radius; x <= radius; x++)
+        {
+            for (int z = -radius; z <= radius; z++)
+            {
+                for (int y = Math.max(0, CENTER_Y - radius); y <= Math.min(255, CENTER_Y + radius); y++)
+                {
+                    world.setBlock(x, y, z, block);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.builtbroken.jmh.edit;
+
+import com.builtbroken.jmh.BenchmarkWorld;
+import com.builtbroken.mc.api.edit.IWorldChangeAction;
+import com.builtbroken.mc.api.event.TriggerCause;
+import com.builtbroken.mc.core.content.blast.tnt.ExplosiveHandlerTNT;
+import com.builtbroken.mc.imp.transform.vector.Location;
+import com.builtbroken.mc.lib.world.edit.WorldChangeHelper;
+import com.builtbroken.mc.prefab.explosive.blast.BlastBasic;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.World;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.util.ForgeDirection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for {@link WorldChangeHelper#doAction(Location, IWorldChangeAction, TriggerCause)} to
+ * calculate and place a blast on the calling thread, events and effects included.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldChangeHelperBenchmark
+{
+    @Param({"5", "10", "20", "40"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean editBuffer;
+
+    private World world;
+    private Location location;
+    private TriggerCause cause;
+    private BlastBasic blast;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        world = BenchmarkWorld.newWorld("WorldChangeHelperBenchmark" + size);
+        location = new Location(world, 0, BenchmarkWorld.CENTER_Y, 0);
+        cause = new TriggerCause.TriggerCauseRedstone(ForgeDirection.UNKNOWN, 15);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation()
+    {
+        //Blast removes blocks, so they need to be put back each run
+        BenchmarkWorld.fill(world, size + 2, Blocks.stone);
+
+        blast = new BlastBasic(new ExplosiveHandlerTNT())
+        {
+            @Override
+            public int shouldThreadAction()
+            {
+                //Run on this thread so the full cost is measured
+                return NO_THREAD;
+            }
+        };
+        MinecraftForge.EVENT_BUS.unregister(blast);
+        blast.setLocation(world, 0, BenchmarkWorld.CENTER_Y, 0);
+        blast.setYield(size);
+        blast.useEditBuffer = editBuffer;
+    }
+
+    @Benchmark
+    public WorldChangeHelper.ChangeResult doAction()
+    {
+        return WorldChangeHelper.doAction(location, blast, cause);
+    }
+}
@@ -0,0 +1,126 @@
+package com.builtbroken.jmh.edit;
+
+import com.builtbroken.jmh.BenchmarkWorld;
+import com.builtbroken.mc.api.edit.IWorldEdit;
+import com.builtbroken.mc.core.content.blast.tnt.ExplosiveHandlerTNT;
+import com.builtbroken.mc.framework.thread.action.WorldEditQueue;
+import com.builtbroken.mc.lib.world.edit.BlockEdit;
+import com.builtbroken.mc.lib.world.edit.EditBuffer;
+import com.builtbroken.mc.prefab.explosive.blast.BlastBasic;
+import cpw.mods.fml.relauncher.Side;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.World;
+import net.minecraftforge.common.MinecraftForge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for {@link WorldEditQueue#runQue(World, Side)} to place all edits of a blast sized cube.
+ * <p>
+ * Modes: list is a normal list of {@link BlockEdit}, buffer uses an {@link EditBuffer}
+ * and bulk uses an {@link EditBuffer} placed with bulk placement.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldEditQueueBenchmark
+{
+    @Param({"5", "10", "20", "40"})
+    public int size;
+
+    @Param({"list", "buffer", "bulk"})
+    public String mode;
+
+    /** Edits placed per call to runQue, matches a large blast */
+    @Param({"2000"})
+    public int editsPerTick;
+
+    private World world;
+    private BlastBasic action;
+    private WorldEditQueue queue;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        world = BenchmarkWorld.newWorld("WorldEditQueueBenchmark" + size);
+        action = new BlastBasic(new ExplosiveHandlerTNT());
+        MinecraftForge.EVENT_BUS.unregister(action);
+        action.setLocation(world, 0, BenchmarkWorld.CENTER_Y, 0);
+        action.setYield(size);
+        action.bulkPlacement = "bulk".equals(mode);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation()
+    {
+        //Edits remove blocks, so they need to be put back each run
+        BenchmarkWorld.fill(world, size, Blocks.stone);
+        queue = new WorldEditQueue(world, action, editsPerTick, createEdits());
+    }
+
+    private Collection<IWorldEdit> createEdits()
+    {
+        final int minY = Math.max(0, BenchmarkWorld.CENTER_Y - size);
+        final int maxY = Math.min(255, BenchmarkWorld.CENTER_Y + size);
+        if ("list".equals(mode))
+        {
+            Collection<IWorldEdit> list = new ArrayList();
+            for (int x = -size; x <= size; x++)
+            {
+                for (int z = -size; z <= size; z++)
+                {
+                    for (int y = minY; y <= maxY; y++)
+                    {
+                        BlockEdit edit = new BlockEdit(world, x, y, z);
+                        edit.set(Blocks.air, 0);
+                        list.add(edit);
+                    }
+                }
+            }
+            return list;
+        }
+        EditBuffer buffer = new EditBuffer(world);
+        for (int x = -size; x <= size; x++)
+        {
+            for (int z = -size; z <= size; z++)
+            {
+                for (int y = minY; y <= maxY; y++)
+                {
+                    buffer.add(x, y, z, Blocks.air, 0);
+                }
+            }
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    public int runQue()
+    {
+        int ticks = 0;
+        while (!queue.isQueDone())
+        {
+            queue.runQue(world, Side.SERVER);
+            ticks++;
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,74 @@
+package com.builtbroken.jmh.edit;
+
+import com.builtbroken.jmh.BenchmarkWorld;
+import com.builtbroken.mc.api.edit.IWorldEdit;
+import com.builtbroken.mc.lib.world.edit.BlockEdit;
+import com.builtbroken.mc.lib.world.edit.sorter.WorldEditSorter;
+import net.minecraft.world.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to sort the edits of a blast sized sphere with {@link WorldEditSorter}.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldEditSorterBenchmark
+{
+    @Param({"5", "10", "20", "40"})
+    public int size;
+
+    private final WorldEditSorter sorter = new WorldEditSorter();
+    private List<IWorldEdit> edits;
+
+    @Setup
+    public void setup()
+    {
+        World world = BenchmarkWorld.newWorld("WorldEditSorterBenchmark");
+        edits = new ArrayList();
+        for (int x = -size; x <= size; x++)
+        {
+            for (int y = -size; y <= size; y++)
+            {
+                for (int z = -size; z <= size; z++)
+                {
+                    if (x * x + y * y + z * z <= size * size)
+                    {
+                        edits.add(new BlockEdit(world, x, BenchmarkWorld.CENTER_Y + y, z));
+                    }
+                }
+            }
+        }
+        //Same order each run so builds can be compared
+        Collections.shuffle(edits, new Random(size));
+    }
+
+    @Benchmark
+    public List<IWorldEdit> sort()
+    {
+        List<IWorldEdit> copy = new ArrayList(edits);
+        Collections.sort(copy, sorter);
+        return copy;
+    }
+}
@@ -0,0 +1,94 @@
+package com.builtbroken.jmh.explosive;
+
+import com.builtbroken.jmh.BenchmarkWorld;
+import com.builtbroken.mc.api.edit.IWorldEdit;
+import com.builtbroken.mc.core.content.blast.emp.BlastEMP;
+import com.builtbroken.mc.core.content.blast.tnt.ExplosiveHandlerTNT;
+import com.builtbroken.mc.framework.explosive.blast.Blast;
+import com.builtbroken.mc.prefab.explosive.blast.BlastBasic;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.World;
+import net.minecraftforge.common.MinecraftForge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to calculate the edits for a blast, {@link Blast#getEffectedBlocks()}, at several sizes.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlastBenchmark
+{
+    @Param({"5", "10", "20", "40"})
+    public int size;
+
+    private World world;
+    private BlastBasic basic;
+    private BlastBasic basicBuffered;
+    private BlastEMP emp;
+
+    @Setup
+    public void setup()
+    {
+        world = BenchmarkWorld.newWorld("BlastBenchmark" + size);
+        BenchmarkWorld.fill(world, size + 2, Blocks.stone);
+
+        ExplosiveHandlerTNT handler = new ExplosiveHandlerTNT();
+        basic = newBlast(new BlastBasic(handler));
+        basicBuffered = newBlast(new BlastBasic(handler));
+        basicBuffered.useEditBuffer = true;
+        emp = newBlast(new BlastEMP(handler));
+    }
+
+    private <B extends Blast> B newBlast(B blast)
+    {
+        //Blasts listen for world unload, not needed here
+        MinecraftForge.EVENT_BUS.unregister(blast);
+        blast.setLocation(world, 0, BenchmarkWorld.CENTER_Y, 0);
+        blast.setYield(size);
+        return blast;
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        world = null;
+    }
+
+    @Benchmark
+    public List<IWorldEdit> blastBasic()
+    {
+        return basic.getEffectedBlocks();
+    }
+
+    @Benchmark
+    public List<IWorldEdit> blastBasicEditBuffer()
+    {
+        return basicBuffered.getEffectedBlocks();
+    }
+
+    @Benchmark
+    public List<IWorldEdit> blastEMP()
+    {
+        return emp.getEffectedBlocks();
+    }
+}
@@ -6,6 +6,7 @@ import com.builtbroken.mc.framework.access.load.AccessModule;
 import com.builtbroken.mc.framework.json.IJsonGenMod;
 import com.builtbroken.mc.framework.json.JsonContentLoader;
 import com.builtbroken.mc.framework.mod.loadable.LoadableHandler;
+import com.builtbroken.mc.framework.thread.action.WorldActionQue;
 
 /**
  * Prefab for all version specific mod loaders
@@ -33,6 +34,7 @@ public abstract class EngineLoader implements IJsonGenMod
         getModuleLoader().applyModule(GroupProfileHandler.GLOBAL);
         getModuleLoader().applyModule(new AccessModule());
         getModuleLoader().applyModule(JsonContentLoader.INSTANCE);
+        getModuleLoader().applyModule(WorldActionQue.INSTANCE);
     }
 
     @Override
@@ -19,6 +19,7 @@ import com.builtbroken.mc.core.commands.sub.CommandVEClear;
 import com.builtbroken.mc.core.commands.sub.CommandVERemove;
 import com.builtbroken.mc.core.commands.sub.CommandVEVersion;
 import com.builtbroken.mc.core.commands.thread.CommandThreadClear;
+import com.builtbroken.mc.core.commands.thread.CommandThreadMetrics;
 
 /**
  * Created by robert on 1/23/2015.
@@ -85,6 +86,7 @@ public class CommandVE extends ModularCommand
 
         //Utility commands
         addToThreadCommand(new CommandThreadClear());
+        addToThreadCommand(new CommandThreadMetrics());
         addToPowerCommand(new CommandChargeItem());
     }
 
@@ -0,0 +1,87 @@
+package com.builtbroken.mc.core.commands.thread;
+
+import com.builtbroken.mc.core.commands.prefab.SubCommand;
+import com.builtbroken.mc.framework.thread.action.metrics.ActionMetrics;
+import com.builtbroken.mc.framework.thread.action.metrics.WorldChangeMetrics;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.ChatComponentText;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows metrics collected for world change actions, such as blasts
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class CommandThreadMetrics extends SubCommand
+{
+    public CommandThreadMetrics()
+    {
+        super("metrics");
+    }
+
+    @Override
+    public boolean handleEntityPlayerCommand(EntityPlayer player, String[] args)
+    {
+        return handleConsoleCommand(player, args);
+    }
+
+    @Override
+    public boolean handleConsoleCommand(ICommandSender sender, String[] args)
+    {
+        if (args == null || args.length == 0)
+        {
+            for (String line : WorldChangeMetrics.getReport())
+            {
+                sender.addChatMessage(new ChatComponentText(line));
+            }
+        }
+        else if (args[0].equalsIgnoreCase("reset"))
+        {
+            WorldChangeMetrics.reset();
+            sender.addChatMessage(new ChatComponentText("World change metrics cleared"));
+        }
+        else if (args[0].equalsIgnoreCase("dump"))
+        {
+            File file = WorldChangeMetrics.dump();
+            sender.addChatMessage(new ChatComponentText(file != null ? "World change metrics written to " + file : "Failed to write world change metrics, see log"));
+        }
+        else
+        {
+            //Show a single action type
+            for (ActionMetrics metrics : WorldChangeMetrics.getAll())
+            {
+                if (metrics.name.equalsIgnoreCase(args[0]))
+                {
+                    List<String> lines = new ArrayList();
+                    metrics.addReport(lines);
+                    for (String line : lines)
+                    {
+                        sender.addChatMessage(new ChatComponentText(line));
+                    }
+                    return true;
+                }
+            }
+            sender.addChatMessage(new ChatComponentText("No metrics for action type " + args[0]));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isHelpCommand(String[] args)
+    {
+        return args != null && args.length > 0 && (args[0].equalsIgnoreCase("help") || args[0].equalsIgnoreCase("?"));
+    }
+
+    @Override
+    public void getHelpOutput(ICommandSender sender, List<String> items)
+    {
+        items.add("");
+        items.add("reset");
+        items.add("dump");
+        items.add("<type>");
+    }
+}
@@ -47,6 +47,7 @@ public class PacketHandler extends FMLIndexedMessageToMessageCodec<IPacket>
         addPacket(PacketSendData.class);
         addPacket(PacketRequestData.class);
         addPacket(PacketMouseScroll.class);
+        addPacket(PacketStringTable.class);
     }
 
     public void addPacket(Class<? extends IPacket> clazz) //TODO code system to sync IDs to ensure 100% match client(s) to server
@@ -4,6 +4,7 @@ import com.builtbroken.jlib.data.vector.IPos3D;
 import com.builtbroken.mc.api.IWorldPosition;
 import com.builtbroken.mc.api.data.IPacket;
 import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.core.network.packet.data.StringTable;
 import com.builtbroken.mc.framework.mod.loadable.AbstractLoadable;
 import cpw.mods.fml.common.FMLCommonHandler;
 import cpw.mods.fml.common.network.FMLEmbeddedChannel;
@@ -12,9 +13,12 @@ import cpw.mods.fml.common.network.NetworkRegistry;
 import cpw.mods.fml.relauncher.Side;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.network.Packet;
+import net.minecraft.server.management.PlayerManager;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 
+import java.util.Collection;
 import java.util.EnumMap;
 
 /**
@@ -51,6 +55,9 @@ public class PacketManager extends AbstractLoadable
         packetHandler = new PacketHandler();
         packetChannelHandler = new PacketChannelHandler();
         this.channelEnumMap = NetworkRegistry.INSTANCE.newChannel(channel, packetHandler, packetChannelHandler);
+
+        //Registered here rather than on first use so every player that joins is sent the table
+        FMLCommonHandler.instance().bus().register(StringTable.SERVER);
     }
 
     @Override
@@ -164,6 +171,71 @@ public class PacketManager extends AbstractLoadable
         }
     }
 
+    /**
+     * Sends the packet to each player. The packet is encoded
+     * once and the same data is sent to each player.
+     *
+     * @param packet  - packet to send
+     * @param players - players to send to
+     */
+    public void sendToPlayers(IPacket packet, Collection<EntityPlayerMP> players)
+    {
+        //Null check is for JUnit
+        if (channelEnumMap != null)
+        {
+            if (!players.isEmpty())
+            {
+                Packet mcPacket = channelEnumMap.get(Side.SERVER).generatePacketFrom(packet);
+                for (EntityPlayerMP player : players)
+                {
+                    player.playerNetServerHandler.sendPacket(mcPacket);
+                }
+            }
+        }
+        else
+        {
+            Engine.error("Packet sent to players" + players);
+        }
+    }
+
+    /**
+     * Sends the packet to all players that have the chunk loaded. The packet
+     * is encoded once and the same data is sent to each player.
+     *
+     * @param packet - packet to send
+     * @param world  - world the chunk is in
+     * @param chunkX - chunk x
+     * @param chunkZ - chunk z
+     */
+    public void sendToAllWatchingChunk(IPacket packet, World world, int chunkX, int chunkZ)
+    {
+        //Null check is for JUnit
+        if (channelEnumMap != null)
+        {
+            if (world instanceof WorldServer)
+            {
+                PlayerManager playerManager = ((WorldServer) world).getPlayerManager();
+                Packet mcPacket = null;
+                for (Object object : world.playerEntities)
+                {
+                    if (object instanceof EntityPlayerMP && playerManager.isPlayerWatchingChunk((EntityPlayerMP) object, chunkX, chunkZ))
+                    {
+                        //Only encoded if someone is watching
+                        if (mcPacket == null)
+                        {
+                            mcPacket = channelEnumMap.get(Side.SERVER).generatePacketFrom(packet);
+                        }
+                        ((EntityPlayerMP) object).playerNetServerHandler.sendPacket(mcPacket);
+                    }
+                }
+            }
+        }
+        else
+        {
+            Engine.error("Packet sent to chunk watchers[" + chunkX + ", " + chunkZ + "]");
+        }
+    }
+
     public void sendToServer(IPacket packet)
     {
         //Null check is for JUnit
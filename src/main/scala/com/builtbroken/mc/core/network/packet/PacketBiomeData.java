@@ -1,5 +1,6 @@
 package com.builtbroken.mc.core.network.packet;
 
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
@@ -32,8 +33,8 @@ public class PacketBiomeData extends PacketType
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        buffer.writeInt(chunkX);
-        buffer.writeInt(chunkZ);
+        PacketCodec.writeSignedVarInt(buffer, chunkX);
+        PacketCodec.writeSignedVarInt(buffer, chunkZ);
         for (byte b : biomes)
         {
             buffer.writeByte(b);
@@ -43,8 +44,8 @@ public class PacketBiomeData extends PacketType
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        chunkX = buffer.readInt();
-        chunkZ = buffer.readInt();
+        chunkX = PacketCodec.readSignedVarInt(buffer);
+        chunkZ = PacketCodec.readSignedVarInt(buffer);
         biomes = new byte[256];
         for (int i = 0; i < 256; i++)
         {
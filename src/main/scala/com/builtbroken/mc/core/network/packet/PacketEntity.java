@@ -5,6 +5,7 @@ import com.builtbroken.mc.core.network.IPacketIDReceiver;
 import com.builtbroken.mc.core.network.IPacketReceiver;
 import com.builtbroken.mc.core.network.ex.PacketIDException;
 import com.builtbroken.mc.core.network.ex.PacketTileReadException;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import com.builtbroken.mc.imp.transform.vector.Location;
 import io.netty.buffer.ByteBuf;
 import net.minecraft.entity.Entity;
@@ -23,7 +24,7 @@ public class PacketEntity extends PacketType
 
     public PacketEntity(Entity entity)
     {
-        add(entity.getEntityId());
+        PacketCodec.writeVarInt(getDataToWrite(), entity.getEntityId());
     }
 
     @Override
@@ -38,7 +39,7 @@ public class PacketEntity extends PacketType
         sender = player;
 
         final ByteBuf data = getDataToRead();
-        final int entityID = data.readInt();
+        final int entityID = PacketCodec.readVarInt(data);
 
         final Entity entity = player.getEntityWorld().getEntityByID(entityID);
         if (entity instanceof IPacketIDReceiver)
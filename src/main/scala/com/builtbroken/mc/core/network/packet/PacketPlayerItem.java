@@ -2,6 +2,7 @@ package com.builtbroken.mc.core.network.packet;
 
 import com.builtbroken.mc.core.network.IPacketIDReceiver;
 import com.builtbroken.mc.core.network.IPacketReceiver;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
@@ -23,7 +24,7 @@ public class PacketPlayerItem extends PacketType
 
     public PacketPlayerItem(int slotId, Object... args)
     {
-        add(this.slotId = slotId);
+        PacketCodec.writeSignedVarInt(getDataToWrite(), this.slotId = slotId);
         add(args);
     }
 
@@ -36,7 +37,7 @@ public class PacketPlayerItem extends PacketType
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
         super.decodeInto(ctx, buffer);
-        slotId = buffer.readInt();
+        slotId = PacketCodec.readSignedVarInt(buffer);
     }
 
     @Override
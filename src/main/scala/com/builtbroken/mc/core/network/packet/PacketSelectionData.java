@@ -2,6 +2,7 @@ package com.builtbroken.mc.core.network.packet;
 
 import com.builtbroken.mc.api.data.IPacket;
 import com.builtbroken.mc.core.handler.RenderSelection;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import com.builtbroken.mc.imp.transform.region.Cube;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -47,14 +48,14 @@ public class PacketSelectionData implements IPacket
         selection.writeBytes(buffer);
 
         //Write cubes
-        buffer.writeInt(cubes.size());
+        PacketCodec.writeVarInt(buffer, cubes.size());
         for (Cube cube : cubes)
         {
             cube.writeBytes(buffer);
         }
 
         //Write regions
-        buffer.writeInt(regions.size());
+        PacketCodec.writeVarInt(buffer, regions.size());
         for (Cube cube : regions)
         {
             cube.writeBytes(buffer);
@@ -70,7 +71,7 @@ public class PacketSelectionData implements IPacket
         RenderSelection.selection = new Cube(buffer);
 
         //Read other player's selections to render
-        int count = buffer.readInt();
+        int count = PacketCodec.readVarInt(buffer);
         if (count > 0)
             for (int i = 0; i < count; i++)
             {
@@ -78,7 +79,7 @@ public class PacketSelectionData implements IPacket
             }
 
         //Read region bounds
-        count = buffer.readInt();
+        count = PacketCodec.readVarInt(buffer);
         if (count > 0)
             for (int i = 0; i < count; i++)
             {
@@ -6,6 +6,7 @@ import com.builtbroken.mc.client.effects.VisualEffectRegistry;
 import com.builtbroken.mc.client.json.ClientDataHandler;
 import com.builtbroken.mc.client.json.imp.IEffectData;
 import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import cpw.mods.fml.common.network.ByteBufUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -60,14 +61,15 @@ public class PacketSpawnParticle extends PacketType
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        ByteBufUtils.writeUTF8String(buffer, name == null ? "null" : name);
-        buffer.writeInt(dim);
-        buffer.writeDouble(x);
-        buffer.writeDouble(y);
-        buffer.writeDouble(z);
-        buffer.writeDouble(vx);
-        buffer.writeDouble(vy);
-        buffer.writeDouble(vz);
+        PacketCodec.writeTableString(buffer, name == null ? "null" : name);
+        PacketCodec.writeSignedVarInt(buffer, dim);
+        PacketCodec.writeFixed(buffer, x, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, y, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, z, PacketCodec.POSITION_SCALE);
+        //Motion or end point
+        PacketCodec.writeFixed(buffer, vx, PacketCodec.VECTOR_SCALE);
+        PacketCodec.writeFixed(buffer, vy, PacketCodec.VECTOR_SCALE);
+        PacketCodec.writeFixed(buffer, vz, PacketCodec.VECTOR_SCALE);
         buffer.writeBoolean(endPoint);
         buffer.writeBoolean(otherData != null);
         if (otherData != null)
@@ -79,14 +81,14 @@ public class PacketSpawnParticle extends PacketType
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        name = ByteBufUtils.readUTF8String(buffer);
-        dim = buffer.readInt();
-        x = buffer.readDouble();
-        y = buffer.readDouble();
-        z = buffer.readDouble();
-        vx = buffer.readDouble();
-        vy = buffer.readDouble();
-        vz = buffer.readDouble();
+        name = PacketCodec.readTableString(buffer);
+        dim = PacketCodec.readSignedVarInt(buffer);
+        x = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        y = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        z = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        vx = PacketCodec.readFixed(buffer, PacketCodec.VECTOR_SCALE);
+        vy = PacketCodec.readFixed(buffer, PacketCodec.VECTOR_SCALE);
+        vz = PacketCodec.readFixed(buffer, PacketCodec.VECTOR_SCALE);
         endPoint = buffer.readBoolean();
         if (buffer.readBoolean())
         {
@@ -4,9 +4,9 @@ package com.builtbroken.mc.core.network.packet;
 import com.builtbroken.jlib.data.vector.IPos3D;
 import com.builtbroken.mc.api.IWorldPosition;
 import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import com.builtbroken.mc.imp.transform.rotation.EulerAngle;
 import com.builtbroken.mc.imp.transform.vector.Pos;
-import cpw.mods.fml.common.network.ByteBufUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
@@ -81,29 +81,29 @@ public class PacketSpawnParticleCircle extends PacketType
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        buffer.writeInt(dim);
-        buffer.writeDouble(x);
-        buffer.writeDouble(y);
-        buffer.writeDouble(z);
-        buffer.writeDouble(vx);
-        buffer.writeDouble(vy);
-        buffer.writeDouble(vz);
-        buffer.writeDouble(distance);
-        ByteBufUtils.writeUTF8String(buffer, "" + name);
+        PacketCodec.writeSignedVarInt(buffer, dim);
+        PacketCodec.writeFixed(buffer, x, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, y, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, z, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, vx, PacketCodec.VECTOR_SCALE);
+        PacketCodec.writeFixed(buffer, vy, PacketCodec.VECTOR_SCALE);
+        PacketCodec.writeFixed(buffer, vz, PacketCodec.VECTOR_SCALE);
+        PacketCodec.writeFixed(buffer, distance, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeTableString(buffer, "" + name);
     }
 
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        dim = buffer.readInt();
-        x = buffer.readDouble();
-        y = buffer.readDouble();
-        z = buffer.readDouble();
-        vx = buffer.readDouble();
-        vy = buffer.readDouble();
-        vz = buffer.readDouble();
-        distance = buffer.readDouble();
-        name = ByteBufUtils.readUTF8String(buffer);
+        dim = PacketCodec.readSignedVarInt(buffer);
+        x = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        y = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        z = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        vx = PacketCodec.readFixed(buffer, PacketCodec.VECTOR_SCALE);
+        vy = PacketCodec.readFixed(buffer, PacketCodec.VECTOR_SCALE);
+        vz = PacketCodec.readFixed(buffer, PacketCodec.VECTOR_SCALE);
+        distance = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        name = PacketCodec.readTableString(buffer);
     }
 
     @Override
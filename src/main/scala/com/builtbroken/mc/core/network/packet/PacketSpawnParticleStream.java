@@ -2,6 +2,7 @@ package com.builtbroken.mc.core.network.packet;
 
 
 import com.builtbroken.jlib.data.vector.IPos3D;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import com.builtbroken.mc.imp.transform.vector.Pos;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -32,17 +33,21 @@ public class PacketSpawnParticleStream extends PacketType
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        buffer.writeInt(dim);
-        start.writeByteBuf(buffer);
-        end.writeByteBuf(buffer);
+        PacketCodec.writeSignedVarInt(buffer, dim);
+        PacketCodec.writeFixed(buffer, start.x(), PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, start.y(), PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, start.z(), PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, end.x(), PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, end.y(), PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, end.z(), PacketCodec.POSITION_SCALE);
     }
 
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        dim = buffer.readInt();
-        start = new Pos(buffer);
-        end = new Pos(buffer);
+        dim = PacketCodec.readSignedVarInt(buffer);
+        start = new Pos(PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE), PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE), PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE));
+        end = new Pos(PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE), PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE), PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE));
     }
 
     @Override
@@ -4,6 +4,7 @@ package com.builtbroken.mc.core.network.packet;
 import com.builtbroken.jlib.data.vector.IPos3D;
 import com.builtbroken.mc.api.abstraction.world.IWorld;
 import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
@@ -59,25 +60,26 @@ public class PacketSpawnStream extends PacketType
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        buffer.writeInt(dim);
-        buffer.writeDouble(x);
-        buffer.writeDouble(y);
-        buffer.writeDouble(z);
-        buffer.writeDouble(vx);
-        buffer.writeDouble(vy);
-        buffer.writeDouble(vz);
+        //Start and end points
+        PacketCodec.writeSignedVarInt(buffer, dim);
+        PacketCodec.writeFixed(buffer, x, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, y, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, z, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, vx, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, vy, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, vz, PacketCodec.POSITION_SCALE);
     }
 
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        dim = buffer.readInt();
-        x = buffer.readDouble();
-        y = buffer.readDouble();
-        z = buffer.readDouble();
-        vx = buffer.readDouble();
-        vy = buffer.readDouble();
-        vz = buffer.readDouble();
+        dim = PacketCodec.readSignedVarInt(buffer);
+        x = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        y = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        z = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        vx = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        vy = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        vz = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
     }
 
     @Override
@@ -0,0 +1,54 @@
+package com.builtbroken.mc.core.network.packet;
+
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
+import com.builtbroken.mc.core.network.packet.data.StringTable;
+import cpw.mods.fml.common.network.ByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import net.minecraft.entity.player.EntityPlayer;
+
+/**
+ * Sends the {@link StringTable} to a client when they log in
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class PacketStringTable extends PacketType
+{
+    public String[] values;
+
+    public PacketStringTable()
+    {
+        //Needed for forge to construct the packet
+    }
+
+    public PacketStringTable(String[] values)
+    {
+        this.values = values;
+    }
+
+    @Override
+    public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
+    {
+        PacketCodec.writeVarInt(buffer, values.length);
+        for (String value : values)
+        {
+            ByteBufUtils.writeUTF8String(buffer, value);
+        }
+    }
+
+    @Override
+    public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
+    {
+        values = new String[PacketCodec.readVarInt(buffer)];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = ByteBufUtils.readUTF8String(buffer);
+        }
+    }
+
+    @Override
+    public void handleClientSide(EntityPlayer player)
+    {
+        StringTable.CLIENT.set(values);
+    }
+}
@@ -5,11 +5,13 @@ import com.builtbroken.mc.core.network.IPacketIDReceiver;
 import com.builtbroken.mc.core.network.IPacketReceiver;
 import com.builtbroken.mc.core.network.ex.PacketIDException;
 import com.builtbroken.mc.core.network.ex.PacketTileReadException;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import com.builtbroken.mc.imp.transform.vector.Location;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.ChunkPosition;
 
 /**
  * Packet type designed to be used with Tiles
@@ -38,9 +40,7 @@ public class PacketTile extends PacketType
      */
     public PacketTile(int x, int y, int z, Object... args)
     {
-        add(this.x = x); //Legacy workaround
-        add(this.y = y); //Legacy workaround
-        add(this.z = z); //Legacy workaround
+        PacketCodec.writeBlockPos(getDataToWrite(), this.x = x, this.y = y, this.z = z);
         add(args); //Legacy workaround
     }
 
@@ -59,9 +59,10 @@ public class PacketTile extends PacketType
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
         super.decodeInto(ctx, buffer);
-        x = buffer.readInt();
-        y = buffer.readInt();
-        z = buffer.readInt();
+        ChunkPosition pos = PacketCodec.readBlockPos(buffer);
+        x = pos.chunkPosX;
+        y = pos.chunkPosY;
+        z = pos.chunkPosZ;
     }
 
     @Override
@@ -1,25 +1,31 @@
 package com.builtbroken.mc.core.network.packet;
 
 import com.builtbroken.jlib.data.network.IByteBufWriter;
-import com.builtbroken.jlib.data.vector.IPos2D;
-import com.builtbroken.jlib.data.vector.IPos3D;
-import com.builtbroken.mc.api.ISave;
 import com.builtbroken.mc.api.data.IPacket;
+import com.builtbroken.mc.core.network.packet.data.IPacketDataWriter;
+import com.builtbroken.mc.core.network.packet.data.PacketDataWriters;
 import cpw.mods.fml.common.network.ByteBufUtils;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NBTTagCompound;
-import net.minecraftforge.fluids.FluidStack;
-import net.minecraftforge.fluids.FluidTank;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
 
 /**
+ * Packet with data written in order by the sender and read back in the same order.
+ * <p>
+ * Data is written into the packet as it is added, typed methods such as {@link #writeInt(int)}
+ * write without boxing. {@link #add(Object)} still works for any type {@link PacketDataWriters}
+ * knows. Encoding copies the written bytes into the outbound buffer, so the same packet can
+ * be sent to several players.
+ * <p>
+ * Writer callbacks, a {@link Consumer} from {@link IPacket#addWriter} or an {@link IByteBufWriter},
+ * are still called at encode and write in the spot they were added. They see the state at the
+ * time the packet is sent, same as before data was written as it is added.
+ *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 6/29/2018.
  */
@@ -27,13 +33,30 @@ public abstract class PacketType implements IPacket
 {
     EntityPlayer sender = null;
 
-    private final List<Object> dataToWrite = new ArrayList();
+    /** Data written so far, created on first write */
+    private ByteBuf dataToWrite;
     private ByteBuf dataToRead;
+    /** Writer callbacks called at encode, null until one is added */
+    private List<DeferredWriter> deferredWriters;
 
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        dataToWrite.forEach(d -> write(d, buffer));
+        if (dataToWrite != null)
+        {
+            //Read indexes are left as is so the packet can be encoded again
+            int start = dataToWrite.readerIndex();
+            if (deferredWriters != null)
+            {
+                for (DeferredWriter deferred : deferredWriters)
+                {
+                    buffer.writeBytes(dataToWrite, start, deferred.index - start);
+                    write(deferred.writer, buffer);
+                    start = deferred.index;
+                }
+            }
+            buffer.writeBytes(dataToWrite, start, dataToWrite.writerIndex() - start);
+        }
     }
 
     @Override
@@ -45,103 +68,126 @@ public abstract class PacketType implements IPacket
     @Override
     public <A extends IPacket> A add(Object data)
     {
-        dataToWrite.add(data);
+        if (data instanceof Consumer || data instanceof IByteBufWriter)
+        {
+            //Callbacks write at encode, remember where their data goes
+            if (deferredWriters == null)
+            {
+                deferredWriters = new ArrayList();
+            }
+            deferredWriters.add(new DeferredWriter(getDataToWrite().writerIndex(), data));
+        }
+        else
+        {
+            write(data, getDataToWrite());
+        }
         return (A) this;
     }
 
+    /**
+     * Writes the object with a writer from {@link PacketDataWriters#get(Class)}
+     * held by the caller, skips looking up the writer.
+     *
+     * @param writer - writer for the object
+     * @param object - object to write
+     * @return this
+     */
+    public <T> PacketType add(IPacketDataWriter<T> writer, T object)
+    {
+        writer.write(object, getDataToWrite());
+        return this;
+    }
+
+    public PacketType writeInt(int value)
+    {
+        getDataToWrite().writeInt(value);
+        return this;
+    }
+
+    public PacketType writeByte(int value)
+    {
+        getDataToWrite().writeByte(value);
+        return this;
+    }
+
+    public PacketType writeShort(int value)
+    {
+        getDataToWrite().writeShort(value);
+        return this;
+    }
+
+    public PacketType writeLong(long value)
+    {
+        getDataToWrite().writeLong(value);
+        return this;
+    }
+
+    public PacketType writeFloat(float value)
+    {
+        getDataToWrite().writeFloat(value);
+        return this;
+    }
+
+    public PacketType writeDouble(double value)
+    {
+        getDataToWrite().writeDouble(value);
+        return this;
+    }
+
+    public PacketType writeBoolean(boolean value)
+    {
+        getDataToWrite().writeBoolean(value);
+        return this;
+    }
+
+    public PacketType writeString(String value)
+    {
+        ByteBufUtils.writeUTF8String(getDataToWrite(), value);
+        return this;
+    }
+
+    /**
+     * Buffer data is written to, can be written to directly
+     *
+     * @return buffer
+     */
+    protected ByteBuf getDataToWrite()
+    {
+        if (dataToWrite == null)
+        {
+            dataToWrite = Unpooled.buffer();
+        }
+        return dataToWrite;
+    }
+
     protected ByteBuf getDataToRead()
     {
         return dataToRead;
     }
 
+    /**
+     * Writes the object to the buffer
+     *
+     * @param object - object to write, see {@link PacketDataWriters} for supported types
+     * @param data   - buffer to write to
+     */
     protected void write(Object object, ByteBuf data)
     {
-        if (object instanceof Consumer)
-        {
-            ((Consumer) object).accept(data);
-        }
-        else if (object instanceof Collection)
-        {
-            ((Collection) object).forEach(e -> write(e, data));
-        }
-        else if (object.getClass().isArray())
-        {
-            Object[] arrays = (Object[]) object;
-            for (Object o : arrays)
-            {
-                write(o, data);
-            }
-        }
-        else if (object instanceof Integer)
-        {
-            data.writeInt((Integer) object);
-        }
-        else if (object instanceof Float)
-        {
-            data.writeFloat((Float) object);
-        }
-        else if (object instanceof Double)
-        {
-            data.writeDouble((Double) object);
-        }
-        else if (object instanceof Short)
-        {
-            data.writeShort((Short) object);
-        }
-        else if (object instanceof Long)
-        {
-            data.writeLong((Long) object);
-        }
-        else if (object instanceof Byte)
-        {
-            data.writeByte((Byte) object);
-        }
-        else if (object instanceof Boolean)
-        {
-            data.writeBoolean((Boolean) object);
-        }
-        else if (object instanceof String)
-        {
-            ByteBufUtils.writeUTF8String(data, (String) object);
-        }
-        else if (object instanceof IByteBufWriter)
-        {
-            ((IByteBufWriter) object).writeBytes(data);
-        }
-        else if (object instanceof IPos3D)
-        {
-            data.writeDouble(((IPos3D) object).x());
-            data.writeDouble(((IPos3D) object).y());
-            data.writeDouble(((IPos3D) object).z());
-        }
-        else if (object instanceof IPos2D)
-        {
-            data.writeDouble(((IPos2D) object).x());
-            data.writeDouble(((IPos2D) object).y());
-        }
-        else if (object instanceof NBTTagCompound)
-        {
-            ByteBufUtils.writeTag(data, (NBTTagCompound) object);
-        }
-        else if (object instanceof FluidTank)
-        {
-            ByteBufUtils.writeTag(data, ((FluidTank) object).writeToNBT(new NBTTagCompound()));
-        }
-        else if (object instanceof FluidStack)
-        {
-            ByteBufUtils.writeTag(data, ((FluidStack) object).writeToNBT(new NBTTagCompound()));
-        }
-        else if (object instanceof ItemStack)
-        {
-            ByteBufUtils.writeItemStack(data, (ItemStack) object);
-        }
-        else if (object instanceof ISave)
-        {
-            ByteBufUtils.writeTag(data, ((ISave) object).save(new NBTTagCompound()));
-        }
-        else if (object instanceof Enum)
+        PacketDataWriters.write(object, data);
+    }
+
+    /**
+     * Writer callback and the index in the written data its output goes
+     */
+    private static class DeferredWriter
+    {
+        final int index;
+        final Object writer;
+
+        DeferredWriter(int index, Object writer)
         {
-            data.writeInt(((Enum) object).ordinal());
+            this.index = index;
+            this.writer = writer;
         }
     }
 }
@@ -3,7 +3,7 @@ package com.builtbroken.mc.core.network.packet.callback;
 import com.builtbroken.mc.api.abstraction.world.IWorld;
 import com.builtbroken.mc.api.data.IPacket;
 import com.builtbroken.mc.core.Engine;
-import cpw.mods.fml.common.network.ByteBufUtils;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
@@ -40,25 +40,25 @@ public class PacketAudio implements IPacket
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        buffer.writeInt(dim);
-        buffer.writeDouble(x);
-        buffer.writeDouble(y);
-        buffer.writeDouble(z);
+        PacketCodec.writeSignedVarInt(buffer, dim);
+        PacketCodec.writeFixed(buffer, x, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, y, PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, z, PacketCodec.POSITION_SCALE);
         buffer.writeFloat(pitch);
         buffer.writeFloat(volume);
-        ByteBufUtils.writeUTF8String(buffer, audioKey);
+        PacketCodec.writeTableString(buffer, audioKey);
     }
 
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        dim = buffer.readInt();
-        x = buffer.readDouble();
-        y = buffer.readDouble();
-        z = buffer.readDouble();
+        dim = PacketCodec.readSignedVarInt(buffer);
+        x = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        y = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        z = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
         pitch = buffer.readFloat();
         volume = buffer.readFloat();
-        audioKey = ByteBufUtils.readUTF8String(buffer);
+        audioKey = PacketCodec.readTableString(buffer);
     }
 
     @Override
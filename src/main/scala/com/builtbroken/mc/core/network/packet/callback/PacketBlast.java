@@ -4,6 +4,7 @@ import com.builtbroken.mc.api.event.TriggerCauseRegistry;
 import com.builtbroken.mc.api.explosive.IExplosiveHandler;
 import com.builtbroken.mc.core.Engine;
 import com.builtbroken.mc.api.data.IPacket;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import com.builtbroken.mc.lib.world.edit.BlockEdit;
 import com.builtbroken.mc.framework.explosive.ExplosiveRegistry;
 import com.builtbroken.mc.framework.explosive.blast.Blast;
@@ -22,6 +23,9 @@ import net.minecraft.nbt.NBTTagCompound;
  */
 public class PacketBlast implements IPacket
 {
+    /** Flags for the optional tags */
+    private static final int HAS_TRIGGER = 1, HAS_EXPLOSIVE_DATA = 2, HAS_EDIT = 4;
+
     public Blast blast;
     public BlastPacketType type;
     public IExplosiveHandler handler;
@@ -54,28 +58,44 @@ public class PacketBlast implements IPacket
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        buffer.writeInt(type.ordinal());
-        buffer.writeDouble(blast.x());
-        buffer.writeDouble(blast.y());
-        buffer.writeDouble(blast.z());
-        buffer.writeDouble(blast.size);
-        ByteBufUtils.writeUTF8String(buffer, handler.getID());
-
-        NBTTagCompound tag = new NBTTagCompound();
-        tag.setBoolean("a", true);
-        if (blast.cause != null)
+        buffer.writeByte(type.ordinal());
+        PacketCodec.writeFixed(buffer, blast.x(), PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, blast.y(), PacketCodec.POSITION_SCALE);
+        PacketCodec.writeFixed(buffer, blast.z(), PacketCodec.POSITION_SCALE);
+        //Size is not a position, a float keeps small and fractional sizes exact enough for the client
+        buffer.writeFloat((float) blast.size);
+        PacketCodec.writeTableString(buffer, handler.getID());
+
+        //Flags for which tags follow, so blasts without extra data do not send empty tags
+        NBTTagCompound trigger = blast.cause != null ? TriggerCauseRegistry.cache(blast.cause) : null;
+        NBTTagCompound explosiveData = blast.getAdditionBlastData() != null && !blast.getAdditionBlastData().hasNoTags() ? blast.getAdditionBlastData() : null;
+        int flags = 0;
+        if (trigger != null)
+        {
+            flags |= HAS_TRIGGER;
+        }
+        if (explosiveData != null)
+        {
+            flags |= HAS_EXPLOSIVE_DATA;
+        }
+        if (type == BlastPacketType.EDIT_DISPLAY)
         {
-            tag.setTag("trigger", TriggerCauseRegistry.cache(blast.cause));
+            flags |= HAS_EDIT;
         }
-        if (blast.getAdditionBlastData() != null && !blast.getAdditionBlastData().hasNoTags())
+        buffer.writeByte(flags);
+
+        if (trigger != null)
         {
-            tag.setTag("explosiveData", blast.getAdditionBlastData());
+            ByteBufUtils.writeTag(buffer, trigger);
+        }
+        if (explosiveData != null)
+        {
+            ByteBufUtils.writeTag(buffer, explosiveData);
         }
         if (type == BlastPacketType.EDIT_DISPLAY)
         {
-            tag.setTag("edit", edit.toNBT());
+            ByteBufUtils.writeTag(buffer, edit.toNBT());
         }
-        ByteBufUtils.writeTag(buffer, tag);
 
         blast.writeBytes(buffer);
     }
@@ -84,26 +104,33 @@ public class PacketBlast implements IPacket
     @SideOnly(Side.CLIENT)
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        type = BlastPacketType.values()[buffer.readInt()];
-        x = buffer.readDouble();
-        y = buffer.readDouble();
-        z = buffer.readDouble();
-        size = buffer.readDouble();
+        type = BlastPacketType.values()[buffer.readUnsignedByte()];
+        x = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        y = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        z = PacketCodec.readFixed(buffer, PacketCodec.POSITION_SCALE);
+        size = buffer.readFloat();
 
-        String id = ByteBufUtils.readUTF8String(buffer);
-        handler = ExplosiveRegistry.get(id);
+        String id = PacketCodec.readTableString(buffer);
+        handler = id != null ? ExplosiveRegistry.get(id) : null;
 
         if (handler == null)
         {
+            //Blast data can't be read without the handler, skip the packet
             Engine.logger().error("Failed to load handler[" + id + "] from packet data");
+            blast = null;
+            return;
         }
 
-        NBTTagCompound save = ByteBufUtils.readTag(buffer);
-        blast = (Blast) handler.createBlastForTrigger(Minecraft.getMinecraft().theWorld, x, y, z, TriggerCauseRegistry.rebuild(save.getCompoundTag("trigger"), Minecraft.getMinecraft().theWorld), size, save.getCompoundTag("explosiveData"));
+        int flags = buffer.readUnsignedByte();
+        NBTTagCompound trigger = (flags & HAS_TRIGGER) != 0 ? ByteBufUtils.readTag(buffer) : new NBTTagCompound();
+        NBTTagCompound explosiveData = (flags & HAS_EXPLOSIVE_DATA) != 0 ? ByteBufUtils.readTag(buffer) : new NBTTagCompound();
+        NBTTagCompound editTag = (flags & HAS_EDIT) != 0 ? ByteBufUtils.readTag(buffer) : new NBTTagCompound();
+
+        blast = (Blast) handler.createBlastForTrigger(Minecraft.getMinecraft().theWorld, x, y, z, TriggerCauseRegistry.rebuild(trigger, Minecraft.getMinecraft().theWorld), size, explosiveData);
 
         if (type == BlastPacketType.EDIT_DISPLAY)
         {
-            edit = new BlockEdit(save.getCompoundTag("edit"));
+            edit = new BlockEdit(editTag);
         }
 
         blast.readBytes(buffer);
@@ -1,17 +1,16 @@
 package com.builtbroken.mc.core.network.packet.callback.chunk;
 
 import com.builtbroken.mc.api.data.IPacket;
-import com.builtbroken.mc.core.Engine;
-import com.builtbroken.mc.lib.world.map.block.ExtendedBlockDataManager;
-import com.builtbroken.mc.lib.world.map.block.ExtendedBlockDataMap;
-import com.builtbroken.mc.lib.world.map.data.ChunkData;
-import com.builtbroken.mc.lib.world.map.data.s.ChunkDataShort;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
+import com.builtbroken.mc.lib.world.map.data.ChunkMapSync;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 
 /**
+ * Client asking for the sections of a chunk data map it does not have, see {@link ChunkMapSync}
+ *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 4/7/2017.
  */
@@ -19,6 +18,11 @@ public class PacketRequestData implements IPacket
 {
     int dim, x, z, type;
 
+    /** Bit set for each section with a version */
+    int mask;
+    /** Version of each section, zero if not in the mask */
+    final int[] versions = new int[16];
+
     public PacketRequestData()
     {
 
@@ -29,22 +33,57 @@ public class PacketRequestData implements IPacket
         this.dim = dim;
         this.x = x;
         this.z = z;
+        this.type = type;
+    }
+
+    /**
+     * @param versions - versions of the sections the client has, null if none
+     */
+    public PacketRequestData(int dim, int x, int z, int type, int[] versions)
+    {
+        this(dim, x, z, type);
+        if (versions != null)
+        {
+            for (int i = 0; i < this.versions.length; i++)
+            {
+                if (versions[i] != 0)
+                {
+                    this.versions[i] = versions[i];
+                    mask |= 1 << i;
+                }
+            }
+        }
     }
 
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        buffer.writeInt(dim);
-        buffer.writeInt(x);
-        buffer.writeInt(z);
+        PacketCodec.writeSignedVarInt(buffer, dim);
+        PacketCodec.writeSignedVarInt(buffer, x);
+        PacketCodec.writeSignedVarInt(buffer, z);
+        buffer.writeByte(type);
+        buffer.writeShort(mask);
+        for (int i = 0; i < versions.length; i++)
+        {
+            if ((mask & (1 << i)) != 0)
+            {
+                buffer.writeInt(versions[i]);
+            }
+        }
     }
 
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        dim = buffer.readInt();
-        x = buffer.readInt();
-        z = buffer.readInt();
+        dim = PacketCodec.readSignedVarInt(buffer);
+        x = PacketCodec.readSignedVarInt(buffer);
+        z = PacketCodec.readSignedVarInt(buffer);
+        type = buffer.readUnsignedByte();
+        mask = buffer.readUnsignedShort();
+        for (int i = 0; i < versions.length; i++)
+        {
+            versions[i] = (mask & (1 << i)) != 0 ? buffer.readInt() : 0;
+        }
     }
 
     @Override
@@ -52,25 +91,7 @@ public class PacketRequestData implements IPacket
     {
         if (player instanceof EntityPlayerMP)
         {
-            ChunkData data = null;
-            if (type == 0)
-            {
-                ExtendedBlockDataMap map = ExtendedBlockDataManager.SERVER.getMapForDim(dim, false);
-                if (map != null)
-                {
-                    data = map.getChunk(x, z);
-                }
-
-                if (data == null)
-                {
-                    data = new ChunkDataShort(x, z);
-                }
-            }
-
-            if (data != null)
-            {
-                Engine.packetHandler.sendToPlayer(new PacketSendData(dim, x, z, type, data), (EntityPlayerMP) player);
-            }
+            ChunkMapSync.INSTANCE.onRequest((EntityPlayerMP) player, dim, x, z, type, versions);
         }
     }
 }
@@ -1,69 +1,181 @@
 package com.builtbroken.mc.core.network.packet.callback.chunk;
 
 import com.builtbroken.mc.core.Engine;
-import com.builtbroken.mc.lib.world.map.block.ExtendedBlockDataManager;
-import com.builtbroken.mc.lib.world.map.data.ChunkData;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
+import com.builtbroken.mc.lib.world.map.data.ChunkMapSync;
 import com.builtbroken.mc.lib.world.map.data.s.ChunkDataShort;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
 
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
 /**
+ * Sections of a chunk data map sent to the client, see {@link ChunkMapSync}.
+ * <p>
+ * Only the sections in the mask are sent, each in its compact form. Payloads of
+ * {@link #COMPRESS_THRESHOLD} bytes or more are deflated.
+ *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 4/7/2017.
  */
 public class PacketSendData extends PacketRequestData
 {
-    ChunkData data = null;
+    /** Smallest payload that is deflated, smaller ones do not gain enough to be worth it */
+    public static final int COMPRESS_THRESHOLD = 256;
+
+    /** Section data, see {@link ChunkDataShort#writeSections(ByteBuf, int)} */
+    byte[] payload;
+    /** Size of the payload before it was deflated, -1 if not deflated */
+    int rawLength = -1;
 
     public PacketSendData()
     {
 
     }
 
-    public PacketSendData(int dim, int x, int z, int type, ChunkData data)
+    /**
+     * Writes the sections on the calling thread so the chunk
+     * is not read by the network thread.
+     *
+     * @param chunk - chunk to send
+     * @param mask  - bit set for each section to send
+     */
+    public PacketSendData(int dim, int type, ChunkDataShort chunk, int mask)
     {
-        super(dim, x, z, type);
-        this.data = data;
-    }
+        super(dim, chunk.position.chunkXPos, chunk.position.chunkZPos, type);
+        this.mask = mask;
+        for (int i = 0; i < versions.length; i++)
+        {
+            if ((mask & (1 << i)) != 0)
+            {
+                versions[i] = chunk.versions[i];
+            }
+        }
 
+        ByteBuf buf = Unpooled.buffer();
+        chunk.writeSections(buf, mask);
+        byte[] raw = new byte[buf.readableBytes()];
+        buf.readBytes(raw);
+
+        payload = raw;
+        if (raw.length >= COMPRESS_THRESHOLD)
+        {
+            byte[] deflated = deflate(raw);
+            if (deflated.length < raw.length)
+            {
+                payload = deflated;
+                rawLength = raw.length;
+            }
+        }
+    }
 
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
         super.encodeInto(ctx, buffer);
-        data.writeBytes(buffer);
+        PacketCodec.writeSignedVarInt(buffer, rawLength);
+        PacketCodec.writeVarInt(buffer, payload.length);
+        buffer.writeBytes(payload);
     }
 
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
         super.decodeInto(ctx, buffer);
-
-        if (type == 0)
+        rawLength = PacketCodec.readSignedVarInt(buffer);
+        payload = new byte[PacketCodec.readVarInt(buffer)];
+        buffer.readBytes(payload);
+        if (rawLength >= 0)
         {
-            data = new ChunkDataShort(x, z);
+            try
+            {
+                payload = inflate(payload, rawLength);
+                rawLength = -1;
+            }
+            catch (DataFormatException e)
+            {
+                Engine.logger().error("PacketSendData: Failed to inflate chunk data for type[" + type + "] at " + x + ", " + z, e);
+                payload = null;
+            }
         }
-        else if (Engine.runningAsDev)
+    }
+
+    @Override
+    public void handleClientSide(EntityPlayer player)
+    {
+        if (payload != null && dim == player.worldObj.provider.dimensionId)
         {
-            Engine.logger().error("ChunkPacketHandler: Failed to ID chunk type[" + type + "] while decoding chunk data packet");
+            if (ChunkMapSync.INSTANCE.getClientMap(type) != null)
+            {
+                ChunkMapSync.INSTANCE.onReceived(type, x, z, mask, versions, Unpooled.wrappedBuffer(payload));
+            }
+            else if (Engine.runningAsDev)
+            {
+                Engine.logger().error("ChunkPacketHandler: Failed to ID chunk type[" + type + "] while decoding chunk data packet");
+            }
         }
+    }
 
-        if (data != null)
+    /** Size of the payload as sent */
+    public int getPayloadSize()
+    {
+        return payload != null ? payload.length : 0;
+    }
+
+    private static byte[] deflate(byte[] raw)
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try
         {
-            data.readBytes(buffer);
+            deflater.setInput(raw);
+            deflater.finish();
+            //Never grows by more than a few bytes, larger output is thrown away by the caller
+            byte[] out = new byte[raw.length + 64];
+            int length = 0;
+            while (!deflater.finished() && length < out.length)
+            {
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(out, 0, result, 0, length);
+            return result;
+        }
+        finally
+        {
+            deflater.end();
         }
     }
 
-    @Override
-    public void handleClientSide(EntityPlayer player)
+    private static byte[] inflate(byte[] data, int rawLength) throws DataFormatException
     {
-        if (data != null && dim == player.worldObj.provider.dimensionId)
+        Inflater inflater = new Inflater();
+        try
         {
-            if (type == 0)
+            inflater.setInput(data);
+            byte[] out = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished())
+            {
+                int read = inflater.inflate(out, length, rawLength - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    throw new DataFormatException("Payload ended early");
+                }
+                length += read;
+            }
+            if (length != rawLength)
             {
-                ExtendedBlockDataManager.CLIENT.chunks.put(data.position, (ChunkDataShort) data);
+                throw new DataFormatException("Expected " + rawLength + " bytes but got " + length);
             }
+            return out;
+        }
+        finally
+        {
+            inflater.end();
         }
     }
 }
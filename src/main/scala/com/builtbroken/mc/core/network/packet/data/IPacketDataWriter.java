@@ -0,0 +1,20 @@
+package com.builtbroken.mc.core.network.packet.data;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Writes one type of object to a packet, see {@link PacketDataWriters}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@FunctionalInterface
+public interface IPacketDataWriter<T>
+{
+    /**
+     * Writes the object to the buffer
+     *
+     * @param object - object to write, never null
+     * @param buf    - buffer to write to
+     */
+    void write(T object, ByteBuf buf);
+}
@@ -0,0 +1,182 @@
+package com.builtbroken.mc.core.network.packet.data;
+
+import cpw.mods.fml.common.network.ByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.world.ChunkPosition;
+
+/**
+ * Compact encodings shared by the core packets
+ * <p>
+ * Integers are written as varints, 7 bits per byte, so small values take a single byte.
+ * Signed values are zigzag encoded first so small negative values are small as well.
+ * Decimal values, such as effect positions, are written as fixed point numbers in
+ * steps of 1/scale. Strings known to {@link StringTable} are written as their ID.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class PacketCodec
+{
+    /** Steps per block for positions, same as vanilla entity positions */
+    public static final int POSITION_SCALE = 32;
+    /** Steps per unit for motion and other small values */
+    public static final int VECTOR_SCALE = 1024;
+
+    private PacketCodec()
+    {
+    }
+
+    //==========================
+    //== Integers ==
+    //==========================
+
+    /**
+     * Writes an int as a varint, negative values take 5 bytes so use
+     * {@link #writeSignedVarInt(ByteBuf, int)} if they are expected
+     */
+    public static void writeVarInt(ByteBuf buf, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuf buf)
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            final byte b = buf.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("PacketCodec: varint is longer than 5 bytes");
+    }
+
+    /** Writes an int as a zigzag varint */
+    public static void writeSignedVarInt(ByteBuf buf, int value)
+    {
+        writeVarInt(buf, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSignedVarInt(ByteBuf buf)
+    {
+        final int value = readVarInt(buf);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static void writeVarLong(ByteBuf buf, long value)
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            buf.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    public static long readVarLong(ByteBuf buf)
+    {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7)
+        {
+            final byte b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("PacketCodec: varlong is longer than 10 bytes");
+    }
+
+    public static void writeSignedVarLong(ByteBuf buf, long value)
+    {
+        writeVarLong(buf, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readSignedVarLong(ByteBuf buf)
+    {
+        final long value = readVarLong(buf);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    //==========================
+    //== Positions ==
+    //==========================
+
+    /**
+     * Writes a block position as the chunk, the position inside the chunk and y.
+     * Positions within 1000 blocks of spawn take 4 to 5 bytes rather than 12.
+     */
+    public static void writeBlockPos(ByteBuf buf, int x, int y, int z)
+    {
+        writeSignedVarInt(buf, x >> 4);
+        writeSignedVarInt(buf, z >> 4);
+        buf.writeByte((x & 15) << 4 | (z & 15));
+        writeSignedVarInt(buf, y);
+    }
+
+    public static ChunkPosition readBlockPos(ByteBuf buf)
+    {
+        final int chunkX = readSignedVarInt(buf);
+        final int chunkZ = readSignedVarInt(buf);
+        final int local = buf.readUnsignedByte();
+        final int y = readSignedVarInt(buf);
+        return new ChunkPosition(chunkX << 4 | local >> 4, y, chunkZ << 4 | local & 15);
+    }
+
+    /**
+     * Writes a decimal value as a fixed point number
+     *
+     * @param value - value to write
+     * @param scale - steps per unit, such as {@link #POSITION_SCALE}, the value is rounded to the nearest step
+     */
+    public static void writeFixed(ByteBuf buf, double value, int scale)
+    {
+        writeSignedVarLong(buf, Math.round(value * scale));
+    }
+
+    public static double readFixed(ByteBuf buf, int scale)
+    {
+        return readSignedVarLong(buf) / (double) scale;
+    }
+
+    //==========================
+    //== Strings ==
+    //==========================
+
+    /**
+     * Writes a string as its ID in {@link StringTable#SERVER}, or in full if
+     * it is not in the table. Only for packets sent to clients.
+     */
+    public static void writeTableString(ByteBuf buf, String value)
+    {
+        final int id = StringTable.SERVER.getID(value);
+        writeVarInt(buf, id);
+        if (id == 0)
+        {
+            ByteBufUtils.writeUTF8String(buf, value);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeTableString(ByteBuf, String)}
+     *
+     * @return string, null if the ID is not in {@link StringTable#CLIENT}
+     */
+    public static String readTableString(ByteBuf buf)
+    {
+        final int id = readVarInt(buf);
+        if (id == 0)
+        {
+            return ByteBufUtils.readUTF8String(buf);
+        }
+        return StringTable.CLIENT.get(id);
+    }
+}
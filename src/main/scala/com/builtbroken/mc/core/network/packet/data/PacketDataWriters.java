@@ -0,0 +1,208 @@
+package com.builtbroken.mc.core.network.packet.data;
+
+import com.builtbroken.jlib.data.network.IByteBufWriter;
+import com.builtbroken.jlib.data.vector.IPos2D;
+import com.builtbroken.jlib.data.vector.IPos3D;
+import com.builtbroken.mc.api.ISave;
+import com.builtbroken.mc.core.Engine;
+import cpw.mods.fml.common.network.ByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.FluidTank;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Writers used by {@link com.builtbroken.mc.core.network.packet.PacketType#add(Object)} to turn objects into packet data.
+ * <p>
+ * The writer for a class is found once, by checking the registered types in order, then cached
+ * so later writes of the same class skip the lookup. Code sending a lot of packets can hold
+ * the writer from {@link #get(Class)}, or use the typed write methods of the packet, to skip
+ * even the cache.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class PacketDataWriters
+{
+    /** Used for types without a writer, writes nothing */
+    public static final IPacketDataWriter NONE = (object, buf) -> {};
+
+    /** Registered types, checked in order so the first match wins */
+    private static final List<Entry> types = new ArrayList();
+    /** Class to resolved writer */
+    private static final Map<Class, IPacketDataWriter> cache = new ConcurrentHashMap();
+
+    static
+    {
+        //Same order as the old instanceof checks so objects matching several types write the same
+        register(Consumer.class, (object, buf) -> object.accept(buf));
+        register(Collection.class, (object, buf) -> {
+            for (Object o : object)
+            {
+                write(o, buf);
+            }
+        });
+        register(Object[].class, (object, buf) -> {
+            for (Object o : object)
+            {
+                write(o, buf);
+            }
+        });
+        register(Integer.class, (object, buf) -> buf.writeInt(object));
+        register(Float.class, (object, buf) -> buf.writeFloat(object));
+        register(Double.class, (object, buf) -> buf.writeDouble(object));
+        register(Short.class, (object, buf) -> buf.writeShort(object));
+        register(Long.class, (object, buf) -> buf.writeLong(object));
+        register(Byte.class, (object, buf) -> buf.writeByte(object));
+        register(Boolean.class, (object, buf) -> buf.writeBoolean(object));
+        register(String.class, (object, buf) -> ByteBufUtils.writeUTF8String(buf, object));
+        register(IByteBufWriter.class, (object, buf) -> object.writeBytes(buf));
+        register(IPos3D.class, (object, buf) -> {
+            buf.writeDouble(object.x());
+            buf.writeDouble(object.y());
+            buf.writeDouble(object.z());
+        });
+        register(IPos2D.class, (object, buf) -> {
+            buf.writeDouble(object.x());
+            buf.writeDouble(object.y());
+        });
+        register(NBTTagCompound.class, (object, buf) -> ByteBufUtils.writeTag(buf, object));
+        register(FluidTank.class, (object, buf) -> ByteBufUtils.writeTag(buf, object.writeToNBT(new NBTTagCompound())));
+        register(FluidStack.class, (object, buf) -> ByteBufUtils.writeTag(buf, object.writeToNBT(new NBTTagCompound())));
+        register(ItemStack.class, (object, buf) -> ByteBufUtils.writeItemStack(buf, object));
+        register(ISave.class, (object, buf) -> ByteBufUtils.writeTag(buf, object.save(new NBTTagCompound())));
+        register(Enum.class, (object, buf) -> buf.writeInt(object.ordinal()));
+
+        //Primitive arrays, written one value after the other like object arrays
+        register(byte[].class, (object, buf) -> buf.writeBytes(object));
+        register(int[].class, (object, buf) -> {
+            for (int i : object)
+            {
+                buf.writeInt(i);
+            }
+        });
+        register(short[].class, (object, buf) -> {
+            for (short s : object)
+            {
+                buf.writeShort(s);
+            }
+        });
+        register(long[].class, (object, buf) -> {
+            for (long l : object)
+            {
+                buf.writeLong(l);
+            }
+        });
+        register(float[].class, (object, buf) -> {
+            for (float f : object)
+            {
+                buf.writeFloat(f);
+            }
+        });
+        register(double[].class, (object, buf) -> {
+            for (double d : object)
+            {
+                buf.writeDouble(d);
+            }
+        });
+        register(boolean[].class, (object, buf) -> {
+            for (boolean b : object)
+            {
+                buf.writeBoolean(b);
+            }
+        });
+    }
+
+    private PacketDataWriters()
+    {
+    }
+
+    /**
+     * Registers a writer for a type and any type that extends it. Types
+     * registered before it take priority.
+     *
+     * @param type   - class or interface
+     * @param writer - writer
+     */
+    public static synchronized <T> void register(Class<T> type, IPacketDataWriter<? super T> writer)
+    {
+        for (Entry entry : types)
+        {
+            if (entry.type == type)
+            {
+                Engine.logger().error("PacketDataWriters: writer for " + type + " is being replaced by " + writer);
+                types.remove(entry);
+                break;
+            }
+        }
+        types.add(new Entry(type, writer));
+        //Resolved writers may now match the new type
+        cache.clear();
+    }
+
+    /**
+     * Gets the writer for the class
+     *
+     * @param type - class of the object to write
+     * @return writer, {@link #NONE} if nothing matches
+     */
+    public static <T> IPacketDataWriter<T> get(Class<T> type)
+    {
+        IPacketDataWriter writer = cache.get(type);
+        if (writer == null)
+        {
+            writer = resolve(type);
+            cache.put(type, writer);
+        }
+        return writer;
+    }
+
+    private static synchronized IPacketDataWriter resolve(Class type)
+    {
+        for (Entry entry : types)
+        {
+            if (entry.type.isAssignableFrom(type))
+            {
+                return entry.writer;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Writes the object using the writer for its class
+     *
+     * @param object - object to write
+     * @param buf    - buffer to write to
+     */
+    public static void write(Object object, ByteBuf buf)
+    {
+        if (object != null)
+        {
+            get((Class) object.getClass()).write(object, buf);
+        }
+        else
+        {
+            Engine.logger().error("PacketDataWriters: can not write null to packet", new NullPointerException());
+        }
+    }
+
+    private static final class Entry
+    {
+        final Class type;
+        final IPacketDataWriter writer;
+
+        Entry(Class type, IPacketDataWriter writer)
+        {
+            this.type = type;
+            this.writer = writer;
+        }
+    }
+}
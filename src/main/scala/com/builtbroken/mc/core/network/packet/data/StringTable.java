@@ -0,0 +1,147 @@
+package com.builtbroken.mc.core.network.packet.data;
+
+import com.builtbroken.mc.api.explosive.IExplosiveHandler;
+import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.core.network.packet.PacketStringTable;
+import com.builtbroken.mc.framework.explosive.ExplosiveRegistry;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.PlayerEvent;
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table of strings, such as explosive IDs, that packets send as a small ID rather
+ * than in full, see {@link PacketCodec#writeTableString(io.netty.buffer.ByteBuf, String)}.
+ * <p>
+ * The server table is built from {@link ExplosiveRegistry} and {@link #register(String)} when
+ * the first player logs in, then sent once to each player as they log in. The table does not
+ * change after it is built, strings not in it are sent in full. {@link #SERVER} is registered to
+ * the FML bus by {@link com.builtbroken.mc.core.network.netty.PacketManager#init()} so no player
+ * can join before the listener exists.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class StringTable
+{
+    /** Table used to write packets */
+    public static final StringTable SERVER = new StringTable(true);
+    /** Table received from the server, used to read packets */
+    public static final StringTable CLIENT = new StringTable(false);
+
+    /** Extra strings to add to the server table */
+    private static final Set<String> registered = new LinkedHashSet();
+
+    /** Strings in the table, ID is index + 1 as 0 means not in the table */
+    private volatile String[] values = new String[0];
+    private volatile Map<String, Integer> ids = Collections.emptyMap();
+
+    /** True if the table is built and sent by this side */
+    private final boolean server;
+    /** Set once the server table is built, it must not change after players have been sent it */
+    private boolean built;
+
+    protected StringTable(boolean server)
+    {
+        this.server = server;
+    }
+
+    /**
+     * Adds a string to be sent as an ID, must be called before
+     * the server starts
+     *
+     * @param value - string often sent to clients
+     */
+    public static synchronized void register(String value)
+    {
+        registered.add(value);
+    }
+
+    /**
+     * Gets the ID of the string
+     *
+     * @param value - string
+     * @return ID, 0 if not in the table
+     */
+    public int getID(String value)
+    {
+        final Integer id = value != null ? ids.get(value) : null;
+        return id != null ? id : 0;
+    }
+
+    /**
+     * Gets the string for the ID
+     *
+     * @param id - ID from {@link #getID(String)}
+     * @return string, null if not in the table
+     */
+    public String get(int id)
+    {
+        final String[] values = this.values;
+        return id > 0 && id <= values.length ? values[id - 1] : null;
+    }
+
+    /**
+     * Replaces the content of the table
+     *
+     * @param values - strings in ID order
+     */
+    public void set(String[] values)
+    {
+        Map<String, Integer> ids = new HashMap();
+        for (int i = 0; i < values.length; i++)
+        {
+            ids.put(values[i], i + 1);
+        }
+        this.ids = ids;
+        this.values = values;
+    }
+
+    public String[] getValues()
+    {
+        return values;
+    }
+
+    public int size()
+    {
+        return values.length;
+    }
+
+    /** Collects the strings for the server table */
+    protected static synchronized String[] collect()
+    {
+        Set<String> values = new LinkedHashSet();
+        for (IExplosiveHandler handler : ExplosiveRegistry.getExplosives())
+        {
+            if (handler.getID() != null)
+            {
+                values.add(handler.getID());
+            }
+        }
+        values.addAll(registered);
+        return values.toArray(new String[values.size()]);
+    }
+
+    @SubscribeEvent
+    public void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event)
+    {
+        if (server && event.player instanceof EntityPlayerMP)
+        {
+            final String[] values;
+            synchronized (this)
+            {
+                if (!built)
+                {
+                    set(collect());
+                    built = true;
+                }
+                values = this.values;
+            }
+            Engine.packetHandler.sendToPlayer(new PacketStringTable(values), (EntityPlayerMP) event.player);
+        }
+    }
+}
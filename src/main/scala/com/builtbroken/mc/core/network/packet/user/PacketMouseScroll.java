@@ -2,6 +2,7 @@ package com.builtbroken.mc.core.network.packet.user;
 
 import com.builtbroken.mc.api.data.IPacket;
 import com.builtbroken.mc.api.items.tools.IItemMouseScroll;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraft.entity.player.EntityPlayer;
@@ -35,7 +36,7 @@ public class PacketMouseScroll implements IPacket
     @Override
     public void encodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        buffer.writeInt(slot);
+        PacketCodec.writeVarInt(buffer, slot);
         buffer.writeBoolean(forward);
         buffer.writeBoolean(shift);
         buffer.writeBoolean(ctrl);
@@ -44,7 +45,7 @@ public class PacketMouseScroll implements IPacket
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf buffer)
     {
-        slot = buffer.readInt();
+        slot = PacketCodec.readVarInt(buffer);
         forward = buffer.readBoolean();
         shift = buffer.readBoolean();
         ctrl = buffer.readBoolean();
@@ -0,0 +1,24 @@
+package com.builtbroken.mc.core.network.sync;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field to be synced to clients by {@link SyncedFieldTracker}. Only fields
+ * that changed since the last sync are sent, players that have not seen the object
+ * yet get all fields.
+ * <p>
+ * Supports primitives (except char), String, ItemStack, NBTTagCompound, FluidStack
+ * and enums. Fields can not be final and each class can have at most 64 synced fields,
+ * including those of parent classes.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(value = {ElementType.FIELD})
+public @interface SyncedField
+{
+
+}
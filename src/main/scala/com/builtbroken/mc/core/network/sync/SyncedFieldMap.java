@@ -0,0 +1,412 @@
+package com.builtbroken.mc.core.network.sync;
+
+import com.builtbroken.mc.lib.helper.ReflectionUtility;
+import cpw.mods.fml.common.network.ByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.fluids.FluidStack;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fields of a class marked with {@link SyncedField}, in a fixed order so the index
+ * of a field is the same on the client and server.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SyncedFieldMap
+{
+    /** Most fields a class can sync, limited by the size of the change mask */
+    public static final int MAX_FIELDS = 64;
+
+    static final int INT = 0;
+    static final int SHORT = 1;
+    static final int BYTE = 2;
+    static final int LONG = 3;
+    static final int FLOAT = 4;
+    static final int DOUBLE = 5;
+    static final int BOOLEAN = 6;
+    static final int STRING = 7;
+    static final int ITEM = 8;
+    static final int NBT = 9;
+    static final int FLUID = 10;
+    static final int ENUM = 11;
+
+    private static final Map<Class, SyncedFieldMap> maps = new ConcurrentHashMap();
+
+    /** Synced fields, parent class fields first then sorted by name */
+    public final Field[] fields;
+    /** Data type of each field */
+    final int[] types;
+
+    public SyncedFieldMap(Class clazz)
+    {
+        List<Field> found = new ArrayList();
+        for (Field field : ReflectionUtility.getAllFields(clazz))
+        {
+            if (field.isAnnotationPresent(SyncedField.class))
+            {
+                if (Modifier.isFinal(field.getModifiers()) || Modifier.isStatic(field.getModifiers()))
+                {
+                    throw new IllegalArgumentException("SyncedField can not be used on final or static field " + field);
+                }
+                field.setAccessible(true);
+                found.add(field);
+            }
+        }
+        if (found.size() > MAX_FIELDS)
+        {
+            throw new IllegalArgumentException(clazz + " has " + found.size() + " synced fields, only " + MAX_FIELDS + " are supported");
+        }
+        //Field order from reflection is not promised to be the same between runs
+        found.sort(Comparator.comparingInt((Field field) -> getDepth(field.getDeclaringClass())).thenComparing(Field::getName));
+
+        fields = found.toArray(new Field[found.size()]);
+        types = new int[fields.length];
+        for (int i = 0; i < fields.length; i++)
+        {
+            types[i] = getType(fields[i]);
+        }
+    }
+
+    /**
+     * Gets the map for the class, created the first time it is used
+     *
+     * @param clazz - class to check for {@link SyncedField}
+     * @return map, empty if the class has no synced fields
+     */
+    public static SyncedFieldMap get(Class clazz)
+    {
+        SyncedFieldMap map = maps.get(clazz);
+        if (map == null)
+        {
+            map = new SyncedFieldMap(clazz);
+            maps.put(clazz, map);
+        }
+        return map;
+    }
+
+    public int size()
+    {
+        return fields.length;
+    }
+
+    public boolean isEmpty()
+    {
+        return fields.length == 0;
+    }
+
+    /** Mask with a bit set for every field */
+    public long getFullMask()
+    {
+        return fields.length == MAX_FIELDS ? -1L : (1L << fields.length) - 1;
+    }
+
+    /**
+     * Writes the change mask using the fewest bytes that fit every field
+     *
+     * @param buf  - buffer to write to
+     * @param mask - changed fields
+     */
+    public void writeMask(ByteBuf buf, long mask)
+    {
+        if (fields.length <= 8)
+        {
+            buf.writeByte((int) mask);
+        }
+        else if (fields.length <= 16)
+        {
+            buf.writeShort((int) mask);
+        }
+        else if (fields.length <= 32)
+        {
+            buf.writeInt((int) mask);
+        }
+        else
+        {
+            buf.writeLong(mask);
+        }
+    }
+
+    public long readMask(ByteBuf buf)
+    {
+        if (fields.length <= 8)
+        {
+            return buf.readUnsignedByte();
+        }
+        else if (fields.length <= 16)
+        {
+            return buf.readUnsignedShort();
+        }
+        else if (fields.length <= 32)
+        {
+            return buf.readUnsignedInt();
+        }
+        return buf.readLong();
+    }
+
+    boolean isPrimitive(int index)
+    {
+        return types[index] <= BOOLEAN;
+    }
+
+    /** Value of a primitive field as bits, used to check for changes without boxing */
+    long getBits(Object owner, int index) throws IllegalAccessException
+    {
+        final Field field = fields[index];
+        switch (types[index])
+        {
+            case INT:
+                return field.getInt(owner);
+            case SHORT:
+                return field.getShort(owner);
+            case BYTE:
+                return field.getByte(owner);
+            case LONG:
+                return field.getLong(owner);
+            case FLOAT:
+                return Float.floatToIntBits(field.getFloat(owner));
+            case DOUBLE:
+                return Double.doubleToLongBits(field.getDouble(owner));
+            default:
+                return field.getBoolean(owner) ? 1 : 0;
+        }
+    }
+
+    /** Value of an object field */
+    Object get(Object owner, int index) throws IllegalAccessException
+    {
+        return fields[index].get(owner);
+    }
+
+    /** Checks if two values of an object field are the same */
+    boolean isEqual(int index, Object a, Object b)
+    {
+        switch (types[index])
+        {
+            case ITEM:
+                return ItemStack.areItemStacksEqual((ItemStack) a, (ItemStack) b);
+            case FLUID:
+                return a == null ? b == null : b != null && ((FluidStack) a).isFluidStackIdentical((FluidStack) b);
+            default:
+                return Objects.equals(a, b);
+        }
+    }
+
+    /** Copies the value of an object field so later edits to it are seen as changes */
+    Object copy(int index, Object value)
+    {
+        if (value != null)
+        {
+            switch (types[index])
+            {
+                case ITEM:
+                    return ((ItemStack) value).copy();
+                case NBT:
+                    return ((NBTTagCompound) value).copy();
+                case FLUID:
+                    return ((FluidStack) value).copy();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Writes the value of a field
+     *
+     * @param owner - object the field is in
+     * @param index - index of the field
+     * @param buf   - buffer to write to
+     */
+    public void write(Object owner, int index, ByteBuf buf) throws IllegalAccessException
+    {
+        final Field field = fields[index];
+        switch (types[index])
+        {
+            case INT:
+                buf.writeInt(field.getInt(owner));
+                return;
+            case SHORT:
+                buf.writeShort(field.getShort(owner));
+                return;
+            case BYTE:
+                buf.writeByte(field.getByte(owner));
+                return;
+            case LONG:
+                buf.writeLong(field.getLong(owner));
+                return;
+            case FLOAT:
+                buf.writeFloat(field.getFloat(owner));
+                return;
+            case DOUBLE:
+                buf.writeDouble(field.getDouble(owner));
+                return;
+            case BOOLEAN:
+                buf.writeBoolean(field.getBoolean(owner));
+                return;
+        }
+
+        //Objects start with a flag for null
+        final Object value = field.get(owner);
+        buf.writeBoolean(value != null);
+        if (value != null)
+        {
+            switch (types[index])
+            {
+                case STRING:
+                    ByteBufUtils.writeUTF8String(buf, (String) value);
+                    break;
+                case ITEM:
+                    ByteBufUtils.writeItemStack(buf, (ItemStack) value);
+                    break;
+                case NBT:
+                    ByteBufUtils.writeTag(buf, (NBTTagCompound) value);
+                    break;
+                case FLUID:
+                    ByteBufUtils.writeTag(buf, ((FluidStack) value).writeToNBT(new NBTTagCompound()));
+                    break;
+                case ENUM:
+                    buf.writeShort(((Enum) value).ordinal());
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads the value of a field
+     *
+     * @param owner - object the field is in
+     * @param index - index of the field
+     * @param buf   - buffer to read from
+     */
+    public void read(Object owner, int index, ByteBuf buf) throws IllegalAccessException
+    {
+        final Field field = fields[index];
+        switch (types[index])
+        {
+            case INT:
+                field.setInt(owner, buf.readInt());
+                return;
+            case SHORT:
+                field.setShort(owner, buf.readShort());
+                return;
+            case BYTE:
+                field.setByte(owner, buf.readByte());
+                return;
+            case LONG:
+                field.setLong(owner, buf.readLong());
+                return;
+            case FLOAT:
+                field.setFloat(owner, buf.readFloat());
+                return;
+            case DOUBLE:
+                field.setDouble(owner, buf.readDouble());
+                return;
+            case BOOLEAN:
+                field.setBoolean(owner, buf.readBoolean());
+                return;
+        }
+
+        Object value = null;
+        if (buf.readBoolean())
+        {
+            switch (types[index])
+            {
+                case STRING:
+                    value = ByteBufUtils.readUTF8String(buf);
+                    break;
+                case ITEM:
+                    value = ByteBufUtils.readItemStack(buf);
+                    break;
+                case NBT:
+                    value = ByteBufUtils.readTag(buf);
+                    break;
+                case FLUID:
+                    value = FluidStack.loadFluidStackFromNBT(ByteBufUtils.readTag(buf));
+                    break;
+                case ENUM:
+                    value = field.getType().getEnumConstants()[buf.readShort()];
+                    break;
+            }
+        }
+        field.set(owner, value);
+    }
+
+    private static int getType(Field field)
+    {
+        final Class type = field.getType();
+        if (type == int.class)
+        {
+            return INT;
+        }
+        else if (type == short.class)
+        {
+            return SHORT;
+        }
+        else if (type == byte.class)
+        {
+            return BYTE;
+        }
+        else if (type == long.class)
+        {
+            return LONG;
+        }
+        else if (type == float.class)
+        {
+            return FLOAT;
+        }
+        else if (type == double.class)
+        {
+            return DOUBLE;
+        }
+        else if (type == boolean.class)
+        {
+            return BOOLEAN;
+        }
+        else if (type == String.class)
+        {
+            return STRING;
+        }
+        else if (type == ItemStack.class)
+        {
+            return ITEM;
+        }
+        else if (type == NBTTagCompound.class)
+        {
+            return NBT;
+        }
+        else if (type == FluidStack.class)
+        {
+            return FLUID;
+        }
+        else if (type.isEnum())
+        {
+            return ENUM;
+        }
+        throw new IllegalArgumentException("SyncedField does not support type " + type + " used by " + field);
+    }
+
+    private static int getDepth(Class clazz)
+    {
+        int depth = 0;
+        while ((clazz = clazz.getSuperclass()) != null)
+        {
+            depth++;
+        }
+        return depth;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SyncedFieldMap[" + fields.length + "]";
+    }
+}
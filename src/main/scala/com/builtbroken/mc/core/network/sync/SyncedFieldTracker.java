@@ -0,0 +1,255 @@
+package com.builtbroken.mc.core.network.sync;
+
+import com.builtbroken.mc.api.data.IPacket;
+import com.builtbroken.mc.core.Engine;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.management.PlayerManager;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Tracks changes to the {@link SyncedField}s of an object so only changed fields
+ * are sent to clients.
+ * <p>
+ * The values sent last are kept and compared on each {@link #getChanges()}. Changed
+ * fields are sent as a mask followed by the new values, see {@link #writeChanges(ByteBuf, long)}.
+ * Players are tracked so those that have not seen the object yet, or stopped watching it,
+ * get a full packet instead.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SyncedFieldTracker
+{
+    public final Object owner;
+    public final SyncedFieldMap map;
+
+    /** Last sent values of primitive fields */
+    private long[] sentBits;
+    /** Last sent values of object fields */
+    private Object[] sentObjects;
+
+    /** Players that have been sent the full state */
+    private final Set<EntityPlayerMP> syncedPlayers = Collections.newSetFromMap(new WeakHashMap());
+
+    public SyncedFieldTracker(Object owner)
+    {
+        this.owner = owner;
+        this.map = SyncedFieldMap.get(owner.getClass());
+    }
+
+    /**
+     * Checks the fields for changes since the last call and
+     * stores the current values as sent.
+     *
+     * @return mask of changed fields, first call returns all fields
+     */
+    public long getChanges()
+    {
+        long changes = 0;
+        try
+        {
+            final boolean first = sentBits == null;
+            if (first)
+            {
+                sentBits = new long[map.size()];
+                sentObjects = new Object[map.size()];
+            }
+            for (int i = 0; i < map.size(); i++)
+            {
+                if (map.isPrimitive(i))
+                {
+                    final long bits = map.getBits(owner, i);
+                    if (first || bits != sentBits[i])
+                    {
+                        sentBits[i] = bits;
+                        changes |= 1L << i;
+                    }
+                }
+                else
+                {
+                    final Object value = map.get(owner, i);
+                    if (first || !map.isEqual(i, value, sentObjects[i]))
+                    {
+                        sentObjects[i] = map.copy(i, value);
+                        changes |= 1L << i;
+                    }
+                }
+            }
+        }
+        catch (IllegalAccessException e)
+        {
+            Engine.logger().error("SyncedFieldTracker: failed to check fields of " + owner, e);
+        }
+        return changes;
+    }
+
+    /**
+     * Writes the mask followed by the values of the changed fields
+     *
+     * @param buf     - buffer to write to
+     * @param changes - mask from {@link #getChanges()}
+     */
+    public void writeChanges(ByteBuf buf, long changes)
+    {
+        map.writeMask(buf, changes);
+        try
+        {
+            for (int i = 0; i < map.size(); i++)
+            {
+                if ((changes & (1L << i)) != 0)
+                {
+                    map.write(owner, i, buf);
+                }
+            }
+        }
+        catch (IllegalAccessException e)
+        {
+            Engine.logger().error("SyncedFieldTracker: failed to write fields of " + owner, e);
+        }
+    }
+
+    /**
+     * Reads data written by {@link #writeChanges(ByteBuf, long)}
+     *
+     * @param buf - buffer to read from
+     * @return mask of fields that were read
+     */
+    public long readChanges(ByteBuf buf)
+    {
+        final long changes = map.readMask(buf);
+        try
+        {
+            for (int i = 0; i < map.size(); i++)
+            {
+                if ((changes & (1L << i)) != 0)
+                {
+                    map.read(owner, i, buf);
+                }
+            }
+        }
+        catch (IllegalAccessException e)
+        {
+            Engine.logger().error("SyncedFieldTracker: failed to read fields of " + owner, e);
+        }
+        return changes;
+    }
+
+    /**
+     * Writes every field, without a mask
+     *
+     * @param buf - buffer to write to
+     */
+    public void writeAll(ByteBuf buf)
+    {
+        try
+        {
+            for (int i = 0; i < map.size(); i++)
+            {
+                map.write(owner, i, buf);
+            }
+        }
+        catch (IllegalAccessException e)
+        {
+            Engine.logger().error("SyncedFieldTracker: failed to write fields of " + owner, e);
+        }
+    }
+
+    /**
+     * Reads data written by {@link #writeAll(ByteBuf)}
+     *
+     * @param buf - buffer to read from
+     */
+    public void readAll(ByteBuf buf)
+    {
+        try
+        {
+            for (int i = 0; i < map.size(); i++)
+            {
+                map.read(owner, i, buf);
+            }
+        }
+        catch (IllegalAccessException e)
+        {
+            Engine.logger().error("SyncedFieldTracker: failed to read fields of " + owner, e);
+        }
+    }
+
+    /**
+     * Sends changed fields to players watching the chunk. The change packet is encoded
+     * once for all of them. Players that have not been sent the full state are sent
+     * a full packet instead.
+     *
+     * @param world       - world the object is in
+     * @param chunkX      - chunk the object is in
+     * @param chunkZ      - chunk the object is in
+     * @param deltaPacket - creates the packet the changes are added to
+     * @param fullPacket  - creates the full packet for a player, null to skip the player
+     */
+    public void sendChanges(World world, int chunkX, int chunkZ, Supplier<IPacket> deltaPacket, Function<EntityPlayerMP, IPacket> fullPacket)
+    {
+        if (world instanceof WorldServer)
+        {
+            final PlayerManager playerManager = ((WorldServer) world).getPlayerManager();
+
+            //Players that stopped watching get a full packet if they come back
+            syncedPlayers.removeIf(player -> player.worldObj != world || !playerManager.isPlayerWatchingChunk(player, chunkX, chunkZ));
+
+            final long changes = getChanges();
+            List<EntityPlayerMP> deltaPlayers = null;
+            for (Object object : world.playerEntities)
+            {
+                if (object instanceof EntityPlayerMP && playerManager.isPlayerWatchingChunk((EntityPlayerMP) object, chunkX, chunkZ))
+                {
+                    final EntityPlayerMP player = (EntityPlayerMP) object;
+                    if (!syncedPlayers.contains(player))
+                    {
+                        IPacket packet = fullPacket.apply(player);
+                        if (packet != null)
+                        {
+                            Engine.packetHandler.sendToPlayer(packet, player);
+                            syncedPlayers.add(player);
+                        }
+                    }
+                    else if (changes != 0)
+                    {
+                        if (deltaPlayers == null)
+                        {
+                            deltaPlayers = new ArrayList();
+                        }
+                        deltaPlayers.add(player);
+                    }
+                }
+            }
+
+            if (deltaPlayers != null)
+            {
+                IPacket packet = deltaPacket.get();
+                packet.addWriter(buf -> writeChanges(buf, changes));
+                Engine.packetHandler.sendToPlayers(packet, deltaPlayers);
+            }
+        }
+    }
+
+    /**
+     * Forgets the players sent the full state, they will be sent it again
+     */
+    public void clearPlayers()
+    {
+        syncedPlayers.clear();
+    }
+
+    /** Number of players that have been sent the full state */
+    public int getPlayerCount()
+    {
+        return syncedPlayers.size();
+    }
+}
@@ -16,12 +16,20 @@ import com.builtbroken.mc.api.explosive.IBlast;
 import com.builtbroken.mc.api.explosive.IExplosiveHandler;
 import com.builtbroken.mc.core.Engine;
 import com.builtbroken.mc.framework.explosive.ExplosiveRegistry;
+import com.builtbroken.mc.framework.thread.action.metrics.ActionMetrics;
+import com.builtbroken.mc.framework.thread.action.metrics.WorldChangeMetrics;
 import com.builtbroken.mc.imp.transform.vector.Location;
 import com.builtbroken.mc.imp.transform.vector.Pos;
+import com.builtbroken.mc.lib.helper.EventListenerHelper;
 import com.builtbroken.mc.lib.world.edit.BlockEdit;
+import com.builtbroken.mc.lib.world.edit.EditBuffer;
+import com.builtbroken.mc.lib.world.edit.IBulkPlacementAction;
+import com.builtbroken.mc.lib.world.edit.IEditBatchAction;
 import com.builtbroken.mc.prefab.explosive.blast.BlastBasic;
+import cpw.mods.fml.common.eventhandler.Event;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import io.netty.buffer.ByteBuf;
+import net.minecraft.block.Block;
 import net.minecraft.client.renderer.RenderGlobal;
 import net.minecraft.enchantment.EnchantmentProtection;
 import net.minecraft.entity.Entity;
@@ -39,12 +47,13 @@ import net.minecraftforge.common.util.ForgeDirection;
 import net.minecraftforge.event.world.WorldEvent;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * Prefab for implement explosive blast actions
  */
-public abstract class Blast<B extends Blast> implements IWorldChangeAction, IWorldPosition, IWorldChangeAudio, IWorldChangeGraphics, IBlast, IByteBufReader, IByteBufWriter
+public abstract class Blast<B extends Blast> implements IWorldChangeAction, IBulkPlacementAction, IEditBatchAction, IWorldPosition, IWorldChangeAudio, IWorldChangeGraphics, IBlast, IByteBufReader, IByteBufWriter
 {
     public static final int NO_THREAD = -1;
     public static final int INSTANT_THREAD = -2;
@@ -67,10 +76,16 @@ public abstract class Blast<B extends Blast> implements IWorldChangeAction, IWor
     public float eUnitPerBlock = 5F;
     /** Used to stop the explosion mid action */
     public boolean killExplosion = false;
+    /** Places blocks in bulk per chunk, skips block physics. See {@link IBulkPlacementAction} */
+    public boolean bulkPlacement = false;
+    /** Collects edits into a compact {@link EditBuffer} instead of a list of {@link BlockEdit} */
+    public boolean useEditBuffer = false;
 
     /** Cause of the explosion */
     public TriggerCause cause = new TriggerCause.TriggerCauseRedstone(ForgeDirection.UNKNOWN, 15);
     private NBTTagCompound additionBlastData;
+    /** Metrics for this type of blast, see {@link #getMetrics()} */
+    private ActionMetrics metrics;
 
     public final IExplosiveHandler explosiveHandler;
 
@@ -200,11 +215,39 @@ public abstract class Blast<B extends Blast> implements IWorldChangeAction, IWor
     @Override
     public List<IWorldEdit> getEffectedBlocks()
     {
-        List<IWorldEdit> list = new ArrayList<IWorldEdit>();
+        List<IWorldEdit> list = createEditList();
         getEffectedBlocks(list);
         return list;
     }
 
+    /**
+     * Creates the list used to collect edits. When {@link #useEditBuffer} is
+     * set this is an {@link EditBuffer}, use {@link #addEdit(List, int, int, int, Block, int, float)}
+     * to write to it without creating an edit object per block.
+     *
+     * @return new list
+     */
+    public List<IWorldEdit> createEditList()
+    {
+        return useEditBuffer ? new EditBuffer(oldWorld, 256) : new ArrayList<IWorldEdit>();
+    }
+
+    /**
+     * Adds an edit to the list, packs it directly if the list is an {@link EditBuffer}
+     *
+     * @param list   - list to add to
+     * @param x      - block x
+     * @param y      - block y
+     * @param z      - block z
+     * @param block  - block to place
+     * @param meta   - meta to place
+     * @param energy - energy used to place the block
+     */
+    protected void addEdit(final List<IWorldEdit> list, int x, int y, int z, Block block, int meta, float energy)
+    {
+        EditBuffer.add(list, oldWorld, x, y, z, block, meta, energy);
+    }
+
     /**
      * Called by {@link #getEffectedBlocks()} to make processing
      * a list of blocks eaiser.
@@ -226,6 +269,73 @@ public abstract class Blast<B extends Blast> implements IWorldChangeAction, IWor
         }
     }
 
+    @Override
+    public boolean shouldUseBulkPlacement()
+    {
+        return bulkPlacement;
+    }
+
+    @Override
+    public boolean preBulkPlace(final IWorldEdit vec)
+    {
+        return vec.hasChanged() && prePlace(vec);
+    }
+
+    @Override
+    public void postBulkPlace(final IWorldEdit vec)
+    {
+        postPlace(vec);
+    }
+
+    @Override
+    public boolean shouldBatchEdits()
+    {
+        return EventListenerHelper.hasListeners(BlastEventEditBatch.Pre.class) || EventListenerHelper.hasListeners(BlastEventEditBatch.Post.class);
+    }
+
+    @Override
+    public BitSet preEditBatch(final List<IWorldEdit> edits)
+    {
+        if (EventListenerHelper.hasListeners(BlastEventEditBatch.Pre.class))
+        {
+            BlastEventEditBatch.Pre event = new BlastEventEditBatch.Pre(this, oldWorld, edits);
+            postEvent(event);
+            return event.getSkipped();
+        }
+        return null;
+    }
+
+    @Override
+    public void postEditBatch(final List<IWorldEdit> edits, final BitSet skipped)
+    {
+        if (EventListenerHelper.hasListeners(BlastEventEditBatch.Post.class))
+        {
+            postEvent(new BlastEventEditBatch.Post(this, oldWorld, edits, skipped));
+        }
+    }
+
+    /**
+     * Posts the event and counts it in the blast's metrics
+     *
+     * @param event - event to post
+     * @return true if the event was canceled
+     */
+    protected boolean postEvent(final Event event)
+    {
+        getMetrics().onEventPosted();
+        return MinecraftForge.EVENT_BUS.post(event);
+    }
+
+    /** Metrics for this type of blast */
+    public ActionMetrics getMetrics()
+    {
+        if (metrics == null)
+        {
+            metrics = WorldChangeMetrics.get(this);
+        }
+        return metrics;
+    }
+
     /**
      * Called to do post block placement events
      *
@@ -233,13 +343,17 @@ public abstract class Blast<B extends Blast> implements IWorldChangeAction, IWor
      */
     protected void postPlace(final IWorldEdit vec)
     {
+        //Events are only created if something listens for them
         if (vec.getNewBlock() == Blocks.air)
         {
-            MinecraftForge.EVENT_BUS.post(new BlastEventBlockRemoved.Post(this, oldWorld, vec.getBlock(), vec.getBlockMetadata(), (int) vec.x(), (int) vec.y(), (int) vec.z()));
+            if (EventListenerHelper.hasListeners(BlastEventBlockRemoved.Post.class))
+            {
+                postEvent(new BlastEventBlockRemoved.Post(this, oldWorld, vec.getBlock(), vec.getBlockMetadata(), (int) vec.x(), (int) vec.y(), (int) vec.z()));
+            }
         }
-        else
+        else if (EventListenerHelper.hasListeners(BlastEventBlockReplaced.Post.class))
         {
-            MinecraftForge.EVENT_BUS.post(new BlastEventBlockReplaced.Post(this, oldWorld, vec.getBlock(), vec.getBlockMetadata(), vec.getNewBlock(), vec.getNewMeta(), (int) vec.x(), (int) vec.y(), (int) vec.z()));
+            postEvent(new BlastEventBlockReplaced.Post(this, oldWorld, vec.getBlock(), vec.getBlockMetadata(), vec.getNewBlock(), vec.getNewMeta(), (int) vec.x(), (int) vec.y(), (int) vec.z()));
         }
     }
 
@@ -255,14 +369,23 @@ public abstract class Blast<B extends Blast> implements IWorldChangeAction, IWor
         BlastEventBlockEdit event;
         if (vec.getNewBlock() == Blocks.air)
         {
+            //Events are only created if something listens for them
+            if (!EventListenerHelper.hasListeners(BlastEventBlockRemoved.Pre.class))
+            {
+                return true;
+            }
             event = new BlastEventBlockRemoved.Pre(this, oldWorld, vec.getBlock(), vec.getBlockMetadata(), (int) vec.x(), (int) vec.y(), (int) vec.z());
         }
         else
         {
+            if (!EventListenerHelper.hasListeners(BlastEventBlockReplaced.Pre.class))
+            {
+                return true;
+            }
             event = new BlastEventBlockReplaced.Pre(this, oldWorld, vec.getBlock(), vec.getBlockMetadata(), vec.getNewBlock(), vec.getNewMeta(), (int) vec.x(), (int) vec.y(), (int) vec.z());
         }
 
-        boolean result = MinecraftForge.EVENT_BUS.post(event);
+        boolean result = postEvent(event);
         if (vec instanceof BlockEdit && event instanceof BlastEventBlockReplaced.Pre)
         {
             ((BlockEdit) vec).set(((BlastEventBlockReplaced.Pre) event).newBlock, ((BlastEventBlockReplaced.Pre) event).newMeta);
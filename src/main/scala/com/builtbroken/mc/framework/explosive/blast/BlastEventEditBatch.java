@@ -0,0 +1,125 @@
+package com.builtbroken.mc.framework.explosive.blast;
+
+import com.builtbroken.mc.api.edit.IWorldEdit;
+import com.builtbroken.mc.lib.world.edit.BlockEdit;
+import cpw.mods.fml.common.eventhandler.Event;
+import net.minecraft.block.Block;
+import net.minecraft.world.World;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Fired once for each slice of edits a blast places, in place of listening to every
+ * block with {@link com.builtbroken.mc.api.event.blast.BlastEventBlockRemoved} and
+ * {@link com.builtbroken.mc.api.event.blast.BlastEventBlockReplaced}. Per block events
+ * are still fired, but only if something listens for them.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public abstract class BlastEventEditBatch extends Event
+{
+    /** Blast placing the edits */
+    public final Blast blast;
+    /** World being edited */
+    public final World world;
+    /**
+     * Edits in the slice. Edits from an {@link com.builtbroken.mc.lib.world.edit.EditBuffer}
+     * are views, changes made to them are written to the buffer.
+     */
+    public final List<IWorldEdit> edits;
+
+    /** Indexes of edits that will not be, or were not, placed */
+    protected final BitSet skipped;
+
+    public BlastEventEditBatch(Blast blast, World world, List<IWorldEdit> edits, BitSet skipped)
+    {
+        this.blast = blast;
+        this.world = world;
+        this.edits = edits;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Is the edit at the index skipped
+     *
+     * @param index - index in {@link #edits}
+     * @return true if it is not placed
+     */
+    public boolean isSkipped(int index)
+    {
+        return skipped != null && skipped.get(index);
+    }
+
+    /** Number of edits skipped */
+    public int skippedCount()
+    {
+        return skipped != null ? skipped.cardinality() : 0;
+    }
+
+    /**
+     * Called before the slice is placed. Listeners can stop edits from being placed
+     * or change the block they place.
+     */
+    public static class Pre extends BlastEventEditBatch
+    {
+        public Pre(Blast blast, World world, List<IWorldEdit> edits)
+        {
+            super(blast, world, edits, new BitSet(edits.size()));
+        }
+
+        /**
+         * Stops the edit from being placed
+         *
+         * @param index - index in {@link #edits}
+         */
+        public void cancel(int index)
+        {
+            skipped.set(index);
+        }
+
+        /** Stops all edits in the slice from being placed */
+        public void cancelAll()
+        {
+            skipped.set(0, edits.size());
+        }
+
+        /**
+         * Changes the block the edit places, only supported
+         * by {@link BlockEdit}. Other edits are cancelled.
+         *
+         * @param index - index in {@link #edits}
+         * @param block - new block
+         * @param meta  - new meta
+         */
+        public void replace(int index, Block block, int meta)
+        {
+            IWorldEdit edit = edits.get(index);
+            if (edit instanceof BlockEdit)
+            {
+                ((BlockEdit) edit).set(block, meta);
+            }
+            else
+            {
+                cancel(index);
+            }
+        }
+
+        /** Indexes of cancelled edits, null if none */
+        public BitSet getSkipped()
+        {
+            return skipped.isEmpty() ? null : skipped;
+        }
+    }
+
+    /**
+     * Called after the slice is placed
+     */
+    public static class Post extends BlastEventEditBatch
+    {
+        public Post(Blast blast, World world, List<IWorldEdit> edits, BitSet skipped)
+        {
+            super(blast, world, edits, skipped);
+        }
+    }
+}
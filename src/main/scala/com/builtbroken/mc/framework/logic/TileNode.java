@@ -13,6 +13,9 @@ import com.builtbroken.mc.core.Engine;
 import com.builtbroken.mc.core.network.IPacketIDReceiver;
 import com.builtbroken.mc.core.network.packet.PacketTile;
 import com.builtbroken.mc.core.network.packet.PacketType;
+import com.builtbroken.mc.core.network.sync.SyncedField;
+import com.builtbroken.mc.core.network.sync.SyncedFieldMap;
+import com.builtbroken.mc.core.network.sync.SyncedFieldTracker;
 import com.builtbroken.mc.framework.block.imp.IPlacementListener;
 import com.builtbroken.mc.framework.logic.imp.ITileDesc;
 import com.builtbroken.mc.imp.transform.vector.Location;
@@ -22,6 +25,7 @@ import com.builtbroken.mc.prefab.gui.ContainerDummy;
 import com.mojang.authlib.GameProfile;
 import cpw.mods.fml.common.FMLCommonHandler;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
@@ -31,11 +35,15 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.WorldServer;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
@@ -45,6 +53,14 @@ public class TileNode implements ITileNode, IPacketIDReceiver, ITileDesc, IPlace
 {
     protected static int DESCRIPTION_PACKET_ID = -1;
     protected static int GUI_PACKET_ID = -2;
+    protected static int SYNC_PACKET_ID = -3;
+
+    /** Ticks between checks of {@link SyncedField}s for changes */
+    public static int SYNC_RATE = 5;
+    /** Ticks between checks of GUI data for changes while it is changing */
+    public static int GUI_UPDATE_RATE = 3;
+    /** Most ticks between checks of GUI data, the time between checks doubles each time nothing changed */
+    public static int GUI_IDLE_UPDATE_RATE = 20;
 
     protected ITileNodeHost host;
 
@@ -53,21 +69,36 @@ public class TileNode implements ITileNode, IPacketIDReceiver, ITileDesc, IPlace
     protected String username;
     protected UUID owner;
 
+    /** Node class to if it writes description data per player, see {@link #hasPlayerDescData()} */
+    private static final Map<Class, Boolean> playerDescData = new ConcurrentHashMap();
+
     private final List<EntityPlayer> guiUsers = new ArrayList();
+    /** Last GUI data sent to each player */
+    private final Map<EntityPlayer, GuiSyncState> guiSyncStates = new HashMap();
+    /** Reused to write GUI data before it is compared to the last sent */
+    private ByteBuf guiBuffer;
+
+    /** Tracks {@link SyncedField}s, null if the node has none */
+    protected final SyncedFieldTracker syncedFields;
 
     public TileNode(String id, String mod)
     {
         this.id = id;
         this.mod = mod;
+        this.syncedFields = SyncedFieldMap.get(getClass()).isEmpty() ? null : new SyncedFieldTracker(this);
     }
 
     @Override
     public void update(long ticks)
     {
-        if (isServer() && ticks % 3 == 0)
+        if (isServer())
         {
             doUpdateGuiUsers();
         }
+        if (isServer() && syncedFields != null && ticks % SYNC_RATE == 0)
+        {
+            sendSyncedFields();
+        }
     }
 
     @Override
@@ -188,6 +219,10 @@ public class TileNode implements ITileNode, IPacketIDReceiver, ITileDesc, IPlace
         {
             if (isClient())
             {
+                if (syncedFields != null)
+                {
+                    syncedFields.readAll(buf);
+                }
                 readDescPacket(player, buf);
             }
             return true;
@@ -200,6 +235,14 @@ public class TileNode implements ITileNode, IPacketIDReceiver, ITileDesc, IPlace
             }
             return true;
         }
+        else if (id == SYNC_PACKET_ID)
+        {
+            if (isClient() && syncedFields != null)
+            {
+                onSyncedFieldsChanged(syncedFields.readChanges(buf));
+            }
+            return true;
+        }
         return false;
     }
 
@@ -216,6 +259,10 @@ public class TileNode implements ITileNode, IPacketIDReceiver, ITileDesc, IPlace
         {
             IPacket packet = getPacketForData();
             packet.add(DESCRIPTION_PACKET_ID);
+            if (syncedFields != null)
+            {
+                packet.addWriter(syncedFields::writeAll);
+            }
             packet.add(this);
             return packet;
         }
@@ -417,27 +464,109 @@ public class TileNode implements ITileNode, IPacketIDReceiver, ITileDesc, IPlace
     //==========================
 
     /**
-     * Sends the desc packet to all players around this tile
+     * Sends the desc packet to all players with the chunk of this tile loaded
+     * <p>
+     * The packet is written once and shared by all players unless
+     * {@link #writeDescPacket(EntityPlayer, ByteBuf)} is overridden, then
+     * it is written for each player.
      */
     public void sendDescPacket()
     {
-        if (world() != null && isServer())
+        if (world() != null && isServer() && world().unwrap() instanceof WorldServer)
         {
-            List<EntityPlayer> players = MinecraftServer.getServer().getConfigurationManager().playerEntityList;
+            final WorldServer world = (WorldServer) world().unwrap();
+            final int chunkX = (int) Math.floor(x()) >> 4;
+            final int chunkZ = (int) Math.floor(z()) >> 4;
 
-            for (EntityPlayer player : players)
+            if (hasPlayerDescData())
             {
-                if (player instanceof EntityPlayerMP && player.worldObj == world().unwrap())
+                for (Object object : world.playerEntities)
                 {
-                    IPacket packet = getPacketForData();
-                    packet.add(DESCRIPTION_PACKET_ID);
-                    packet.addWriter(byteBuf -> writeDescPacket(player, byteBuf));
-                    Engine.packetHandler.sendToPlayer(packet, (EntityPlayerMP) player);
+                    if (object instanceof EntityPlayerMP && world.getPlayerManager().isPlayerWatchingChunk((EntityPlayerMP) object, chunkX, chunkZ))
+                    {
+                        Engine.packetHandler.sendToPlayer(getDescPacket((EntityPlayer) object), (EntityPlayerMP) object);
+                    }
+                }
+            }
+            else
+            {
+                IPacket packet = getDescPacket();
+                if (packet != null)
+                {
+                    Engine.packetHandler.sendToAllWatchingChunk(packet, world, chunkX, chunkZ);
                 }
             }
         }
     }
 
+    /**
+     * Sends {@link SyncedField}s that changed since the last call to players
+     * watching the chunk, players that have not been sent the node yet get
+     * the full description packet.
+     */
+    public void sendSyncedFields()
+    {
+        if (world() != null && isServer() && syncedFields != null)
+        {
+            syncedFields.sendChanges(world().unwrap(), (int) Math.floor(x()) >> 4, (int) Math.floor(z()) >> 4, () -> {
+                IPacket packet = getPacketForData();
+                packet.add(SYNC_PACKET_ID);
+                return packet;
+            }, this::getDescPacket);
+        }
+    }
+
+    /**
+     * Called client side after {@link SyncedField}s were updated
+     *
+     * @param changes - mask of changed fields, see {@link SyncedFieldMap#fields} for the order
+     */
+    protected void onSyncedFieldsChanged(long changes)
+    {
+
+    }
+
+    /**
+     * Creates the description packet for the player
+     *
+     * @param player - player the packet is for
+     * @return packet
+     */
+    protected IPacket getDescPacket(EntityPlayer player)
+    {
+        IPacket packet = getPacketForData();
+        packet.add(DESCRIPTION_PACKET_ID);
+        if (syncedFields != null)
+        {
+            packet.addWriter(syncedFields::writeAll);
+        }
+        packet.addWriter(byteBuf -> writeDescPacket(player, byteBuf));
+        return packet;
+    }
+
+    /**
+     * Checks if the description packet is different for each player
+     *
+     * @return true if {@link #writeDescPacket(EntityPlayer, ByteBuf)} is overridden
+     */
+    protected boolean hasPlayerDescData()
+    {
+        Boolean result = playerDescData.get(getClass());
+        if (result == null)
+        {
+            try
+            {
+                result = getClass().getMethod("writeDescPacket", EntityPlayer.class, ByteBuf.class).getDeclaringClass() != TileNode.class;
+            }
+            catch (NoSuchMethodException e)
+            {
+                result = false;
+            }
+            playerDescData.put(getClass(), result);
+        }
+        return result;
+    }
+
     public void sendPacketToGuiUsers(IPacket packet)
     {
         if (world() != null && isServer() && packet != null)
@@ -459,11 +588,15 @@ public class TileNode implements ITileNode, IPacketIDReceiver, ITileDesc, IPlace
     }
 
     /**
-     * Called to update client's with a GUI open
+     * Called each tick to update client's with a GUI open
+     * <p>
+     * GUI data is written once per check and only sent if it is different from
+     * the data last sent to the player. Checks slow down to {@link #GUI_IDLE_UPDATE_RATE}
+     * while nothing changes, use {@link #markGuiUpdate()} to check on the next tick.
      */
     public void doUpdateGuiUsers()
     {
-        if (world() != null && isServer() && this instanceof IGuiTile)
+        if (world() != null && isServer() && this instanceof IGuiTile && !getPlayersUsing().isEmpty())
         {
             Iterator<EntityPlayer> players = getPlayersUsing().iterator();
             while (players.hasNext())
@@ -471,16 +604,66 @@ public class TileNode implements ITileNode, IPacketIDReceiver, ITileDesc, IPlace
                 EntityPlayer player = players.next();
                 if (isValidToSendGUIPacket(player))
                 {
-                    IPacket packet = getPacketForData();
-                    packet.add(GUI_PACKET_ID);
-                    packet.addWriter(byteBuf -> writeGuiPacket(player, byteBuf));
-                    Engine.packetHandler.sendToPlayer(packet, (EntityPlayerMP) player);
+                    GuiSyncState state = guiSyncStates.get(player);
+                    if (state == null || state.container != player.openContainer)
+                    {
+                        //New or reopened GUI, needs all data
+                        state = new GuiSyncState(player.openContainer);
+                        guiSyncStates.put(player, state);
+                    }
+                    if (state.tick())
+                    {
+                        updateGuiUser(player, state);
+                    }
                 }
                 else
                 {
                     players.remove();
+                    guiSyncStates.remove(player);
                 }
             }
+
+            //Players removed from the list elsewhere, checked every time as one may leave while another joins
+            guiSyncStates.keySet().retainAll(getPlayersUsing());
+        }
+        else if (!guiSyncStates.isEmpty())
+        {
+            guiSyncStates.clear();
+        }
+    }
+
+    private void updateGuiUser(EntityPlayer player, GuiSyncState state)
+    {
+        if (guiBuffer == null)
+        {
+            guiBuffer = Unpooled.buffer();
+        }
+        guiBuffer.clear();
+        writeGuiPacket(player, guiBuffer);
+
+        final ByteBuf previous = state.lastSent;
+        if (state.onCheck(guiBuffer))
+        {
+            //Data is kept as last sent, reuse the old buffer for the next write
+            final ByteBuf data = guiBuffer;
+            guiBuffer = previous;
+
+            IPacket packet = getPacketForData();
+            packet.add(GUI_PACKET_ID);
+            packet.addWriter(byteBuf -> byteBuf.writeBytes(data, data.readerIndex(), data.readableBytes()));
+            Engine.packetHandler.sendToPlayer(packet, (EntityPlayerMP) player);
+        }
+    }
+
+    /**
+     * Checks GUI data for changes on the next tick instead of waiting,
+     * use after an action that changes what the GUI shows
+     */
+    public void markGuiUpdate()
+    {
+        for (GuiSyncState state : guiSyncStates.values())
+        {
+            state.markUpdate();
         }
     }
 
@@ -541,4 +724,63 @@ public class TileNode implements ITileNode, IPacketIDReceiver, ITileDesc, IPlace
     {
         return mod;
     }
+
+    /** GUI data last sent to a player */
+    public static final class GuiSyncState
+    {
+        /** Container open when the data was sent, a new one means the GUI was reopened */
+        public final Container container;
+        /** Data last sent, null if nothing was sent yet */
+        public ByteBuf lastSent;
+        /** Ticks between checks */
+        public int delay = GUI_UPDATE_RATE;
+        /** Ticks until the next check */
+        public int wait = 0;
+
+        public GuiSyncState(Container container)
+        {
+            this.container = container;
+        }
+
+        /**
+         * Counts down to the next check
+         *
+         * @return true if the data should be checked this tick
+         */
+        public boolean tick()
+        {
+            return --wait <= 0;
+        }
+
+        /**
+         * Compares the data with the data last sent. Checks go back to
+         * {@link TileNode#GUI_UPDATE_RATE} on a change and slow down while
+         * nothing changes, up to {@link TileNode#GUI_IDLE_UPDATE_RATE}.
+         *
+         * @param data - GUI data written this check
+         * @return true if it changed, the data is then kept as last sent
+         */
+        public boolean onCheck(ByteBuf data)
+        {
+            final boolean changed = lastSent == null || !data.equals(lastSent);
+            if (changed)
+            {
+                lastSent = data;
+                delay = GUI_UPDATE_RATE;
+            }
+            else
+            {
+                delay = Math.min(delay * 2, GUI_IDLE_UPDATE_RATE);
+            }
+            wait = delay;
+            return changed;
+        }
+
+        /** Checks on the next tick */
+        public void markUpdate()
+        {
+            wait = 0;
+            delay = GUI_UPDATE_RATE;
+        }
+    }
 }
@@ -9,6 +9,8 @@ import com.builtbroken.mc.core.handler.TileTaskTickHandler;
 import com.builtbroken.mc.core.network.IPacketIDReceiver;
 import com.builtbroken.mc.core.network.packet.PacketTile;
 import com.builtbroken.mc.core.network.packet.PacketType;
+import com.builtbroken.mc.core.network.sync.SyncedField;
+import com.builtbroken.mc.core.network.sync.SyncedFieldTracker;
 import com.builtbroken.mc.imp.transform.region.Cube;
 import com.builtbroken.mc.imp.transform.vector.Pos;
 import cpw.mods.fml.common.network.ByteBufUtils;
@@ -45,6 +47,7 @@ public class TileMulti extends TileEntity implements IMultiTile, IPacketIDReceiv
     private WeakReference<IMultiTileHost> hostWeakReference;
 
     /** Enables default rendering of the block, overridden by {@link #renderID} and {@link #renderState} */
+    @SyncedField
     public boolean shouldRenderBlock = false;
 
     //Box data
@@ -52,10 +55,13 @@ public class TileMulti extends TileEntity implements IMultiTile, IPacketIDReceiv
     public Cube collisionBounds;
 
     /** Render ID to use to pull RenderData from {@link com.builtbroken.mc.client.json.ClientDataHandler#getRenderData(String)} */
+    @SyncedField
     protected String renderID;
     /** Render state to pull from RenderData */
+    @SyncedField
     protected String renderState;
     /** Actual block instance of {@link #blockToFake} to fake rendering */
+    @SyncedField
     protected ItemStack blockToFake;
 
     public int ticks = 0;
@@ -63,26 +69,29 @@ public class TileMulti extends TileEntity implements IMultiTile, IPacketIDReceiv
     /** Map of connected tiles */
     public HashMap<ForgeDirection, Block> connectedBlocks = new HashMap();
 
+    /** Tracks render data sent to clients */
+    protected final SyncedFieldTracker syncedFields = new SyncedFieldTracker(this);
+
     public void setRenderState(String id, String state)
     {
         renderID = id;
         renderState = state;
         if (!worldObj.isRemote)
         {
-            Engine.packetHandler.sendToAllAround(getDescPacket(), this); //TODO reduce packet to math changed data
+            sendChanges();
         }
     }
 
     public void setBlockToFake(ItemStack block)
     {
-        boolean changed = ItemStack.areItemStacksEqual(block, blockToFake);
+        boolean changed = !ItemStack.areItemStacksEqual(block, blockToFake);
         blockToFake = block;
 
         if(changed)
         {
             if (!worldObj.isRemote)
             {
-                Engine.packetHandler.sendToAllAround(getDescPacket(), this); //TODO reduce packet to math changed data
+                sendChanges();
             }
             else
             {
@@ -113,7 +122,9 @@ public class TileMulti extends TileEntity implements IMultiTile, IPacketIDReceiv
         }
         if (!worldObj.isRemote)
         {
-            Engine.packetHandler.sendToAllAround(getDescPacket(), this);
+            //Host is only in the description packet, resend it to everyone
+            syncedFields.clearPlayers();
+            sendChanges();
         }
         //TODO find a way to load data?
     }
@@ -139,7 +150,10 @@ public class TileMulti extends TileEntity implements IMultiTile, IPacketIDReceiv
         super.updateEntity();
         if (ticks == 0)
         {
-            Engine.packetHandler.sendToAllAround(getDescPacket(), this);
+            if (!worldObj.isRemote)
+            {
+                sendChanges();
+            }
             updateConnections();
         }
         if (!worldObj.isRemote && ticks % 20 == 0)
@@ -222,10 +236,26 @@ public class TileMulti extends TileEntity implements IMultiTile, IPacketIDReceiv
                 }
                 return true;
             }
+            else if (id == 2)
+            {
+                //Changed render data only
+                syncedFields.readChanges(buf);
+                worldObj.markBlockRangeForRenderUpdate(xCoord, yCoord, zCoord, xCoord, yCoord, zCoord);
+                return true;
+            }
         }
         return false;
     }
 
+    /**
+     * Sends render data that changed to players watching the tile,
+     * players that have not been sent the tile get the description packet
+     */
+    protected void sendChanges()
+    {
+        syncedFields.sendChanges(worldObj, xCoord >> 4, zCoord >> 4, () -> new PacketTile(this, 2), player -> getDescPacket());
+    }
+
     @Override
     public Packet getDescriptionPacket()
     {
@@ -0,0 +1,29 @@
+package com.builtbroken.mc.framework.thread;
+
+import com.builtbroken.mc.api.process.IThreadProcess;
+
+/**
+ * Applied to a {@link IThreadProcess} that wants to be run before or after
+ * other processes queued in a {@link WorkerPool}.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface IPrioritizedProcess extends IThreadProcess
+{
+    /** Used for actions directly triggered by a player */
+    int PRIORITY_PLAYER = 100;
+    /** Default priority for processes */
+    int PRIORITY_NORMAL = 0;
+    /** Used for actions that no one is waiting on */
+    int PRIORITY_BACKGROUND = -100;
+
+    /**
+     * Priority of the process, higher values are run first.
+     *
+     * @return priority
+     */
+    default int getPriority()
+    {
+        return PRIORITY_NORMAL;
+    }
+}
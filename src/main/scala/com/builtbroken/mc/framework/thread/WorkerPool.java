@@ -0,0 +1,291 @@
+package com.builtbroken.mc.framework.thread;
+
+import com.builtbroken.mc.api.VoltzEngineAPI;
+import com.builtbroken.mc.api.process.IThreadProcess;
+import com.builtbroken.mc.api.process.IWorkerThread;
+import com.builtbroken.mc.core.Engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of threads used to run {@link IThreadProcess} outside of the minecraft world.
+ * <p>
+ * Replaces the single {@link WorkerThread} so several processes can run at the same
+ * time. Processes are pulled from a priority queue, see {@link IPrioritizedProcess},
+ * and run on a work-stealing {@link ForkJoinPool}. Processes can fork their own sub
+ * tasks (such as layers of a blast) which will be picked up by idle threads.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class WorkerPool implements IWorkerThread
+{
+    /** Default pool used by world change actions */
+    private static WorkerPool instance;
+
+    /** Name of the pool, used for thread names and the API map */
+    public final String name;
+    /** Work-stealing pool that runs processes and their sub tasks */
+    protected final ForkJoinPool pool;
+
+    /** Processes waiting to run, sorted by priority then by order added */
+    private final PriorityBlockingQueue<QueuedProcess> queue = new PriorityBlockingQueue();
+    /** Processes currently being run */
+    private final Set<IThreadProcess> running = ConcurrentHashMap.newKeySet();
+    /** Used to keep processes of the same priority in the order they were added */
+    private final AtomicLong order = new AtomicLong();
+
+    private volatile boolean kill = false;
+    private volatile boolean paused = false;
+
+    /**
+     * Creates a pool sized to the machine, leaves one core for the main server thread.
+     *
+     * @param name - name of the pool
+     */
+    public WorkerPool(String name)
+    {
+        this(name, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Creates a pool with a set number of threads
+     *
+     * @param name    - name of the pool
+     * @param threads - number of threads to use, min 1
+     */
+    public WorkerPool(String name, int threads)
+    {
+        this.name = name;
+        this.pool = new ForkJoinPool(Math.max(1, threads), p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("WorkerPool[" + name + "]-" + thread.getPoolIndex());
+            thread.setPriority(Thread.NORM_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        }, (t, e) -> Engine.logger().error("Unhandled exception in " + t.getName(), e), false);
+        VoltzEngineAPI.WORKER_THREADS.put(name, this);
+    }
+
+    /**
+     * Gets the pool used by world change actions, creates it if missing
+     *
+     * @return pool
+     */
+    public static WorkerPool instance()
+    {
+        if (instance == null || instance.kill)
+        {
+            synchronized (WorkerPool.class)
+            {
+                if (instance == null || instance.kill)
+                {
+                    instance = new WorkerPool("WorldChange");
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void add(IThreadProcess process)
+    {
+        add(process, process instanceof IPrioritizedProcess ? ((IPrioritizedProcess) process).getPriority() : IPrioritizedProcess.PRIORITY_NORMAL);
+    }
+
+    /**
+     * Adds a process to run with the given priority
+     *
+     * @param process  - process to run
+     * @param priority - priority, higher runs first
+     */
+    public void add(IThreadProcess process, int priority)
+    {
+        if (process != null && !kill && !contains(process))
+        {
+            queue.add(new QueuedProcess(process, priority, order.getAndIncrement()));
+            if (!paused)
+            {
+                pool.execute(this::runNext);
+            }
+        }
+    }
+
+    /**
+     * Pulls the highest priority process from the queue and runs it. Each
+     * call to {@link #add(IThreadProcess, int)} schedules one of these so
+     * the pool runs as many processes at once as it has threads.
+     */
+    protected void runNext()
+    {
+        if (kill || paused)
+        {
+            return;
+        }
+        QueuedProcess next = queue.poll();
+        if (next != null)
+        {
+            running.add(next.process);
+            try
+            {
+                next.process.runProcess();
+            }
+            catch (Exception e)
+            {
+                Engine.logger().error(this + " failed to run process " + next.process, e);
+            }
+            finally
+            {
+                running.remove(next.process);
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(IThreadProcess process)
+    {
+        if (running.contains(process))
+        {
+            return true;
+        }
+        for (QueuedProcess queued : queue)
+        {
+            if (queued.process == process || queued.process.equals(process))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int containedProcesses()
+    {
+        return queue.size() + running.size();
+    }
+
+    /** Number of threads the pool can run at once */
+    public int getParallelism()
+    {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void kill()
+    {
+        kill = true;
+        killProcesses();
+        pool.shutdownNow();
+        try
+        {
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        VoltzEngineAPI.WORKER_THREADS.remove(name, this);
+    }
+
+    @Override
+    public boolean clearProcesses()
+    {
+        killProcesses();
+        return queue.isEmpty();
+    }
+
+    /** Kills all running and queued processes */
+    protected void killProcesses()
+    {
+        for (IThreadProcess process : running)
+        {
+            process.killAction();
+        }
+        QueuedProcess queued;
+        while ((queued = queue.poll()) != null)
+        {
+            Engine.logger().info("Killing " + queued.process + " from " + this);
+            queued.process.killAction();
+        }
+    }
+
+    @Override
+    public boolean pauseWorker()
+    {
+        paused = true;
+        return paused;
+    }
+
+    @Override
+    public boolean resumeWorker()
+    {
+        if (paused)
+        {
+            paused = false;
+            //Reschedule anything that was skipped while paused, size is read once as
+            //the scheduled calls start draining the queue while this loop runs
+            final int waiting = queue.size();
+            for (int i = 0; i < waiting; i++)
+            {
+                pool.execute(this::runNext);
+            }
+        }
+        return !paused;
+    }
+
+    /**
+     * Snapshot of the pool state, used by debug output
+     *
+     * @return map of stat name to value
+     */
+    public Map<String, Object> getStats()
+    {
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("threads", pool.getParallelism());
+        map.put("active", pool.getActiveThreadCount());
+        map.put("queued", queue.size());
+        map.put("running", running.size());
+        map.put("steals", pool.getStealCount());
+        return map;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "WorkerPool[" + name + "]";
+    }
+
+    /**
+     * Wrapper to sort processes by priority
+     */
+    private static final class QueuedProcess implements Comparable<QueuedProcess>
+    {
+        final IThreadProcess process;
+        final int priority;
+        final long order;
+
+        QueuedProcess(IThreadProcess process, int priority, long order)
+        {
+            this.process = process;
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(QueuedProcess o)
+        {
+            if (priority != o.priority)
+            {
+                return priority > o.priority ? -1 : 1;
+            }
+            return Long.compare(order, o.order);
+        }
+    }
+}
@@ -10,6 +10,9 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Thread used to do repeat tasks that need to run outside of the minecraft world.
+ * <p>
+ * Only runs one process at a time, use {@link WorkerPool} for anything that
+ * benefits from using more than one core.
  *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 12/7/2015.
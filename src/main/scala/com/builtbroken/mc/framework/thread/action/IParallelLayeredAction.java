@@ -0,0 +1,28 @@
+package com.builtbroken.mc.framework.thread.action;
+
+import com.builtbroken.mc.api.edit.IWorldChangeLayeredAction;
+
+/**
+ * Applied to a {@link IWorldChangeLayeredAction} whose layers can be calculated at the same time.
+ * <p>
+ * When applied {@link WCAThreadProcess} will fork each layer into the worker pool so idle threads
+ * can pick them up. Results are still handed to the world in layer order. To be safe to use each
+ * call to {@link #getEffectedBlocks(java.util.List, int)} must only read shared state, and
+ * {@link #shouldContinueAction(int)} must not depend on the results of earlier layers.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface IParallelLayeredAction extends IWorldChangeLayeredAction
+{
+    /**
+     * Max number of layers to calculate at the same time. Keeps memory
+     * from growing when calculation is faster than placement.
+     *
+     * @param threads - number of threads in the pool running the action
+     * @return number of layers, min 1
+     */
+    default int getParallelLayerWindow(int threads)
+    {
+        return threads * 2;
+    }
+}
@@ -0,0 +1,33 @@
+package com.builtbroken.mc.framework.thread.action;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.World;
+
+/**
+ * Decides how much time {@link WorldActionQue} can spend applying world edits each tick.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface ITickBudgetPolicy
+{
+    /**
+     * Called at the start of each server tick to get the time that can be
+     * spent on world actions, shared between all worlds with pending work.
+     *
+     * @param server       - current server, can be null in test environments
+     * @param usedLastTick - nano seconds spent on world actions last tick
+     * @return time in nano seconds
+     */
+    long getTickBudget(MinecraftServer server, long usedLastTick);
+
+    /**
+     * Max number of edits to apply to the world in a single tick
+     *
+     * @param world - world being edited
+     * @return number of edits, or -1 for no limit
+     */
+    default int getEditLimit(World world)
+    {
+        return WorldActionQue.MAX_EDITS_PER_TICK;
+    }
+}
@@ -0,0 +1,46 @@
+package com.builtbroken.mc.framework.thread.action;
+
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * Default budget policy, uses the measured server tick time to
+ * work out how much of the 50ms tick is left over for world edits.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TickBudgetPolicy implements ITickBudgetPolicy
+{
+    /** Length of a tick at 20 TPS */
+    public static final long TICK_NANO = 50_000_000L;
+
+    /** Time left unused each tick to absorb spikes */
+    public long safetyMargin = 5_000_000L;
+    /** Min time given each tick so actions always make progress, even on a lagging server */
+    public long minBudget = 1_000_000L;
+    /** Max time given each tick */
+    public long maxBudget = 40_000_000L;
+    /** Budget used when no server tick data is available */
+    public long fallbackBudget = 10_000_000L;
+
+    @Override
+    public long getTickBudget(MinecraftServer server, long usedLastTick)
+    {
+        if (server == null || server.tickTimeArray == null)
+        {
+            return fallbackBudget;
+        }
+
+        //Mean of the last 100 ticks
+        long total = 0;
+        for (long time : server.tickTimeArray)
+        {
+            total += time;
+        }
+        long meanTick = total / server.tickTimeArray.length;
+
+        //Time spent on everything that is not us, last tick is a good enough guess for the mean
+        long otherWork = Math.max(0, meanTick - usedLastTick);
+
+        return Math.max(minBudget, Math.min(maxBudget, TICK_NANO - otherWork - safetyMargin));
+    }
+}
@@ -6,24 +6,40 @@ import com.builtbroken.mc.api.edit.IWorldChangeLayeredAction;
 import com.builtbroken.mc.api.edit.IWorldEdit;
 import com.builtbroken.mc.api.event.TriggerCause;
 import com.builtbroken.mc.api.event.WorldChangeActionEvent;
-import com.builtbroken.mc.api.process.IThreadProcess;
 import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.framework.explosive.blast.Blast;
+import com.builtbroken.mc.framework.thread.IPrioritizedProcess;
+import com.builtbroken.mc.framework.thread.action.metrics.ActionMetrics;
+import com.builtbroken.mc.framework.thread.action.metrics.WorldChangeMetrics;
 import com.builtbroken.mc.imp.transform.vector.Location;
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraftforge.common.MinecraftForge;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Low priority Multi-thread for IWorldChangeActions
  * <p>
- * Calculates the impact then removes X amount of blocks at the end of the world tick
+ * Calculates the impact then removes X amount of blocks at the end of the world tick.
+ * Run by the {@link com.builtbroken.mc.framework.thread.WorkerPool}, actions implementing
+ * {@link IParallelLayeredAction} will have their layers calculated across several threads.
+ * <p>
+ * Layers are streamed to the {@link WorldActionQue} as they finish. Calculation pauses
+ * while too many edits are waiting to be placed, see {@link WorldChangeProgress}.
  *
  * @author Darkguardsman
  */
-public class WCAThreadProcess implements IThreadProcess
+public class WCAThreadProcess implements IPrioritizedProcess
 {
+    /** Processes created but not yet finished, used to save unfinished work */
+    private static final Set<WCAThreadProcess> active = ConcurrentHashMap.newKeySet();
+
     /** Location of the Blast */
     public final Location position;
     /** Blast instance */
@@ -32,6 +48,15 @@ public class WCAThreadProcess implements IThreadProcess
     public final TriggerCause triggerCause;
     /** Blocks per tick limiter */
     public int blocksPerTick;
+    /** Progress of calculation and placement, also used to cancel the action */
+    public final WorldChangeProgress progress;
+    /** First layer to calculate, set when resuming a saved action */
+    public int startLayer = 0;
+    /** Metrics for the type of action */
+    public final ActionMetrics metrics;
+
+    /** Time spent calculating edits, not counting time paused for placement */
+    private long calculationTime = 0;
 
     /** Blocks to remove from the world */
     private Collection<IWorldEdit> effectedBlocks;
@@ -47,11 +72,41 @@ public class WCAThreadProcess implements IThreadProcess
      * @param triggerCause - cause of the explosion
      */
     public WCAThreadProcess(Location vec, IWorldChangeAction blast, TriggerCause triggerCause)
+    {
+        this(vec, blast, triggerCause, new WorldChangeProgress());
+    }
+
+    /**
+     * Constructor used to continue an action that already has edits queued, such as one
+     * restored by the {@link WorldChangeJournal}. Sharing the progress keeps those edits
+     * counted for backpressure, cancels them with the process, and holds the post
+     * effects until they are placed.
+     *
+     * @param vec          - location of the blast, should be the center
+     * @param blast        - blast instance used to remove blocks and build a list
+     * @param triggerCause - cause of the explosion
+     * @param progress     - progress of the action, edits already queued should be counted as pending
+     */
+    public WCAThreadProcess(Location vec, IWorldChangeAction blast, TriggerCause triggerCause, WorldChangeProgress progress)
     {
         this.position = vec;
         this.blast = blast;
         this.triggerCause = triggerCause;
         blocksPerTick = blast.shouldThreadAction();
+        this.progress = progress;
+        metrics = WorldChangeMetrics.get(blast);
+        metrics.onStarted();
+        active.add(this);
+    }
+
+    /**
+     * Processes that have not finished calculating
+     *
+     * @return unmodifiable view
+     */
+    public static Collection<WCAThreadProcess> getActive()
+    {
+        return Collections.unmodifiableSet(active);
     }
 
     @Override
@@ -59,51 +114,23 @@ public class WCAThreadProcess implements IThreadProcess
     {
         try
         {
+            if (progress.isCancelled())
+            {
+                return;
+            }
             if (blast instanceof IWorldChangeLayeredAction && ((IWorldChangeLayeredAction) blast).getLayers() > 1)
             {
-                for (int i = 0; i < ((IWorldChangeLayeredAction) blast).getLayers(); i++)
+                progress.setTotalLayers(((IWorldChangeLayeredAction) blast).getLayers());
+                if (blast instanceof IParallelLayeredAction && ForkJoinTask.inForkJoinPool())
                 {
-                    if (((IWorldChangeLayeredAction) blast).shouldContinueAction(i))
-                    {
-                        //Get start time
-                        long time = System.nanoTime();
-
-
-                        ///Create list to populate edits
-                        effectedBlocks = new ArrayList();
-
-                        //Get edits for layer
-                        ((IWorldChangeLayeredAction) blast).getEffectedBlocks((List<IWorldEdit>) effectedBlocks, i);
-
-                        //If running as dev, log data about layer
-                        if (Engine.runningAsDev)
-                        {
-                            time = System.nanoTime() - time;
-
-                            if (layerDebugData == null)
-                            {
-                                layerDebugData = new ArrayList();
-                            }
-
-                            LayerDebugData data = new LayerDebugData();
-                            data.layer = i;
-                            data.blocksEdited = effectedBlocks.size();
-                            data.timeProcessedNano = time;
-
-                            layerDebugData.add(data);
-                        }
-
-                        //Triggers an event allowing other mods to edit the block list
-                        MinecraftForge.EVENT_BUS.post(new WorldChangeActionEvent.FinishedCalculatingEffectEvent(position, effectedBlocks, blast, triggerCause));
-                        WorldActionQue.addEditQue(new WorldEditQueue(position.world, blast, blocksPerTick, effectedBlocks));
-                    }
-                    else
-                    {
-                        break;
-                    }
+                    calculateLayersParallel((IParallelLayeredAction) blast);
+                }
+                else
+                {
+                    calculateLayers((IWorldChangeLayeredAction) blast);
                 }
 
-                if (Engine.runningAsDev && layerDebugData.size() > 0)
+                if (Engine.runningAsDev && layerDebugData != null && layerDebugData.size() > 0)
                 {
                     long time = 0;
                     long blocks = 0;
@@ -120,23 +147,202 @@ public class WCAThreadProcess implements IThreadProcess
             else
             {
                 //Collects the init list of blocks from the blast
+                long time = System.nanoTime();
                 effectedBlocks = blast.getEffectedBlocks();
+                calculationTime += System.nanoTime() - time;
                 //Triggers an event allowing other mods to edit the block list
                 MinecraftForge.EVENT_BUS.post(new WorldChangeActionEvent.FinishedCalculatingEffectEvent(position, effectedBlocks, blast, triggerCause));
-                WorldActionQue.addEditQue(new WorldEditQueue(position.world, blast, blocksPerTick, effectedBlocks));
+                metrics.onEventPosted();
+                queEdits(effectedBlocks);
             }
-            WorldActionQue.addEditQue(new WorldChangeActionPost(blast));
+            WorldActionQue.addEditQue(position.world, new WorldChangeActionPost(blast, progress));
         }
         catch (Exception e)
         {
             Engine.logger().error("World Change action thread[" + this + "] has failed to execute correctly.", e);
         }
+        finally
+        {
+            if (calculationTime > 0)
+            {
+                metrics.calculationTime.record(calculationTime);
+            }
+            progress.onCalculationFinished();
+            active.remove(this);
+        }
+    }
+
+    /**
+     * Calculates each layer one after the other on the current thread
+     *
+     * @param action - action to calculate
+     */
+    protected void calculateLayers(IWorldChangeLayeredAction action)
+    {
+        for (int i = startLayer; i < action.getLayers(); i++)
+        {
+            //Wait for placement to catch up
+            if (!progress.awaitCapacity())
+            {
+                break;
+            }
+            if (action.shouldContinueAction(i))
+            {
+                handleLayer(calculateLayer(action, i));
+            }
+            else
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Forks layers into the current pool, a window at a time, so idle threads can
+     * calculate them. Results are joined and queued in layer order.
+     *
+     * @param action - action to calculate
+     */
+    protected void calculateLayersParallel(IParallelLayeredAction action)
+    {
+        final int layers = action.getLayers();
+        final int window = Math.max(1, action.getParallelLayerWindow(ForkJoinTask.getPool().getParallelism()));
+
+        int layer = startLayer;
+        boolean stop = false;
+        while (layer < layers && !stop)
+        {
+            //Fork the next window of layers
+            List<ForkJoinTask<LayerResult>> tasks = new ArrayList();
+            while (layer < layers && tasks.size() < window)
+            {
+                //Wait for placement to catch up
+                if (!progress.awaitCapacity() || !action.shouldContinueAction(layer))
+                {
+                    stop = true;
+                    break;
+                }
+                final int l = layer++;
+                tasks.add(ForkJoinTask.adapt(() -> calculateLayer(action, l)).fork());
+            }
+
+            //Join in order so blocks are placed the same as a single thread
+            for (ForkJoinTask<LayerResult> task : tasks)
+            {
+                LayerResult result = task.join();
+                if (!progress.isCancelled())
+                {
+                    handleLayer(result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the edits for a single layer
+     *
+     * @param action - action to calculate
+     * @param layer  - layer index
+     * @return result containing the edits
+     */
+    protected LayerResult calculateLayer(IWorldChangeLayeredAction action, int layer)
+    {
+        //Get start time
+        long time = System.nanoTime();
+
+        ///Create list to populate edits
+        List<IWorldEdit> edits = blast instanceof Blast ? ((Blast) blast).createEditList() : new ArrayList();
+
+        //Get edits for layer
+        action.getEffectedBlocks(edits, layer);
+
+        return new LayerResult(layer, edits, System.nanoTime() - time);
+    }
+
+    /**
+     * Logs the layer and hands its edits off to the world
+     *
+     * @param result - calculated layer
+     */
+    protected void handleLayer(LayerResult result)
+    {
+        effectedBlocks = result.edits;
+        calculationTime += result.timeNano;
+
+        //If running as dev, log data about layer
+        if (Engine.runningAsDev)
+        {
+            if (layerDebugData == null)
+            {
+                layerDebugData = new ArrayList();
+            }
+
+            LayerDebugData data = new LayerDebugData();
+            data.layer = result.layer;
+            data.blocksEdited = effectedBlocks.size();
+            data.timeProcessedNano = result.timeNano;
+
+            layerDebugData.add(data);
+        }
+
+        //Triggers an event allowing other mods to edit the block list
+        MinecraftForge.EVENT_BUS.post(new WorldChangeActionEvent.FinishedCalculatingEffectEvent(position, effectedBlocks, blast, triggerCause));
+        metrics.onEventPosted();
+        queEdits(effectedBlocks);
+    }
+
+    /**
+     * Hands edits off to be placed, counting them as pending
+     *
+     * @param edits - edits to place
+     */
+    protected synchronized void queEdits(Collection<IWorldEdit> edits)
+    {
+        //Cancelled while calculating, layer is thrown away and counted as not done
+        if (!progress.isCancelled())
+        {
+            int size = edits != null ? edits.size() : 0;
+            progress.onLayerQueued(size);
+            WorldActionQue.addEditQue(new WorldEditQueue(position.world, blast, blocksPerTick, edits).setProgress(progress));
+        }
+    }
+
+    /**
+     * Cancels the process so it can be saved. Layers handed off before this
+     * call are already in the {@link WorldActionQue}, anything after is dropped.
+     *
+     * @return next layer to calculate when resumed, or -1 if all layers were handed off
+     */
+    public synchronized int cancelForSave()
+    {
+        progress.cancel();
+        active.remove(this);
+        if (!progress.isCalculating())
+        {
+            return -1;
+        }
+        final int layers = blast instanceof IWorldChangeLayeredAction ? Math.max(1, ((IWorldChangeLayeredAction) blast).getLayers()) : 1;
+        final int next = startLayer + progress.getLayersDone();
+        return next < layers ? next : -1;
+    }
+
+    @Override
+    public int getPriority()
+    {
+        //Player triggered actions are run before anything else
+        if (triggerCause instanceof TriggerCause.TriggerCauseEntity && ((TriggerCause.TriggerCauseEntity) triggerCause).source instanceof EntityPlayer)
+        {
+            return PRIORITY_PLAYER;
+        }
+        return PRIORITY_NORMAL;
     }
 
     @Override
     public void killAction()
     {
-        //TODO change so it saves
+        //Discards the action, saving is done on world unload by WorldChangeJournal#stopProcesses which uses cancelForSave()
+        progress.cancel();
+        active.remove(this);
         this.blast.killAction(false);
     }
 
@@ -183,4 +389,21 @@ public class WCAThreadProcess implements IThreadProcess
             return "Layer[" + layer + "] edited " + blocksEdited + " tiles, took " + StringHelpers.formatNanoTime(timeProcessedNano);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Edits calculated for a single layer
+     */
+    protected static class LayerResult
+    {
+        public final int layer;
+        public final List<IWorldEdit> edits;
+        public final long timeNano;
+
+        public LayerResult(int layer, List<IWorldEdit> edits, long timeNano)
+        {
+            this.layer = layer;
+            this.edits = edits;
+            this.timeNano = timeNano;
+        }
+    }
+}
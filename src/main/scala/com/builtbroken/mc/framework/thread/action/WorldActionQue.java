@@ -1,68 +1,427 @@
 package com.builtbroken.mc.framework.thread.action;
 
 import com.builtbroken.mc.api.process.IWorldAction;
+import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.framework.mod.loadable.ILoadable;
+import com.builtbroken.mc.framework.thread.action.metrics.WorldChangeMetrics;
+import cpw.mods.fml.common.FMLCommonHandler;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import cpw.mods.fml.common.gameevent.TickEvent;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.World;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.world.WorldEvent;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
- * Contains references to current ques and runs them one at a time.
+ * Contains references to current ques and runs them at the end of each world tick.
+ * <p>
+ * Each dimension has its own set of ques so a world only ever runs its own edits. Ques are
+ * grouped into lanes by the action that created them, lanes are run round-robin so several
+ * blasts progress at the same time while ques inside a lane keep their order. Time spent
+ * each tick is decided by the {@link ITickBudgetPolicy}. Unfinished work is saved when a
+ * world unloads and restored when it loads, see {@link WorldChangeJournal}.
  *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 12/30/2015.
  */
-public final class WorldActionQue
+public final class WorldActionQue implements ILoadable
 {
-    /** Current queue of queues */
-    private static final Queue<IWorldAction> editQues = new LinkedList();
+    /** Used only for event calls, registered during pre-init by the engine loader */
+    public static final WorldActionQue INSTANCE = new WorldActionQue();
+
+    /** Hard limit on edits per world per tick, used by the default policy */
     public static int MAX_EDITS_PER_TICK = 1000;
-    /** Current queue being processed */
-    private static IWorldAction currentQue;
+
+    /** Ques added from other threads, moved into {@link #worldQues} on the main thread */
+    private static final Queue<PendingAction> incoming = new ConcurrentLinkedQueue();
+    /** Dimension to ques for that dimension, main thread only */
+    private static final Map<Integer, WorldQue> worldQues = new HashMap();
+    /** Ques that did not say what world they belong to, run by the first world to tick */
+    private static final WorldQue anyWorld = new WorldQue();
+
+    /** Policy deciding time spent each tick */
+    private static ITickBudgetPolicy budgetPolicy = new TickBudgetPolicy();
+
+    /** Time left for this server tick, shared by all worlds */
+    private static long tickBudget = 0;
+    /** Time used so far this server tick */
+    private static long usedThisTick = 0;
+    /** Time used last server tick */
+    private static long usedLastTick = 0;
+    /** Dimensions that have already run this server tick */
+    private static final Set<Integer> ranThisTick = new HashSet();
+    /** Server tick the budget was last calculated for */
+    private static int budgetTick = -1;
 
     /**
-     * Adds a queue to the process list
+     * Adds a queue to the process list. World is taken from the que
+     * if it is a {@link WorldEditQueue}.
      *
      * @param queue - queue to add
      */
     public static void addEditQue(IWorldAction queue)
     {
-        synchronized (editQues)
+        addEditQue(queue instanceof WorldEditQueue ? ((WorldEditQueue) queue).world : null, queue);
+    }
+
+    /**
+     * Adds a queue to the process list. Thread safe.
+     *
+     * @param world - world the que edits, null to run in any world
+     * @param queue - queue to add
+     */
+    public static void addEditQue(World world, IWorldAction queue)
+    {
+        if (queue != null)
         {
-            if (!editQues.contains(queue))
-            {
-                editQues.offer(queue);
-            }
+            incoming.offer(new PendingAction(world != null && world.provider != null ? world.provider.dimensionId : null, queue));
         }
     }
 
+    /**
+     * Sets the policy used to decide how much time is spent placing edits,
+     * the budget is recalculated from the new policy on the next world tick.
+     *
+     * @param policy - policy, null resets to default
+     */
+    public static void setBudgetPolicy(ITickBudgetPolicy policy)
+    {
+        budgetPolicy = policy != null ? policy : new TickBudgetPolicy();
+        budgetTick = -2;
+    }
+
+    /** Current budget policy */
+    public static ITickBudgetPolicy getBudgetPolicy()
+    {
+        return budgetPolicy;
+    }
+
+    /**
+     * Number of ques waiting to run in the dimension
+     *
+     * @param dim - dimension id
+     * @return number of ques
+     */
+    public static int getQueDepth(int dim)
+    {
+        WorldQue que = worldQues.get(dim);
+        return que != null ? que.size() : 0;
+    }
+
+    /** Number of ques waiting to run in all dimensions */
+    public static int getQueDepth()
+    {
+        int size = incoming.size() + anyWorld.size();
+        for (WorldQue que : worldQues.values())
+        {
+            size += que.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void preInit()
+    {
+        //World ticks fire on the FML bus, world load/unload on the Forge bus
+        FMLCommonHandler.instance().bus().register(this);
+        MinecraftForge.EVENT_BUS.register(this);
+    }
+
     @SubscribeEvent
     public void onWorldTick(TickEvent.WorldTickEvent event)
     {
-        //Run at end of world tick TODO get time left until next tick
-        if (event.phase == TickEvent.Phase.END)
+        //Run at end of world tick
+        if (event.phase == TickEvent.Phase.END && event.world.provider != null)
         {
+            drainIncoming();
+            updateBudget();
+
+            final int dim = event.world.provider.dimensionId;
+            final WorldQue que = worldQues.get(dim);
+            final boolean hasAny = !anyWorld.isEmpty();
+            if ((que == null || que.isEmpty()) && !hasAny)
+            {
+                return;
+            }
+
+            //Split what is left of the tick between worlds that still have work
+            int worldsLeft = 1;
+            for (Map.Entry<Integer, WorldQue> entry : worldQues.entrySet())
+            {
+                if (entry.getKey() != dim && !entry.getValue().isEmpty() && !ranThisTick.contains(entry.getKey()))
+                {
+                    worldsLeft++;
+                }
+            }
+            ranThisTick.add(dim);
+
+            final long budget = Math.max(0, tickBudget - usedThisTick) / worldsLeft;
+            final int editLimit = budgetPolicy.getEditLimit(event.world);
             final long startTime = System.nanoTime();
 
             int edits = 0;
+            if (hasAny)
+            {
+                edits += anyWorld.run(event.world, event, startTime, budget, editLimit);
+            }
+            if (que != null)
+            {
+                que.run(event.world, event, startTime, budget, editLimit < 0 ? -1 : Math.max(0, editLimit - edits));
+                if (que.isEmpty())
+                {
+                    worldQues.remove(dim);
+                }
+            }
+            usedThisTick += System.nanoTime() - startTime;
+        }
+    }
 
-            //Time is less than 10ms and edits are less then max
-            while (System.nanoTime() - startTime < 10000 && edits < MAX_EDITS_PER_TICK)
+    @SubscribeEvent
+    public void onWorldLoad(WorldEvent.Load event)
+    {
+        if (WorldChangeJournal.ENABLED && event.world.provider != null && !event.world.isRemote)
+        {
+            WorldChangeJournal.load(event.world);
+        }
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event)
+    {
+        if (event.world.provider != null && !event.world.isRemote)
+        {
+            //Stop threads first so layers they hand off are in the que when it is saved
+            final Map<WCAThreadProcess, Integer> unfinished = WorldChangeJournal.ENABLED ? WorldChangeJournal.stopProcesses(event.world) : Collections.<WCAThreadProcess, Integer>emptyMap();
+            drainIncoming();
+            WorldQue que = worldQues.remove(event.world.provider.dimensionId);
+            if (WorldChangeJournal.ENABLED && (que != null && !que.isEmpty() || !unfinished.isEmpty()))
+            {
+                WorldChangeJournal.save(event.world, que != null ? que.getEditQues() : Collections.<WorldEditQueue>emptyList(), unfinished);
+            }
+            if (que != null && !que.isEmpty())
             {
-                if (currentQue == null || currentQue.isQueDone())
+                Engine.logger().info("WorldActionQue: dropping " + que.size() + " ques for unloaded dim " + event.world.provider.dimensionId);
+                que.cancel();
+            }
+        }
+    }
+
+    /** Resets the budget when a new server tick starts */
+    private static void updateBudget()
+    {
+        final MinecraftServer server = MinecraftServer.getServer();
+        final int tick = server != null ? server.getTickCounter() : -1;
+        if (server == null || tick != budgetTick)
+        {
+            budgetTick = tick;
+            usedLastTick = usedThisTick;
+            usedThisTick = 0;
+            ranThisTick.clear();
+            tickBudget = budgetPolicy.getTickBudget(server, usedLastTick);
+            WorldChangeMetrics.onServerTick(tick);
+        }
+    }
+
+    /** Moves ques added from other threads into their dimension */
+    private static void drainIncoming()
+    {
+        PendingAction pending;
+        while ((pending = incoming.poll()) != null)
+        {
+            if (pending.dim == null)
+            {
+                anyWorld.add(pending.action);
+            }
+            else
+            {
+                WorldQue que = worldQues.get(pending.dim);
+                if (que == null)
                 {
-                    currentQue = editQues.poll();
+                    que = new WorldQue();
+                    worldQues.put(pending.dim, que);
                 }
-                if (currentQue != null)
+                que.add(pending.action);
+            }
+        }
+    }
+
+    /**
+     * Gets the object used to group ques into lanes, ques of the same
+     * change action are kept together so they run in order.
+     *
+     * @param action - que
+     * @return lane key
+     */
+    private static Object getLaneKey(IWorldAction action)
+    {
+        if (action instanceof WorldEditQueue)
+        {
+            return ((WorldEditQueue) action).getAction();
+        }
+        else if (action instanceof WorldChangeActionPost)
+        {
+            return ((WorldChangeActionPost) action).getAction();
+        }
+        return action;
+    }
+
+    /**
+     * Ques for a single world, grouped into lanes
+     */
+    private static final class WorldQue
+    {
+        private final LinkedHashMap<Object, Queue<IWorldAction>> lanes = new LinkedHashMap();
+        private int size = 0;
+
+        void add(IWorldAction action)
+        {
+            Object key = getLaneKey(action);
+            Queue<IWorldAction> lane = lanes.get(key);
+            if (lane == null)
+            {
+                lane = new LinkedList();
+                lanes.put(key, lane);
+            }
+            //Identity check, WorldEditQueue#equals compares every edit
+            for (IWorldAction a : lane)
+            {
+                if (a == action)
                 {
-                    int i = currentQue.runQue(event.world, event.side);
-                    if (i > 0)
+                    return;
+                }
+            }
+            if (action instanceof WorldEditQueue)
+            {
+                WorldChangeMetrics.get(((WorldEditQueue) action).getAction()).queueDepth.record(size);
+            }
+            lane.offer(action);
+            size++;
+        }
+
+        boolean isEmpty()
+        {
+            return size == 0;
+        }
+
+        /** Edit ques in lane order */
+        List<WorldEditQueue> getEditQues()
+        {
+            List<WorldEditQueue> list = new ArrayList();
+            for (Queue<IWorldAction> lane : lanes.values())
+            {
+                for (IWorldAction action : lane)
+                {
+                    if (action instanceof WorldEditQueue)
+                    {
+                        list.add((WorldEditQueue) action);
+                    }
+                }
+            }
+            return list;
+        }
+
+        /** Cancels the actions of all ques so their threads stop calculating */
+        void cancel()
+        {
+            for (Queue<IWorldAction> lane : lanes.values())
+            {
+                for (IWorldAction action : lane)
+                {
+                    if (action instanceof WorldEditQueue)
+                    {
+                        WorldEditQueue que = (WorldEditQueue) action;
+                        if (que.getProgress() != null)
+                        {
+                            que.getProgress().cancel();
+                        }
+                        que.drop();
+                    }
+                }
+            }
+            lanes.clear();
+            size = 0;
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        /**
+         * Runs lanes round-robin until out of time, out of edits, or out of work
+         *
+         * @return edits applied
+         */
+        int run(World world, TickEvent.WorldTickEvent event, long startTime, long budget, int editLimit)
+        {
+            int edits = 0;
+            while (!lanes.isEmpty() && System.nanoTime() - startTime < budget && (editLimit < 0 || edits < editLimit))
+            {
+                boolean progress = false;
+                Iterator<Queue<IWorldAction>> it = lanes.values().iterator();
+                while (it.hasNext() && System.nanoTime() - startTime < budget && (editLimit < 0 || edits < editLimit))
+                {
+                    Queue<IWorldAction> lane = it.next();
+                    IWorldAction current = lane.peek();
+                    if (current != null && !current.isQueDone())
                     {
-                        edits += i;
+                        int i = current.runQue(world, event.side);
+                        if (i > 0)
+                        {
+                            edits += i;
+                            progress = true;
+                        }
                     }
+                    if (current == null || current.isQueDone())
+                    {
+                        if (current != null)
+                        {
+                            lane.poll();
+                            size--;
+                            progress = true;
+                        }
+                        if (lane.isEmpty())
+                        {
+                            it.remove();
+                        }
+                    }
+                }
+
+                //Nothing could run this pass, wait for next tick
+                if (!progress)
+                {
+                    break;
                 }
             }
+            return edits;
+        }
+    }
+
+    /**
+     * Que waiting to be moved to its world
+     */
+    private static final class PendingAction
+    {
+        final Integer dim;
+        final IWorldAction action;
+
+        PendingAction(Integer dim, IWorldAction action)
+        {
+            this.dim = dim;
+            this.action = action;
         }
     }
 }
@@ -2,6 +2,8 @@ package com.builtbroken.mc.framework.thread.action;
 
 import com.builtbroken.mc.api.edit.IWorldChangeAction;
 import com.builtbroken.mc.api.process.IWorldAction;
+import com.builtbroken.mc.framework.thread.action.metrics.ActionMetrics;
+import com.builtbroken.mc.framework.thread.action.metrics.WorldChangeMetrics;
 import cpw.mods.fml.relauncher.Side;
 import net.minecraft.world.World;
 
@@ -15,10 +17,18 @@ public class WorldChangeActionPost implements IWorldAction
 {
     private boolean done = false;
     private final IWorldChangeAction action;
+    /** Progress of the action, post effects are skipped if it was cancelled */
+    private final WorldChangeProgress progress;
 
     public WorldChangeActionPost(IWorldChangeAction action)
+    {
+        this(action, null);
+    }
+
+    public WorldChangeActionPost(IWorldChangeAction action, WorldChangeProgress progress)
     {
         this.action = action;
+        this.progress = progress;
     }
 
     @Override
@@ -26,12 +36,33 @@ public class WorldChangeActionPost implements IWorldAction
     {
         if (!world.isRemote)
         {
-            action.doEffectOther(false);
+            if (progress == null || !progress.isCancelled())
+            {
+                action.doEffectOther(false);
+            }
+            if (progress != null)
+            {
+                final ActionMetrics metrics = WorldChangeMetrics.get(action);
+                if (progress.isCancelled())
+                {
+                    metrics.onCancelled();
+                }
+                else
+                {
+                    metrics.onCompleted(System.nanoTime() - progress.startTime);
+                }
+            }
             done = true;
         }
         return 0;
     }
 
+    /** Action to call post methods on */
+    public IWorldChangeAction getAction()
+    {
+        return action;
+    }
+
     @Override
     public boolean isQueDone()
     {
@@ -0,0 +1,365 @@
+package com.builtbroken.mc.framework.thread.action;
+
+import com.builtbroken.mc.api.edit.IWorldChangeAction;
+import com.builtbroken.mc.api.edit.IWorldEdit;
+import com.builtbroken.mc.api.event.TriggerCause;
+import com.builtbroken.mc.api.explosive.IExplosiveHandler;
+import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.framework.explosive.ExplosiveRegistry;
+import com.builtbroken.mc.framework.explosive.blast.Blast;
+import com.builtbroken.mc.framework.thread.WorkerPool;
+import com.builtbroken.mc.imp.transform.vector.Location;
+import com.builtbroken.mc.lib.helper.NBTUtility;
+import com.builtbroken.mc.lib.world.edit.BlockEdit;
+import com.builtbroken.mc.lib.world.edit.EditBuffer;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.World;
+import net.minecraftforge.common.util.ForgeDirection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Saves unfinished world change actions for a dimension when it unloads and restores them
+ * when it loads again. Covers both edits waiting in the {@link WorldActionQue} and layers
+ * that were never calculated.
+ * <p>
+ * Data is streamed straight to a deflated file with no NBT tree, edits are written as
+ * packed positions and block states the same as {@link EditBuffer}. Only actions that are
+ * a {@link Blast} from a registered explosive can be saved, as the explosive id is used
+ * to create the action again. Block states use block ids so saves are only valid
+ * for the same set of installed mods.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class WorldChangeJournal
+{
+    /** Set to false to disable saving unfinished actions */
+    public static boolean ENABLED = true;
+
+    private static final int MAGIC = 0x56455743; //VEWC
+    private static final int VERSION = 1;
+
+    private WorldChangeJournal()
+    {
+    }
+
+    /**
+     * File the journal for the dimension is saved in
+     *
+     * @param dim - dimension id
+     * @return file
+     */
+    public static File getSaveFile(int dim)
+    {
+        return new File(NBTUtility.getSaveDirectory(), NBTUtility.BBM_FOLDER + "worldChange/journal_" + dim + ".dat");
+    }
+
+    //==========================================
+    //========== Save ==========================
+    //==========================================
+
+    /**
+     * Cancels processes still calculating for the world and notes the next
+     * layer each needs. Must be called before the world's ques are collected
+     * so layers handed off during the call are not lost.
+     *
+     * @param world - world being unloaded
+     * @return process to next layer, processes with nothing left are not included
+     */
+    public static Map<WCAThreadProcess, Integer> stopProcesses(World world)
+    {
+        final Map<WCAThreadProcess, Integer> unfinished = new IdentityHashMap();
+        for (WCAThreadProcess process : new ArrayList<>(WCAThreadProcess.getActive()))
+        {
+            if (process.position != null && process.position.world == world)
+            {
+                int next = process.cancelForSave();
+                if (next >= 0)
+                {
+                    unfinished.put(process, next);
+                }
+            }
+        }
+        return unfinished;
+    }
+
+    /**
+     * Writes the unfinished actions to the journal for the dimension
+     *
+     * @param world      - world being unloaded
+     * @param ques       - ques that have not finished placing
+     * @param unfinished - processes with layers left, see {@link #stopProcesses(World)}
+     */
+    public static void save(World world, Collection<WorldEditQueue> ques, Map<WCAThreadProcess, Integer> unfinished)
+    {
+        final int dim = world.provider.dimensionId;
+        final File file = getSaveFile(dim);
+
+        //Collect actions that can be saved
+        final List<Blast> actions = new ArrayList();
+        final Map<IWorldChangeAction, Integer> actionIndex = new IdentityHashMap();
+        final List<WorldEditQueue> savedQues = new ArrayList();
+        for (WorldEditQueue que : ques)
+        {
+            if (que.remaining() > 0 && indexOf(que.getAction(), actions, actionIndex) >= 0)
+            {
+                savedQues.add(que);
+            }
+        }
+        final Map<Blast, Integer> nextLayer = new IdentityHashMap();
+        for (Map.Entry<WCAThreadProcess, Integer> entry : unfinished.entrySet())
+        {
+            if (indexOf(entry.getKey().blast, actions, actionIndex) >= 0)
+            {
+                nextLayer.put((Blast) entry.getKey().blast, entry.getValue());
+            }
+        }
+
+        if (actions.isEmpty())
+        {
+            if (file.exists())
+            {
+                file.delete();
+            }
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final File tempFile = new File(file.getParent(), file.getName() + "_tmp.dat");
+        long edits = 0;
+        try
+        {
+            file.getParentFile().mkdirs();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(tempFile), new Deflater(Deflater.BEST_SPEED), 1 << 16), 1 << 16)))
+            {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeInt(dim);
+
+                //Actions
+                out.writeInt(actions.size());
+                for (Blast blast : actions)
+                {
+                    out.writeUTF(blast.explosiveHandler.getID());
+                    out.writeDouble(blast.x());
+                    out.writeDouble(blast.y());
+                    out.writeDouble(blast.z());
+                    out.writeDouble(blast.getYield());
+                    out.writeInt(nextLayer.containsKey(blast) ? nextLayer.get(blast) : -1);
+                    NBTTagCompound tag = blast.getAdditionBlastData();
+                    out.writeBoolean(tag != null);
+                    if (tag != null)
+                    {
+                        CompressedStreamTools.write(tag, out);
+                    }
+                }
+
+                //Ques
+                out.writeInt(savedQues.size());
+                for (WorldEditQueue que : savedQues)
+                {
+                    out.writeInt(actionIndex.get(que.getAction()));
+                    out.writeInt(que.editsPerTick);
+                    out.writeInt(que.remaining());
+                    int written = 0;
+                    for (IWorldEdit edit : que.remainingEdits())
+                    {
+                        writeEdit(out, edit);
+                        written++;
+                    }
+                    if (written != que.remaining())
+                    {
+                        throw new IOException("Que " + que + " changed while saving");
+                    }
+                    edits += written;
+                }
+            }
+
+            if (file.exists())
+            {
+                file.delete();
+            }
+            tempFile.renameTo(file);
+
+            Engine.logger().info("WorldChangeJournal: saved " + actions.size() + " actions with " + edits + " edits for dim " + dim + " in " + (System.nanoTime() - start) / 1000000 + "ms");
+        }
+        catch (Exception e)
+        {
+            Engine.logger().error("WorldChangeJournal: failed to save unfinished actions for dim " + dim, e);
+            tempFile.delete();
+        }
+    }
+
+    /** Gets the index of the action, adding it if it can be saved, -1 if it can not */
+    private static int indexOf(IWorldChangeAction action, List<Blast> actions, Map<IWorldChangeAction, Integer> actionIndex)
+    {
+        Integer index = actionIndex.get(action);
+        if (index == null)
+        {
+            index = -1;
+            if (action instanceof Blast && ExplosiveRegistry.isRegistered(((Blast) action).explosiveHandler))
+            {
+                index = actions.size();
+                actions.add((Blast) action);
+            }
+            else
+            {
+                Engine.logger().warn("WorldChangeJournal: can not save " + action + " as it is not a registered explosive");
+            }
+            actionIndex.put(action, index);
+        }
+        return index;
+    }
+
+    private static void writeEdit(DataOutputStream out, IWorldEdit edit) throws IOException
+    {
+        out.writeLong(EditBuffer.pack(MathHelper.floor_double(edit.x()), MathHelper.floor_double(edit.y()), MathHelper.floor_double(edit.z())));
+        out.writeInt(EditBuffer.state(edit.getNewBlock(), edit.getNewMeta()));
+        if (edit instanceof BlockEdit)
+        {
+            BlockEdit blockEdit = (BlockEdit) edit;
+            out.writeInt(EditBuffer.state(blockEdit.prev_block, blockEdit.prev_meta));
+            out.writeByte((blockEdit.doItemDrop ? EditBuffer.FLAG_DROP : 0) | (blockEdit.checkForPrevBlockEquals ? EditBuffer.FLAG_CHECK_PREV : 0) | (blockEdit.checkForEntity ? EditBuffer.FLAG_CHECK_ENTITY : 0));
+        }
+        else
+        {
+            out.writeInt(0);
+            out.writeByte(0);
+        }
+    }
+
+    //==========================================
+    //========== Load ==========================
+    //==========================================
+
+    /**
+     * Loads the journal for the world, if there is one, and queues
+     * its actions to continue. The journal is deleted once read.
+     *
+     * @param world - world that loaded
+     */
+    public static void load(World world)
+    {
+        final int dim = world.provider.dimensionId;
+        final File file = getSaveFile(dim);
+        if (!file.exists())
+        {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        int restored = 0;
+        long edits = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(file)), 1 << 16)))
+        {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION)
+            {
+                Engine.logger().error("WorldChangeJournal: " + file + " is not a valid journal, ignoring");
+                return;
+            }
+            if (in.readInt() != dim)
+            {
+                Engine.logger().error("WorldChangeJournal: " + file + " was saved for another dim, ignoring");
+                return;
+            }
+
+            //Actions
+            final int actionCount = in.readInt();
+            final Blast[] blasts = new Blast[actionCount];
+            final int[] nextLayer = new int[actionCount];
+            final WorldChangeProgress[] progress = new WorldChangeProgress[actionCount];
+            for (int i = 0; i < actionCount; i++)
+            {
+                final String id = in.readUTF();
+                final double x = in.readDouble();
+                final double y = in.readDouble();
+                final double z = in.readDouble();
+                final double size = in.readDouble();
+                nextLayer[i] = in.readInt();
+                final NBTTagCompound tag = in.readBoolean() ? CompressedStreamTools.read(in) : null;
+
+                IExplosiveHandler handler = ExplosiveRegistry.get(id);
+                IWorldChangeAction action = handler != null ? handler.createBlastForTrigger(world, x, y, z, new TriggerCause.TriggerCauseRedstone(ForgeDirection.UNKNOWN, 15), size, tag) : null;
+                if (action instanceof Blast)
+                {
+                    blasts[i] = (Blast) action;
+                    blasts[i].setYield(size);
+                    progress[i] = new WorldChangeProgress();
+                }
+                else
+                {
+                    Engine.logger().warn("WorldChangeJournal: explosive '" + id + "' no longer creates a blast, its saved edits will be skipped");
+                }
+            }
+
+            //Ques, read even if the action is missing to keep the stream in step
+            final int queCount = in.readInt();
+            for (int q = 0; q < queCount; q++)
+            {
+                final int index = in.readInt();
+                final int editsPerTick = in.readInt();
+                final int count = in.readInt();
+                final EditBuffer buffer = new EditBuffer(world, count);
+                for (int i = 0; i < count; i++)
+                {
+                    buffer.addPacked(in.readLong(), in.readInt(), in.readInt(), in.readByte());
+                }
+                if (blasts[index] != null)
+                {
+                    progress[index].addPending(count);
+                    WorldActionQue.addEditQue(world, new WorldEditQueue(world, blasts[index], editsPerTick, buffer).setProgress(progress[index]));
+                    edits += count;
+                }
+            }
+
+            //Continue calculating, or finish with post effects
+            for (int i = 0; i < actionCount; i++)
+            {
+                if (blasts[i] != null)
+                {
+                    restored++;
+                    if (nextLayer[i] >= 0)
+                    {
+                        //Shares the progress of the restored ques so post effects wait for them
+                        WCAThreadProcess process = new WCAThreadProcess(new Location(world, blasts[i].x(), blasts[i].y(), blasts[i].z()), blasts[i], blasts[i].cause, progress[i]);
+                        process.startLayer = nextLayer[i];
+                        WorkerPool.instance().add(process);
+                    }
+                    else
+                    {
+                        //Nothing left to calculate, only the restored edits
+                        progress[i].onCalculationFinished();
+                        WorldActionQue.addEditQue(world, new WorldChangeActionPost(blasts[i], progress[i]));
+                    }
+                }
+            }
+
+            Engine.logger().info("WorldChangeJournal: restored " + restored + " actions with " + edits + " edits for dim " + dim + " in " + (System.nanoTime() - start) / 1000000 + "ms");
+        }
+        catch (Exception e)
+        {
+            Engine.logger().error("WorldChangeJournal: failed to load unfinished actions for dim " + dim, e);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+}
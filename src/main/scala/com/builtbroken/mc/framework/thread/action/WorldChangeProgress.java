@@ -0,0 +1,261 @@
+package com.builtbroken.mc.framework.thread.action;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared state between the thread calculating a world change action and the ques placing
+ * its edits. Used to pause calculation once too many edits are waiting to be placed, to
+ * report progress, and to cancel both sides of the action.
+ * <p>
+ * Calculation calls {@link #awaitCapacity()} before each layer, placement calls
+ * {@link #onProcessed(int, int)} as edits leave the que. Memory used by a blast
+ * is then limited to about {@link #maxPending} edits plus one layer, no matter its size.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class WorldChangeProgress
+{
+    /** Default limit of edits waiting to be placed before calculation pauses */
+    public static int DEFAULT_MAX_PENDING = 100000;
+
+    /** Edits waiting to be placed before calculation pauses, less than 1 disables the limit */
+    public final int maxPending;
+
+    private final AtomicInteger layersDone = new AtomicInteger();
+    private final AtomicLong editsPending = new AtomicLong();
+    private final AtomicLong editsPlaced = new AtomicLong();
+    private final AtomicLong editsDropped = new AtomicLong();
+
+    /** {@link System#nanoTime()} the action started */
+    public final long startTime = System.nanoTime();
+
+    private volatile int totalLayers = 1;
+    private volatile boolean calculating = true;
+    private volatile boolean cancelled = false;
+
+    /** Used to block calculation inside the worker pool without starving it */
+    private final ForkJoinPool.ManagedBlocker blocker = new ForkJoinPool.ManagedBlocker()
+    {
+        @Override
+        public boolean block() throws InterruptedException
+        {
+            synchronized (WorldChangeProgress.this)
+            {
+                while (!isReleasable())
+                {
+                    //Timed in case a que is lost without reporting back
+                    WorldChangeProgress.this.wait(100);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable()
+        {
+            return hasCapacity();
+        }
+    };
+
+    public WorldChangeProgress()
+    {
+        this(DEFAULT_MAX_PENDING);
+    }
+
+    public WorldChangeProgress(int maxPending)
+    {
+        this.maxPending = maxPending;
+    }
+
+    //==========================================
+    //========== Calculation side ==============
+    //==========================================
+
+    /**
+     * Blocks the calling thread until edits pending placement drop
+     * below {@link #maxPending} or the action is cancelled.
+     *
+     * @return true if calculation should continue, false if cancelled
+     */
+    public boolean awaitCapacity()
+    {
+        if (!hasCapacity())
+        {
+            try
+            {
+                ForkJoinPool.managedBlock(blocker);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                cancel();
+            }
+        }
+        return !cancelled;
+    }
+
+    /** True if more edits can be calculated without waiting */
+    public boolean hasCapacity()
+    {
+        return cancelled || maxPending <= 0 || editsPending.get() < maxPending;
+    }
+
+    /**
+     * Called when a layer has been calculated and handed off for placement
+     *
+     * @param edits - number of edits in the layer
+     */
+    public void onLayerQueued(int edits)
+    {
+        layersDone.incrementAndGet();
+        editsPending.addAndGet(edits);
+    }
+
+    /**
+     * Counts edits as pending without finishing a layer, used
+     * when edits are restored from a save
+     *
+     * @param edits - number of edits
+     */
+    public void addPending(int edits)
+    {
+        editsPending.addAndGet(edits);
+    }
+
+    /** Sets the number of layers the action will calculate */
+    public void setTotalLayers(int layers)
+    {
+        this.totalLayers = Math.max(1, layers);
+    }
+
+    /** Called once calculation has stopped, finished or not */
+    public void onCalculationFinished()
+    {
+        calculating = false;
+    }
+
+    //==========================================
+    //========== Placement side ================
+    //==========================================
+
+    /**
+     * Called when edits have been taken off a que
+     *
+     * @param consumed - edits removed from the que
+     * @param placed   - edits that changed the world
+     */
+    public void onProcessed(int consumed, int placed)
+    {
+        if (consumed > 0)
+        {
+            editsPlaced.addAndGet(placed);
+            release(consumed);
+        }
+    }
+
+    /**
+     * Called when edits are thrown away without being placed
+     *
+     * @param edits - number of edits
+     */
+    public void onDropped(int edits)
+    {
+        if (edits > 0)
+        {
+            editsDropped.addAndGet(edits);
+            release(edits);
+        }
+    }
+
+    private void release(int edits)
+    {
+        long pending = editsPending.addAndGet(-edits);
+        if (maxPending > 0 && pending < maxPending)
+        {
+            synchronized (this)
+            {
+                notifyAll();
+            }
+        }
+    }
+
+    //==========================================
+    //========== Cancel ========================
+    //==========================================
+
+    /**
+     * Stops calculation at the next layer and placement at the next tick
+     */
+    public void cancel()
+    {
+        cancelled = true;
+        synchronized (this)
+        {
+            notifyAll();
+        }
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    //==========================================
+    //========== Progress ======================
+    //==========================================
+
+    public int getLayersDone()
+    {
+        return layersDone.get();
+    }
+
+    public int getTotalLayers()
+    {
+        return totalLayers;
+    }
+
+    public long getEditsPending()
+    {
+        return editsPending.get();
+    }
+
+    public long getEditsPlaced()
+    {
+        return editsPlaced.get();
+    }
+
+    public long getEditsDropped()
+    {
+        return editsDropped.get();
+    }
+
+    public boolean isCalculating()
+    {
+        return calculating;
+    }
+
+    /** True once calculation has stopped and nothing is left to place */
+    public boolean isDone()
+    {
+        return !calculating && editsPending.get() <= 0;
+    }
+
+    /** Percent of layers calculated, 0 to 1 */
+    public float getCalculationProgress()
+    {
+        return Math.min(1f, layersDone.get() / (float) totalLayers);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "WorldChangeProgress[layers=" + layersDone.get() + "/" + totalLayers
+                + ", pending=" + editsPending.get()
+                + ", placed=" + editsPlaced.get()
+                + (editsDropped.get() > 0 ? ", dropped=" + editsDropped.get() : "")
+                + (cancelled ? ", cancelled" : calculating ? ", calculating" : "")
+                + "]";
+    }
+}
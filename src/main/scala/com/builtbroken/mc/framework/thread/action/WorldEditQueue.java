@@ -6,12 +6,21 @@ import com.builtbroken.mc.api.edit.IWorldChangeGraphics;
 import com.builtbroken.mc.api.edit.IWorldEdit;
 import com.builtbroken.mc.api.process.IWorldAction;
 import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.framework.thread.action.metrics.ActionMetrics;
+import com.builtbroken.mc.framework.thread.action.metrics.WorldChangeMetrics;
+import com.builtbroken.mc.lib.world.edit.BulkPlacementHelper;
+import com.builtbroken.mc.lib.world.edit.EditBuffer;
+import com.builtbroken.mc.lib.world.edit.IBulkPlacementAction;
+import com.builtbroken.mc.lib.world.edit.IEditBatchAction;
 import cpw.mods.fml.relauncher.Side;
 import net.minecraft.world.World;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * Que of block edits to be applied to the world.
@@ -28,6 +37,16 @@ public class WorldEditQueue extends LinkedList<IWorldEdit> implements IWorldActi
     /** Number of edits per tick, keep it low to reduce block lag */
     protected int editsPerTick; //TODO add a check to see if is near a player, if not accelerate block placement as there will be no packets to cause lag
 
+    /** Compact edits, used in place of the linked list when the action provided an {@link EditBuffer} */
+    protected EditBuffer buffer;
+    /** Next edit to place from the buffer */
+    protected int bufferIndex = 0;
+
+    /** Progress of the action that created this que, null if not tracked */
+    protected WorldChangeProgress progress;
+    /** Metrics for the type of action, see {@link #getMetrics()} */
+    private ActionMetrics metrics;
+
     /**
      * Creates a new edit add
      *
@@ -48,14 +67,19 @@ public class WorldEditQueue extends LinkedList<IWorldEdit> implements IWorldActi
      * @param world  - world to edit
      * @param action - handler for changes made to the world
      * @param edits  - number of edits to do per tick
-     * @param c      - list of edits to apply to the world
+     * @param c      - list of edits to apply to the world, an {@link EditBuffer} is used as is without copying
      */
     public WorldEditQueue(World world, IWorldChangeAction action, int edits, Collection<IWorldEdit> c)
     {
-        super(c);
-        this.world = world;
-        this.editsPerTick = edits;
-        this.action = action;
+        this(world, action, edits);
+        if (c instanceof EditBuffer)
+        {
+            buffer = (EditBuffer) c;
+        }
+        else if (c != null)
+        {
+            addAll(c);
+        }
     }
 
     @Override
@@ -64,81 +88,343 @@ public class WorldEditQueue extends LinkedList<IWorldEdit> implements IWorldActi
         //TODO fix so this is not called for each world
         if (world == this.world)
         {
-            try
+            //Cancelled, throw away what is left
+            if (progress != null && progress.isCancelled())
             {
-                Iterator<IWorldEdit> it = iterator();
-                int c = 0;
+                drop();
+                return 0;
+            }
 
-                //Special case handling for instantly placing all blocks
-                // Main use it to work around water blocks
-                if (editsPerTick == -2)
+            final int before = progress != null ? remaining() : 0;
+            int placed = -1;
+            try
+            {
+                placed = runEdits(world, side);
+                return placed;
+            }
+            finally
+            {
+                if (progress != null)
                 {
-                    editsPerTick = size();
+                    progress.onProcessed(before - remaining(), Math.max(0, placed));
                 }
-                else if(editsPerTick <= 0)
+                if (placed > 0)
                 {
-                    editsPerTick = 100; //TODO make config option or hook
+                    getMetrics().onEditsPlaced(placed);
                 }
+            }
+        }
+        return -1;
+    }
 
-                int edits = 0;
+    /**
+     * Places the next set of edits
+     *
+     * @param world - world to edit
+     * @param side  - side the que is running on
+     * @return number of edits placed, or -1 if failed
+     */
+    protected int runEdits(World world, Side side)
+    {
+        try
+        {
+            //Special case handling for instantly placing all blocks
+            // Main use it to work around water blocks
+            if (editsPerTick == -2)
+            {
+                editsPerTick = remaining();
+            }
+            else if(editsPerTick <= 0)
+            {
+                editsPerTick = 100; //TODO make config option or hook
+            }
+
+            final boolean bulk = !world.isRemote && action instanceof IBulkPlacementAction && ((IBulkPlacementAction) action).shouldUseBulkPlacement();
+            final IEditBatchAction batch = !world.isRemote && action instanceof IEditBatchAction && ((IEditBatchAction) action).shouldBatchEdits() ? (IEditBatchAction) action : null;
+            if (bulk || batch != null)
+            {
+                return runSlice(world, side, bulk, batch);
+            }
+
+            int c = 0;
+            int edits = 0;
+            if (buffer != null)
+            {
+                //Cursor is reused for each edit, no objects are created
+                while (bufferIndex < buffer.size() && c++ <= editsPerTick)
+                {
+                    edits += applyEdit(world, side, buffer.cursor(bufferIndex++));
+                }
+            }
+            else
+            {
+                Iterator<IWorldEdit> it = iterator();
                 while (it.hasNext() && c++ <= editsPerTick)
                 {
                     IWorldEdit edit = it.next();
                     if (edit != null)
                     {
-                        try
-                        {
-                            if (!world.isRemote)
-                            {
-                                action.handleBlockPlacement(edit);
-                                edits++;
-                            }
-                            if (action instanceof IWorldChangeAudio)
-                            {
-                                ((IWorldChangeAudio) action).playAudioForEdit(edit);
-                            }
-                            if (action instanceof IWorldChangeGraphics)
-                            {
-                                ((IWorldChangeGraphics) action).displayEffectForEdit(edit);
-                            }
-                        }
-                        catch (Exception e)
-                        {
-                            Engine.logger().error("Failed to place block for change action"
-                                            + "\nSide: " + side
-                                            + "\nChangeAction: " + action
-                                            + "\nEdit: " + edit
-                                    , e);
-                        }
+                        edits += applyEdit(world, side, edit);
                     }
                     it.remove();
                 }
-                if (isEmpty())
+            }
+            checkForEnd();
+
+            return edits;
+        }
+        catch (Exception e)
+        {
+            Engine.logger().error("Crash while processing world change " + action, e);
+        }
+        return -1;
+    }
+
+    /**
+     * Places a single edit and plays its effects
+     *
+     * @param world - world to edit
+     * @param side  - side the que is running on
+     * @param edit  - edit to place, not null
+     * @return 1 if placed, 0 otherwise
+     */
+    protected int applyEdit(World world, Side side, IWorldEdit edit)
+    {
+        int edits = 0;
+        try
+        {
+            if (!world.isRemote)
+            {
+                action.handleBlockPlacement(edit);
+                edits++;
+            }
+            doEffects(edit);
+        }
+        catch (Exception e)
+        {
+            Engine.logger().error("Failed to place block for change action"
+                            + "\nSide: " + side
+                            + "\nChangeAction: " + action
+                            + "\nEdit: " + edit
+                    , e);
+        }
+        return edits;
+    }
+
+    /**
+     * Places the next slice of edits, used when edits are placed with
+     * {@link BulkPlacementHelper} or the action wants batch calls
+     *
+     * @param world - world to edit
+     * @param side  - side the que is running on
+     * @param bulk  - true to place with {@link BulkPlacementHelper}
+     * @param batch - action to call before and after the slice, may be null
+     * @return number of edits placed
+     */
+    protected int runSlice(World world, Side side, boolean bulk, IEditBatchAction batch)
+    {
+        final boolean effects = action instanceof IWorldChangeAudio || action instanceof IWorldChangeGraphics;
+
+        //Pull next set of edits
+        final int start = bufferIndex;
+        final List<IWorldEdit> slice;
+        if (buffer != null)
+        {
+            bufferIndex = Math.min(buffer.size(), start + editsPerTick);
+            slice = buffer.view(start, bufferIndex);
+        }
+        else
+        {
+            slice = new ArrayList(Math.min(size(), editsPerTick));
+            while (!isEmpty() && slice.size() < editsPerTick)
+            {
+                IWorldEdit edit = poll();
+                if (edit != null)
                 {
-                    if (action instanceof IWorldChangeAudio)
-                    {
-                        ((IWorldChangeAudio) action).doEndAudio();
-                    }
-                    if (action instanceof IWorldChangeGraphics)
+                    slice.add(edit);
+                }
+            }
+        }
+
+        //Checks run once for the slice
+        final BitSet skip = batch != null ? batch.preEditBatch(slice) : null;
+
+        int edits = 0;
+        if (bulk)
+        {
+            if (buffer != null)
+            {
+                edits = BulkPlacementHelper.place(world, (IBulkPlacementAction) action, buffer, start, bufferIndex, skip);
+            }
+            else
+            {
+                edits = BulkPlacementHelper.place(world, (IBulkPlacementAction) action, skip != null ? without(slice, skip) : slice);
+            }
+
+            //Effects are still per edit
+            if (effects)
+            {
+                for (int i = 0; i < slice.size(); i++)
+                {
+                    if (skip == null || !skip.get(i))
                     {
-                        ((IWorldChangeGraphics) action).doEndDisplay();
+                        doEffectsSafe(buffer != null ? buffer.cursor(start + i) : slice.get(i));
                     }
                 }
+            }
+        }
+        else
+        {
+            for (int i = 0; i < slice.size(); i++)
+            {
+                if (skip == null || !skip.get(i))
+                {
+                    edits += applyEdit(world, side, buffer != null ? buffer.cursor(start + i) : slice.get(i));
+                }
+            }
+        }
 
-                return edits;
+        if (batch != null)
+        {
+            batch.postEditBatch(slice, skip);
+        }
+        checkForEnd();
+        return edits;
+    }
+
+    private static List<IWorldEdit> without(List<IWorldEdit> slice, BitSet skip)
+    {
+        final List<IWorldEdit> list = new ArrayList(slice.size());
+        for (int i = 0; i < slice.size(); i++)
+        {
+            if (!skip.get(i))
+            {
+                list.add(slice.get(i));
             }
-            catch (Exception e)
+        }
+        return list;
+    }
+
+    /**
+     * Plays audio and graphics for the edit
+     *
+     * @param edit - edit placed
+     */
+    protected void doEffects(IWorldEdit edit)
+    {
+        if (action instanceof IWorldChangeAudio)
+        {
+            ((IWorldChangeAudio) action).playAudioForEdit(edit);
+        }
+        if (action instanceof IWorldChangeGraphics)
+        {
+            ((IWorldChangeGraphics) action).displayEffectForEdit(edit);
+        }
+    }
+
+    private void doEffectsSafe(IWorldEdit edit)
+    {
+        try
+        {
+            doEffects(edit);
+        }
+        catch (Exception e)
+        {
+            Engine.logger().error("Failed to do graphics/audio for " + edit + " for " + action, e);
+        }
+    }
+
+    /**
+     * Triggers end audio and graphics once all edits are placed
+     */
+    protected void checkForEnd()
+    {
+        if (isQueDone())
+        {
+            if (action instanceof IWorldChangeAudio)
             {
-                Engine.logger().error("Crash while processing world change " + action, e);
+                ((IWorldChangeAudio) action).doEndAudio();
+            }
+            if (action instanceof IWorldChangeGraphics)
+            {
+                ((IWorldChangeGraphics) action).doEndDisplay();
             }
         }
-        return -1;
+    }
+
+    /**
+     * Removes all remaining edits without placing them
+     */
+    public void drop()
+    {
+        final int count = remaining();
+        clear();
+        if (buffer != null)
+        {
+            bufferIndex = buffer.size();
+        }
+        if (progress != null)
+        {
+            progress.onDropped(count);
+        }
+    }
+
+    /**
+     * Sets the progress tracker to report placed edits to
+     *
+     * @param progress - tracker, edits in the que should already be counted as pending
+     * @return this
+     */
+    public WorldEditQueue setProgress(WorldChangeProgress progress)
+    {
+        this.progress = progress;
+        return this;
+    }
+
+    public WorldChangeProgress getProgress()
+    {
+        return progress;
+    }
+
+    /**
+     * Edits not yet placed. Buffered edits are returned through a
+     * reused cursor so do not keep references to them.
+     */
+    public Iterable<IWorldEdit> remainingEdits()
+    {
+        if (buffer != null)
+        {
+            return buffer.edits(bufferIndex, buffer.size());
+        }
+        return this;
+    }
+
+    /** Number of edits left to place */
+    public int remaining()
+    {
+        return size() + (buffer != null ? buffer.size() - bufferIndex : 0);
+    }
+
+    /** Metrics for the type of action that created the edits */
+    protected ActionMetrics getMetrics()
+    {
+        if (metrics == null)
+        {
+            metrics = WorldChangeMetrics.get(action);
+        }
+        return metrics;
+    }
+
+    /** Action that created the edits */
+    public IWorldChangeAction getAction()
+    {
+        return action;
     }
 
     @Override
     public boolean isQueDone()
     {
-        return isEmpty();
+        return isEmpty() && (buffer == null || bufferIndex >= buffer.size());
     }
 
     @Override
@@ -151,6 +437,11 @@ public class WorldEditQueue extends LinkedList<IWorldEdit> implements IWorldActi
         //Worst case o^2
         if (object instanceof WorldEditQueue)
         {
+            //Buffered ques only equal themselves
+            if (buffer != null || ((WorldEditQueue) object).buffer != null)
+            {
+                return false;
+            }
             if (((WorldEditQueue) object).size() == size())
             {
                 for (IWorldEdit edit : this)
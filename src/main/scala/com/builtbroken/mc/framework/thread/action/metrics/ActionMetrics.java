@@ -0,0 +1,151 @@
+package com.builtbroken.mc.framework.thread.action.metrics;
+
+import com.builtbroken.jlib.lang.StringHelpers;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics for a single type of world change action, such as one explosive.
+ * Safe to update from any thread.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class ActionMetrics
+{
+    /** Action type, explosive id or class name */
+    public final String name;
+
+    /** Nanoseconds spent calculating edits for one action */
+    public final MetricHistogram calculationTime = new MetricHistogram();
+    /** Edits placed by one que in one tick */
+    public final MetricHistogram editsPerTick = new MetricHistogram();
+    /** Ques waiting in the world when a que of this type was added */
+    public final MetricHistogram queueDepth = new MetricHistogram();
+    /** Nanoseconds from an action starting to its last edit being placed */
+    public final MetricHistogram timeToComplete = new MetricHistogram();
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder editsPlaced = new LongAdder();
+    private final LongAdder eventsPosted = new LongAdder();
+
+    public ActionMetrics(String name)
+    {
+        this.name = name;
+    }
+
+    /** Called when an action of this type starts */
+    public void onStarted()
+    {
+        started.increment();
+    }
+
+    /**
+     * Called when an action of this type finishes
+     *
+     * @param timeNano - time since it started
+     */
+    public void onCompleted(long timeNano)
+    {
+        completed.increment();
+        timeToComplete.record(timeNano);
+    }
+
+    /** Called when an action of this type is cancelled */
+    public void onCancelled()
+    {
+        cancelled.increment();
+    }
+
+    /**
+     * Called each time a que of this type places edits
+     *
+     * @param edits - edits placed this tick
+     */
+    public void onEditsPlaced(int edits)
+    {
+        editsPlaced.add(edits);
+        editsPerTick.record(edits);
+    }
+
+    /** Called for each event posted for an action of this type */
+    public void onEventPosted()
+    {
+        eventsPosted.increment();
+    }
+
+    public long getStarted()
+    {
+        return started.sum();
+    }
+
+    public long getCompleted()
+    {
+        return completed.sum();
+    }
+
+    public long getCancelled()
+    {
+        return cancelled.sum();
+    }
+
+    public long getEditsPlaced()
+    {
+        return editsPlaced.sum();
+    }
+
+    public long getEventsPosted()
+    {
+        return eventsPosted.sum();
+    }
+
+    /** Clears all values */
+    public void reset()
+    {
+        calculationTime.reset();
+        editsPerTick.reset();
+        queueDepth.reset();
+        timeToComplete.reset();
+        started.reset();
+        completed.reset();
+        cancelled.reset();
+        editsPlaced.reset();
+        eventsPosted.reset();
+    }
+
+    /**
+     * Adds a readable summary to the list, one line per entry
+     *
+     * @param lines - list to add to
+     */
+    public void addReport(List<String> lines)
+    {
+        lines.add(name + ": started " + getStarted() + ", completed " + getCompleted() + ", cancelled " + getCancelled() + ", edits " + getEditsPlaced() + ", events " + getEventsPosted());
+        lines.add("  calculation  " + formatTime(calculationTime));
+        lines.add("  complete     " + formatTime(timeToComplete));
+        lines.add("  edits/tick   " + format(editsPerTick));
+        lines.add("  queue depth  " + format(queueDepth));
+    }
+
+    private static String format(MetricHistogram histogram)
+    {
+        return "n=" + histogram.getCount() + " mean=" + histogram.getMean() + " p50=" + histogram.getPercentile(0.5) + " p99=" + histogram.getPercentile(0.99) + " max=" + histogram.getMax();
+    }
+
+    private static String formatTime(MetricHistogram histogram)
+    {
+        return "n=" + histogram.getCount()
+                + " mean=" + StringHelpers.formatNanoTime(histogram.getMean())
+                + " p50=" + StringHelpers.formatNanoTime(histogram.getPercentile(0.5))
+                + " p99=" + StringHelpers.formatNanoTime(histogram.getPercentile(0.99))
+                + " max=" + StringHelpers.formatNanoTime(histogram.getMax());
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ActionMetrics[" + name + "]";
+    }
+}
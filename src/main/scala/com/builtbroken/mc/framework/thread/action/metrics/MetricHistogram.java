@@ -0,0 +1,122 @@
+package com.builtbroken.mc.framework.thread.action.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of positive values. Values are counted in power of two buckets,
+ * so recording is a few atomic adds and percentiles are accurate to within a factor of two.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class MetricHistogram
+{
+    /** One bucket for zero and one per bit of a long */
+    private static final int BUCKETS = 64;
+
+    /** Bucket n counts values in [2^(n-1), 2^n), bucket 0 counts zero */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value, negative values are counted as zero
+     *
+     * @param value - value to record
+     */
+    public void record(long value)
+    {
+        if (value < 0)
+        {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value))
+        {
+            //Lost the race to another thread, try again
+        }
+    }
+
+    private static int bucket(long value)
+    {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    /** Number of values recorded */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /** Total of all values recorded */
+    public long getSum()
+    {
+        return sum.sum();
+    }
+
+    /** Largest value recorded */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /** Average of all values recorded, zero if none */
+    public long getMean()
+    {
+        final long c = getCount();
+        return c > 0 ? getSum() / c : 0;
+    }
+
+    /**
+     * Gets an estimate of the percentile, values recorded while
+     * this runs may or may not be included.
+     *
+     * @param percentile - 0 to 1
+     * @return upper bound of the bucket holding the percentile, capped at {@link #getMax()}
+     */
+    public long getPercentile(double percentile)
+    {
+        long total = 0;
+        final long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(total * Math.min(1, Math.max(0, percentile))));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += snapshot[i];
+            if (seen >= target)
+            {
+                final long upper = i == 0 ? 0 : i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+                return Math.min(upper, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /** Clears all values, values recorded at the same time may be partly kept */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+}
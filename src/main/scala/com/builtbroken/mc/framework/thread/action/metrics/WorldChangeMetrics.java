@@ -0,0 +1,218 @@
+package com.builtbroken.mc.framework.thread.action.metrics;
+
+import com.builtbroken.mc.api.edit.IWorldChangeAction;
+import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.framework.explosive.blast.Blast;
+import com.builtbroken.mc.framework.thread.IPrioritizedProcess;
+import com.builtbroken.mc.framework.thread.WorkerPool;
+import com.builtbroken.mc.framework.thread.action.WorldActionQue;
+import com.builtbroken.mc.lib.helper.NBTUtility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link ActionMetrics} for each type of world change action. Always on, updates
+ * are lock free so they can be made from worker threads and the main thread alike.
+ * <p>
+ * Viewed with /ve thread metrics and written every {@link #DUMP_INTERVAL_TICKS} to
+ * bbm/metrics/worldChange.txt in the world save.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class WorldChangeMetrics
+{
+    /** Set to false to stop collecting metrics */
+    public static boolean ENABLED = true;
+    /** Ticks between writing the dump file, less than 1 disables the file */
+    public static int DUMP_INTERVAL_TICKS = 20 * 60 * 5;
+
+    /** Action type to metrics */
+    private static final Map<String, ActionMetrics> metrics = new ConcurrentHashMap();
+    /** Used when metrics are disabled, never reported */
+    private static final ActionMetrics DISABLED = new ActionMetrics("disabled");
+
+    private static int lastDumpTick = -1;
+
+    private WorldChangeMetrics()
+    {
+    }
+
+    /**
+     * Gets the metrics for the type of the action
+     *
+     * @param action - world change action
+     * @return metrics, never null
+     */
+    public static ActionMetrics get(IWorldChangeAction action)
+    {
+        return get(getType(action));
+    }
+
+    /**
+     * Gets the metrics for the action type, creating them if needed
+     *
+     * @param type - action type, see {@link #getType(IWorldChangeAction)}
+     * @return metrics, never null
+     */
+    public static ActionMetrics get(String type)
+    {
+        if (!ENABLED)
+        {
+            return DISABLED;
+        }
+        ActionMetrics m = metrics.get(type);
+        if (m == null)
+        {
+            m = metrics.computeIfAbsent(type, ActionMetrics::new);
+        }
+        return m;
+    }
+
+    /**
+     * Gets the name metrics are grouped by, explosive id
+     * for blasts and class name for anything else.
+     *
+     * @param action - world change action
+     * @return type name
+     */
+    public static String getType(IWorldChangeAction action)
+    {
+        if (action instanceof Blast && ((Blast) action).explosiveHandler != null)
+        {
+            return ((Blast) action).explosiveHandler.getID();
+        }
+        return action != null ? action.getClass().getSimpleName() : "null";
+    }
+
+    /** Metrics for all action types seen so far */
+    public static Collection<ActionMetrics> getAll()
+    {
+        return Collections.unmodifiableCollection(metrics.values());
+    }
+
+    /**
+     * Resets all metrics. Entries are kept, running actions hold on to
+     * their metrics and would record into objects no longer reported.
+     */
+    public static void reset()
+    {
+        for (ActionMetrics m : metrics.values())
+        {
+            m.reset();
+        }
+    }
+
+    /**
+     * Builds a readable report of all metrics
+     *
+     * @return lines of the report
+     */
+    public static List<String> getReport()
+    {
+        final List<String> lines = new ArrayList();
+        lines.add("World change metrics " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+        lines.add("Ques waiting: " + WorldActionQue.getQueDepth());
+        for (ActionMetrics m : new TreeMap<>(metrics).values())
+        {
+            m.addReport(lines);
+        }
+        return lines;
+    }
+
+    /** File the dump is written to */
+    public static File getDumpFile()
+    {
+        return new File(NBTUtility.getSaveDirectory(), NBTUtility.BBM_FOLDER + "metrics/worldChange.txt");
+    }
+
+    /**
+     * Called once per server tick to write the dump file when due
+     *
+     * @param tick - server tick
+     */
+    public static void onServerTick(int tick)
+    {
+        if (ENABLED && DUMP_INTERVAL_TICKS > 0 && !metrics.isEmpty())
+        {
+            if (lastDumpTick < 0 || tick < lastDumpTick)
+            {
+                lastDumpTick = tick;
+            }
+            else if (tick - lastDumpTick >= DUMP_INTERVAL_TICKS)
+            {
+                lastDumpTick = tick;
+                dumpAsync();
+            }
+        }
+    }
+
+    /** Builds the report on this thread and writes it from the worker pool */
+    public static void dumpAsync()
+    {
+        final List<String> lines = getReport();
+        final File file = getDumpFile();
+        WorkerPool.instance().add(new IPrioritizedProcess()
+        {
+            @Override
+            public void runProcess()
+            {
+                write(file, lines);
+            }
+
+            @Override
+            public void killAction()
+            {
+            }
+
+            @Override
+            public int getPriority()
+            {
+                return PRIORITY_BACKGROUND;
+            }
+        });
+    }
+
+    /**
+     * Writes the report to the dump file
+     *
+     * @return file written, or null if it failed
+     */
+    public static File dump()
+    {
+        final File file = getDumpFile();
+        return write(file, getReport()) ? file : null;
+    }
+
+    private static boolean write(File file, List<String> lines)
+    {
+        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs())
+        {
+            Engine.logger().error("WorldChangeMetrics: failed to create folder for " + file);
+            return false;
+        }
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8"))
+        {
+            for (String line : lines)
+            {
+                writer.println(line);
+            }
+            return true;
+        }
+        catch (IOException e)
+        {
+            Engine.logger().error("WorldChangeMetrics: failed to write " + file, e);
+            return false;
+        }
+    }
+}
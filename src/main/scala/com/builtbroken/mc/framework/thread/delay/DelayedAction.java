@@ -12,17 +12,35 @@ public abstract class DelayedAction
 
     public int ticksToWait = 0;
 
+    /** Ticks between runs once done, 0 or less to only run once */
+    public int repeatTicks = 0;
+
     public boolean isAlive = true;
 
+    /** Tick of the {@link TimingWheel} the action is due */
+    long deadline;
+
     public DelayedAction(World world, int ticks)
     {
         this.world = world;
         this.ticksToWait = ticks;
     }
 
+    /**
+     * Sets the action to run again each time it finishes
+     *
+     * @param ticks - ticks between runs, 0 or less to only run once
+     * @return this
+     */
+    public DelayedAction setRepeat(int ticks)
+    {
+        this.repeatTicks = ticks;
+        return this;
+    }
+
     /**
      * Called to kill the action before it is
-     * finished.
+     * finished. Also stops repeating actions.
      */
     public void kill()
     {
@@ -44,7 +62,7 @@ public abstract class DelayedAction
     }
 
     /**
-     * Called to queue the action for ticking
+     * Called to queue the action for ticking, safe to call from any thread
      */
     public void start()
     {
@@ -54,7 +72,7 @@ public abstract class DelayedAction
     /**
      * Called to trigger the action
      *
-     * @return true if done
+     * @return true if done, false to try again next tick
      */
     public abstract boolean trigger();
 }
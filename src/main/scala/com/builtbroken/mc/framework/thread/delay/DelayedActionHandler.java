@@ -3,73 +3,120 @@ package com.builtbroken.mc.framework.thread.delay;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import cpw.mods.fml.common.gameevent.TickEvent;
 import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
 
-import java.util.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
+ * Runs {@link DelayedAction}s at the end of the world tick they are due.
+ * <p>
+ * Each dimension has its own {@link TimingWheel} so adding an action is constant time
+ * and each tick only costs the actions due that tick. Actions can be added from any
+ * thread, they are placed in a lock-free que and moved into their wheel on the main thread.
+ *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 9/28/2017.
  */
 public class DelayedActionHandler
 {
-    public static Map<Integer, List<DelayedAction>> worldToActions = new HashMap();
+    /** Actions added since the last tick, from any thread */
+    private static final Queue<DelayedAction> incoming = new ConcurrentLinkedQueue();
+    /** Dimension to wheel, main thread only */
+    private static final Map<Integer, TimingWheel> worldToWheel = new HashMap();
 
     @SubscribeEvent
     public void onWorldTick(TickEvent.WorldTickEvent event)
     {
-        if(event.phase == TickEvent.Phase.END)
+        if (event.phase == TickEvent.Phase.END)
         {
+            drainIncoming();
+
             final World world = event.world;
-            final int dimID = world.provider.dimensionId;
-            if (worldToActions.containsKey(dimID))
+            final TimingWheel wheel = worldToWheel.get(world.provider.dimensionId);
+            if (wheel != null)
             {
-                List<DelayedAction> actions = worldToActions.get(dimID);
-                if (actions != null && actions.size() > 0)
-                {
-                    Iterator<DelayedAction> it = actions.iterator();
-                    while (it.hasNext())
-                    {
-                        DelayedAction action = it.next();
-                        if (action  != null && action.isAlive)
-                        {
-                            action.ticksToWait--;
-                            if (action.ticksToWait <= 0)
-                            {
-                                if (action.trigger())
-                                {
-                                    it.remove();
-                                }
-                            }
-                        }
-                        else
-                        {
-                            it.remove();
-                        }
-                    }
-                }
+                wheel.tick();
             }
         }
     }
 
-    public static <T extends DelayedAction> T add(T delayedAction)
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event)
     {
-        if(delayedAction != null && delayedAction.world != null && delayedAction.world.provider != null)
+        if (event.world.provider != null)
         {
-            List<DelayedAction> list = null;
-            if (worldToActions.containsKey(delayedAction.world.provider.dimensionId))
+            drainIncoming();
+            TimingWheel wheel = worldToWheel.remove(event.world.provider.dimensionId);
+            if (wheel != null)
             {
-                list = worldToActions.get(delayedAction.world.provider.dimensionId);
+                wheel.clear(true);
             }
+        }
+    }
 
-            if (list == null)
+    /** Moves actions added since the last tick into their wheel */
+    private static void drainIncoming()
+    {
+        DelayedAction action;
+        while ((action = incoming.poll()) != null)
+        {
+            if (action.isAlive)
             {
-                list = new ArrayList();
+                final int dim = action.world.provider.dimensionId;
+                TimingWheel wheel = worldToWheel.get(dim);
+                if (wheel == null)
+                {
+                    wheel = new TimingWheel();
+                    worldToWheel.put(dim, wheel);
+                }
+                wheel.add(action, action.ticksToWait);
             }
+        }
+    }
 
-            list.add(delayedAction);
-
-            worldToActions.put(delayedAction.world.provider.dimensionId, list);
+    /**
+     * Adds the action to run after {@link DelayedAction#ticksToWait} ticks. Safe
+     * to call from any thread.
+     *
+     * @param delayedAction - action
+     * @return action
+     */
+    public static <T extends DelayedAction> T add(T delayedAction)
+    {
+        if (delayedAction != null && delayedAction.world != null && delayedAction.world.provider != null)
+        {
+            incoming.offer(delayedAction);
         }
         return delayedAction;
     }
+
+    /**
+     * Kills the action so it will not run, it is removed from
+     * its wheel when its slot comes up.
+     *
+     * @param delayedAction - action
+     */
+    public static void cancel(DelayedAction delayedAction)
+    {
+        if (delayedAction != null)
+        {
+            delayedAction.kill();
+        }
+    }
+
+    /**
+     * Number of actions waiting in the dimension, may
+     * include killed actions not yet removed.
+     *
+     * @param dim - dimension id
+     * @return count
+     */
+    public static int getPendingCount(int dim)
+    {
+        TimingWheel wheel = worldToWheel.get(dim);
+        return wheel != null ? wheel.size() : 0;
+    }
 }
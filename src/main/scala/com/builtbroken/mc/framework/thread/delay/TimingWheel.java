@@ -0,0 +1,221 @@
+package com.builtbroken.mc.framework.thread.delay;
+
+import com.builtbroken.mc.core.Engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel used to run {@link DelayedAction}s for a single dimension.
+ * <p>
+ * The first wheel has a slot per tick for the next 256 ticks, each wheel after that covers
+ * 64 slots of the wheel below it. Adding an action only places it in a slot, and each
+ * tick only touches the actions due that tick plus, every 256 ticks, the actions cascaded
+ * down from the next wheel. Together the wheels span 2^26 ticks, about 39 days. Delays longer
+ * than the last wheel are parked in its furthest slot and placed again when it cascades.
+ * <p>
+ * Not thread safe, only used from the main thread by {@link DelayedActionHandler}.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TimingWheel
+{
+    private static final int ROOT_BITS = 8;
+    private static final int ROOT_SIZE = 1 << ROOT_BITS;
+    private static final int ROOT_MASK = ROOT_SIZE - 1;
+
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+    private static final int LEVEL_MASK = LEVEL_SIZE - 1;
+    private static final int LEVELS = 3;
+
+    /** Slots for each wheel, index 0 is the root wheel */
+    private final List<DelayedAction>[][] wheels;
+
+    /** Current tick of the wheel */
+    private long tick = 0;
+    /** Actions in the wheel, including dead ones not yet removed */
+    private int size = 0;
+
+    public TimingWheel()
+    {
+        wheels = new List[LEVELS + 1][];
+        wheels[0] = new List[ROOT_SIZE];
+        for (int i = 1; i <= LEVELS; i++)
+        {
+            wheels[i] = new List[LEVEL_SIZE];
+        }
+    }
+
+    /**
+     * Adds the action to run after the delay
+     *
+     * @param action - action
+     * @param delay  - ticks from now, min 1
+     */
+    public void add(DelayedAction action, int delay)
+    {
+        schedule(action, tick + Math.max(1, delay));
+        size++;
+    }
+
+    /** Places the action in the slot for its deadline */
+    private void schedule(DelayedAction action, long deadline)
+    {
+        action.deadline = deadline;
+        final long delta = deadline - tick;
+        if (delta < ROOT_SIZE)
+        {
+            slot(0, (int) (deadline & ROOT_MASK)).add(action);
+            return;
+        }
+        for (int level = 1; level <= LEVELS; level++)
+        {
+            final int shift = ROOT_BITS + LEVEL_BITS * (level - 1);
+            if (delta < 1L << (shift + LEVEL_BITS))
+            {
+                slot(level, (int) ((deadline >> shift) & LEVEL_MASK)).add(action);
+                return;
+            }
+        }
+        //Longer than the wheel, park in the last slot to be placed again when it cascades
+        final int shift = ROOT_BITS + LEVEL_BITS * (LEVELS - 1);
+        slot(LEVELS, (int) (((tick >> shift) + LEVEL_MASK) & LEVEL_MASK)).add(action);
+    }
+
+    private List<DelayedAction> slot(int level, int index)
+    {
+        List<DelayedAction> list = wheels[level][index];
+        if (list == null)
+        {
+            list = new ArrayList();
+            wheels[level][index] = list;
+        }
+        return list;
+    }
+
+    /**
+     * Moves the wheel forward one tick and triggers actions that are due
+     *
+     * @return number of actions triggered
+     */
+    public int tick()
+    {
+        tick++;
+
+        //Pull actions down from the outer wheels when the inner wheel wraps
+        if ((tick & ROOT_MASK) == 0)
+        {
+            for (int level = 1; level <= LEVELS; level++)
+            {
+                final int index = (int) ((tick >> (ROOT_BITS + LEVEL_BITS * (level - 1))) & LEVEL_MASK);
+                cascade(level, index);
+                if (index != 0)
+                {
+                    break;
+                }
+            }
+        }
+
+        final int index = (int) (tick & ROOT_MASK);
+        final List<DelayedAction> due = wheels[0][index];
+        if (due == null || due.isEmpty())
+        {
+            return 0;
+        }
+        //Swap out slot so actions can be added back to it while running
+        wheels[0][index] = null;
+        size -= due.size();
+
+        int triggered = 0;
+        for (DelayedAction action : due)
+        {
+            if (action.isAlive)
+            {
+                triggered++;
+                boolean done = true;
+                try
+                {
+                    done = action.trigger();
+                }
+                catch (Exception e)
+                {
+                    Engine.logger().error("DelayedActionHandler: failed to trigger " + action, e);
+                }
+
+                if (!done)
+                {
+                    //Try again next tick
+                    add(action, 1);
+                }
+                else if (action.repeatTicks > 0 && action.isAlive)
+                {
+                    add(action, action.repeatTicks);
+                }
+            }
+        }
+        return triggered;
+    }
+
+    /** Places the actions in the slot again now that they are closer */
+    private void cascade(int level, int index)
+    {
+        final List<DelayedAction> list = wheels[level][index];
+        if (list != null && !list.isEmpty())
+        {
+            wheels[level][index] = null;
+            for (DelayedAction action : list)
+            {
+                if (action.isAlive)
+                {
+                    schedule(action, action.deadline);
+                }
+                else
+                {
+                    size--;
+                }
+            }
+        }
+    }
+
+    /** Number of actions waiting, may include killed actions not yet removed */
+    public int size()
+    {
+        return size;
+    }
+
+    /** Current tick of the wheel */
+    public long getTick()
+    {
+        return tick;
+    }
+
+    /**
+     * Kills and removes all actions
+     *
+     * @param force - true to remove all, false to only remove actions that {@link DelayedAction#canClear()}
+     * @return number of actions removed
+     */
+    public int clear(boolean force)
+    {
+        int removed = 0;
+        for (List<DelayedAction>[] wheel : wheels)
+        {
+            for (List<DelayedAction> list : wheel)
+            {
+                if (list != null)
+                {
+                    for (DelayedAction action : list)
+                    {
+                        if (action.isAlive && (force || action.canClear()))
+                        {
+                            action.kill();
+                            removed++;
+                        }
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+}
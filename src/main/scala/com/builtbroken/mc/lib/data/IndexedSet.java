@@ -0,0 +1,116 @@
+package com.builtbroken.mc.lib.data;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.RandomAccess;
+
+/**
+ * List without duplicates that has hash set speed for {@link #contains(Object)} and {@link #remove(Object)}.
+ * Removing moves the last entry into the freed slot, so order is only kept while nothing is removed.
+ * <p>
+ * Used where an API needs to return a {@link java.util.List} but membership checks are frequent.
+ * Entries need stable {@link Object#hashCode()} and {@link Object#equals(Object)}.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class IndexedSet<E> extends AbstractList<E> implements RandomAccess
+{
+    private final ArrayList<E> entries = new ArrayList();
+    private final HashMap<E, Integer> indices = new HashMap();
+
+    public IndexedSet()
+    {
+    }
+
+    public IndexedSet(Collection<? extends E> collection)
+    {
+        addAll(collection);
+    }
+
+    /**
+     * Adds the entry to the end if not already contained
+     *
+     * @param e - entry, not null
+     * @return true if added
+     */
+    @Override
+    public boolean add(E e)
+    {
+        if (e != null && !indices.containsKey(e))
+        {
+            indices.put(e, entries.size());
+            entries.add(e);
+            modCount++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        Integer index = indices.get(o);
+        if (index != null)
+        {
+            remove((int) index);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public E remove(int index)
+    {
+        final E removed = entries.get(index);
+        final E last = entries.remove(entries.size() - 1);
+        if (last != removed)
+        {
+            entries.set(index, last);
+            indices.put(last, index);
+        }
+        indices.remove(removed);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return indices.containsKey(o);
+    }
+
+    @Override
+    public int indexOf(Object o)
+    {
+        Integer index = indices.get(o);
+        return index != null ? index : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o)
+    {
+        return indexOf(o);
+    }
+
+    @Override
+    public E get(int index)
+    {
+        return entries.get(index);
+    }
+
+    @Override
+    public int size()
+    {
+        return entries.size();
+    }
+
+    @Override
+    public void clear()
+    {
+        entries.clear();
+        indices.clear();
+        modCount++;
+    }
+}
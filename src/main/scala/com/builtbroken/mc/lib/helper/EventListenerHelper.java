@@ -0,0 +1,104 @@
+package com.builtbroken.mc.lib.helper;
+
+import com.builtbroken.mc.core.Engine;
+import cpw.mods.fml.common.eventhandler.Event;
+import cpw.mods.fml.common.eventhandler.EventBus;
+import cpw.mods.fml.common.eventhandler.ListenerList;
+import net.minecraftforge.common.MinecraftForge;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks if an event has any listeners before it is created, so hot code
+ * can skip building and posting events nobody will receive.
+ * <p>
+ * If the listener list can not be read the event is treated as having
+ * listeners, so events are never skipped by mistake.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class EventListenerHelper
+{
+    /** Event class to its listener list */
+    private static final Map<Class<? extends Event>, ListenerList> listenerLists = new ConcurrentHashMap();
+    /** Event classes that could not be checked */
+    private static final Set<Class<? extends Event>> failed = ConcurrentHashMap.newKeySet();
+
+    /** Event bus to its ID, -1 if it could not be read */
+    private static final Map<EventBus, Integer> busIDs = new ConcurrentHashMap();
+
+    private EventListenerHelper()
+    {
+    }
+
+    /**
+     * Checks if the event has listeners on {@link MinecraftForge#EVENT_BUS}.
+     * Includes listeners of parent events.
+     *
+     * @param clazz - event class
+     * @return true if the event has listeners, or if it could not be checked
+     */
+    public static boolean hasListeners(Class<? extends Event> clazz)
+    {
+        return hasListeners(MinecraftForge.EVENT_BUS, clazz);
+    }
+
+    /**
+     * Checks if the event has listeners on the bus
+     *
+     * @param bus   - event bus
+     * @param clazz - event class
+     * @return true if the event has listeners, or if it could not be checked
+     */
+    public static boolean hasListeners(EventBus bus, Class<? extends Event> clazz)
+    {
+        final int busID = getBusID(bus);
+        final ListenerList list = busID >= 0 ? getListenerList(clazz) : null;
+        //Listener array only contains priorities that have listeners, so empty means none
+        return list == null || list.getListeners(busID).length > 0;
+    }
+
+    private static ListenerList getListenerList(Class<? extends Event> clazz)
+    {
+        ListenerList list = listenerLists.get(clazz);
+        if (list == null && !failed.contains(clazz))
+        {
+            try
+            {
+                //FML adds a default constructor to every event, it is used the same way to register listeners
+                list = clazz.newInstance().getListenerList();
+                listenerLists.put(clazz, list);
+            }
+            catch (Exception e)
+            {
+                failed.add(clazz);
+                Engine.logger().error("EventListenerHelper: failed to get listeners for " + clazz + ", event will always be posted", e);
+            }
+        }
+        return list;
+    }
+
+    private static int getBusID(EventBus bus)
+    {
+        Integer id = busIDs.get(bus);
+        if (id == null)
+        {
+            id = -1;
+            try
+            {
+                Field field = EventBus.class.getDeclaredField("busID");
+                field.setAccessible(true);
+                id = field.getInt(bus);
+            }
+            catch (Exception e)
+            {
+                Engine.logger().error("EventListenerHelper: failed to get event bus id, events will always be posted", e);
+            }
+            busIDs.put(bus, id);
+        }
+        return id;
+    }
+}
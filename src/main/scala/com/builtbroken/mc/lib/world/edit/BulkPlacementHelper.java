@@ -0,0 +1,339 @@
+package com.builtbroken.mc.lib.world.edit;
+
+import com.builtbroken.mc.api.edit.IWorldEdit;
+import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.prefab.inventory.InventoryUtility;
+import net.minecraft.block.Block;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.init.Blocks;
+import net.minecraft.network.Packet;
+import net.minecraft.network.play.server.S21PacketChunkData;
+import net.minecraft.network.play.server.S22PacketMultiBlockChange;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Places large groups of edits by writing straight into {@link ExtendedBlockStorage}, the
+ * same way {@link com.builtbroken.mc.lib.helper.BlockUtility#setBlockSneaky} does for a
+ * single block. Edits are grouped by chunk so sky light and height maps are rebuilt once
+ * per chunk, and clients get a single multi-block change or chunk packet per chunk.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class BulkPlacementHelper
+{
+    /** Number of changes in a chunk before the whole section set is resent, matches vanilla */
+    public static int CHUNK_RESEND_THRESHOLD = 64;
+
+    /**
+     * Places the edits in the world
+     *
+     * @param world  - world to edit, server side only
+     * @param action - action that created the edits, used for pre and post placement calls
+     * @param edits  - edits to place
+     * @return number of edits placed
+     */
+    public static int place(World world, IBulkPlacementAction action, Collection<IWorldEdit> edits)
+    {
+        if (world == null || world.isRemote || edits == null || edits.isEmpty())
+        {
+            return 0;
+        }
+
+        //Group edits by chunk
+        final Map<Long, List<IWorldEdit>> chunkToEdits = new HashMap();
+        for (IWorldEdit edit : edits)
+        {
+            if (edit != null)
+            {
+                long key = ChunkCoordIntPair.chunkXZ2Int(MathHelper.floor_double(edit.x()) >> 4, MathHelper.floor_double(edit.z()) >> 4);
+                List<IWorldEdit> list = chunkToEdits.get(key);
+                if (list == null)
+                {
+                    list = new ArrayList();
+                    chunkToEdits.put(key, list);
+                }
+                list.add(edit);
+            }
+        }
+
+        int placed = 0;
+        for (List<IWorldEdit> list : chunkToEdits.values())
+        {
+            final IWorldEdit first = list.get(0);
+            placed += placeInChunk(world, action, MathHelper.floor_double(first.x()) >> 4, MathHelper.floor_double(first.z()) >> 4, list.size(), list);
+        }
+        return placed;
+    }
+
+    /**
+     * Places a range of edits from the buffer. Edits are grouped by chunk
+     * using their index so no edit objects are created.
+     *
+     * @param world  - world to edit, server side only
+     * @param action - action that created the edits, used for pre and post placement calls
+     * @param buffer - edits to place
+     * @param start  - first index, inclusive
+     * @param end    - last index, exclusive
+     * @return number of edits placed
+     */
+    public static int place(World world, IBulkPlacementAction action, final EditBuffer buffer, int start, int end)
+    {
+        return place(world, action, buffer, start, end, null);
+    }
+
+    /**
+     * Places a range of edits from the buffer. Edits are grouped by chunk
+     * using their index so no edit objects are created.
+     *
+     * @param world  - world to edit, server side only
+     * @param action - action that created the edits, used for pre and post placement calls
+     * @param buffer - edits to place
+     * @param start  - first index, inclusive
+     * @param end    - last index, exclusive
+     * @param skip   - indexes, relative to start, to not place, may be null
+     * @return number of edits placed
+     */
+    public static int place(World world, IBulkPlacementAction action, final EditBuffer buffer, int start, int end, BitSet skip)
+    {
+        end = Math.min(end, buffer != null ? buffer.size() : 0);
+        if (world == null || world.isRemote || start >= end)
+        {
+            return 0;
+        }
+
+        //Group indexes by chunk, first slot of each array is the count
+        final Map<Long, int[]> chunkToIndexes = new HashMap();
+        for (int i = start; i < end; i++)
+        {
+            if (skip != null && skip.get(i - start))
+            {
+                continue;
+            }
+            long key = ChunkCoordIntPair.chunkXZ2Int(buffer.getX(i) >> 4, buffer.getZ(i) >> 4);
+            int[] indexes = chunkToIndexes.get(key);
+            if (indexes == null)
+            {
+                indexes = new int[16];
+            }
+            else if (indexes[0] + 1 >= indexes.length)
+            {
+                indexes = Arrays.copyOf(indexes, indexes.length * 2);
+            }
+            indexes[++indexes[0]] = i;
+            chunkToIndexes.put(key, indexes);
+        }
+
+        int placed = 0;
+        for (final int[] indexes : chunkToIndexes.values())
+        {
+            final int count = indexes[0];
+            Iterable<IWorldEdit> edits = () -> new Iterator<IWorldEdit>()
+            {
+                int i = 1;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return i <= count;
+                }
+
+                @Override
+                public IWorldEdit next()
+                {
+                    return buffer.cursor(indexes[i++]);
+                }
+            };
+            placed += placeInChunk(world, action, buffer.getX(indexes[1]) >> 4, buffer.getZ(indexes[1]) >> 4, count, edits);
+        }
+        return placed;
+    }
+
+    /**
+     * Places edits that are all inside the same chunk
+     *
+     * @param world  - world
+     * @param action - action that created the edits
+     * @param chunkX - chunk x
+     * @param chunkZ - chunk z
+     * @param count  - number of edits
+     * @param edits  - edits in the chunk, may be a reused cursor so do not keep references
+     * @return number of edits placed
+     */
+    private static int placeInChunk(World world, IBulkPlacementAction action, int chunkX, int chunkZ, int count, Iterable<IWorldEdit> edits)
+    {
+        //Never load or generate chunks
+        if (!world.getChunkProvider().chunkExists(chunkX, chunkZ))
+        {
+            return 0;
+        }
+        final Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+        if (chunk == null || !chunk.isChunkLoaded)
+        {
+            return 0;
+        }
+
+        final ExtendedBlockStorage[] storageArray = chunk.getBlockStorageArray();
+        final short[] changes = new short[count];
+        final List<TileEntity> newTiles = new ArrayList();
+        final List<int[]> lightUpdates = new ArrayList();
+        int changeCount = 0;
+        int sectionMask = 0;
+
+        for (IWorldEdit edit : edits)
+        {
+            final int x = MathHelper.floor_double(edit.x());
+            final int y = MathHelper.floor_double(edit.y());
+            final int z = MathHelper.floor_double(edit.z());
+            if (y < 0 || y >= 256)
+            {
+                continue;
+            }
+            final int cx = x & 15;
+            final int cy = y & 15;
+            final int cz = z & 15;
+            final int section = y >> 4;
+
+            ExtendedBlockStorage storage = storageArray[section];
+            final Block prevBlock = storage != null ? storage.getBlockByExtId(cx, cy, cz) : Blocks.air;
+            final int prevMeta = storage != null ? storage.getExtBlockMetadata(cx, cy, cz) : 0;
+            final Block newBlock = edit.getNewBlock() != null ? edit.getNewBlock() : Blocks.air;
+            final int newMeta = edit.getNewMeta();
+
+            //Already placed
+            if (prevBlock == newBlock && prevMeta == newMeta)
+            {
+                continue;
+            }
+
+            //Same check as BlockEdit#place
+            if (edit instanceof BlockEdit && ((BlockEdit) edit).checkForPrevBlockEquals && ((BlockEdit) edit).prev_block != prevBlock && ((BlockEdit) edit).prev_meta != prevMeta)
+            {
+                continue;
+            }
+
+            try
+            {
+                if (!action.preBulkPlace(edit))
+                {
+                    continue;
+                }
+
+                if (edit instanceof BlockEdit && ((BlockEdit) edit).doItemDrop)
+                {
+                    InventoryUtility.dropBlockAsItem(world, x, y, z, false);
+                }
+
+                if (prevBlock.hasTileEntity(prevMeta))
+                {
+                    world.removeTileEntity(x, y, z);
+                }
+
+                if (storage == null)
+                {
+                    storage = new ExtendedBlockStorage(section << 4, !world.provider.hasNoSky);
+                    storageArray[section] = storage;
+                }
+                storage.func_150818_a(cx, cy, cz, newBlock);
+                storage.setExtBlockMetadata(cx, cy, cz, newMeta);
+
+                if (newBlock.hasTileEntity(newMeta))
+                {
+                    TileEntity tile = newBlock.createTileEntity(world, newMeta);
+                    if (tile != null)
+                    {
+                        world.setTileEntity(x, y, z, tile);
+                        newTiles.add(tile);
+                    }
+                }
+
+                //Block light only needs updating if a light source was added or removed
+                if (prevBlock.getLightValue() > 0 || newBlock.getLightValue() > 0)
+                {
+                    lightUpdates.add(new int[]{x, y, z});
+                }
+
+                chunk.precipitationHeightMap[cz << 4 | cx] = -999;
+                changes[changeCount++] = (short) (cx << 12 | cz << 8 | y);
+                sectionMask |= 1 << section;
+
+                action.postBulkPlace(edit);
+            }
+            catch (Exception e)
+            {
+                Engine.logger().error("BulkPlacementHelper: Failed to place edit " + edit + " for " + action, e);
+            }
+        }
+
+        if (changeCount > 0)
+        {
+            //Rebuild height map and sky light once for the chunk
+            chunk.generateSkylightMap();
+            for (int[] pos : lightUpdates)
+            {
+                world.func_147451_t(pos[0], pos[1], pos[2]);
+            }
+            chunk.isModified = true;
+
+            sendChanges(world, chunk, changes, changeCount, sectionMask, newTiles);
+        }
+        return changeCount;
+    }
+
+    /**
+     * Sends the changes to players watching the chunk
+     */
+    private static void sendChanges(World world, Chunk chunk, short[] changes, int changeCount, int sectionMask, List<TileEntity> newTiles)
+    {
+        if (!(world instanceof WorldServer) || world.playerEntities.isEmpty())
+        {
+            return;
+        }
+
+        final Packet packet;
+        if (changeCount < CHUNK_RESEND_THRESHOLD)
+        {
+            short[] trimmed = new short[changeCount];
+            System.arraycopy(changes, 0, trimmed, 0, changeCount);
+            packet = new S22PacketMultiBlockChange(changeCount, trimmed, chunk);
+        }
+        else
+        {
+            packet = new S21PacketChunkData(chunk, false, sectionMask);
+        }
+
+        for (Object object : world.playerEntities)
+        {
+            if (object instanceof EntityPlayerMP)
+            {
+                EntityPlayerMP player = (EntityPlayerMP) object;
+                if (((WorldServer) world).getPlayerManager().isPlayerWatchingChunk(player, chunk.xPosition, chunk.zPosition))
+                {
+                    player.playerNetServerHandler.sendPacket(packet);
+                    for (TileEntity tile : newTiles)
+                    {
+                        Packet desc = tile.getDescriptionPacket();
+                        if (desc != null)
+                        {
+                            player.playerNetServerHandler.sendPacket(desc);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,754 @@
+package com.builtbroken.mc.lib.world.edit;
+
+import com.builtbroken.mc.api.edit.IWorldEdit;
+import com.builtbroken.mc.data.Direction;
+import net.minecraft.block.Block;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.AxisAlignedBB;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.World;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Compact list of block edits stored as columns of primitives instead of one {@link BlockEdit} per block.
+ * <p>
+ * Positions are packed into a long, blocks are stored as (id << 4 | meta) ints, and energy, direction
+ * and any edit that can not be packed (anything other than a plain {@link BlockEdit}) are only given
+ * a column once used. Large blasts can write straight into the buffer using
+ * {@link #add(int, int, int, Block, int)} without creating an object per block.
+ * <p>
+ * Acts as a normal {@link java.util.List} so it can be passed to existing code, {@link #get(int)} and
+ * {@link #iterator()} create a new {@link BlockEdit} for each call. Code that only needs to look at each
+ * edit once should use {@link #cursor(int)} or {@link #edits()} which reuse a single {@link Cursor}.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class EditBuffer extends AbstractList<IWorldEdit> implements RandomAccess
+{
+    public static final int FLAG_DROP = 1;
+    public static final int FLAG_CHECK_PREV = 2;
+    public static final int FLAG_CHECK_ENTITY = 4;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** World the edits are for */
+    public final World world;
+
+    private long[] positions;
+    private int[] newStates;
+    private int[] prevStates;
+    private byte[] flags;
+    /** Only created once an edit has energy */
+    private float[] energy;
+    /** Only created once an edit has a direction, stored as ordinal + 1 */
+    private byte[] faces;
+    /** Only created once an edit is added that can not be packed */
+    private IWorldEdit[] objects;
+
+    private int size;
+
+    /** Shared cursor, see {@link #cursor(int)} */
+    private Cursor cursor;
+
+    public EditBuffer(World world)
+    {
+        this(world, 64);
+    }
+
+    public EditBuffer(World world, int capacity)
+    {
+        this.world = world;
+        capacity = Math.max(1, capacity);
+        positions = new long[capacity];
+        newStates = new int[capacity];
+        prevStates = new int[capacity];
+        flags = new byte[capacity];
+    }
+
+    //==========================================
+    //========== Position packing ==============
+    //==========================================
+
+    /** Packs the position into a long, 26 bits for x and z, 12 bits for y */
+    public static long pack(int x, int y, int z)
+    {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) y & 0xFFFL) << 26 | ((long) z & 0x3FFFFFFL);
+    }
+
+    public static int unpackX(long pos)
+    {
+        return (int) (pos >> 38);
+    }
+
+    public static int unpackY(long pos)
+    {
+        return (int) (pos << 26 >> 52);
+    }
+
+    public static int unpackZ(long pos)
+    {
+        return (int) (pos << 38 >> 38);
+    }
+
+    /** Packs block and meta into an int */
+    public static int state(Block block, int meta)
+    {
+        return Block.getIdFromBlock(block != null ? block : Blocks.air) << 4 | (meta & 15);
+    }
+
+    public static Block stateBlock(int state)
+    {
+        return Block.getBlockById(state >>> 4);
+    }
+
+    public static int stateMeta(int state)
+    {
+        return state & 15;
+    }
+
+    //==========================================
+    //========== Adding edits ==================
+    //==========================================
+
+    /**
+     * Adds an edit without creating an object
+     *
+     * @return index of the edit
+     */
+    public int add(int x, int y, int z, Block block, int meta)
+    {
+        return add(x, y, z, block, meta, 0);
+    }
+
+    /**
+     * Adds an edit without creating an object. Previous block is read
+     * from the world so placement can check it has not changed.
+     *
+     * @return index of the edit
+     */
+    public int add(int x, int y, int z, Block block, int meta, float energy)
+    {
+        ensureCapacity(size + 1);
+        final int index = size++;
+        positions[index] = pack(x, y, z);
+        newStates[index] = state(block, meta);
+        prevStates[index] = world != null ? state(world.getBlock(x, y, z), world.getBlockMetadata(x, y, z)) : 0;
+        flags[index] = FLAG_CHECK_PREV;
+        if (energy != 0)
+        {
+            setEnergy(index, energy);
+        }
+        return index;
+    }
+
+    /**
+     * Adds an edit to any list of edits, packed without creating an object if the
+     * list is an {@link EditBuffer} or as a new {@link BlockEdit} otherwise. Lets
+     * code that fills a caller provided list use the buffer when it is given one.
+     *
+     * @param list   - list to add to
+     * @param world  - world the edit is in, used for the {@link BlockEdit}
+     * @param x      - block x
+     * @param y      - block y
+     * @param z      - block z
+     * @param block  - block to place
+     * @param meta   - meta to place
+     * @param energy - energy used to place the block
+     */
+    public static void add(final List<IWorldEdit> list, World world, int x, int y, int z, Block block, int meta, float energy)
+    {
+        if (list instanceof EditBuffer)
+        {
+            ((EditBuffer) list).add(x, y, z, block, meta, energy);
+        }
+        else
+        {
+            BlockEdit edit = new BlockEdit(world, x, y, z);
+            edit.set(block, meta);
+            edit.setEnergy(energy);
+            list.add(edit);
+        }
+    }
+
+    /**
+     * Adds an edit from already packed data, used when loading saved edits
+     *
+     * @param pos       - position from {@link #pack(int, int, int)}
+     * @param newState  - block to place from {@link #state(Block, int)}
+     * @param prevState - block expected before placement
+     * @param flag      - placement flags
+     * @return index of the edit
+     */
+    public int addPacked(long pos, int newState, int prevState, int flag)
+    {
+        ensureCapacity(size + 1);
+        final int index = size++;
+        positions[index] = pos;
+        newStates[index] = newState;
+        prevStates[index] = prevState;
+        flags[index] = (byte) flag;
+        return index;
+    }
+
+    @Override
+    public boolean add(IWorldEdit edit)
+    {
+        if (edit != null)
+        {
+            ensureCapacity(size + 1);
+            write(size++, edit);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public IWorldEdit set(int index, IWorldEdit edit)
+    {
+        checkIndex(index);
+        IWorldEdit prev = get(index);
+        write(index, edit);
+        return prev;
+    }
+
+    /** Writes the edit into the columns at the index */
+    protected void write(int index, IWorldEdit edit)
+    {
+        positions[index] = pack(MathHelper.floor_double(edit.x()), MathHelper.floor_double(edit.y()), MathHelper.floor_double(edit.z()));
+        newStates[index] = state(edit.getNewBlock(), edit.getNewMeta());
+        if (objects != null)
+        {
+            objects[index] = null;
+        }
+
+        if (edit instanceof BlockEdit && (edit.getClass() == BlockEdit.class || edit instanceof Cursor))
+        {
+            BlockEdit blockEdit = (BlockEdit) edit;
+            prevStates[index] = state(blockEdit.prev_block, blockEdit.prev_meta);
+            flags[index] = (byte) ((blockEdit.doItemDrop ? FLAG_DROP : 0) | (blockEdit.checkForPrevBlockEquals ? FLAG_CHECK_PREV : 0) | (blockEdit.checkForEntity ? FLAG_CHECK_ENTITY : 0));
+            if (blockEdit.energy != 0 || energy != null)
+            {
+                setEnergy(index, blockEdit.energy);
+            }
+            if (blockEdit.face != null || faces != null)
+            {
+                setFace(index, blockEdit.face);
+            }
+        }
+        else
+        {
+            //Custom edits keep their own logic, only position and blocks are packed for lookups
+            if (objects == null)
+            {
+                objects = new IWorldEdit[positions.length];
+            }
+            objects[index] = edit;
+            prevStates[index] = 0;
+            flags[index] = 0;
+        }
+    }
+
+    //==========================================
+    //========== Column access =================
+    //==========================================
+
+    public long getPosition(int index)
+    {
+        return positions[index];
+    }
+
+    public int getX(int index)
+    {
+        return unpackX(positions[index]);
+    }
+
+    public int getY(int index)
+    {
+        return unpackY(positions[index]);
+    }
+
+    public int getZ(int index)
+    {
+        return unpackZ(positions[index]);
+    }
+
+    public int getNewState(int index)
+    {
+        return newStates[index];
+    }
+
+    public int getPrevState(int index)
+    {
+        return prevStates[index];
+    }
+
+    public Block getNewBlock(int index)
+    {
+        return stateBlock(newStates[index]);
+    }
+
+    public int getNewMeta(int index)
+    {
+        return stateMeta(newStates[index]);
+    }
+
+    public Block getPrevBlock(int index)
+    {
+        return stateBlock(prevStates[index]);
+    }
+
+    public int getPrevMeta(int index)
+    {
+        return stateMeta(prevStates[index]);
+    }
+
+    public int getFlags(int index)
+    {
+        return flags[index];
+    }
+
+    public float getEnergy(int index)
+    {
+        return energy != null ? energy[index] : 0;
+    }
+
+    public void setEnergy(int index, float value)
+    {
+        if (energy == null)
+        {
+            if (value == 0)
+            {
+                return;
+            }
+            energy = new float[positions.length];
+        }
+        energy[index] = value;
+    }
+
+    public Direction getFace(int index)
+    {
+        return faces != null && faces[index] > 0 ? DIRECTIONS[faces[index] - 1] : null;
+    }
+
+    public void setFace(int index, Direction face)
+    {
+        if (faces == null)
+        {
+            if (face == null)
+            {
+                return;
+            }
+            faces = new byte[positions.length];
+        }
+        faces[index] = (byte) (face != null ? face.ordinal() + 1 : 0);
+    }
+
+    /**
+     * Gets the edit object stored at the index, only used for
+     * edits that could not be packed into columns
+     *
+     * @param index - index
+     * @return edit or null if packed
+     */
+    public IWorldEdit getObject(int index)
+    {
+        return objects != null ? objects[index] : null;
+    }
+
+    //==========================================
+    //========== List implementation ===========
+    //==========================================
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Creates a new {@link BlockEdit} for the index, prefer
+     * {@link #cursor(int)} when the edit is not kept.
+     */
+    @Override
+    public IWorldEdit get(int index)
+    {
+        checkIndex(index);
+        IWorldEdit object = getObject(index);
+        if (object != null)
+        {
+            return object;
+        }
+        BlockEdit edit = new BlockEdit(world, getX(index), getY(index), getZ(index));
+        load(index, edit);
+        return edit;
+    }
+
+    @Override
+    public IWorldEdit remove(int index)
+    {
+        IWorldEdit prev = get(index);
+        final int moved = size - index - 1;
+        if (moved > 0)
+        {
+            System.arraycopy(positions, index + 1, positions, index, moved);
+            System.arraycopy(newStates, index + 1, newStates, index, moved);
+            System.arraycopy(prevStates, index + 1, prevStates, index, moved);
+            System.arraycopy(flags, index + 1, flags, index, moved);
+            if (energy != null)
+            {
+                System.arraycopy(energy, index + 1, energy, index, moved);
+            }
+            if (faces != null)
+            {
+                System.arraycopy(faces, index + 1, faces, index, moved);
+            }
+            if (objects != null)
+            {
+                System.arraycopy(objects, index + 1, objects, index, moved);
+            }
+        }
+        size--;
+        if (objects != null)
+        {
+            objects[size] = null;
+        }
+        modCount++;
+        return prev;
+    }
+
+    @Override
+    public void clear()
+    {
+        if (objects != null)
+        {
+            Arrays.fill(objects, 0, size, null);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int indexOf(Object o)
+    {
+        if (o instanceof IWorldEdit)
+        {
+            final IWorldEdit edit = (IWorldEdit) o;
+            final long pos = pack(MathHelper.floor_double(edit.x()), MathHelper.floor_double(edit.y()), MathHelper.floor_double(edit.z()));
+            for (int i = 0; i < size; i++)
+            {
+                if (positions[i] == pos)
+                {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return indexOf(o) >= 0;
+    }
+
+    //==========================================
+    //========== Cursor ========================
+    //==========================================
+
+    /**
+     * Moves the shared cursor to the index. The cursor is only valid
+     * until the next call, do not keep references to it.
+     *
+     * @param index - index of the edit
+     * @return cursor or the stored edit if it could not be packed
+     */
+    public IWorldEdit cursor(int index)
+    {
+        checkIndex(index);
+        IWorldEdit object = getObject(index);
+        if (object != null)
+        {
+            return object;
+        }
+        if (cursor == null)
+        {
+            cursor = new Cursor(this);
+        }
+        return cursor.moveTo(index);
+    }
+
+    /**
+     * Creates a new cursor, used when the shared cursor is already in use
+     * such as when iterating from a second thread.
+     */
+    public Cursor newCursor()
+    {
+        return new Cursor(this);
+    }
+
+    /**
+     * Iterable over the edits using a single reused cursor. Edits returned are
+     * only valid until the next call to {@link Iterator#next()}.
+     *
+     * @return iterable
+     */
+    public Iterable<IWorldEdit> edits()
+    {
+        return edits(0, size);
+    }
+
+    /**
+     * Iterable over a range of edits using a single reused cursor
+     *
+     * @param start - first index, inclusive
+     * @param end   - last index, exclusive
+     * @return iterable
+     */
+    public Iterable<IWorldEdit> edits(final int start, final int end)
+    {
+        return () -> new Iterator<IWorldEdit>()
+        {
+            final Cursor cursor = new Cursor(EditBuffer.this);
+            int index = start;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < Math.min(end, size);
+            }
+
+            @Override
+            public IWorldEdit next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                IWorldEdit object = getObject(index);
+                return object != null ? objects[index++] : cursor.moveTo(index++);
+            }
+        };
+    }
+
+    /**
+     * List view of a range of edits. Each call to get returns a new cursor, changes
+     * made to it are written back to the buffer. Used to hand edits to code that
+     * may keep references, such as event listeners.
+     *
+     * @param start - first index, inclusive
+     * @param end   - last index, exclusive
+     * @return view
+     */
+    public List<IWorldEdit> view(final int start, final int end)
+    {
+        if (start < 0 || end > size || start > end)
+        {
+            throw new IndexOutOfBoundsException("Range: " + start + " - " + end + ", Size: " + size);
+        }
+        return new View(start, end);
+    }
+
+    /** Copies the data at the index into the edit */
+    protected void load(int index, BlockEdit edit)
+    {
+        final int flag = flags[index];
+        edit.newBlock = getNewBlock(index);
+        edit.newMeta = getNewMeta(index);
+        edit.prev_block = getPrevBlock(index);
+        edit.prev_meta = getPrevMeta(index);
+        edit.doItemDrop = (flag & FLAG_DROP) != 0;
+        edit.checkForPrevBlockEquals = (flag & FLAG_CHECK_PREV) != 0;
+        edit.checkForEntity = (flag & FLAG_CHECK_ENTITY) != 0;
+        edit.energy = getEnergy(index);
+        edit.face = getFace(index);
+        edit.drops = null;
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > positions.length)
+        {
+            int newCapacity = Math.max(capacity, positions.length + (positions.length >> 1));
+            positions = Arrays.copyOf(positions, newCapacity);
+            newStates = Arrays.copyOf(newStates, newCapacity);
+            prevStates = Arrays.copyOf(prevStates, newCapacity);
+            flags = Arrays.copyOf(flags, newCapacity);
+            if (energy != null)
+            {
+                energy = Arrays.copyOf(energy, newCapacity);
+            }
+            if (faces != null)
+            {
+                faces = Arrays.copyOf(faces, newCapacity);
+            }
+            if (objects != null)
+            {
+                objects = Arrays.copyOf(objects, newCapacity);
+            }
+        }
+        modCount++;
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EditBuffer[" + (world != null && world.provider != null ? world.provider.dimensionId : null) + "d, " + size + " edits]@" + hashCode();
+    }
+
+    /**
+     * Range of the buffer, see {@link #view(int, int)}
+     */
+    private final class View extends AbstractList<IWorldEdit> implements RandomAccess
+    {
+        final int start;
+        final int end;
+
+        View(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public IWorldEdit get(int index)
+        {
+            if (index < 0 || index >= end - start)
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (end - start));
+            }
+            IWorldEdit object = getObject(start + index);
+            return object != null ? object : newCursor().moveTo(start + index);
+        }
+
+        @Override
+        public int size()
+        {
+            return end - start;
+        }
+    }
+
+    /**
+     * Reusable {@link BlockEdit} that reads from and writes back to the buffer. Moved
+     * between indexes rather than creating a new object per edit.
+     */
+    public static final class Cursor extends BlockEdit
+    {
+        private final EditBuffer buffer;
+        private int index = -1;
+        private int posX, posY, posZ;
+
+        Cursor(EditBuffer buffer)
+        {
+            super(buffer.world, 0, 0, 0);
+            this.buffer = buffer;
+        }
+
+        /**
+         * Moves the cursor to the index
+         *
+         * @param index - index in the buffer
+         * @return this
+         */
+        public Cursor moveTo(int index)
+        {
+            this.index = index;
+            final long pos = buffer.positions[index];
+            posX = unpackX(pos);
+            posY = unpackY(pos);
+            posZ = unpackZ(pos);
+            buffer.load(index, this);
+            return this;
+        }
+
+        /** Current index of the cursor */
+        public int index()
+        {
+            return index;
+        }
+
+        @Override
+        public BlockEdit set(Block block, int meta, boolean doDrop, boolean checkEquals)
+        {
+            super.set(block, meta, doDrop, checkEquals);
+            buffer.write(index, this);
+            return this;
+        }
+
+        @Override
+        public void doDrops()
+        {
+            super.doDrops();
+            buffer.write(index, this);
+        }
+
+        @Override
+        public void setEnergy(float energy)
+        {
+            super.setEnergy(energy);
+            buffer.setEnergy(index, energy);
+        }
+
+        @Override
+        public void setBlastDirection(Direction dir)
+        {
+            super.setBlastDirection(dir);
+            buffer.setFace(index, dir);
+        }
+
+        @Override
+        public AxisAlignedBB getBounds()
+        {
+            return AxisAlignedBB.getBoundingBox(posX, posY, posZ, posX + 1, posY + 1, posZ + 1);
+        }
+
+        @Override
+        public double x()
+        {
+            return posX;
+        }
+
+        @Override
+        public double y()
+        {
+            return posY;
+        }
+
+        @Override
+        public double z()
+        {
+            return posZ;
+        }
+
+        @Override
+        public int xi()
+        {
+            return posX;
+        }
+
+        @Override
+        public int yi()
+        {
+            return posY;
+        }
+
+        @Override
+        public int zi()
+        {
+            return posZ;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.builtbroken.mc.lib.world.edit;
+
+import com.builtbroken.mc.api.edit.IWorldChangeAction;
+import com.builtbroken.mc.api.edit.IWorldEdit;
+
+/**
+ * Applied to a {@link IWorldChangeAction} to opt in to bulk placement. When enabled
+ * edits are grouped by chunk and written straight into the chunk's block storage
+ * by {@link BulkPlacementHelper}, with lighting and client updates done once per chunk.
+ * <p>
+ * Bulk placement skips block placement callbacks and neighbor updates. Only use it
+ * for actions that do not rely on block physics, such as clearing out terrain.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface IBulkPlacementAction extends IWorldChangeAction
+{
+    /**
+     * Should edits be placed using bulk placement
+     *
+     * @return true to use bulk placement
+     */
+    boolean shouldUseBulkPlacement();
+
+    /**
+     * Called before the edit is written to the world
+     *
+     * @param edit - edit, not null
+     * @return true to place the edit, false to skip it
+     */
+    default boolean preBulkPlace(IWorldEdit edit)
+    {
+        return edit.hasChanged();
+    }
+
+    /**
+     * Called after the edit was written to the world
+     *
+     * @param edit - edit, not null
+     */
+    default void postBulkPlace(IWorldEdit edit)
+    {
+
+    }
+}
@@ -0,0 +1,41 @@
+package com.builtbroken.mc.lib.world.edit;
+
+import com.builtbroken.mc.api.edit.IWorldChangeAction;
+import com.builtbroken.mc.api.edit.IWorldEdit;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Applied to a {@link IWorldChangeAction} to be told about each slice of edits before and
+ * after it is placed. Allows checks, such as protection events, to run once per slice
+ * instead of once per block.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface IEditBatchAction extends IWorldChangeAction
+{
+    /**
+     * Should edits be placed in slices with batch calls. Checked each tick
+     * so it can change as listeners are added or removed.
+     *
+     * @return true to use batches
+     */
+    boolean shouldBatchEdits();
+
+    /**
+     * Called before the slice is placed
+     *
+     * @param edits - edits about to be placed, changes to buffered edits are written back
+     * @return indexes in the slice to skip, or null to place all
+     */
+    BitSet preEditBatch(List<IWorldEdit> edits);
+
+    /**
+     * Called after the slice is placed
+     *
+     * @param edits   - edits in the slice
+     * @param skipped - indexes that were skipped, may be null
+     */
+    void postEditBatch(List<IWorldEdit> edits, BitSet skipped);
+}
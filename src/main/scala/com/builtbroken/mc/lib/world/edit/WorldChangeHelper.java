@@ -8,7 +8,10 @@ import com.builtbroken.mc.api.event.TriggerCause;
 import com.builtbroken.mc.api.event.WorldChangeActionEvent;
 import com.builtbroken.mc.core.Engine;
 import com.builtbroken.mc.imp.transform.vector.Location;
+import com.builtbroken.mc.framework.thread.WorkerPool;
 import com.builtbroken.mc.framework.thread.action.WCAThreadProcess;
+import com.builtbroken.mc.framework.thread.action.metrics.ActionMetrics;
+import com.builtbroken.mc.framework.thread.action.metrics.WorldChangeMetrics;
 import com.builtbroken.mc.framework.explosive.blast.Blast;
 import cpw.mods.fml.common.eventhandler.Event;
 import net.minecraft.world.World;
@@ -56,6 +59,8 @@ public final class WorldChangeHelper
             //Trigger event to allow blocking explosives
             Event event = new WorldChangeActionEvent.ActionCreated(loc, action, triggerCause);
             MinecraftForge.EVENT_BUS.post(event);
+            final ActionMetrics metrics = WorldChangeMetrics.get(action);
+            metrics.onEventPosted();
 
             //If even is canceled do nothing
             if (!event.isCanceled())
@@ -73,22 +78,30 @@ public final class WorldChangeHelper
                     {
                         //Generate thread and return completed as we have no way to track what happens(effectively)
                         WCAThreadProcess thread = new WCAThreadProcess(loc.clone(), action, triggerCause);
-                        thread.queProcess();
+                        WorkerPool.instance().add(thread);
                     }
                     else
                     {
                         ChangeResult returnValue = ChangeResult.COMPLETED;
+                        final long startTime = System.nanoTime();
+                        metrics.onStarted();
                         //Same code as a thread but in this thread.
                         Collection<IWorldEdit> effectedBlocks = getEffectedBlocks(loc, triggerCause, action);
+                        metrics.calculationTime.record(System.nanoTime() - startTime);
+                        metrics.onEventPosted();
+                        int placed = 0;
                         if (effectedBlocks != null && !effectedBlocks.isEmpty())
                         {
-                            for (IWorldEdit v : effectedBlocks)
+                            //Buffers are walked with a cursor so no edit objects are created
+                            Iterable<IWorldEdit> edits = effectedBlocks instanceof EditBuffer ? ((EditBuffer) effectedBlocks).edits() : effectedBlocks;
+                            for (IWorldEdit v : edits)
                             {
                                 if(v != null)
                                 {
                                     try
                                     {
                                         action.handleBlockPlacement(v);
+                                        placed++;
                                     }
                                     catch (Exception e)
                                     {
@@ -119,6 +132,9 @@ public final class WorldChangeHelper
                         //Trigger ending effects
                         action.doEffectOther(false);
 
+                        //Everything is placed in one tick
+                        metrics.onEditsPlaced(placed);
+                        metrics.onCompleted(System.nanoTime() - startTime);
                         return returnValue;
                     }
                 }
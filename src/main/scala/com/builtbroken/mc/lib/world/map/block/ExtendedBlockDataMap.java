@@ -60,12 +60,18 @@ public class ExtendedBlockDataMap extends ChunkMap<ChunkDataShort>
         }
         else
         {
-            chunk = add(new ChunkDataShort(x >> 4, z >> 4));
+            chunk = add(newChunk(x >> 4, z >> 4));
             chunk.setValue(x & 15, y, z & 15, value);
         }
         return 0;
     }
 
+    @Override
+    protected ChunkDataShort newChunk(int x, int z)
+    {
+        return new ChunkDataShort(x, z);
+    }
+
     @Override
     public String toString()
     {
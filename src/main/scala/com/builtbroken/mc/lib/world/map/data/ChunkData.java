@@ -15,11 +15,32 @@ public abstract class ChunkData implements ISave, IByteBufWriter, IByteBufReader
 {
     public final ChunkCoordIntPair position;
 
+    /** Set when data changes, cleared once saved */
+    protected boolean dirty = false;
+
     public ChunkData(int x, int z)
     {
         position = new ChunkCoordIntPair(x, z);
     }
 
+    /** Marks the data as changed so it is written on the next save */
+    public void markDirty()
+    {
+        dirty = true;
+    }
+
+    /** Has the data changed since it was last saved */
+    public boolean isDirty()
+    {
+        return dirty;
+    }
+
+    /** Called after the data was saved */
+    public void clearDirty()
+    {
+        dirty = false;
+    }
+
     @Override
     public void load(NBTTagCompound nbt)
     {
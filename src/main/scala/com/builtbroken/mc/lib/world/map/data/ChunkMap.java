@@ -8,14 +8,24 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.WorldEvent;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 
 /**
+ * Map of data stored per chunk for a dimension.
+ * <p>
+ * Maps with a manager keep each chunk in a region file, see {@link ChunkMapStorage}. Chunks are
+ * read on the storage IO thread when the world chunk loads and added on the next update, lookups
+ * never touch the disk. Chunks are written back on the IO thread when the world chunk unloads.
+ * World saves only write chunks that changed.
+ *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 5/20/2017.
  */
@@ -28,13 +38,18 @@ public abstract class ChunkMap<C extends ChunkData> implements IVirtualObject
 
     /** Loaded chunks */
     public final HashMap<ChunkCoordIntPair, C> chunks = new HashMap();
+    /** Chunks queued to be read from disk, removed when the read is applied or the chunk unloads */
+    protected final HashSet<Long> pendingReads = new HashSet();
 
     public final ChunkMapManager mapManager;
+    /** Disk storage of chunks, null if the map is not saved */
+    protected final ChunkMapStorage storage;
 
     public ChunkMap(ChunkMapManager mapManager, int dimID)
     {
         this.mapManager = mapManager;
         this.dimID = dimID;
+        this.storage = mapManager != null ? mapManager.getStorage(dimID) : null;
         if (!Engine.isJUnitTest())
         {
             MinecraftForge.EVENT_BUS.register(this);
@@ -47,9 +62,58 @@ public abstract class ChunkMap<C extends ChunkData> implements IVirtualObject
      */
     public void update()
     {
-        if (ticks % 200 == 0)
+        if (storage != null)
         {
-            //TODO check if chunks are still loaded
+            applyReads();
+            if (ticks++ % 200 == 0)
+            {
+                unloadChunksNotInWorld();
+            }
+        }
+    }
+
+    /**
+     * Adds chunks the IO thread finished reading
+     */
+    protected void applyReads()
+    {
+        ChunkMapStorage.ChunkRead read;
+        while ((read = storage.pollRead()) != null)
+        {
+            //Dropped if the world chunk unloaded while reading
+            if (pendingReads.remove(ChunkCoordIntPair.chunkXZ2Int(read.chunkX, read.chunkZ)) && read.tag != null)
+            {
+                if (Engine.runningAsDev && chunks.containsKey(new ChunkCoordIntPair(read.chunkX, read.chunkZ)))
+                {
+                    Engine.logger().warn(this + ": chunk " + read.chunkX + ", " + read.chunkZ + " was changed while being read, saved data replaced the changes");
+                }
+                C chunk = newChunk(read.chunkX, read.chunkZ);
+                chunk.load(read.tag);
+                chunk.clearDirty();
+                add(chunk);
+            }
+        }
+    }
+
+    /**
+     * Writes back and removes chunks whose world chunk is not
+     * loaded, such as chunks edited while the world chunk was unloaded.
+     */
+    protected void unloadChunksNotInWorld()
+    {
+        World world = DimensionManager.getWorld(dimID);
+        if (world != null)
+        {
+            Iterator<C> it = chunks.values().iterator();
+            while (it.hasNext())
+            {
+                C chunk = it.next();
+                if (!world.getChunkProvider().chunkExists(chunk.position.chunkXPos, chunk.position.chunkZPos))
+                {
+                    saveChunk(chunk);
+                    it.remove();
+                }
+            }
         }
     }
 
@@ -59,20 +123,27 @@ public abstract class ChunkMap<C extends ChunkData> implements IVirtualObject
     }
 
     /**
-     * Gets the chunk if it exists
+     * Gets the chunk if it is in memory, does not read from disk
      *
      * @param x
      * @param z
-     * @return chunk, or null if missing
+     * @return chunk, or null if missing or still being read
      */
     public C getChunk(int x, int z)
     {
-        ChunkCoordIntPair coords = new ChunkCoordIntPair(x, z);
-        if (chunks.containsKey(coords))
-        {
-            return chunks.get(coords);
-        }
-        return null;
+        return chunks.get(new ChunkCoordIntPair(x, z));
+    }
+
+    /**
+     * Checks if the chunk is waiting on a disk read
+     *
+     * @param x - chunk x
+     * @param z - chunk z
+     * @return true if the saved data has not been added yet
+     */
+    public boolean isReading(int x, int z)
+    {
+        return pendingReads.contains(ChunkCoordIntPair.chunkXZ2Int(x, z));
     }
 
     protected C add(C chunk)
@@ -81,18 +152,42 @@ public abstract class ChunkMap<C extends ChunkData> implements IVirtualObject
         return chunk;
     }
 
-    @SubscribeEvent
-    public void onChunkLoaded(ChunkEvent.Load event)
+    /**
+     * Creates an empty chunk
+     *
+     * @param x - chunk x
+     * @param z - chunk z
+     * @return new chunk
+     */
+    protected abstract C newChunk(int x, int z);
+
+    /**
+     * Queues the chunk to be written if it changed
+     *
+     * @param chunk - chunk to save
+     */
+    protected void saveChunk(C chunk)
     {
-        Chunk chunk = event.getChunk();
-        ChunkCoordIntPair coords = chunk.getChunkCoordIntPair();
-        if (chunks.containsKey(coords))
+        if (storage != null && chunk.isDirty())
         {
-            //TODO load data into existing object
+            //Saved to a new tag on this thread, tag is then owned by the IO thread
+            NBTTagCompound tag = new NBTTagCompound();
+            chunk.save(tag);
+            chunk.clearDirty();
+            storage.writeAsync(chunk.position.chunkXPos, chunk.position.chunkZPos, tag);
         }
-        else
+    }
+
+    @SubscribeEvent
+    public void onChunkLoaded(ChunkEvent.Load event)
+    {
+        if (storage != null && event.world.provider.dimensionId == dimID && !event.world.isRemote)
         {
-            //TODO load object
+            Chunk chunk = event.getChunk();
+            if (!chunks.containsKey(chunk.getChunkCoordIntPair()) && pendingReads.add(ChunkCoordIntPair.chunkXZ2Int(chunk.xPosition, chunk.zPosition)))
+            {
+                storage.readAsync(chunk.xPosition, chunk.zPosition);
+            }
         }
     }
 
@@ -101,11 +196,19 @@ public abstract class ChunkMap<C extends ChunkData> implements IVirtualObject
     {
         Chunk chunk = event.getChunk();
         ChunkCoordIntPair coords = chunk.getChunkCoordIntPair();
-        if (chunks.containsKey(coords))
+        if (storage == null)
         {
-            //TODO save data
             chunks.remove(coords);
         }
+        else if (event.world.provider.dimensionId == dimID && !event.world.isRemote)
+        {
+            pendingReads.remove(ChunkCoordIntPair.chunkXZ2Int(chunk.xPosition, chunk.zPosition));
+            C data = chunks.remove(coords);
+            if (data != null)
+            {
+                saveChunk(data);
+            }
+        }
     }
 
     @SubscribeEvent
@@ -119,12 +222,26 @@ public abstract class ChunkMap<C extends ChunkData> implements IVirtualObject
 
     /**
      * Called when the world has be unloaded from
-     * the game. At this time everything should be
-     * saved and caches cleared.
+     * the game, or the map is dropped for being empty.
+     * At this time everything should be saved and
+     * caches cleared.
      */
     public void onWorldUnload()
     {
         saveAll();
+        if (storage != null)
+        {
+            //Waits for writes so the next load sees them
+            storage.close();
+            //Reads for this map are done and no longer wanted
+            while (storage.pollRead() != null) ;
+            pendingReads.clear();
+        }
+        if (!Engine.isJUnitTest())
+        {
+            MinecraftForge.EVENT_BUS.unregister(this);
+            SaveManager.unregister(this);
+        }
     }
 
     /**
@@ -150,7 +267,7 @@ public abstract class ChunkMap<C extends ChunkData> implements IVirtualObject
      */
     public boolean shouldUnload()
     {
-        return chunks.isEmpty();
+        return chunks.isEmpty() && pendingReads.isEmpty() && (storage == null || storage.getPendingWrites() == 0);
     }
 
     @Override
@@ -171,13 +288,18 @@ public abstract class ChunkMap<C extends ChunkData> implements IVirtualObject
      */
     public void onLoad()
     {
-        //TODO load chunk data
+        //Chunks are loaded from region files as the world loads them
     }
 
-
+    /**
+     * Queues all changed chunks to be written
+     */
     public void saveAll()
     {
-        //TODO load chunk data
+        for (C chunk : chunks.values())
+        {
+            saveChunk(chunk);
+        }
     }
 
     @Override
@@ -210,5 +332,6 @@ public abstract class ChunkMap<C extends ChunkData> implements IVirtualObject
     public void clear()
     {
         chunks.clear();
+        pendingReads.clear();
     }
 }
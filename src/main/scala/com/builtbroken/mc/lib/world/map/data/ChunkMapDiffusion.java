@@ -0,0 +1,549 @@
+package com.builtbroken.mc.lib.world.map.data;
+
+import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.framework.thread.IPrioritizedProcess;
+import com.builtbroken.mc.framework.thread.WorkerPool;
+import com.builtbroken.mc.lib.world.map.data.s.ChunkDataShort;
+import com.builtbroken.mc.lib.world.map.data.s.ChunkSectionShort;
+import net.minecraft.util.LongHashMap;
+import net.minecraft.world.World;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Spreads and decays the values of a {@link DiffusionChunkMap} over time, such as heat and radiation.
+ * <p>
+ * Each step copies the sections holding values into a read buffer on the main thread, then
+ * calculates the next values of those sections and their neighbors into a write buffer on a
+ * {@link WorkerPool}. Once done the change of each slot is added to the live map at the next
+ * tick, so edits made while the step was running are kept. Sections with no values, and no
+ * neighbors with values, are never visited.
+ * <p>
+ * Each step a slot moves {@link #diffusion} of its difference with each of its six neighbors,
+ * then loses {@link #decay} of its value. Sections of chunks that are not loaded are treated
+ * as walls, nothing flows in or out of them.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class ChunkMapDiffusion implements IPrioritizedProcess
+{
+    /** Sections calculated per forked task */
+    public static final int SECTIONS_PER_TASK = 8;
+
+    /** Max share of the difference moved to each neighbor, above this values swing instead of settle */
+    public static final float MAX_DIFFUSION = 1f / 6f;
+
+    /** Map being simulated */
+    public final DiffusionChunkMap map;
+
+    /** Share of the difference moved to each neighbor per step, 0 - {@link #MAX_DIFFUSION} */
+    public float diffusion;
+    /** Share of the value lost per step, 0 - 1 */
+    public float decay;
+    /** Ticks between steps */
+    public int stepRate;
+    /** Set false to stop running steps */
+    public boolean enabled = true;
+
+    /** Section key to copy of the section at the start of the step, only sections with values */
+    private final LongHashMap read = new LongHashMap();
+    /** Section key to true for each section being calculated */
+    private final LongHashMap targets = new LongHashMap();
+    /** Sections being calculated, includes empty neighbors of sections with values */
+    private final List<Long> targetKeys = new ArrayList();
+    /** Result of each target, null if the section stays empty */
+    private short[][] write;
+    /** Arrays from past steps, reused to avoid 8kb per section per step */
+    private final ArrayDeque<short[]> free = new ArrayDeque();
+
+    /** True from the start of a step until it is applied */
+    private boolean running = false;
+    /** Set by the worker once the write buffer is done */
+    private volatile boolean calculated = false;
+    private volatile boolean cancelled = false;
+    /** True while a worker is calculating the step, guarded by this */
+    private boolean processing = false;
+
+    private long ticks = 0L;
+    /** Number of steps applied, used by debug output */
+    private long steps = 0L;
+
+    /**
+     * @param map       - map to simulate
+     * @param diffusion - share of the difference moved to each neighbor per step
+     * @param decay     - share of the value lost per step
+     * @param stepRate  - ticks between steps
+     */
+    public ChunkMapDiffusion(DiffusionChunkMap map, float diffusion, float decay, int stepRate)
+    {
+        this.map = map;
+        this.diffusion = Math.max(0, Math.min(MAX_DIFFUSION, diffusion));
+        this.decay = Math.max(0, Math.min(1, decay));
+        this.stepRate = Math.max(1, stepRate);
+    }
+
+    /**
+     * Called each world tick, applies a finished step and starts the next one
+     *
+     * @param world - world the map is for, may be null
+     */
+    public void tick(World world)
+    {
+        ticks++;
+        if (running)
+        {
+            if (calculated)
+            {
+                applyStep(world);
+            }
+        }
+        else if (enabled && ticks % stepRate == 0 && startStep(world))
+        {
+            WorkerPool.instance().add(this);
+        }
+    }
+
+    //==========================================
+    //========== Step ==========================
+    //==========================================
+
+    /**
+     * Copies the sections with values into the read buffer, main thread only
+     *
+     * @param world - world the map is for, used to check which chunks are loaded
+     * @return true if there is anything to calculate
+     */
+    public boolean startStep(World world)
+    {
+        if (running)
+        {
+            return false;
+        }
+        //Sections with values
+        final List<Long> active = new ArrayList();
+        for (ChunkDataShort chunk : map.chunks.values())
+        {
+            final int cx = chunk.position.chunkXPos;
+            final int cz = chunk.position.chunkZPos;
+            for (int sy = 0; sy < chunk.sections.length; sy++)
+            {
+                ChunkSectionShort section = chunk.sections[sy];
+                //Uniform zero sections are empty, they only become targets if a neighbor has values
+                if (section != null && (section.getMode() != ChunkSectionShort.MODE_UNIFORM || section.get(0) != 0))
+                {
+                    short[] copy = newArray();
+                    boolean hasValue = false;
+                    if (section.getMode() == ChunkSectionShort.MODE_UNIFORM)
+                    {
+                        Arrays.fill(copy, section.get(0));
+                        hasValue = true;
+                    }
+                    else
+                    {
+                        for (int i = 0; i < ChunkSectionShort.SIZE; i++)
+                        {
+                            copy[i] = section.get(i);
+                            hasValue |= copy[i] != 0;
+                        }
+                    }
+                    if (hasValue)
+                    {
+                        long key = getKey(cx, sy, cz);
+                        read.add(key, copy);
+                        active.add(key);
+                    }
+                    else
+                    {
+                        free.add(copy);
+                    }
+                }
+            }
+        }
+
+        //Calculated sections are those with values plus any loaded neighbor they can flow into
+        for (long key : active)
+        {
+            final int cx = getX(key);
+            final int sy = getY(key);
+            final int cz = getZ(key);
+            addTarget(key);
+            if (sy > 0)
+            {
+                addTarget(getKey(cx, sy - 1, cz));
+            }
+            if (sy < 15)
+            {
+                addTarget(getKey(cx, sy + 1, cz));
+            }
+            addTargetIfLoaded(world, cx - 1, sy, cz);
+            addTargetIfLoaded(world, cx + 1, sy, cz);
+            addTargetIfLoaded(world, cx, sy, cz - 1);
+            addTargetIfLoaded(world, cx, sy, cz + 1);
+        }
+
+        if (targetKeys.isEmpty())
+        {
+            return false;
+        }
+        write = new short[targetKeys.size()][];
+        synchronized (this)
+        {
+            calculated = false;
+            cancelled = false;
+            running = true;
+        }
+        return true;
+    }
+
+    private void addTargetIfLoaded(World world, int cx, int sy, int cz)
+    {
+        if (map.isChunkLoaded(world, cx, cz))
+        {
+            addTarget(getKey(cx, sy, cz));
+        }
+    }
+
+    private void addTarget(long key)
+    {
+        if (!targets.containsItem(key))
+        {
+            targets.add(key, Boolean.TRUE);
+            targetKeys.add(key);
+        }
+    }
+
+    @Override
+    public void runProcess()
+    {
+        synchronized (this)
+        {
+            //Killed before it started, or left in the pool after the step was cleared
+            if (cancelled || !running)
+            {
+                return;
+            }
+            processing = true;
+        }
+        try
+        {
+            calculateStep();
+        }
+        catch (Exception e)
+        {
+            Engine.logger().error(this + " failed to calculate step", e);
+            cancelled = true;
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                processing = false;
+                calculated = true;
+            }
+        }
+    }
+
+    /**
+     * Fills the write buffer from the read buffer, forks sections across
+     * the pool when called from a worker. Only reads the step buffers.
+     */
+    public void calculateStep()
+    {
+        final int count = targetKeys.size();
+        if (ForkJoinTask.inForkJoinPool() && count > SECTIONS_PER_TASK)
+        {
+            List<ForkJoinTask<?>> tasks = new ArrayList();
+            for (int start = 0; start < count; start += SECTIONS_PER_TASK)
+            {
+                final int from = start;
+                final int to = Math.min(count, start + SECTIONS_PER_TASK);
+                tasks.add(ForkJoinTask.adapt(() -> calculateSections(from, to)).fork());
+            }
+            for (ForkJoinTask<?> task : tasks)
+            {
+                task.join();
+            }
+        }
+        else
+        {
+            calculateSections(0, count);
+        }
+        calculated = true;
+    }
+
+    private void calculateSections(int from, int to)
+    {
+        for (int t = from; t < to && !cancelled; t++)
+        {
+            write[t] = calculateSection(targetKeys.get(t));
+        }
+    }
+
+    /**
+     * Calculates the next values of a section
+     *
+     * @param key - section key
+     * @return new values, or null if the section stays empty
+     */
+    protected short[] calculateSection(long key)
+    {
+        final int cx = getX(key);
+        final int sy = getY(key);
+        final int cz = getZ(key);
+
+        final short[] center = (short[]) read.getValueByKey(key);
+        //Null neighbor with a wall flag set means no flow, otherwise a null neighbor is empty
+        final short[] west = neighbor(cx - 1, sy, cz);
+        final short[] east = neighbor(cx + 1, sy, cz);
+        final short[] down = sy > 0 ? neighbor(cx, sy - 1, cz) : null;
+        final short[] up = sy < 15 ? neighbor(cx, sy + 1, cz) : null;
+        final short[] north = neighbor(cx, sy, cz - 1);
+        final short[] south = neighbor(cx, sy, cz + 1);
+        final boolean wallWest = west == null && !targets.containsItem(getKey(cx - 1, sy, cz));
+        final boolean wallEast = east == null && !targets.containsItem(getKey(cx + 1, sy, cz));
+        final boolean wallDown = down == null && (sy == 0 || !targets.containsItem(getKey(cx, sy - 1, cz)));
+        final boolean wallUp = up == null && (sy == 15 || !targets.containsItem(getKey(cx, sy + 1, cz)));
+        final boolean wallNorth = north == null && !targets.containsItem(getKey(cx, sy, cz - 1));
+        final boolean wallSouth = south == null && !targets.containsItem(getKey(cx, sy, cz + 1));
+
+        final float keep = 1 - decay;
+        short[] out = null;
+        for (int x = 0; x < 16; x++)
+        {
+            for (int y = 0; y < 16; y++)
+            {
+                for (int z = 0; z < 16; z++)
+                {
+                    final int i = x << 8 | y << 4 | z;
+                    final int v = center != null ? center[i] : 0;
+
+                    int sum = 0;
+                    sum += x > 0 ? value(center, i - 256) : edge(west, wallWest, i + 15 * 256, v);
+                    sum += x < 15 ? value(center, i + 256) : edge(east, wallEast, i - 15 * 256, v);
+                    sum += y > 0 ? value(center, i - 16) : edge(down, wallDown, i + 15 * 16, v);
+                    sum += y < 15 ? value(center, i + 16) : edge(up, wallUp, i - 15 * 16, v);
+                    sum += z > 0 ? value(center, i - 1) : edge(north, wallNorth, i + 15, v);
+                    sum += z < 15 ? value(center, i + 1) : edge(south, wallSouth, i - 15, v);
+
+                    //Truncated toward zero so small values die out instead of lingering
+                    final int next = clamp((int) ((v + diffusion * (sum - 6 * v)) * keep));
+                    if (next != 0 && out == null)
+                    {
+                        out = newArray();
+                    }
+                    if (out != null)
+                    {
+                        out[i] = (short) next;
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private short[] neighbor(int cx, int sy, int cz)
+    {
+        return (short[]) read.getValueByKey(getKey(cx, sy, cz));
+    }
+
+    private static int value(short[] section, int i)
+    {
+        return section != null ? section[i] : 0;
+    }
+
+    private static int edge(short[] section, boolean wall, int i, int self)
+    {
+        if (section != null)
+        {
+            return section[i];
+        }
+        return wall ? self : 0;
+    }
+
+    /**
+     * Adds the change of each slot to the live map, main thread only
+     *
+     * @param world - world the map is for, used to check which chunks are loaded
+     */
+    public void applyStep(World world)
+    {
+        if (!cancelled)
+        {
+            for (int t = 0; t < targetKeys.size(); t++)
+            {
+                applySection(world, targetKeys.get(t), write[t]);
+            }
+            steps++;
+        }
+        clearStep();
+    }
+
+    private void applySection(World world, long key, short[] result)
+    {
+        final short[] before = (short[]) read.getValueByKey(key);
+        if (result == null && before == null)
+        {
+            return;
+        }
+
+        final int cx = getX(key);
+        final int sy = getY(key);
+        final int cz = getZ(key);
+        if (!map.isChunkLoaded(world, cx, cz))
+        {
+            //Unloaded while the step ran
+            return;
+        }
+
+        ChunkDataShort chunk = map.getChunk(cx, cz);
+        for (int i = 0; i < ChunkSectionShort.SIZE; i++)
+        {
+            final int change = value(result, i) - value(before, i);
+            if (change != 0)
+            {
+                if (chunk == null)
+                {
+                    chunk = map.add(map.newChunk(cx, cz));
+                }
+                final int x = i >> 8;
+                final int y = sy << 4 | (i >> 4) & 15;
+                final int z = i & 15;
+                final short prev = chunk.getValue(x, y, z);
+                final short next = (short) clamp(prev + change);
+                if (prev != next)
+                {
+                    chunk.setValue(x, y, z, next);
+                    map.onDiffused(world, cx << 4 | x, y, cz << 4 | z, prev, next);
+                }
+            }
+        }
+    }
+
+    /** Drops the step buffers, keeping arrays for reuse */
+    protected void clearStep()
+    {
+        //Every section in the read buffer is also a target
+        for (long key : targetKeys)
+        {
+            short[] copy = (short[]) read.remove(key);
+            if (copy != null)
+            {
+                free.add(copy);
+            }
+            targets.remove(key);
+        }
+        if (write != null)
+        {
+            for (short[] result : write)
+            {
+                if (result != null)
+                {
+                    free.add(result);
+                }
+            }
+        }
+        write = null;
+        targetKeys.clear();
+        running = false;
+        calculated = false;
+    }
+
+    private short[] newArray()
+    {
+        //Taken on the worker as well, only when the main thread is not using the pool
+        synchronized (free)
+        {
+            short[] array = free.poll();
+            if (array != null)
+            {
+                Arrays.fill(array, (short) 0);
+                return array;
+            }
+        }
+        return new short[ChunkSectionShort.SIZE];
+    }
+
+    private static int clamp(int value)
+    {
+        return value > Short.MAX_VALUE ? Short.MAX_VALUE : value < Short.MIN_VALUE ? Short.MIN_VALUE : value;
+    }
+
+    //==========================================
+    //========== Section keys ==================
+    //==========================================
+
+    /** Packs chunk x (26 bits), chunk z (26 bits) and section y (4 bits) */
+    public static long getKey(int cx, int sy, int cz)
+    {
+        return ((long) (cx & 0x3FFFFFF) << 30) | ((long) (cz & 0x3FFFFFF) << 4) | (sy & 15);
+    }
+
+    public static int getX(long key)
+    {
+        //Shift up then down to restore the sign
+        return (int) (key << 8 >> 38);
+    }
+
+    public static int getZ(long key)
+    {
+        return (int) (key << 34 >> 38);
+    }
+
+    public static int getY(long key)
+    {
+        return (int) (key & 15);
+    }
+
+    //==========================================
+    //========== State =========================
+    //==========================================
+
+    /** True while a step is being calculated or waiting to be applied */
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    /** Number of steps applied */
+    public long getSteps()
+    {
+        return steps;
+    }
+
+    /** Stops the running step, its results are dropped. Main thread only. */
+    public void cancel()
+    {
+        killAction();
+        if (running && calculated)
+        {
+            clearStep();
+        }
+    }
+
+    @Override
+    public int getPriority()
+    {
+        return PRIORITY_BACKGROUND;
+    }
+
+    @Override
+    public synchronized void killAction()
+    {
+        cancelled = true;
+        if (!processing)
+        {
+            //Worker will not run the step, marked done so the next tick clears it and steps can start again
+            calculated = true;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ChunkMapDiffusion[" + map + "]";
+    }
+}
@@ -8,7 +8,9 @@ import cpw.mods.fml.common.gameevent.TickEvent;
 import cpw.mods.fml.relauncher.Side;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.WorldEvent;
 
 import java.io.File;
@@ -21,6 +23,8 @@ import java.util.HashMap;
 public abstract class ChunkMapManager<M extends ChunkMap>
 {
     protected final HashMap<Integer, M> worldMaps = new HashMap();
+    /** Storage per dim, kept while the world is loaded so region checks stay cached when a map is dropped */
+    protected final HashMap<Integer, ChunkMapStorage> storages = new HashMap();
 
     /** Name of the folder */
     public final String saveFolder;
@@ -76,6 +80,45 @@ public abstract class ChunkMapManager<M extends ChunkMap>
         return new File(NBTUtility.getSaveDirectory(), NBTUtility.BBM_FOLDER + saveFolder + "/" + fileSaveName + "_" + dimID + ".dat");
     }
 
+    /**
+     * Folder region files for the dimension are stored in
+     *
+     * @param dimID - dimension
+     * @return folder
+     */
+    public File getRegionFolder(int dimID)
+    {
+        return new File(NBTUtility.getSaveDirectory(), NBTUtility.BBM_FOLDER + saveFolder + "/" + fileSaveName + "_" + dimID);
+    }
+
+    /**
+     * Gets the disk storage for the dimension, creating it if missing
+     *
+     * @param dimID - dimension
+     * @return storage
+     */
+    public ChunkMapStorage getStorage(int dimID)
+    {
+        ChunkMapStorage storage = storages.get(dimID);
+        if (storage == null)
+        {
+            storage = createStorage(dimID);
+            storages.put(dimID, storage);
+        }
+        return storage;
+    }
+
+    /**
+     * Creates the disk storage used by a map
+     *
+     * @param dimID - dimension
+     * @return storage
+     */
+    public ChunkMapStorage createStorage(int dimID)
+    {
+        return new ChunkMapStorage(getRegionFolder(dimID));
+    }
+
     protected abstract M createNewMap(int dim);
 
     @SubscribeEvent
@@ -89,6 +132,7 @@ public abstract class ChunkMapManager<M extends ChunkMap>
                 M map = getMapForDim(dim, false);
                 if (map.shouldUnload())
                 {
+                    map.onWorldUnload();
                     worldMaps.remove(dim);
                 }
                 else
@@ -99,6 +143,29 @@ public abstract class ChunkMapManager<M extends ChunkMap>
         }
     }
 
+    @SubscribeEvent
+    public void chunkLoad(ChunkEvent.Load event)
+    {
+        if (event.world.provider != null && !event.world.isRemote)
+        {
+            //Maps are not kept for dimensions without loaded data, create it if the chunk has some
+            int dim = event.world.provider.dimensionId;
+            if (!worldMaps.containsKey(dim))
+            {
+                Chunk chunk = event.getChunk();
+                if (getStorage(dim).hasRegion(chunk.xPosition, chunk.zPosition))
+                {
+                    M map = getMapForDim(dim, true);
+                    if (map != null)
+                    {
+                        //Registered during this event so it will not be called by the bus
+                        map.onChunkLoaded(event);
+                    }
+                }
+            }
+        }
+    }
+
     @SubscribeEvent
     public void worldUnload(WorldEvent.Unload event)
     {
@@ -111,6 +178,8 @@ public abstract class ChunkMapManager<M extends ChunkMap>
                 map.onWorldUnload();
                 worldMaps.remove(dim);
             }
+            //Next load may be a different save folder
+            storages.remove(dim);
         }
     }
 }
@@ -0,0 +1,294 @@
+package com.builtbroken.mc.lib.world.map.data;
+
+import com.builtbroken.mc.core.Engine;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.chunk.storage.RegionFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stores the chunks of a {@link ChunkMap} on disk, one blob per chunk. Uses the same region
+ * layout as the world, 32x32 chunks per file with an offset table and compressed blobs,
+ * so only chunks that are loaded need to be kept in memory.
+ * <p>
+ * Reads and writes are queued to a single IO thread. Chunks waiting to be written are kept in
+ * memory and returned by {@link #read(int, int)} until written. Finished reads are collected
+ * with {@link #pollRead()} on the main thread.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class ChunkMapStorage
+{
+    /** Shared by all maps so disk writes are done one at a time and in order */
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "VE-ChunkMap-IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Folder region files are stored in */
+    public final File folder;
+
+    /** Region key to open region file, guarded by this */
+    private final Map<Long, RegionFile> regions = new HashMap();
+    /** Chunk key to data waiting to be written */
+    private final Map<Long, NBTTagCompound> pending = new ConcurrentHashMap();
+    /** Region key to if the region file exists, so the disk is only checked once per region */
+    private final Map<Long, Boolean> regionExists = new ConcurrentHashMap();
+    /** Reads done by the IO thread waiting to be collected */
+    private final Queue<ChunkRead> reads = new ConcurrentLinkedQueue();
+
+    public ChunkMapStorage(File folder)
+    {
+        this.folder = folder;
+    }
+
+    /**
+     * Checks if the region file holding the chunk exists. Result is
+     * cached per region and updated when this storage creates the file.
+     *
+     * @param chunkX - chunk x
+     * @param chunkZ - chunk z
+     * @return true if the region file exists
+     */
+    public boolean hasRegion(int chunkX, int chunkZ)
+    {
+        final long key = ChunkCoordIntPair.chunkXZ2Int(chunkX >> 5, chunkZ >> 5);
+        Boolean exists = regionExists.get(key);
+        if (exists == null)
+        {
+            exists = getRegionFile(folder, chunkX, chunkZ).exists();
+            //IO thread may have created the file while checking
+            Boolean prev = regionExists.putIfAbsent(key, exists);
+            return prev != null ? prev : exists;
+        }
+        return exists;
+    }
+
+    /**
+     * Queues the chunk to be read on the IO thread, result
+     * is returned by {@link #pollRead()} once done.
+     *
+     * @param chunkX - chunk x
+     * @param chunkZ - chunk z
+     */
+    public void readAsync(final int chunkX, final int chunkZ)
+    {
+        IO.execute(() -> reads.add(new ChunkRead(chunkX, chunkZ, read(chunkX, chunkZ))));
+    }
+
+    /**
+     * Gets the next read finished by the IO thread
+     *
+     * @return read, or null if none are waiting
+     */
+    public ChunkRead pollRead()
+    {
+        return reads.poll();
+    }
+
+    /**
+     * Reads the data of the chunk on the calling thread
+     *
+     * @param chunkX - chunk x
+     * @param chunkZ - chunk z
+     * @return saved data, or null if nothing is saved
+     */
+    public NBTTagCompound read(int chunkX, int chunkZ)
+    {
+        //Not written yet, newer than what is on disk
+        NBTTagCompound tag = pending.get(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+        if (tag != null)
+        {
+            return tag;
+        }
+
+        RegionFile region = hasRegion(chunkX, chunkZ) ? getRegion(chunkX, chunkZ, false) : null;
+        if (region != null)
+        {
+            try (DataInputStream in = region.getChunkDataInputStream(chunkX & 31, chunkZ & 31))
+            {
+                if (in != null)
+                {
+                    return CompressedStreamTools.read(in);
+                }
+            }
+            catch (IOException e)
+            {
+                Engine.logger().error("ChunkMapStorage: failed to read chunk " + chunkX + ", " + chunkZ + " from " + folder, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Queues the data to be written on the IO thread. Tag
+     * must not be changed after it is passed in.
+     *
+     * @param chunkX - chunk x
+     * @param chunkZ - chunk z
+     * @param tag    - data to save
+     */
+    public void writeAsync(final int chunkX, final int chunkZ, final NBTTagCompound tag)
+    {
+        final long key = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+        pending.put(key, tag);
+        IO.execute(() -> {
+            //Skip if a newer write replaced this one, it has its own task
+            if (pending.get(key) == tag)
+            {
+                write(chunkX, chunkZ, tag);
+                pending.remove(key, tag);
+            }
+        });
+    }
+
+    /**
+     * Writes the data on the calling thread
+     *
+     * @param chunkX - chunk x
+     * @param chunkZ - chunk z
+     * @param tag    - data to save
+     */
+    protected void write(int chunkX, int chunkZ, NBTTagCompound tag)
+    {
+        RegionFile region = getRegion(chunkX, chunkZ, true);
+        if (region != null)
+        {
+            try (DataOutputStream out = region.getChunkDataOutputStream(chunkX & 31, chunkZ & 31))
+            {
+                CompressedStreamTools.write(tag, out);
+            }
+            catch (IOException e)
+            {
+                Engine.logger().error("ChunkMapStorage: failed to write chunk " + chunkX + ", " + chunkZ + " to " + folder, e);
+            }
+        }
+    }
+
+    /**
+     * Gets the region file holding the chunk
+     *
+     * @param chunkX - chunk x
+     * @param chunkZ - chunk z
+     * @param create - true to create the file if missing
+     * @return region, or null if it does not exist and create is false
+     */
+    protected synchronized RegionFile getRegion(int chunkX, int chunkZ, boolean create)
+    {
+        final int regionX = chunkX >> 5;
+        final int regionZ = chunkZ >> 5;
+        final long key = ChunkCoordIntPair.chunkXZ2Int(regionX, regionZ);
+
+        RegionFile region = regions.get(key);
+        if (region == null)
+        {
+            File file = getRegionFile(folder, chunkX, chunkZ);
+            if (!file.exists())
+            {
+                if (!create)
+                {
+                    return null;
+                }
+                if (!folder.exists() && !folder.mkdirs())
+                {
+                    Engine.logger().error("ChunkMapStorage: failed to create folder " + folder);
+                    return null;
+                }
+            }
+            region = new RegionFile(file);
+            regions.put(key, region);
+            regionExists.put(key, true);
+        }
+        return region;
+    }
+
+    /**
+     * Gets the file the chunk is stored in
+     *
+     * @param folder - storage folder
+     * @param chunkX - chunk x
+     * @param chunkZ - chunk z
+     * @return region file, may not exist
+     */
+    public static File getRegionFile(File folder, int chunkX, int chunkZ)
+    {
+        return new File(folder, "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".dat");
+    }
+
+    /** Number of chunks waiting to be written */
+    public int getPendingWrites()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Waits for queued writes to finish then closes all region files.
+     * Storage can still be used after, files are opened again as needed.
+     */
+    public void close()
+    {
+        Future<?> future = IO.submit(this::closeRegions);
+        try
+        {
+            future.get();
+        }
+        catch (Exception e)
+        {
+            Engine.logger().error("ChunkMapStorage: failed to close " + folder, e);
+        }
+    }
+
+    private synchronized void closeRegions()
+    {
+        for (RegionFile region : regions.values())
+        {
+            try
+            {
+                region.close();
+            }
+            catch (IOException e)
+            {
+                Engine.logger().error("ChunkMapStorage: failed to close region in " + folder, e);
+            }
+        }
+        regions.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ChunkMapStorage[" + folder + "]";
+    }
+
+    /**
+     * Result of a read done on the IO thread
+     */
+    public static class ChunkRead
+    {
+        public final int chunkX;
+        public final int chunkZ;
+        /** Saved data, null if nothing is saved */
+        public final NBTTagCompound tag;
+
+        public ChunkRead(int chunkX, int chunkZ, NBTTagCompound tag)
+        {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.builtbroken.mc.lib.world.map.data;
+
+import com.builtbroken.mc.core.Engine;
+import com.builtbroken.mc.core.network.packet.callback.chunk.PacketRequestData;
+import com.builtbroken.mc.core.network.packet.callback.chunk.PacketSendData;
+import com.builtbroken.mc.lib.world.map.block.ExtendedBlockDataManager;
+import com.builtbroken.mc.lib.world.map.data.s.ChunkDataShort;
+import com.builtbroken.mc.lib.world.map.radiation.RadiationDataManager;
+import cpw.mods.fml.common.FMLCommonHandler;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.PlayerEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.common.DimensionManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps clients in sync with {@link ChunkDataShort} maps, such as extended block data and radiation.
+ * <p>
+ * A client asks for a chunk with {@link #requestChunk(int, int, int, int)}, sending the section
+ * versions it already has. The server answers with only the sections that differ and keeps the
+ * player subscribed to the chunk. After that sections edited on the server are pushed every
+ * {@link #SYNC_RATE} ticks to subscribed players that still have the chunk in view distance.
+ * Players that move out of view are dropped and need to request the chunk again.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class ChunkMapSync
+{
+    /** Type ID of {@link ExtendedBlockDataManager} */
+    public static final int TYPE_EXTENDED_BLOCK_DATA = 0;
+    /** Type ID of {@link RadiationDataManager} */
+    public static final int TYPE_RADIATION = 1;
+
+    public static final ChunkMapSync INSTANCE = new ChunkMapSync();
+
+    /** Ticks between pushes of edited sections */
+    public static int SYNC_RATE = 2;
+    /** Ticks between checks for subscriptions out of view */
+    public static int PRUNE_RATE = 200;
+
+    /** Type to server maps */
+    private final HashMap<Integer, ChunkMapManager<? extends ChunkMap<ChunkDataShort>>> serverMaps = new HashMap();
+    /** Type to client map */
+    private final HashMap<Integer, ChunkMap<ChunkDataShort>> clientMaps = new HashMap();
+
+    /** Chunks each player is subscribed to */
+    private final HashMap<EntityPlayerMP, PlayerSubscriptions> subscriptions = new HashMap();
+
+    private long ticks = 0L;
+
+    protected ChunkMapSync()
+    {
+        register(TYPE_EXTENDED_BLOCK_DATA, ExtendedBlockDataManager.SERVER, ExtendedBlockDataManager.CLIENT);
+        register(TYPE_RADIATION, RadiationDataManager.SERVER, RadiationDataManager.CLIENT);
+        if (!Engine.isJUnitTest())
+        {
+            FMLCommonHandler.instance().bus().register(this);
+        }
+    }
+
+    /**
+     * Registers a type of map to sync
+     *
+     * @param type   - unique ID, sent in packets
+     * @param server - manager of the server maps
+     * @param client - map the client stores received chunks in
+     */
+    public void register(int type, ChunkMapManager<? extends ChunkMap<ChunkDataShort>> server, ChunkMap<ChunkDataShort> client)
+    {
+        if (serverMaps.containsKey(type))
+        {
+            throw new IllegalArgumentException("ChunkMapSync: type " + type + " is already registered to " + serverMaps.get(type));
+        }
+        serverMaps.put(type, server);
+        clientMaps.put(type, client);
+    }
+
+    /**
+     * Gets the map the client stores received chunks in
+     *
+     * @param type - type ID
+     * @return map, or null if the type is not registered
+     */
+    public ChunkMap<ChunkDataShort> getClientMap(int type)
+    {
+        return clientMaps.get(type);
+    }
+
+    //==========================================
+    //========== Client ========================
+    //==========================================
+
+    /**
+     * Asks the server for the sections of the chunk that differ from the client copy
+     *
+     * @param dim  - dimension
+     * @param x    - chunk x
+     * @param z    - chunk z
+     * @param type - type ID
+     */
+    public void requestChunk(int dim, int x, int z, int type)
+    {
+        ChunkMap<ChunkDataShort> map = getClientMap(type);
+        if (map != null)
+        {
+            ChunkDataShort chunk = map.chunks.get(new ChunkCoordIntPair(x, z));
+            Engine.packetHandler.sendToServer(new PacketRequestData(dim, x, z, type, chunk != null ? chunk.versions : null));
+        }
+    }
+
+    /**
+     * Called on the client to apply sections sent by the server
+     *
+     * @param type     - type ID
+     * @param x        - chunk x
+     * @param z        - chunk z
+     * @param mask     - bit set for each section sent
+     * @param versions - version of each section
+     * @param payload  - section data, see {@link ChunkDataShort#writeSections(ByteBuf, int)}
+     */
+    public void onReceived(int type, int x, int z, int mask, int[] versions, ByteBuf payload)
+    {
+        ChunkMap<ChunkDataShort> map = getClientMap(type);
+        if (map != null)
+        {
+            ChunkCoordIntPair position = new ChunkCoordIntPair(x, z);
+            ChunkDataShort chunk = map.chunks.get(position);
+            if (chunk == null)
+            {
+                chunk = new ChunkDataShort(x, z);
+                map.chunks.put(position, chunk);
+            }
+            chunk.readSections(payload, mask, versions);
+        }
+    }
+
+    //==========================================
+    //========== Server ========================
+    //==========================================
+
+    /**
+     * Called when a player asks for a chunk, sends the sections
+     * the player is missing and subscribes the player to the chunk.
+     *
+     * @param player - player asking
+     * @param dim    - dimension
+     * @param x      - chunk x
+     * @param z      - chunk z
+     * @param type   - type ID
+     * @param known  - versions the client has, zero for unknown
+     */
+    public void onRequest(EntityPlayerMP player, int dim, int x, int z, int type, int[] known)
+    {
+        ChunkMapManager<? extends ChunkMap<ChunkDataShort>> manager = serverMaps.get(type);
+        if (manager == null)
+        {
+            if (Engine.runningAsDev)
+            {
+                Engine.logger().error("ChunkMapSync: Failed to ID chunk type[" + type + "] requested by " + player);
+            }
+            return;
+        }
+        else if (player.worldObj.provider.dimensionId != dim)
+        {
+            //Client is out of date, will ask again once it has the new world
+            return;
+        }
+        else if (!(player.worldObj instanceof WorldServer) || !((WorldServer) player.worldObj).getPlayerManager().isPlayerWatchingChunk(player, x, z))
+        {
+            //Only chunks the player can see, loading others would let clients force chunk reads
+            return;
+        }
+
+        ChunkMap<ChunkDataShort> map = manager.getMapForDim(dim, false);
+        ChunkDataShort chunk = map != null ? map.getChunk(x, z) : null;
+        if (chunk == null)
+        {
+            //Nothing on the server, clears anything the client still has
+            chunk = new ChunkDataShort(x, z);
+        }
+
+        int[] versions = new int[16];
+        System.arraycopy(known, 0, versions, 0, versions.length);
+        send(player, dim, type, chunk, versions);
+
+        PlayerSubscriptions subs = subscriptions.get(player);
+        if (subs == null || subs.dim != dim)
+        {
+            subs = new PlayerSubscriptions(dim);
+            subscriptions.put(player, subs);
+        }
+        subs.getChunks(type).put(chunk.position, versions);
+    }
+
+    /**
+     * Sends the sections that do not match the known versions
+     *
+     * @param known - versions the player has, updated to the versions sent
+     */
+    protected void send(EntityPlayerMP player, int dim, int type, ChunkDataShort chunk, int[] known)
+    {
+        int mask = chunk.getChangedSections(known);
+        if (mask != 0)
+        {
+            Engine.packetHandler.sendToPlayer(new PacketSendData(dim, type, chunk, mask), player);
+            System.arraycopy(chunk.versions, 0, known, 0, known.length);
+        }
+    }
+
+    @SubscribeEvent
+    public void serverTick(TickEvent.ServerTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.END && !subscriptions.isEmpty())
+        {
+            ticks++;
+            if (ticks % PRUNE_RATE == 0)
+            {
+                pruneSubscriptions();
+            }
+            if (ticks % SYNC_RATE == 0)
+            {
+                pushChanges();
+            }
+        }
+    }
+
+    /** Sends edited sections to subscribed players */
+    protected void pushChanges()
+    {
+        final List<ChunkDataShort> changed = new ArrayList();
+        for (Map.Entry<Integer, ChunkMapManager<? extends ChunkMap<ChunkDataShort>>> entry : serverMaps.entrySet())
+        {
+            final int type = entry.getKey();
+            for (ChunkMap<ChunkDataShort> map : entry.getValue().worldMaps.values())
+            {
+                for (ChunkDataShort chunk : map.chunks.values())
+                {
+                    if (chunk.getSyncMask() != 0)
+                    {
+                        changed.add(chunk);
+                    }
+                }
+                if (!changed.isEmpty())
+                {
+                    WorldServer world = DimensionManager.getWorld(map.dimID);
+                    for (ChunkDataShort chunk : changed)
+                    {
+                        if (world != null)
+                        {
+                            push(world, type, chunk);
+                        }
+                        chunk.clearSyncMask();
+                    }
+                    changed.clear();
+                }
+            }
+        }
+    }
+
+    private void push(WorldServer world, int type, ChunkDataShort chunk)
+    {
+        final int dim = world.provider.dimensionId;
+        for (Object object : world.playerEntities)
+        {
+            if (object instanceof EntityPlayerMP)
+            {
+                EntityPlayerMP player = (EntityPlayerMP) object;
+                PlayerSubscriptions subs = subscriptions.get(player);
+                if (subs != null && subs.dim == dim)
+                {
+                    HashMap<ChunkCoordIntPair, int[]> chunks = subs.types.get(type);
+                    int[] known = chunks != null ? chunks.get(chunk.position) : null;
+                    if (known != null)
+                    {
+                        if (world.getPlayerManager().isPlayerWatchingChunk(player, chunk.position.chunkXPos, chunk.position.chunkZPos))
+                        {
+                            send(player, dim, type, chunk, known);
+                        }
+                        else
+                        {
+                            chunks.remove(chunk.position);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Drops subscriptions to chunks players can no longer see */
+    protected void pruneSubscriptions()
+    {
+        Iterator<Map.Entry<EntityPlayerMP, PlayerSubscriptions>> it = subscriptions.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<EntityPlayerMP, PlayerSubscriptions> entry = it.next();
+            EntityPlayerMP player = entry.getKey();
+            PlayerSubscriptions subs = entry.getValue();
+            if (player.isDead || !(player.worldObj instanceof WorldServer) || player.worldObj.provider.dimensionId != subs.dim)
+            {
+                it.remove();
+                continue;
+            }
+
+            WorldServer world = (WorldServer) player.worldObj;
+            for (HashMap<ChunkCoordIntPair, int[]> chunks : subs.types.values())
+            {
+                Iterator<ChunkCoordIntPair> positions = chunks.keySet().iterator();
+                while (positions.hasNext())
+                {
+                    ChunkCoordIntPair position = positions.next();
+                    if (!world.getPlayerManager().isPlayerWatchingChunk(player, position.chunkXPos, position.chunkZPos))
+                    {
+                        positions.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void playerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event)
+    {
+        subscriptions.remove(event.player);
+    }
+
+    @SubscribeEvent
+    public void playerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event)
+    {
+        subscriptions.remove(event.player);
+    }
+
+    /** Number of chunks the player is subscribed to, for all types */
+    public int getSubscriptionCount(EntityPlayerMP player)
+    {
+        PlayerSubscriptions subs = subscriptions.get(player);
+        int count = 0;
+        if (subs != null)
+        {
+            for (HashMap<ChunkCoordIntPair, int[]> chunks : subs.types.values())
+            {
+                count += chunks.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Chunks a player is subscribed to, with the section versions the player has
+     */
+    protected static class PlayerSubscriptions
+    {
+        /** Dimension the subscriptions are for */
+        public final int dim;
+        /** Type to chunk to known versions */
+        public final HashMap<Integer, HashMap<ChunkCoordIntPair, int[]>> types = new HashMap();
+
+        public PlayerSubscriptions(int dim)
+        {
+            this.dim = dim;
+        }
+
+        public HashMap<ChunkCoordIntPair, int[]> getChunks(int type)
+        {
+            HashMap<ChunkCoordIntPair, int[]> chunks = types.get(type);
+            if (chunks == null)
+            {
+                chunks = new HashMap();
+                types.put(type, chunks);
+            }
+            return chunks;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.builtbroken.mc.lib.world.map.data;
+
+import com.builtbroken.mc.lib.world.map.data.s.ChunkDataShort;
+import net.minecraft.world.World;
+import net.minecraftforge.common.DimensionManager;
+
+/**
+ * Map of short values that spread to nearby blocks and fade over time, see {@link ChunkMapDiffusion}.
+ * <p>
+ * Only server maps, those with a manager, run the simulation. Client copies get the results
+ * from the server.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public abstract class DiffusionChunkMap extends ChunkMap<ChunkDataShort>
+{
+    /** Simulation of the map, null for client maps */
+    public final ChunkMapDiffusion diffusion;
+
+    /**
+     * @param diffusion - share of the difference moved to each neighbor per step, see {@link ChunkMapDiffusion#MAX_DIFFUSION}
+     * @param decay     - share of the value lost per step
+     * @param stepRate  - ticks between steps
+     */
+    public DiffusionChunkMap(ChunkMapManager mapManager, int dimID, float diffusion, float decay, int stepRate)
+    {
+        super(mapManager, dimID);
+        this.diffusion = mapManager != null ? new ChunkMapDiffusion(this, diffusion, decay, stepRate) : null;
+    }
+
+    @Override
+    public void update()
+    {
+        super.update();
+        if (diffusion != null)
+        {
+            diffusion.tick(DimensionManager.getWorld(dimID));
+        }
+    }
+
+    /**
+     * Called on the main thread for each slot changed by a diffusion step
+     *
+     * @param world - world the map is for, may be null
+     * @param x     - location in the world
+     * @param y     - location in the world
+     * @param z     - location in the world
+     * @param prev  - value before the step
+     * @param value - value after the step
+     */
+    protected void onDiffused(World world, int x, int y, int z, short prev, short value)
+    {
+
+    }
+
+    /**
+     * Checks if values can flow into the chunk
+     *
+     * @param world - world the map is for, null to allow every chunk
+     * @param x     - chunk x
+     * @param z     - chunk z
+     * @return true if the world chunk is loaded and its saved values are read
+     */
+    public boolean isChunkLoaded(World world, int x, int z)
+    {
+        return (world == null || world.getChunkProvider().chunkExists(x, z)) && !isReading(x, z);
+    }
+
+    @Override
+    public boolean shouldUnload()
+    {
+        //Results of a running step would be dropped
+        return super.shouldUnload() && (diffusion == null || !diffusion.isRunning());
+    }
+
+    @Override
+    public void onWorldUnload()
+    {
+        if (diffusion != null)
+        {
+            diffusion.cancel();
+        }
+        super.onWorldUnload();
+    }
+
+    @Override
+    protected ChunkDataShort newChunk(int x, int z)
+    {
+        return new ChunkDataShort(x, z);
+    }
+}
@@ -1,18 +1,32 @@
 package com.builtbroken.mc.lib.world.map.data.s;
 
 import com.builtbroken.mc.lib.world.map.data.ChunkData;
-import cpw.mods.fml.common.network.ByteBufUtils;
 import io.netty.buffer.ByteBuf;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 
+import java.util.Random;
+
 /**
+ * Chunk of short values, stored as 16 sections of 16x16x16 that are only created once they hold data.
+ * <p>
+ * Each section has a version stamp that changes whenever the section is edited, clients keep the
+ * stamps they were sent so only sections that changed need to be sent again, see {@link com.builtbroken.mc.lib.world.map.data.ChunkMapSync}.
+ *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 5/20/2017.
  */
 public class ChunkDataShort extends ChunkData
 {
     public final ChunkSectionShort[] sections = new ChunkSectionShort[16];
+    /** Version stamp of each section, zero for sections that were never set */
+    public final int[] versions = new int[16];
+
+    /** Bit set for each section edited since the last sync */
+    protected int syncMask = 0;
+
+    /** Last version stamp handed out, random start so stamps from a past session do not match */
+    private static int lastVersion = new Random().nextInt();
 
     public ChunkDataShort(int x, int z)
     {
@@ -21,12 +35,9 @@ public class ChunkDataShort extends ChunkData
 
     public short getValue(int x, int y, int z)
     {
-        int s = y / 16;
-        if (sections[s] == null)
-        {
-            sections[s] = new ChunkSectionShort();
-        }
-        return sections[s].getValue(x, y & 15, z);
+        //Missing sections are all zero, not created so reads never allocate
+        ChunkSectionShort section = sections[y >> 4];
+        return section != null ? section.getValue(x, y & 15, z) : 0;
     }
 
     public short setValue(int x, int y, int z, int value)
@@ -36,13 +47,23 @@ public class ChunkDataShort extends ChunkData
 
     public short setValue(int x, int y, int z, short value)
     {
-        int s = y / 16;
+        int s = y >> 4;
         if (sections[s] == null)
         {
+            if (value == 0)
+            {
+                return 0;
+            }
             sections[s] = new ChunkSectionShort();
         }
         short prev = sections[s].getValue(x, y & 15, z);
-        sections[s].setValue(x, y & 15, z, value);
+        if (prev != value)
+        {
+            sections[s].setValue(x, y & 15, z, value);
+            versions[s] = nextVersion();
+            syncMask |= 1 << s;
+            markDirty();
+        }
         return prev;
     }
 
@@ -57,7 +78,8 @@ public class ChunkDataShort extends ChunkData
             NBTTagCompound tag = list.getCompoundTagAt(i);
             int section = tag.getInteger("section_id");
             sections[section] = new ChunkSectionShort();
-            sections[section].load(nbt);
+            sections[section].load(tag);
+            versions[section] = nextVersion();
         }
     }
 
@@ -67,10 +89,10 @@ public class ChunkDataShort extends ChunkData
         NBTTagList list = new NBTTagList();
         for (int i = 0; i < sections.length; i++)
         {
-            if (sections[i] != null) //TODO does need saved
+            if (sections[i] != null && !sections[i].isEmpty())
             {
                 NBTTagCompound tag = new NBTTagCompound();
-                sections[i].save(nbt);
+                sections[i].save(tag);
                 tag.setByte("section_id", (byte) i);
                 list.appendTag(tag);
             }
@@ -82,24 +104,138 @@ public class ChunkDataShort extends ChunkData
     @Override
     public Object readBytes(ByteBuf buf)
     {
-        load(ByteBufUtils.readTag(buf));
+        clear();
+
+        //Bit set for each section that was written
+        int mask = buf.readUnsignedShort();
+        for (int i = 0; i < sections.length; i++)
+        {
+            if ((mask & (1 << i)) != 0)
+            {
+                sections[i] = new ChunkSectionShort();
+                sections[i].readBytes(buf);
+                versions[i] = nextVersion();
+            }
+        }
         return this;
     }
 
     @Override
     public ByteBuf writeBytes(ByteBuf buf)
     {
-        NBTTagCompound tag = new NBTTagCompound();
-        save(tag);
-        ByteBufUtils.writeTag(buf, tag);
+        int mask = 0;
+        for (int i = 0; i < sections.length; i++)
+        {
+            if (sections[i] != null && !sections[i].isEmpty())
+            {
+                mask |= 1 << i;
+            }
+        }
+        buf.writeShort(mask);
+        for (int i = 0; i < sections.length; i++)
+        {
+            if ((mask & (1 << i)) != 0)
+            {
+                sections[i].writeBytes(buf);
+            }
+        }
         return buf;
     }
 
+    /**
+     * Writes the sections in the mask, in order, missing sections
+     * are written as empty so the reader drops its copy.
+     *
+     * @param buf  - buffer to write to
+     * @param mask - bit set for each section to write
+     */
+    public void writeSections(ByteBuf buf, int mask)
+    {
+        for (int i = 0; i < sections.length; i++)
+        {
+            if ((mask & (1 << i)) != 0)
+            {
+                if (sections[i] != null)
+                {
+                    sections[i].writeBytes(buf);
+                }
+                else
+                {
+                    buf.writeByte(ChunkSectionShort.MODE_UNIFORM);
+                    buf.writeShort(0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads sections written by {@link #writeSections(ByteBuf, int)}
+     *
+     * @param buf      - buffer to read from
+     * @param mask     - bit set for each section written
+     * @param versions - version of each section, from the writer
+     */
+    public void readSections(ByteBuf buf, int mask, int[] versions)
+    {
+        for (int i = 0; i < sections.length; i++)
+        {
+            if ((mask & (1 << i)) != 0)
+            {
+                ChunkSectionShort section = new ChunkSectionShort();
+                section.readBytes(buf);
+                sections[i] = section.isEmpty() ? null : section;
+                this.versions[i] = versions[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the sections whose version does not match
+     *
+     * @param known - versions the reader has, zero for unknown
+     * @return bit set for each section that changed
+     */
+    public int getChangedSections(int[] known)
+    {
+        int mask = 0;
+        for (int i = 0; i < versions.length; i++)
+        {
+            if (versions[i] != known[i])
+            {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /** Bit set for each section edited since {@link #clearSyncMask()} */
+    public int getSyncMask()
+    {
+        return syncMask;
+    }
+
+    /** Called after changed sections were sent */
+    public void clearSyncMask()
+    {
+        syncMask = 0;
+    }
+
     public void clear()
     {
         for (int i = 0; i < sections.length; i++)
         {
             sections[i] = null; //TODO clear data
+            versions[i] = 0;
+        }
+    }
+
+    /** Next version stamp, never zero */
+    protected static int nextVersion()
+    {
+        if (++lastVersion == 0)
+        {
+            lastVersion++;
         }
+        return lastVersion;
     }
 }
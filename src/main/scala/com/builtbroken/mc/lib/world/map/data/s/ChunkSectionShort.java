@@ -1,29 +1,63 @@
 package com.builtbroken.mc.lib.world.map.data.s;
 
+import com.builtbroken.jlib.data.network.IByteBufReader;
+import com.builtbroken.jlib.data.network.IByteBufWriter;
 import com.builtbroken.jlib.data.vector.IPos3D;
 import com.builtbroken.mc.api.ISave;
+import io.netty.buffer.ByteBuf;
 import net.minecraft.nbt.NBTTagCompound;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.LongBuffer;
 import java.nio.ShortBuffer;
 
 /**
  * Used to stored data about a section of a chunk using a short value
+ * <p>
+ * Sections start as a single value shared by every slot. Once a second value is set they
+ * store a palette of values with a packed index per slot, 1 to 8 bits depending on palette
+ * size. Only sections with more than {@link #MAX_PALETTE} values use a full short array.
+ * Reading never allocates, saving writes the smallest of the three forms.
  *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 5/20/2017.
  */
-public class ChunkSectionShort implements ISave
+public class ChunkSectionShort implements ISave, IByteBufWriter, IByteBufReader
 {
-    public final short[] data = new short[4096]; //65,636 bits of memory usage
+    /** Number of slots in a section */
+    public static final int SIZE = 4096;
+    /** Most values a palette can hold before the section uses a full array */
+    public static final int MAX_PALETTE = 256;
+
+    /** Every slot has the same value */
+    public static final int MODE_UNIFORM = 0;
+    /** Slots store an index into the palette */
+    public static final int MODE_PALETTE = 1;
+    /** Slots store the value, 65,636 bits of memory usage */
+    public static final int MODE_FULL = 2;
+
+    /** Value of every slot while uniform */
+    private short uniform = 0;
+
+    /** Values used by the section, null unless using a palette */
+    private short[] palette;
+    /** Number of values in the palette */
+    private int paletteSize;
+    /** Bits per index as a power of two, 0 - 3 for 1, 2, 4 and 8 bits */
+    private int bitsShift;
+    /** Packed palette indexes, indexes never cross a long */
+    private long[] indices;
+
+    /** Value of each slot, null unless the section is full */
+    private short[] data;
 
     public short getValue(int x, int y, int z)
     {
         int p = p(x, y, z);
-        if (p >= 0 && p < data.length)
+        if (p >= 0 && p < SIZE)
         {
-            return data[p];
+            return get(p);
         }
         return 0;
     }
@@ -35,12 +69,12 @@ public class ChunkSectionShort implements ISave
 
     public void setValue(int x, int y, int z, short value)
     {
-        data[p(x, y, z)] = value;
+        set(p(x, y, z), value);
     }
 
     public void setValue(int x, int y, int z, int value)
     {
-        data[p(x, y, z)] = (short) value;
+        set(p(x, y, z), (short) value);
     }
 
     public void setValue(IPos3D pos, short value)
@@ -53,6 +87,62 @@ public class ChunkSectionShort implements ISave
         setValue(pos.xi(), pos.yi(), pos.zi(), value);
     }
 
+    /**
+     * Gets the value of the slot
+     *
+     * @param index - slot, see {@link #p(int, int, int)}
+     * @return value
+     */
+    public short get(int index)
+    {
+        if (data != null)
+        {
+            return data[index];
+        }
+        else if (palette != null)
+        {
+            return palette[getIndex(index)];
+        }
+        return uniform;
+    }
+
+    /**
+     * Sets the value of the slot
+     *
+     * @param index - slot, see {@link #p(int, int, int)}
+     * @param value - value to set
+     */
+    public void set(int index, short value)
+    {
+        if (data != null)
+        {
+            data[index] = value;
+            return;
+        }
+        else if (palette == null)
+        {
+            if (value == uniform)
+            {
+                return;
+            }
+            toPalette();
+        }
+
+        int paletteIndex = indexOf(value);
+        if (paletteIndex < 0)
+        {
+            paletteIndex = addToPalette(value);
+            if (paletteIndex < 0)
+            {
+                //Too many values for a palette
+                toFull();
+                data[index] = value;
+                return;
+            }
+        }
+        setIndex(index, paletteIndex);
+    }
+
     /**
      * Get the position in the data array for the 3D location
      * <p>
@@ -74,32 +164,291 @@ public class ChunkSectionShort implements ISave
         return x << 8 | y << 4 | z;
     }
 
+    /** How the section is stored, {@link #MODE_UNIFORM}, {@link #MODE_PALETTE} or {@link #MODE_FULL} */
+    public int getMode()
+    {
+        return data != null ? MODE_FULL : palette != null ? MODE_PALETTE : MODE_UNIFORM;
+    }
+
+    /** True if every slot is zero, the section does not need to be kept */
+    public boolean isEmpty()
+    {
+        if (data == null && palette == null)
+        {
+            return uniform == 0;
+        }
+        for (int i = 0; i < SIZE; i++)
+        {
+            if (get(i) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //==========================================
+    //========== Palette =======================
+    //==========================================
+
+    private int getIndex(int index)
+    {
+        return readIndex(indices, bitsShift, index);
+    }
+
+    private void setIndex(int index, int paletteIndex)
+    {
+        writeIndex(indices, bitsShift, index, paletteIndex);
+    }
+
+    private static int readIndex(long[] indices, int bitsShift, int index)
+    {
+        //Entries per long is 64 >> bitsShift
+        final int longShift = 6 - bitsShift;
+        final int offset = (index & ((1 << longShift) - 1)) << bitsShift;
+        return (int) (indices[index >> longShift] >>> offset) & ((1 << (1 << bitsShift)) - 1);
+    }
+
+    private static void writeIndex(long[] indices, int bitsShift, int index, int paletteIndex)
+    {
+        final int longShift = 6 - bitsShift;
+        final int offset = (index & ((1 << longShift) - 1)) << bitsShift;
+        final long mask = (1L << (1 << bitsShift)) - 1;
+        final int word = index >> longShift;
+        indices[word] = indices[word] & ~(mask << offset) | ((long) paletteIndex & mask) << offset;
+    }
+
+    private int indexOf(short value)
+    {
+        for (int i = 0; i < paletteSize; i++)
+        {
+            if (palette[i] == value)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the value to the palette, growing the indexes if needed
+     *
+     * @return index of the value, or -1 if the palette is full
+     */
+    private int addToPalette(short value)
+    {
+        if (paletteSize >= MAX_PALETTE)
+        {
+            return -1;
+        }
+        if (paletteSize >= (1 << (1 << bitsShift)))
+        {
+            resizeIndices(bitsShift + 1);
+        }
+        if (paletteSize >= palette.length)
+        {
+            short[] bigger = new short[Math.min(MAX_PALETTE, palette.length * 2)];
+            System.arraycopy(palette, 0, bigger, 0, paletteSize);
+            palette = bigger;
+        }
+        palette[paletteSize] = value;
+        return paletteSize++;
+    }
+
+    private void resizeIndices(int newShift)
+    {
+        final long[] resized = new long[SIZE >> (6 - newShift)];
+        for (int i = 0; i < SIZE; i++)
+        {
+            writeIndex(resized, newShift, i, readIndex(indices, bitsShift, i));
+        }
+        indices = resized;
+        bitsShift = newShift;
+    }
+
+    private void toPalette()
+    {
+        palette = new short[4];
+        palette[0] = uniform;
+        paletteSize = 1;
+        bitsShift = 0;
+        //Every index starts at zero, the old uniform value
+        indices = new long[SIZE >> 6];
+    }
+
+    private void toFull()
+    {
+        short[] full = new short[SIZE];
+        for (int i = 0; i < SIZE; i++)
+        {
+            full[i] = get(i);
+        }
+        data = full;
+        palette = null;
+        indices = null;
+        paletteSize = 0;
+    }
+
+    /**
+     * Rebuilds the section in the smallest form that holds its values,
+     * dropping palette values that are no longer used.
+     */
+    public void compact()
+    {
+        if (data == null && palette == null)
+        {
+            return;
+        }
+        ChunkSectionShort section = new ChunkSectionShort();
+        section.uniform = get(0);
+        for (int i = 1; i < SIZE; i++)
+        {
+            section.set(i, get(i));
+        }
+        uniform = section.uniform;
+        palette = section.palette;
+        paletteSize = section.paletteSize;
+        bitsShift = section.bitsShift;
+        indices = section.indices;
+        data = section.data;
+    }
+
+    /** Sets every slot to the value */
+    public void fill(short value)
+    {
+        uniform = value;
+        palette = null;
+        paletteSize = 0;
+        indices = null;
+        data = null;
+    }
+
+    //==========================================
+    //========== Save/Load =====================
+    //==========================================
+
     @Override
     public void load(NBTTagCompound nbt)
     {
+        fill((short) 0);
         if (nbt.hasKey("data"))
         {
             byte[] payload = nbt.getByteArray("data");
-            ByteBuffer bb = ByteBuffer.wrap(payload).order(ByteOrder.BIG_ENDIAN);
-            ShortBuffer sb = bb.asShortBuffer();
+            ShortBuffer sb = ByteBuffer.wrap(payload).order(ByteOrder.BIG_ENDIAN).asShortBuffer();
+            data = new short[SIZE];
+            sb.get(data, 0, Math.min(SIZE, sb.remaining()));
+        }
+        else if (nbt.hasKey("palette"))
+        {
+            ShortBuffer sb = ByteBuffer.wrap(nbt.getByteArray("palette")).order(ByteOrder.BIG_ENDIAN).asShortBuffer();
+            paletteSize = sb.remaining();
+            palette = new short[Math.max(4, paletteSize)];
+            sb.get(palette, 0, paletteSize);
 
-            int i = 0;
-            while (sb.hasRemaining())
-            {
-                data[i++] = sb.get();
-            }
+            bitsShift = nbt.getByte("bits");
+            indices = new long[SIZE >> (6 - bitsShift)];
+            LongBuffer lb = ByteBuffer.wrap(nbt.getByteArray("indices")).order(ByteOrder.BIG_ENDIAN).asLongBuffer();
+            lb.get(indices, 0, Math.min(indices.length, lb.remaining()));
+        }
+        else
+        {
+            uniform = nbt.getShort("value");
         }
     }
 
     @Override
     public NBTTagCompound save(NBTTagCompound nbt)
     {
-        ByteBuffer byteBuf = ByteBuffer.allocate(2 * data.length);
-        for (int i = 0; i < data.length; i++)
+        compact();
+        if (data != null)
+        {
+            ByteBuffer byteBuf = ByteBuffer.allocate(2 * SIZE);
+            byteBuf.asShortBuffer().put(data);
+            nbt.setByteArray("data", byteBuf.array());
+        }
+        else if (palette != null)
         {
-            byteBuf.putShort(data[i]);
+            ByteBuffer paletteBuf = ByteBuffer.allocate(2 * paletteSize);
+            paletteBuf.asShortBuffer().put(palette, 0, paletteSize);
+            nbt.setByteArray("palette", paletteBuf.array());
+
+            ByteBuffer indexBuf = ByteBuffer.allocate(8 * indices.length);
+            indexBuf.asLongBuffer().put(indices);
+            nbt.setByte("bits", (byte) bitsShift);
+            nbt.setByteArray("indices", indexBuf.array());
+        }
+        else
+        {
+            nbt.setShort("value", uniform);
         }
-        nbt.setByteArray("data", byteBuf.array());
         return nbt;
     }
+
+    @Override
+    public Object readBytes(ByteBuf buf)
+    {
+        fill((short) 0);
+        int mode = buf.readByte();
+        if (mode == MODE_FULL)
+        {
+            data = new short[SIZE];
+            for (int i = 0; i < SIZE; i++)
+            {
+                data[i] = buf.readShort();
+            }
+        }
+        else if (mode == MODE_PALETTE)
+        {
+            bitsShift = buf.readByte();
+            paletteSize = buf.readShort();
+            palette = new short[Math.max(4, paletteSize)];
+            for (int i = 0; i < paletteSize; i++)
+            {
+                palette[i] = buf.readShort();
+            }
+            indices = new long[SIZE >> (6 - bitsShift)];
+            for (int i = 0; i < indices.length; i++)
+            {
+                indices[i] = buf.readLong();
+            }
+        }
+        else
+        {
+            uniform = buf.readShort();
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeBytes(ByteBuf buf)
+    {
+        compact();
+        final int mode = getMode();
+        buf.writeByte(mode);
+        if (mode == MODE_FULL)
+        {
+            for (int i = 0; i < SIZE; i++)
+            {
+                buf.writeShort(data[i]);
+            }
+        }
+        else if (mode == MODE_PALETTE)
+        {
+            buf.writeByte(bitsShift);
+            buf.writeShort(paletteSize);
+            for (int i = 0; i < paletteSize; i++)
+            {
+                buf.writeShort(palette[i]);
+            }
+            for (long l : indices)
+            {
+                buf.writeLong(l);
+            }
+        }
+        else
+        {
+            buf.writeShort(uniform);
+        }
+        return buf;
+    }
 }
@@ -3,18 +3,33 @@ package com.builtbroken.mc.lib.world.map.heat;
 import com.builtbroken.jlib.data.science.units.TemperatureUnit;
 import com.builtbroken.mc.imp.transform.vector.Location;
 import com.builtbroken.mc.lib.data.heat.HeatedBlockRegistry;
+import com.builtbroken.mc.lib.world.map.data.ChunkMapManager;
 import net.minecraft.world.World;
 
-import java.util.HashMap;
-
 /**
+ * Handles updating heat data for the game world
+ * <p>
+ * Heat maps store the change from the normal temperature of the block, in kelvin.
+ *
  * Created by robert on 2/25/2015.
  */
-public class HeatDataManager
+public class HeatDataManager extends ChunkMapManager<HeatMap>
 {
-    private static HashMap<Integer, HeatMap> dims = new HashMap();
+    public static final HeatDataManager INSTANCE = new HeatDataManager();
+
     private static int default_return = 293;
 
+    protected HeatDataManager()
+    {
+        super("heat", "heat");
+    }
+
+    @Override
+    protected HeatMap createNewMap(int dim)
+    {
+        return new HeatMap(this, dim);
+    }
+
     public static HeatMap getMapForWorld(World world)
     {
         return getMapForDim(world.provider.dimensionId);
@@ -22,11 +37,7 @@ public class HeatDataManager
 
     public static HeatMap getMapForDim(int dim)
     {
-        if (!dims.containsKey(dim))
-        {
-            dims.put(dim, new HeatMap(dim));
-        }
-        return dims.get(dim);
+        return INSTANCE.getMapForDim(dim, true);
     }
 
     public static int getTempKelvin(Location location)
@@ -36,8 +47,33 @@ public class HeatDataManager
 
     public static int getTempKelvin(World world, int x, int y, int z)
     {
-        //TODO get temp at location
-        return HeatedBlockRegistry.getDefaultTemp(world, world.getBlock(x, y, z));
+        int temp = HeatedBlockRegistry.getDefaultTemp(world, world.getBlock(x, y, z));
+        if (!world.isRemote)
+        {
+            HeatMap map = INSTANCE.getMap(world, false);
+            if (map != null)
+            {
+                temp += map.getHeat(x, y, z);
+            }
+        }
+        return temp;
+    }
+
+    /**
+     * Adds heat to the location, heat will spread to nearby blocks and fade over time
+     *
+     * @param world  - world
+     * @param x      - location in the world
+     * @param y      - location in the world
+     * @param z      - location in the world
+     * @param kelvin - change in temperature, negative to cool
+     */
+    public static void addHeat(World world, int x, int y, int z, int kelvin)
+    {
+        if (!world.isRemote && kelvin != 0)
+        {
+            getMapForWorld(world).addHeat(x, y, z, kelvin);
+        }
     }
 
     public static int getTempFahrenheit(Location location)
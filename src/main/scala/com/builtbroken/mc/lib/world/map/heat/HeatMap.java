@@ -1,47 +1,192 @@
 package com.builtbroken.mc.lib.world.map.heat;
 
+import com.builtbroken.mc.lib.data.heat.HeatedBlockRegistry;
+import com.builtbroken.mc.lib.world.edit.PlacementData;
+import com.builtbroken.mc.lib.world.map.data.DiffusionChunkMap;
+import com.builtbroken.mc.lib.world.map.data.s.ChunkDataShort;
+import net.minecraft.block.Block;
+import net.minecraft.world.World;
+import net.minecraftforge.common.DimensionManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
 /**
  * Tracks heat energy values for the world
+ * <p>
+ * Values are the change in kelvin from the normal temperature of the block, heat spreads to
+ * nearby blocks and fades back to normal over time. Blocks whose heat changed are checked for
+ * {@link HeatedBlockRegistry} conversions, such as ice to water, a batch at a time each tick.
  *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on  2/25/2015.
  */
-public class HeatMap
+public class HeatMap extends DiffusionChunkMap
 {
-    public final int dimID;
+    /** Share of the difference moved to each neighbor per step */
+    public static float DIFFUSION = 0.15f;
+    /** Share of heat lost per step */
+    public static float DECAY = 0.02f;
+    /** Ticks between steps */
+    public static int STEP_RATE = 10;
+
+    /** Smallest change from normal temperature that is checked for conversions */
+    public static int MIN_CONVERSION_HEAT = 10;
+    /** Blocks checked for conversions each tick */
+    public static int CONVERSIONS_PER_TICK = 64;
+    /** Most blocks waiting to be checked, heat changes past this are skipped until there is room */
+    public static int MAX_PENDING_CONVERSIONS = 16384;
+
+    /** Packed positions of blocks to check for conversions, in the order they changed */
+    protected final LinkedHashSet<Long> pendingConversions = new LinkedHashSet();
 
     public HeatMap(int dimID)
     {
-        this.dimID = dimID;
+        this(null, dimID);
+    }
+
+    public HeatMap(HeatDataManager manager, int dimID)
+    {
+        super(manager, dimID, DIFFUSION, DECAY, STEP_RATE);
+    }
+
+    /**
+     * Gets the change in temperature at the location
+     *
+     * @param x - location in the world
+     * @param y - location in the world
+     * @param z - location in the world
+     * @return kelvin above, or bellow if negative, normal temperature
+     */
+    public short getHeat(int x, int y, int z)
+    {
+        ChunkDataShort chunk = getChunkFromBlockCoords(x, z);
+        if (chunk != null)
+        {
+            return chunk.getValue(x & 15, y, z & 15);
+        }
+        return 0;
+    }
+
+    /**
+     * Sets the change in temperature at the location
+     *
+     * @param x     - location in the world
+     * @param y     - location in the world
+     * @param z     - location in the world
+     * @param value - kelvin above, or bellow if negative, normal temperature
+     * @return old value
+     */
+    public short setHeat(int x, int y, int z, short value)
+    {
+        ChunkDataShort chunk = getChunkFromBlockCoords(x, z);
+        if (chunk == null)
+        {
+            if (value == 0)
+            {
+                return 0;
+            }
+            chunk = add(newChunk(x >> 4, z >> 4));
+        }
+        return chunk.setValue(x & 15, y, z & 15, value);
     }
 
     /**
-     * Dimension ID this map tracks
+     * Adds to the change in temperature at the location
      *
-     * @return valid dim ID.
+     * @param x      - location in the world
+     * @param y      - location in the world
+     * @param z      - location in the world
+     * @param kelvin - amount to add
      */
-    public int dimID()
+    public void addHeat(int x, int y, int z, int kelvin)
     {
-        return dimID;
+        int value = getHeat(x, y, z) + kelvin;
+        setHeat(x, y, z, (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value)));
+        queueConversion(x, y, z, value);
     }
 
     @Override
-    public boolean equals(Object object)
+    public void update()
     {
-        if (object == this)
+        super.update();
+        if (!pendingConversions.isEmpty())
         {
-            return true;
+            World world = DimensionManager.getWorld(dimID);
+            if (world != null)
+            {
+                runConversions(world);
+            }
+            else
+            {
+                pendingConversions.clear();
+            }
         }
-        else if (object instanceof HeatMap)
+    }
+
+    @Override
+    protected void onDiffused(World world, int x, int y, int z, short prev, short value)
+    {
+        queueConversion(x, y, z, value);
+    }
+
+    protected void queueConversion(int x, int y, int z, int value)
+    {
+        if (Math.abs(value) >= MIN_CONVERSION_HEAT && pendingConversions.size() < MAX_PENDING_CONVERSIONS)
         {
-            return ((HeatMap) object).dimID == dimID;
+            pendingConversions.add(pack(x, y, z));
         }
-        return false;
+    }
+
+    /**
+     * Checks the next batch of blocks for conversions
+     *
+     * @param world - world the map is for
+     */
+    protected void runConversions(World world)
+    {
+        Iterator<Long> it = pendingConversions.iterator();
+        for (int i = 0; i < CONVERSIONS_PER_TICK && it.hasNext(); i++)
+        {
+            final long key = it.next();
+            it.remove();
+
+            final int x = (int) (key >> 34);
+            final int y = (int) (key & 255);
+            final int z = (int) (key << 30 >> 38);
+            if (world.blockExists(x, y, z))
+            {
+                final short heat = getHeat(x, y, z);
+                if (heat != 0)
+                {
+                    final Block block = world.getBlock(x, y, z);
+                    final int temp = HeatedBlockRegistry.getDefaultTemp(world, block) + heat;
+                    final PlacementData result = heat > 0 ? HeatedBlockRegistry.getResultWarmUp(block, temp) : HeatedBlockRegistry.getResultCoolDown(block, temp);
+                    if (result != null)
+                    {
+                        result.place(world, x, y, z, false);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Packs x (30 bits), z (26 bits) and y (8 bits) of a block */
+    protected static long pack(int x, int y, int z)
+    {
+        return ((long) x << 34) | ((long) (z & 0x3FFFFFF) << 8) | (y & 255);
+    }
+
+    @Override
+    public void onWorldUnload()
+    {
+        pendingConversions.clear();
+        super.onWorldUnload();
     }
 
     @Override
     public String toString()
     {
-        return "RadiationMap[" + dimID + "]";
+        return "HeatMap[" + dimID + "]";
     }
 }
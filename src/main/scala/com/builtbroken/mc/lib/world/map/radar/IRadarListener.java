@@ -0,0 +1,24 @@
+package com.builtbroken.mc.lib.world.map.radar;
+
+import com.builtbroken.mc.lib.world.map.radar.data.RadarObject;
+
+import java.util.List;
+
+/**
+ * Receives changes to the contacts inside a {@link RadarSubscription}, see {@link RadarMap#subscribe(double, double, double, java.util.function.Predicate, IRadarListener)}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface IRadarListener
+{
+    /**
+     * Called once per radar map update when contacts in the area changed. Lists are
+     * shared with other listeners of the subscription and reused, do not edit or keep them.
+     *
+     * @param subscription - area that changed, {@link RadarSubscription#getContacts()} is already updated
+     * @param entered      - contacts that moved into or were added inside the area
+     * @param left         - contacts that moved out of or were removed from the area
+     * @param moved        - contacts that stayed inside the area but changed position
+     */
+    void onRadarUpdate(RadarSubscription subscription, List<RadarObject> entered, List<RadarObject> left, List<RadarObject> moved);
+}
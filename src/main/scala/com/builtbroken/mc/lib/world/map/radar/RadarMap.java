@@ -8,14 +8,34 @@ import com.builtbroken.mc.lib.world.map.radar.data.RadarObject;
 import com.builtbroken.mc.lib.world.map.radar.data.RadarTile;
 import net.minecraft.entity.Entity;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.LongHashMap;
+import net.minecraft.util.MathHelper;
 import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.chunk.Chunk;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
 
 /**
  * System designed to track moving or stationary targets on a 2D map. Can be used to detect objects or visualize objects in an area. Mainly
  * used to track flying objects that are outside of the map bounds(Missile in ICBM).
+ * <p>
+ * Contacts are bucketed into square cells keyed by a packed long. Each contact remembers its
+ * cell so updates only move contacts that crossed into a new cell.
+ * <p>
+ * Above the cells sit {@link #LEVELS} levels of coarser nodes, each covering 8x8 nodes of the
+ * level below and holding a count of the contacts inside. Nodes only exist while they contain
+ * contacts so long range queries skip empty space without visiting it.
+ * <p>
+ * Listeners can {@link #subscribe(double, double, double, Predicate, IRadarListener)} to an area instead
+ * of polling it. Each update the contacts that were added, moved or removed are found once and every
+ * subscription only checks those, listeners asking for the same area share one subscription.
  *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 3/5/2016.
@@ -23,13 +43,39 @@ import java.util.*;
 public class RadarMap
 {
     public static final int UPDATE_DELAY = 20;
+    /** Default size of a cell in blocks, matches a chunk */
+    public static final int DEFAULT_CELL_SIZE = 16;
+    /** Number of node levels above the cells */
+    public static final int LEVELS = 3;
+    /** Each node covers 2^shift by 2^shift nodes of the level below */
+    public static final int LEVEL_SHIFT = 3;
 
     /** DIM ID, never change */
     public final int dimID;
-
-    /** Map of chunk coords( converted to long) to radar contacts in that chunk */
-    public final HashMap<ChunkCoordIntPair, List<RadarObject>> chunk_to_entities = new HashMap();
-    public final List<RadarObject> allEntities = new ArrayList();
+    /** Size of a cell in blocks, always a power of two */
+    public final int cellSize;
+    /** Shift to convert block coords to cell coords */
+    public final int cellShift;
+
+    /** Cell key, see {@link ChunkCoordIntPair#chunkXZ2Int(int, int)}, to {@link RadarCell} */
+    protected final LongHashMap cells = new LongHashMap();
+    /** Node key to {@link RadarNode}, index 0 is level 1 */
+    protected final LongHashMap[] nodes = new LongHashMap[LEVELS];
+    /** Nodes of the top level, used to start searches that cover more space than there are nodes */
+    protected final List<RadarNode> roots = new ArrayList();
+    /** Contact to the cell it is stored in */
+    protected final HashMap<RadarObject, RadarCell> objectToCell = new HashMap();
+    /** All contacts in the map, read only view */
+    public final Collection<RadarObject> allEntities = objectToCell.keySet();
+
+    /** Areas watched by listeners */
+    protected final List<RadarSubscription> subscriptions = new ArrayList();
+    /** Contact to its position at the last update, only kept while there are subscriptions */
+    protected final HashMap<RadarObject, double[]> lastPositions = new HashMap();
+    /** Contacts added or moved since the last update, only kept while there are subscriptions */
+    protected final List<RadarObject> changedContacts = new ArrayList();
+    /** Contacts removed since the last update, only kept while there are subscriptions */
+    protected final List<RadarObject> removedContacts = new ArrayList();
 
     public int ticks = 0;
 
@@ -45,8 +91,25 @@ public class RadarMap
      * @param dimID - unique dimension that is not already tracked
      */
     public RadarMap(int dimID)
+    {
+        this(dimID, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Dimension ID
+     *
+     * @param dimID    - unique dimension that is not already tracked
+     * @param cellSize - size of a cell in blocks, rounded up to a power of two
+     */
+    public RadarMap(int dimID, int cellSize)
     {
         this.dimID = dimID;
+        this.cellShift = 32 - Integer.numberOfLeadingZeros(Math.max(1, cellSize) - 1);
+        this.cellSize = 1 << cellShift;
+        for (int i = 0; i < LEVELS; i++)
+        {
+            nodes[i] = new LongHashMap();
+        }
         debug = new DebugPrinter(Engine.logger());
         if (!Engine.runningAsDev || !debugRadarMap)
         {
@@ -73,79 +136,56 @@ public class RadarMap
      */
     public void update()
     {
-        debug.start("Update", "Objects: " + allEntities.size() + "  Chunks: " + chunk_to_entities.size());
-        if (ticks++ >= UPDATE_DELAY && chunk_to_entities.size() > 0)
+        debug.start("Update", "Objects: " + objectToCell.size() + "  Cells: " + cells.getNumHashElements());
+        if (ticks++ >= UPDATE_DELAY && (!objectToCell.isEmpty() || !subscriptions.isEmpty()))
         {
             ticks = 0;
-            //TODO consider multi-threading if number of entries is too high (need to ensure runs in less than 10ms~)
 
-
-            debug.start("Looking for invalid radar objects and updating position data");
-            HashMap<RadarObject, ChunkCoordIntPair> removeList = new HashMap();
-            List<RadarObject> addList = new ArrayList();
-            for (Map.Entry<ChunkCoordIntPair, List<RadarObject>> entry : chunk_to_entities.entrySet())
+            debug.start("Removing invalid objects and moving objects that changed cells");
+            final boolean tracking = !subscriptions.isEmpty();
+            int moved = 0;
+            Iterator<Map.Entry<RadarObject, RadarCell>> it = objectToCell.entrySet().iterator();
+            while (it.hasNext())
             {
-                if (entry.getValue() != null)
+                Map.Entry<RadarObject, RadarCell> entry = it.next();
+                RadarObject object = entry.getKey();
+                RadarCell cell = entry.getValue();
+                if (object == null || !object.isValid())
                 {
-                    for (RadarObject object : entry.getValue())
-                    {
-                        if (entry.getKey() != object.getChunkCoordIntPair())
-                        {
-                            debug.log("Removed from map: " + object);
-                            removeList.put(object, entry.getKey());
-                            if (object.isValid())
-                            {
-                                addList.add(object);
-                                debug.log("Queued for re-add");
-                            }
-                        }
-                    }
+                    debug.log("Removed: " + object);
+                    removeFromCell(cell, object);
+                    it.remove();
+                    onContactRemoved(object);
                 }
-            }
-            debug.end();
-
-
-            debug.start("Removing objects from map");
-            for (Map.Entry<RadarObject, ChunkCoordIntPair> entry : removeList.entrySet())
-            {
-                allEntities.remove(entry.getKey());
-                List<RadarObject> list = chunk_to_entities.get(entry.getValue());
-                if (list != null)
+                else
                 {
-                    list.remove(entry.getKey());
-                    if (list.size() > 0)
+                    if (cell.x != getCellCoord(object.x()) || cell.z != getCellCoord(object.z()))
                     {
-                        chunk_to_entities.put(entry.getValue(), list);
+                        removeFromCell(cell, object);
+                        entry.setValue(addToCell(object));
+                        moved++;
                     }
-                    else
+                    if (tracking)
                     {
-                        chunk_to_entities.remove(entry.getValue());
+                        trackPosition(object);
                     }
                 }
-                else
-                {
-                    chunk_to_entities.remove(entry.getValue());
-                }
             }
+            debug.log("Moved: " + moved);
             debug.end();
 
-
-            debug.start("Adding entries: " + addList.size());
-            addList.forEach(this::add);
-            debug.end();
-
-            debug.start("Removing invalid objects");
-            Iterator<RadarObject> it = allEntities.iterator();
-            while (it.hasNext())
+            if (tracking)
             {
-                RadarObject object = it.next();
-                if (object == null || !object.isValid())
+                debug.start("Updating subscriptions", "Changed: " + changedContacts.size() + "  Removed: " + removedContacts.size());
+                //Copy as listeners may unsubscribe while being updated
+                for (RadarSubscription subscription : subscriptions.toArray(new RadarSubscription[subscriptions.size()]))
                 {
-                    debug.log("Removed: " + object);
-                    it.remove();
+                    subscription.update(changedContacts, removedContacts);
                 }
+                changedContacts.clear();
+                removedContacts.clear();
+                debug.end();
             }
-            debug.end();
         }
         debug.end();
     }
@@ -162,32 +202,12 @@ public class RadarMap
 
     public boolean add(RadarObject object)
     {
-        if (!allEntities.contains(object) && object.isValid())
+        if (object.isValid() && !objectToCell.containsKey(object))
         {
-            allEntities.add(object);
-            ChunkCoordIntPair pair = getChunkValue((int) object.x(), (int) object.z());
-            List<RadarObject> list;
-
-            //Get list or make new
-            if (chunk_to_entities.containsKey(pair))
-            {
-                list = chunk_to_entities.get(pair);
-            }
-            else
-            {
-                list = new ArrayList();
-            }
-
-            //Check if object is not already added
-            if (!list.contains(object))
-            {
-                list.add(object);
-                //TODO fire map update event
-                //TODO fire map add event
-                //Update map
-                chunk_to_entities.put(pair, list);
-                return true;
-            }
+            objectToCell.put(object, addToCell(object));
+            //TODO fire map update event
+            //TODO fire map add event
+            return true;
         }
         return false;
     }
@@ -204,19 +224,22 @@ public class RadarMap
 
     public boolean remove(RadarObject object)
     {
-        ChunkCoordIntPair pair = getChunkValue((int) object.x(), (int) object.z());
-        allEntities.remove(object);
-        if (chunk_to_entities.containsKey(pair))
+        RadarCell cell = objectToCell.get(object);
+        if (cell != null)
         {
-            List<RadarObject> list = chunk_to_entities.get(pair);
-            boolean b = list.remove(object);
-            //TODO fire radar remove event
-            //TODO fire map update event
-            if (list.isEmpty())
+            //Remove the stored contact, object may only be equal to it
+            for (RadarObject stored : cell.objects)
             {
-                chunk_to_entities.remove(pair);
+                if (stored.equals(object))
+                {
+                    removeFromCell(cell, stored);
+                    objectToCell.remove(stored);
+                    onContactRemoved(stored);
+                    //TODO fire radar remove event
+                    //TODO fire map update event
+                    return true;
+                }
             }
-            return b;
         }
         return false;
     }
@@ -228,26 +251,299 @@ public class RadarMap
      */
     public void remove(Chunk chunk)
     {
-        ChunkCoordIntPair pair = chunk.getChunkCoordIntPair();
-        if (chunk_to_entities.containsKey(pair))
+        final int minX = chunk.xPosition << 4;
+        final int minZ = chunk.zPosition << 4;
+        List<RadarObject> removeList = new ArrayList();
+        for (int cellX = getCellCoord(minX); cellX <= getCellCoord(minX + 15); cellX++)
         {
-            for (RadarObject object : chunk_to_entities.get(pair))
+            for (int cellZ = getCellCoord(minZ); cellZ <= getCellCoord(minZ + 15); cellZ++)
             {
-                //TODO fire remove event
-                allEntities.remove(object);
+                RadarCell cell = getCell(cellX, cellZ);
+                if (cell != null)
+                {
+                    for (RadarObject object : cell.objects)
+                    {
+                        if (MathHelper.floor_double(object.x()) >> 4 == chunk.xPosition && MathHelper.floor_double(object.z()) >> 4 == chunk.zPosition)
+                        {
+                            removeList.add(object);
+                        }
+                    }
+                    for (RadarObject object : removeList)
+                    {
+                        //TODO fire remove event
+                        removeFromCell(cell, object);
+                        objectToCell.remove(object);
+                        onContactRemoved(object);
+                    }
+                    removeList.clear();
+                }
             }
-            chunk_to_entities.remove(pair);
         }
     }
 
-    protected final ChunkCoordIntPair getChunkValue(int x, int z)
+    /**
+     * Converts a block coord to a cell coord
+     *
+     * @param pos - block coord
+     * @return cell coord
+     */
+    public final int getCellCoord(double pos)
+    {
+        return MathHelper.floor_double(pos) >> cellShift;
+    }
+
+    /**
+     * Shift to convert block coords to node coords of the level
+     *
+     * @param level - 0 for cells, up to {@link #LEVELS}
+     * @return shift
+     */
+    public final int getShift(int level)
     {
-        return new ChunkCoordIntPair(x >> 4, z >> 4);
+        return cellShift + level * LEVEL_SHIFT;
+    }
+
+    /**
+     * Gets the cell at the cell coords
+     *
+     * @param cellX - cell x
+     * @param cellZ - cell z
+     * @return cell, or null if empty
+     */
+    public RadarCell getCell(int cellX, int cellZ)
+    {
+        return (RadarCell) cells.getValueByKey(ChunkCoordIntPair.chunkXZ2Int(cellX, cellZ));
+    }
+
+    /**
+     * Gets the node at the node coords of the level
+     *
+     * @param level - 0 for cells, up to {@link #LEVELS}
+     * @param x     - node x
+     * @param z     - node z
+     * @return node, or null if empty
+     */
+    public RadarNode getNode(int level, int x, int z)
+    {
+        return (RadarNode) (level == 0 ? cells : nodes[level - 1]).getValueByKey(ChunkCoordIntPair.chunkXZ2Int(x, z));
+    }
+
+    /**
+     * Adds the contact to the cell at its position and counts it in the nodes above
+     *
+     * @param object - contact
+     * @return cell the contact was added to
+     */
+    protected RadarCell addToCell(RadarObject object)
+    {
+        final int cellX = getCellCoord(object.x());
+        final int cellZ = getCellCoord(object.z());
+        RadarCell cell = getCell(cellX, cellZ);
+        if (cell == null)
+        {
+            cell = new RadarCell(cellX, cellZ);
+            cells.add(cell.key, cell);
+        }
+        cell.objects.add(object);
+        cell.count++;
+
+        for (int level = 1; level <= LEVELS; level++)
+        {
+            final int shift = level * LEVEL_SHIFT;
+            RadarNode node = getNode(level, cellX >> shift, cellZ >> shift);
+            if (node == null)
+            {
+                node = new RadarNode(level, cellX >> shift, cellZ >> shift);
+                nodes[level - 1].add(node.key, node);
+                if (level == LEVELS)
+                {
+                    roots.add(node);
+                }
+            }
+            node.count++;
+        }
+        return cell;
+    }
+
+    /**
+     * Removes the contact from the cell and the counts of the nodes above,
+     * nodes left empty are removed.
+     *
+     * @param cell   - cell holding the contact
+     * @param object - contact
+     */
+    protected void removeFromCell(RadarCell cell, RadarObject object)
+    {
+        if (cell.remove(object))
+        {
+            if (--cell.count <= 0)
+            {
+                cells.remove(cell.key);
+            }
+            for (int level = 1; level <= LEVELS; level++)
+            {
+                final int shift = level * LEVEL_SHIFT;
+                RadarNode node = getNode(level, cell.x >> shift, cell.z >> shift);
+                if (node != null && --node.count <= 0)
+                {
+                    nodes[level - 1].remove(node.key);
+                    if (level == LEVELS)
+                    {
+                        roots.remove(node);
+                    }
+                }
+            }
+        }
+    }
+
+    /** True if no contacts are tracked */
+    public boolean isEmpty()
+    {
+        return objectToCell.isEmpty();
     }
 
     public void unloadAll()
     {
-        chunk_to_entities.clear();
+        for (Map.Entry<RadarObject, RadarCell> entry : objectToCell.entrySet())
+        {
+            removeFromCell(entry.getValue(), entry.getKey());
+            onContactRemoved(entry.getKey());
+        }
+        objectToCell.clear();
+    }
+
+    /**
+     * Watches the circle for contacts entering, leaving or moving inside it. Listeners using
+     * the same area and filter instance share a subscription. Contacts inside are available
+     * from {@link RadarSubscription#getContacts()} right away, changes are sent each update.
+     *
+     * @param x        - center x
+     * @param z        - center z
+     * @param radius   - radius of the circle
+     * @param filter   - optional, contacts to include. Use a shared instance so subscriptions can be shared
+     * @param listener - listener, needs to unsubscribe when removed
+     * @return subscription, used to unsubscribe
+     */
+    public RadarSubscription subscribe(double x, double z, double radius, Predicate<RadarObject> filter, IRadarListener listener)
+    {
+        return subscribe(x - radius, -Double.MAX_VALUE, z - radius, x + radius, Double.MAX_VALUE, z + radius, x, z, radius, filter, listener);
+    }
+
+    /**
+     * Watches the cube for contacts entering, leaving or moving inside it, see {@link #subscribe(double, double, double, Predicate, IRadarListener)}
+     *
+     * @param cube     - area to watch
+     * @param filter   - optional, contacts to include
+     * @param listener - listener, needs to unsubscribe when removed
+     * @return subscription, used to unsubscribe
+     */
+    public RadarSubscription subscribe(Cube cube, Predicate<RadarObject> filter, IRadarListener listener)
+    {
+        return subscribe(cube.min().x(), cube.min().y(), cube.min().z(), cube.max().x(), cube.max().y(), cube.max().z(), 0, 0, -1, filter, listener);
+    }
+
+    protected RadarSubscription subscribe(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, double x, double z, double radius, Predicate<RadarObject> filter, IRadarListener listener)
+    {
+        for (RadarSubscription subscription : subscriptions)
+        {
+            if (subscription.isSameArea(minX, minY, minZ, maxX, maxY, maxZ, x, z, radius, filter))
+            {
+                if (!subscription.listeners.contains(listener))
+                {
+                    subscription.listeners.add(listener);
+                }
+                return subscription;
+            }
+        }
+
+        //First subscription, start tracking positions from now
+        if (subscriptions.isEmpty())
+        {
+            for (RadarObject object : objectToCell.keySet())
+            {
+                lastPositions.put(object, new double[]{object.x(), object.y(), object.z()});
+            }
+        }
+
+        RadarSubscription subscription = new RadarSubscription(minX, minY, minZ, maxX, maxY, maxZ, x, z, radius, filter);
+        List<RadarObject> list = new ArrayList();
+        collect(minX - cellSize, minZ - cellSize, maxX + cellSize, maxZ + cellSize, x, z, radius, subscription::isInside, list);
+        subscription.contacts.addAll(list);
+        subscription.listeners.add(listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Removes the listener from the subscription, the subscription
+     * is dropped once it has no listeners.
+     *
+     * @param subscription - subscription returned by subscribe
+     * @param listener     - listener
+     * @return true if the listener was subscribed
+     */
+    public boolean unsubscribe(RadarSubscription subscription, IRadarListener listener)
+    {
+        if (subscription != null && subscription.listeners.remove(listener))
+        {
+            if (subscription.listeners.isEmpty())
+            {
+                subscriptions.remove(subscription);
+                if (subscriptions.isEmpty())
+                {
+                    lastPositions.clear();
+                    changedContacts.clear();
+                    removedContacts.clear();
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /** True if any listener is subscribed */
+    public boolean hasSubscriptions()
+    {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Records the contact as changed if it is new or moved since the last update
+     *
+     * @param object - valid contact
+     */
+    protected void trackPosition(RadarObject object)
+    {
+        final double x = object.x();
+        final double y = object.y();
+        final double z = object.z();
+        double[] last = lastPositions.get(object);
+        if (last == null)
+        {
+            lastPositions.put(object, new double[]{x, y, z});
+            changedContacts.add(object);
+        }
+        else if (last[0] != x || last[1] != y || last[2] != z)
+        {
+            last[0] = x;
+            last[1] = y;
+            last[2] = z;
+            changedContacts.add(object);
+        }
+    }
+
+    /**
+     * Records the contact as removed for subscriptions
+     *
+     * @param object - contact removed from the map
+     */
+    protected void onContactRemoved(RadarObject object)
+    {
+        if (!subscriptions.isEmpty())
+        {
+            lastPositions.remove(object);
+            removedContacts.add(object);
+        }
     }
 
     /**
@@ -266,39 +562,87 @@ public class RadarMap
     /**
      * Finds all contacts within chunk distances
      *
-     * @param cube  - area to search inside, approximated to chunk bounds
+     * @param cube  - area to search inside, approximated to cell bounds
      * @param exact - match exact cube size, overrides approximation
      * @return list of entries
      */
     public List<RadarObject> getRadarObjects(Cube cube, boolean exact)
     {
         List<RadarObject> list = new ArrayList();
-        for (int chunkX = (cube.min().xi() >> 4) - 1; chunkX <= (cube.max().xi() >> 4) + 1; chunkX++)
+        //Extra cell on each side for contacts that moved since the last update
+        collect(cube.min().x() - cellSize, cube.min().z() - cellSize, cube.max().x() + cellSize, cube.max().z() + cellSize, 0, 0, -1,
+                exact ? object -> object.isValid() && cube.isWithin(object.x(), object.y(), object.z()) : null, list);
+        return list;
+    }
+
+    /**
+     * Finds all contacts inside the circle
+     *
+     * @param x      - center x
+     * @param z      - center z
+     * @param radius - radius of the circle
+     * @return list of entries
+     */
+    public List<RadarObject> getRadarObjectsInRadius(double x, double z, double radius)
+    {
+        List<RadarObject> list = new ArrayList();
+        final double radiusSq = radius * radius;
+        collect(x - radius - cellSize, z - radius - cellSize, x + radius + cellSize, z + radius + cellSize, x, z, radius,
+                object -> object.isValid() && distanceSq(object, x, z) <= radiusSq, list);
+        return list;
+    }
+
+    /**
+     * Finds the contacts closest to the point, closest first
+     *
+     * @param x           - center x
+     * @param z           - center z
+     * @param count       - max number of contacts to find
+     * @param maxDistance - max distance from the center, {@link Double#POSITIVE_INFINITY} for no limit
+     * @param filter      - optional, contacts to include
+     * @return list of entries sorted by distance
+     */
+    public List<RadarObject> getNearestRadarObjects(double x, double z, int count, double maxDistance, Predicate<RadarObject> filter)
+    {
+        List<RadarObject> list = new ArrayList();
+        if (count > 0 && !objectToCell.isEmpty())
         {
-            for (int chunkZ = (cube.min().zi() >> 4) - 1; chunkZ <= (cube.max().zi() >> 4) + 1; chunkZ++)
+            final double maxDistanceSq = maxDistance * maxDistance;
+            //Best first search, nodes are queued by the closest any of their contacts could be
+            PriorityQueue<QueueEntry> queue = new PriorityQueue();
+            for (RadarNode root : roots)
+            {
+                offer(queue, root, distanceSq(root, x, z), maxDistanceSq);
+            }
+            while (!queue.isEmpty() && list.size() < count)
             {
-                ChunkCoordIntPair p = new ChunkCoordIntPair(chunkX, chunkZ);
-                if (chunk_to_entities.containsKey(p))
+                Object value = queue.poll().value;
+                if (value instanceof RadarObject)
+                {
+                    list.add((RadarObject) value);
+                }
+                else if (value instanceof RadarCell)
                 {
-                    List<RadarObject> objects = chunk_to_entities.get(p);
-                    if (objects != null)
+                    for (RadarObject object : ((RadarCell) value).objects)
                     {
-                        if (exact)
+                        if (object.isValid() && (filter == null || filter.test(object)))
                         {
-                            for (RadarObject object : objects)
-                            {
-                                if (object.isValid())
-                                {
-                                    if (cube.isWithin(object.x(), object.y(), object.z()))
-                                    {
-                                        list.add(object);
-                                    }
-                                }
-                            }
+                            offer(queue, object, distanceSq(object, x, z), maxDistanceSq);
                         }
-                        else
+                    }
+                }
+                else
+                {
+                    RadarNode node = (RadarNode) value;
+                    for (int childX = node.x << LEVEL_SHIFT; childX < (node.x + 1) << LEVEL_SHIFT; childX++)
+                    {
+                        for (int childZ = node.z << LEVEL_SHIFT; childZ < (node.z + 1) << LEVEL_SHIFT; childZ++)
                         {
-                            list.addAll(objects);
+                            RadarNode child = getNode(node.level - 1, childX, childZ);
+                            if (child != null)
+                            {
+                                offer(queue, child, distanceSq(child, x, z), maxDistanceSq);
+                            }
                         }
                     }
                 }
@@ -307,6 +651,139 @@ public class RadarMap
         return list;
     }
 
+    private static void offer(PriorityQueue<QueueEntry> queue, Object value, double distanceSq, double maxDistanceSq)
+    {
+        if (distanceSq <= maxDistanceSq)
+        {
+            queue.add(new QueueEntry(value, distanceSq));
+        }
+    }
+
+    /**
+     * Collects contacts from cells inside the area, skipping empty nodes
+     *
+     * @param minX   - area min x, in blocks
+     * @param minZ   - area min z, in blocks
+     * @param maxX   - area max x, in blocks
+     * @param maxZ   - area max z, in blocks
+     * @param x      - circle center x
+     * @param z      - circle center z
+     * @param radius - circle radius, nodes outside are skipped, -1 to only use the area
+     * @param filter - optional, contacts to include
+     * @param list   - list to add to
+     */
+    protected void collect(double minX, double minZ, double maxX, double maxZ, double x, double z, double radius, Predicate<RadarObject> filter, List<RadarObject> list)
+    {
+        final int shift = getShift(LEVELS);
+        final int minNodeX = MathHelper.floor_double(minX) >> shift;
+        final int minNodeZ = MathHelper.floor_double(minZ) >> shift;
+        final int maxNodeX = MathHelper.floor_double(maxX) >> shift;
+        final int maxNodeZ = MathHelper.floor_double(maxZ) >> shift;
+        final double radiusSq = radius * radius;
+
+        //Huge areas are cheaper to check against the nodes that exist
+        if ((long) (maxNodeX - minNodeX + 1) * (maxNodeZ - minNodeZ + 1) > roots.size())
+        {
+            for (RadarNode root : roots)
+            {
+                if (root.x >= minNodeX && root.x <= maxNodeX && root.z >= minNodeZ && root.z <= maxNodeZ)
+                {
+                    collect(root, minX, minZ, maxX, maxZ, x, z, radius, radiusSq, filter, list);
+                }
+            }
+        }
+        else
+        {
+            for (int nodeX = minNodeX; nodeX <= maxNodeX; nodeX++)
+            {
+                for (int nodeZ = minNodeZ; nodeZ <= maxNodeZ; nodeZ++)
+                {
+                    RadarNode root = getNode(LEVELS, nodeX, nodeZ);
+                    if (root != null)
+                    {
+                        collect(root, minX, minZ, maxX, maxZ, x, z, radius, radiusSq, filter, list);
+                    }
+                }
+            }
+        }
+    }
+
+    private void collect(RadarNode node, double minX, double minZ, double maxX, double maxZ, double x, double z, double radius, double radiusSq, Predicate<RadarObject> filter, List<RadarObject> list)
+    {
+        if (radius >= 0 && distanceSq(node, x, z) > radiusSq)
+        {
+            return;
+        }
+        if (node instanceof RadarCell)
+        {
+            for (RadarObject object : ((RadarCell) node).objects)
+            {
+                if (filter == null || filter.test(object))
+                {
+                    list.add(object);
+                }
+            }
+        }
+        else
+        {
+            //Only visit children inside the area
+            final int shift = getShift(node.level - 1);
+            final int minChildX = Math.max(node.x << LEVEL_SHIFT, MathHelper.floor_double(minX) >> shift);
+            final int minChildZ = Math.max(node.z << LEVEL_SHIFT, MathHelper.floor_double(minZ) >> shift);
+            final int maxChildX = Math.min(((node.x + 1) << LEVEL_SHIFT) - 1, MathHelper.floor_double(maxX) >> shift);
+            final int maxChildZ = Math.min(((node.z + 1) << LEVEL_SHIFT) - 1, MathHelper.floor_double(maxZ) >> shift);
+            for (int childX = minChildX; childX <= maxChildX; childX++)
+            {
+                for (int childZ = minChildZ; childZ <= maxChildZ; childZ++)
+                {
+                    RadarNode child = getNode(node.level - 1, childX, childZ);
+                    if (child != null)
+                    {
+                        collect(child, minX, minZ, maxX, maxZ, x, z, radius, radiusSq, filter, list);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Closest distance squared from the point to any contact of the node. Node bounds
+     * are grown by a cell to cover contacts that moved since the last update.
+     *
+     * @param node - node or cell
+     * @param x    - point x
+     * @param z    - point z
+     * @return distance squared, 0 if inside
+     */
+    protected double distanceSq(RadarNode node, double x, double z)
+    {
+        final int shift = getShift(node.level);
+        final double size = (double) (1L << shift);
+        final double dx = axisDistance(x, ((long) node.x << shift) - cellSize, size + 2 * cellSize);
+        final double dz = axisDistance(z, ((long) node.z << shift) - cellSize, size + 2 * cellSize);
+        return dx * dx + dz * dz;
+    }
+
+    private static double axisDistance(double pos, double min, double size)
+    {
+        if (pos < min)
+        {
+            return min - pos;
+        }
+        else if (pos > min + size)
+        {
+            return pos - min - size;
+        }
+        return 0;
+    }
+
+    protected static double distanceSq(RadarObject object, double x, double z)
+    {
+        final double dx = object.x() - x;
+        final double dz = object.z() - z;
+        return dx * dx + dz * dz;
+    }
+
     /**
      * Dimension ID this map tracks
      *
@@ -337,5 +814,85 @@ public class RadarMap
         return "RadarMap[" + dimID + "]";
     }
 
+    /**
+     * Square area of the map at a level, holds the number of contacts inside it
+     */
+    public static class RadarNode
+    {
+        /** Level of the node, 0 for cells */
+        public final int level;
+        /** Node coords */
+        public final int x, z;
+        /** Packed node coords */
+        public final long key;
+        /** Contacts inside the node */
+        protected int count;
+
+        public RadarNode(int level, int x, int z)
+        {
+            this.level = level;
+            this.x = x;
+            this.z = z;
+            this.key = ChunkCoordIntPair.chunkXZ2Int(x, z);
+        }
+
+        /** Number of contacts inside the node */
+        public int getCount()
+        {
+            return count;
+        }
+
+        @Override
+        public String toString()
+        {
+            return getClass().getSimpleName() + "[" + level + ": " + x + ", " + z + "]@" + count;
+        }
+    }
+
+    /**
+     * Square area of the map holding the contacts inside it
+     */
+    public static final class RadarCell extends RadarNode
+    {
+        /** Contacts in the cell */
+        public final List<RadarObject> objects = new ArrayList();
+
+        public RadarCell(int x, int z)
+        {
+            super(0, x, z);
+        }
+
+        /** Removes by identity, equals on contacts fails once they are invalid */
+        boolean remove(RadarObject object)
+        {
+            for (int i = 0; i < objects.size(); i++)
+            {
+                if (objects.get(i) == object)
+                {
+                    objects.remove(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Entry of the nearest search queue */
+    private static final class QueueEntry implements Comparable<QueueEntry>
+    {
+        final Object value;
+        final double distanceSq;
 
+        QueueEntry(Object value, double distanceSq)
+        {
+            this.value = value;
+            this.distanceSq = distanceSq;
+        }
+
+        @Override
+        public int compareTo(QueueEntry other)
+        {
+            return Double.compare(distanceSq, other.distanceSq);
+        }
+    }
 }
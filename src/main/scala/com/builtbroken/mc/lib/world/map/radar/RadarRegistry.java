@@ -17,6 +17,7 @@ import net.minecraftforge.event.world.WorldEvent;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Map based system for tracking objects using a radar devices. Only works server side to prevent unwanted data from stacking up.
@@ -143,7 +144,8 @@ public final class RadarRegistry
     }
 
     /**
-     * Grabs all living radar objects within range
+     * Grabs all living radar objects within range, uses a circle on the x z plane
+     * and limits y by the same distance
      *
      * @param world
      * @param x
@@ -155,7 +157,19 @@ public final class RadarRegistry
      */
     public static List<Entity> getAllLivingObjectsWithin(World world, double x, double y, double z, double distance, IEntitySelector selector)
     {
-        return getAllLivingObjectsWithin(world, new Cube(x - distance, Math.max(0, y - distance), z - distance, x + distance, Math.min(255, y + distance), z + distance), selector);
+        List<Entity> list = new ArrayList();
+        RadarMap map = getLoadedRadarMap(world);
+        if (map != null)
+        {
+            for (RadarObject object : map.getRadarObjectsInRadius(x, z, distance))
+            {
+                if (Math.abs(object.y() - y) <= distance)
+                {
+                    addLiving(object, selector, list);
+                }
+            }
+        }
+        return list;
     }
 
     /**
@@ -168,30 +182,109 @@ public final class RadarRegistry
     public static List<Entity> getAllLivingObjectsWithin(World world, Cube cube, IEntitySelector selector)
     {
         List<Entity> list = new ArrayList();
+        RadarMap map = getLoadedRadarMap(world);
+        if (map != null)
+        {
+            for (RadarObject object : map.getRadarObjects(cube, true))
+            {
+                addLiving(object, selector, list);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Grabs the living radar objects closest to the point, closest first
+     *
+     * @param world
+     * @param x
+     * @param z
+     * @param count    - max number of entities to return
+     * @param distance - max distance on the x z plane
+     * @param selector - optional, used to refine list of entities
+     * @return list, never null
+     */
+    public static List<Entity> getNearestLivingObjects(World world, double x, double z, int count, double distance, IEntitySelector selector)
+    {
+        List<Entity> list = new ArrayList();
+        RadarMap map = getLoadedRadarMap(world);
+        if (map != null)
+        {
+            List<RadarObject> objects = map.getNearestRadarObjects(x, z, count, distance, object -> object instanceof RadarEntity && isLiving(((RadarEntity) object).entity, selector));
+            for (RadarObject object : objects)
+            {
+                list.add(((RadarEntity) object).entity);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Watches the area for contacts entering, leaving or moving, see {@link RadarMap#subscribe(double, double, double, Predicate, IRadarListener)}
+     *
+     * @param world
+     * @param x
+     * @param z
+     * @param distance - radius on the x z plane
+     * @param filter   - optional, contacts to include
+     * @param listener - listener, needs to unsubscribe when removed
+     * @return subscription, or null if the world has no radar map
+     */
+    public static RadarSubscription subscribe(World world, double x, double z, double distance, Predicate<RadarObject> filter, IRadarListener listener)
+    {
+        RadarMap map = getRadarMapForWorld(world);
+        return map != null ? map.subscribe(x, z, distance, filter, listener) : null;
+    }
+
+    /**
+     * Removes the listener from the subscription
+     *
+     * @param world
+     * @param subscription - subscription returned by subscribe
+     * @param listener     - listener
+     * @return true if removed
+     */
+    public static boolean unsubscribe(World world, RadarSubscription subscription, IRadarListener listener)
+    {
+        RadarMap map = getLoadedRadarMap(world);
+        return map != null && map.unsubscribe(subscription, listener);
+    }
+
+    /**
+     * Gets the radar map of the world if one exists
+     *
+     * @param world
+     * @return map, or null if not tracked
+     */
+    private static RadarMap getLoadedRadarMap(World world)
+    {
         if (RADAR_MAPS.containsKey(world.provider.dimensionId))
         {
             RadarMap map = getRadarMapForWorld(world);
-            if (map != null)
+            if (map == null && world.isRemote && Engine.runningAsDev)
             {
-                List<RadarObject> objects = map.getRadarObjects(cube, true);
-                for (RadarObject object : objects)
-                {
-                    if (object instanceof RadarEntity && object.isValid())
-                    {
-                        Entity entity = ((RadarEntity) object).entity;
-                        if (entity != null && !entity.isDead && (selector == null || selector.isEntityApplicable(entity)))
-                        {
-                            list.add(entity);
-                        }
-                    }
-                }
+                Engine.logger().error("RadarRegistry: Radar data can not be requested client side.", new RuntimeException());
             }
-            else if (world.isRemote && Engine.runningAsDev)
+            return map;
+        }
+        return null;
+    }
+
+    private static void addLiving(RadarObject object, IEntitySelector selector, List<Entity> list)
+    {
+        if (object instanceof RadarEntity && object.isValid())
+        {
+            Entity entity = ((RadarEntity) object).entity;
+            if (isLiving(entity, selector))
             {
-                Engine.logger().error("RadarRegistry: Radar data can not be requested client side.", new RuntimeException());
+                list.add(entity);
             }
         }
-        return list;
+    }
+
+    private static boolean isLiving(Entity entity, IEntitySelector selector)
+    {
+        return entity != null && !entity.isDead && (selector == null || selector.isEntityApplicable(entity));
     }
 
     @SubscribeEvent
@@ -216,7 +309,7 @@ public final class RadarRegistry
             if (RADAR_MAPS.containsKey(dim))
             {
                 RadarMap map = getRadarMapForDim(dim);
-                if (map.chunk_to_entities.isEmpty())
+                if (map.isEmpty() && !map.hasSubscriptions())
                 {
                     RADAR_MAPS.remove(dim);
                 }
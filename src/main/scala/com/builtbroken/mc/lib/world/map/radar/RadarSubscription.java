@@ -0,0 +1,160 @@
+package com.builtbroken.mc.lib.world.map.radar;
+
+import com.builtbroken.mc.lib.world.map.radar.data.RadarObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Area of a {@link RadarMap} watched by one or more {@link IRadarListener}. Listeners asking for the
+ * same area and filter share a subscription, so the contacts inside are tracked and diffed once per
+ * update no matter how many radars are watching.
+ * <p>
+ * Area is a box, optionally cut down to a circle on the x z plane.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class RadarSubscription
+{
+    /** Bounds of the area */
+    public final double minX, minY, minZ, maxX, maxY, maxZ;
+    /** Circle center and radius, radius is -1 when the area is only the box */
+    public final double x, z, radius;
+    /** Optional, contacts to include. Compared by instance when sharing subscriptions */
+    public final Predicate<RadarObject> filter;
+
+    /** Contacts inside the area, by instance as contacts stop being equal once invalid */
+    protected final Set<RadarObject> contacts = Collections.newSetFromMap(new IdentityHashMap());
+    protected final List<IRadarListener> listeners = new ArrayList();
+
+    //Reused each update
+    private final List<RadarObject> entered = new ArrayList();
+    private final List<RadarObject> left = new ArrayList();
+    private final List<RadarObject> moved = new ArrayList();
+
+    public RadarSubscription(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, double x, double z, double radius, Predicate<RadarObject> filter)
+    {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.x = x;
+        this.z = z;
+        this.radius = radius;
+        this.filter = filter;
+    }
+
+    /**
+     * Checks if the contact belongs in the area
+     *
+     * @param object - contact
+     * @return true if valid, inside the area and accepted by the filter
+     */
+    public boolean isInside(RadarObject object)
+    {
+        if (object.isValid())
+        {
+            final double objectX = object.x();
+            final double objectY = object.y();
+            final double objectZ = object.z();
+            if (objectX >= minX && objectX <= maxX && objectY >= minY && objectY <= maxY && objectZ >= minZ && objectZ <= maxZ)
+            {
+                if (radius >= 0 && (objectX - x) * (objectX - x) + (objectZ - z) * (objectZ - z) > radius * radius)
+                {
+                    return false;
+                }
+                return filter == null || filter.test(object);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the changes of a map update and tells listeners
+     *
+     * @param changed - contacts added or moved since the last update
+     * @param removed - contacts removed since the last update
+     */
+    protected void update(List<RadarObject> changed, List<RadarObject> removed)
+    {
+        for (RadarObject object : removed)
+        {
+            if (contacts.remove(object))
+            {
+                left.add(object);
+            }
+        }
+        for (RadarObject object : changed)
+        {
+            final boolean inside = isInside(object);
+            if (contacts.contains(object))
+            {
+                if (inside)
+                {
+                    moved.add(object);
+                }
+                else
+                {
+                    contacts.remove(object);
+                    left.add(object);
+                }
+            }
+            else if (inside)
+            {
+                contacts.add(object);
+                entered.add(object);
+            }
+        }
+
+        if (!entered.isEmpty() || !left.isEmpty() || !moved.isEmpty())
+        {
+            //Copy as listeners may unsubscribe while being updated
+            for (IRadarListener listener : listeners.toArray(new IRadarListener[listeners.size()]))
+            {
+                listener.onRadarUpdate(this, entered, left, moved);
+            }
+            entered.clear();
+            left.clear();
+            moved.clear();
+        }
+    }
+
+    /**
+     * Contacts inside the area as of the last update
+     *
+     * @return read only set
+     */
+    public Set<RadarObject> getContacts()
+    {
+        return Collections.unmodifiableSet(contacts);
+    }
+
+    /** Number of listeners sharing the subscription */
+    public int getListenerCount()
+    {
+        return listeners.size();
+    }
+
+    /**
+     * Checks if the subscription watches the same area with the same filter
+     */
+    public boolean isSameArea(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, double x, double z, double radius, Predicate<RadarObject> filter)
+    {
+        return this.minX == minX && this.minY == minY && this.minZ == minZ
+                && this.maxX == maxX && this.maxY == maxY && this.maxZ == maxZ
+                && this.x == x && this.z == z && this.radius == radius
+                && this.filter == filter;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RadarSubscription[" + minX + ", " + minZ + " -> " + maxX + ", " + maxZ + (radius >= 0 ? " r " + radius : "") + "]@" + contacts.size();
+    }
+}
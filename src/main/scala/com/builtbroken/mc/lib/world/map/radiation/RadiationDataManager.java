@@ -10,6 +10,9 @@ import com.builtbroken.mc.lib.world.map.data.ChunkMapManager;
  */
 public class RadiationDataManager extends ChunkMapManager<RadiationMap>
 {
+    public static final RadiationDataManager SERVER = new RadiationDataManager();
+    public static final RadiationMap CLIENT = new RadiationMap(null, 0);
+
     public RadiationDataManager()
     {
         super("radiation", "radiation");
@@ -18,6 +21,6 @@ public class RadiationDataManager extends ChunkMapManager<RadiationMap>
     @Override
     protected RadiationMap createNewMap(int dim)
     {
-        return null;
+        return new RadiationMap(this, dim);
     }
 }
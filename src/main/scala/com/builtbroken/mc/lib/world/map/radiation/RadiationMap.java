@@ -1,20 +1,27 @@
 package com.builtbroken.mc.lib.world.map.radiation;
 
 
-import com.builtbroken.mc.lib.world.map.data.ChunkMap;
+import com.builtbroken.mc.lib.world.map.data.DiffusionChunkMap;
 import com.builtbroken.mc.lib.world.map.data.s.ChunkDataShort;
 
 /**
- * Tracks radiation values for the world
+ * Tracks radiation values for the world, radiation spreads out and fades over time
  *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 5/20/2017.
  */
-public class RadiationMap extends ChunkMap<ChunkDataShort>
+public class RadiationMap extends DiffusionChunkMap
 {
+    /** Share of the difference moved to each neighbor per step */
+    public static float DIFFUSION = 0.1f;
+    /** Share of radiation lost per step */
+    public static float DECAY = 0.01f;
+    /** Ticks between steps */
+    public static int STEP_RATE = 20;
+
     public RadiationMap(RadiationDataManager manager, int dimID)
     {
-        super(manager, dimID);
+        super(manager, dimID, DIFFUSION, DECAY, STEP_RATE);
     }
 
     /**
@@ -55,7 +62,7 @@ public class RadiationMap extends ChunkMap<ChunkDataShort>
         }
         else
         {
-            chunk = add(new ChunkDataShort(x >> 4, z >> 4));
+            chunk = add(newChunk(x >> 4, z >> 4));
             chunk.setValue(x & 15, y, z & 15, value);
         }
         return 0;
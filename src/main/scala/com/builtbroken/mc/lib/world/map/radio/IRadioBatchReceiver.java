@@ -0,0 +1,23 @@
+package com.builtbroken.mc.lib.world.map.radio;
+
+import com.builtbroken.mc.api.map.radio.IRadioWaveReceiver;
+
+import java.util.List;
+
+/**
+ * Receiver that takes all of its queued messages in one call when the
+ * {@link RadioMap} dispatches messages at the end of the world tick.
+ * Messages sent with {@link RadioMap#popMessage(com.builtbroken.mc.api.map.radio.IRadioWaveSender, float, String, Object[])}
+ * are still handed over one at a time by {@link #receiveRadioWave(float, com.builtbroken.mc.api.map.radio.IRadioWaveSender, String, Object[])}.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface IRadioBatchReceiver extends IRadioWaveReceiver
+{
+    /**
+     * Called with every queued message of the tick the receiver can hear
+     *
+     * @param messages - messages in the order they were first sent, do not keep the list
+     */
+    void receiveRadioWaves(List<RadioMessage> messages);
+}
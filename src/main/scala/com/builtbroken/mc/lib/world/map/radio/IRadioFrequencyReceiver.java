@@ -0,0 +1,24 @@
+package com.builtbroken.mc.lib.world.map.radio;
+
+import com.builtbroken.mc.api.map.radio.IRadioWaveReceiver;
+
+/**
+ * Receiver that only listens to one frequency. Lets the {@link RadioMap} skip it for
+ * messages on other frequencies instead of handing it every message in range.
+ * <p>
+ * Call {@link RadioMap#update(IRadioWaveReceiver)}, or {@link RadioRegistry#addOrUpdate(IRadioWaveReceiver)},
+ * when the frequency changes.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface IRadioFrequencyReceiver extends IRadioWaveReceiver
+{
+    /**
+     * Frequency the receiver listens to. Messages are matched by
+     * {@link RadioMap#BAND_SIZE} wide bands so the receiver still
+     * needs to check the exact frequency.
+     *
+     * @return frequency in hz, or {@link Float#NaN} to hear every frequency
+     */
+    float getReceiverFrequency();
+}
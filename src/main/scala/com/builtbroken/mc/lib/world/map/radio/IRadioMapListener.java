@@ -0,0 +1,32 @@
+package com.builtbroken.mc.lib.world.map.radio;
+
+import com.builtbroken.mc.api.map.radio.IRadioWaveReceiver;
+
+/**
+ * Told when receivers are added to, removed from or changed in a {@link RadioMap}, see {@link RadioMap#addListener(IRadioMapListener)}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface IRadioMapListener
+{
+    /**
+     * Called after the receiver was added
+     *
+     * @param receiver - receiver
+     */
+    void onReceiverAdded(IRadioWaveReceiver receiver);
+
+    /**
+     * Called after the receiver was removed, normally as it was unloaded or invalidated
+     *
+     * @param receiver - receiver
+     */
+    void onReceiverRemoved(IRadioWaveReceiver receiver);
+
+    /**
+     * Called after the range or frequency of the receiver changed
+     *
+     * @param receiver - receiver
+     */
+    void onReceiverUpdated(IRadioWaveReceiver receiver);
+}
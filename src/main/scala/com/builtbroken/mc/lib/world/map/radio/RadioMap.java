@@ -6,34 +6,67 @@ import com.builtbroken.mc.imp.transform.region.Cube;
 import com.google.common.collect.Lists;
 import net.minecraft.entity.Entity;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.LongHashMap;
+import net.minecraft.util.MathHelper;
 import net.minecraft.world.ChunkCoordIntPair;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Map of radio wave receivers
+ * <p>
+ * Receivers are indexed by frequency band then by the {@link #CELL_SHIFT} sized cells their range covers,
+ * so a message only visits cells inside the sender's range on its own band. Receivers that do not
+ * implement {@link IRadioFrequencyReceiver} are stored in {@link #ALL_BANDS} and hear every band.
+ * <p>
+ * Messages can be queued with {@link #queueMessage(IRadioWaveSender, float, String, Object[])} and are
+ * then delivered together by {@link #dispatchMessages()} at the end of the world tick.
  *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 3/5/2016.
  */
 public class RadioMap
 {
+    /** Size of a cell as a shift, 128 blocks */
+    public static final int CELL_SHIFT = 7;
+    /** Receivers covering more cells than this are checked directly instead of being stored in cells */
+    public static final int MAX_CELLS = 1024;
+    /** Width of a frequency band in hz */
+    public static final float BAND_SIZE = 1f;
+    /** Band of receivers that hear every frequency */
+    public static final int ALL_BANDS = Integer.MIN_VALUE;
+
+    protected static final int EVENT_ADDED = 0;
+    protected static final int EVENT_REMOVED = 1;
+    protected static final int EVENT_UPDATED = 2;
+
     /** DIM ID, never change */
     protected final int dimID;
 
-    /** Map of chunk positions to receive, mainly used by short range radio gear */
-    protected HashMap<ChunkCoordIntPair, List<IRadioWaveReceiver>> chunk_to_entities = new HashMap();
-    /** Map of receive to chunks covered */
-    protected HashMap<IRadioWaveReceiver, List<ChunkCoordIntPair>> receive_to_chunks = new HashMap();
-    /** Cache of receivers to their range, used by {@link #update(IRadioWaveReceiver)} method */
-    protected HashMap<IRadioWaveReceiver, Cube> receive_to_range = new HashMap();
+    /** Receiver to its index entry, does not include {@link #fullMapRangeReceives} */
+    protected final HashMap<IRadioWaveReceiver, ReceiverEntry> receivers = new HashMap();
+    /** Band to cell key, see {@link ChunkCoordIntPair#chunkXZ2Int(int, int)}, to receivers whose range covers the cell */
+    protected final HashMap<Integer, LongHashMap> bandToCells = new HashMap();
+    /** Band to receivers with ranges too large to store in cells */
+    protected final HashMap<Integer, List<ReceiverEntry>> bandToWideReceivers = new HashMap();
     /** Cache of active senders to receivers, reduced CPU time at cost of a little memory */
     protected HashMap<IRadioWaveSender, List<IRadioWaveReceiver>> sender_to_receivers_cache = new HashMap();
 
     protected List<IRadioWaveReceiver> fullMapRangeReceives = new ArrayList();
 
+    /** Objects told about receiver changes */
+    protected final List<IRadioMapListener> listeners = new ArrayList();
+
+    /** Messages waiting for {@link #dispatchMessages()}, repeats map to the first message */
+    protected LinkedHashMap<RadioMessage, RadioMessage> queuedMessages = new LinkedHashMap();
+
+    /** Id of the last search, used to skip receivers already seen in another cell */
+    private int searchID = 0;
 
     /**
      * Dimension ID
@@ -55,13 +88,17 @@ public class RadioMap
                 if (!fullMapRangeReceives.contains(receiver))
                 {
                     fullMapRangeReceives.add(receiver);
+                    fireEvent(receiver, EVENT_ADDED);
                 }
                 return true;
             }
-            if (!receive_to_chunks.containsKey(receiver))
+            if (!receivers.containsKey(receiver))
             {
-                updateChunkCache(receiver, range);
+                ReceiverEntry entry = new ReceiverEntry(receiver);
+                receivers.put(receiver, entry);
+                index(entry, range, getBand(receiver));
                 updateSenderCache(receiver, range);
+                fireEvent(receiver, EVENT_ADDED);
                 return true;
             }
         }
@@ -69,27 +106,15 @@ public class RadioMap
         return false;
     }
 
-    protected void updateChunkCache(IRadioWaveReceiver receiver, Cube range)
+    /**
+     * Checks if the receiver is tracked
+     *
+     * @param receiver - receiver
+     * @return true if added
+     */
+    public boolean contains(IRadioWaveReceiver receiver)
     {
-        List<ChunkCoordIntPair> list = range.getChunkCoords();
-
-        //Update chunk position map
-        for (ChunkCoordIntPair pair : list)
-        {
-            List<IRadioWaveReceiver> receivers = chunk_to_entities.get(pair);
-            if (receivers == null)
-            {
-                receivers = new ArrayList();
-            }
-            if (!receivers.contains(receiver))
-            {
-                receivers.add(receiver);
-            }
-            chunk_to_entities.put(pair, receivers);
-        }
-
-        //Update receiver map
-        receive_to_chunks.put(receiver, list);
+        return receivers.containsKey(receiver) || fullMapRangeReceives.contains(receiver);
     }
 
     protected void updateSenderCache(IRadioWaveReceiver receiver, Cube range)
@@ -97,21 +122,20 @@ public class RadioMap
         if (range != null)
         {
             //Update sender cache
-            for (IRadioWaveSender sender : sender_to_receivers_cache.keySet())
+            for (Map.Entry<IRadioWaveSender, List<IRadioWaveReceiver>> entry : sender_to_receivers_cache.entrySet())
             {
-                Cube senderRange = sender.getRadioSenderRange();
-                if (senderRange.doesOverlap(range))
+                Cube senderRange = entry.getKey().getRadioSenderRange();
+                List<IRadioWaveReceiver> receivers = entry.getValue();
+                if (senderRange != null && senderRange.doesOverlap(range))
                 {
-                    List<IRadioWaveReceiver> receivers = sender_to_receivers_cache.get(sender);
-                    if (receivers == null)
-                    {
-                        receivers = new ArrayList();
-                    }
                     if (!receivers.contains(receiver))
                     {
                         receivers.add(receiver);
                     }
-                    sender_to_receivers_cache.put(sender, receivers);
+                }
+                else
+                {
+                    receivers.remove(receiver);
                 }
             }
         }
@@ -119,59 +143,106 @@ public class RadioMap
 
     /**
      * Called to update data about the receiver. Used
-     * when the receiver's range changes.
+     * when the receiver's range or frequency changes.
      *
      * @param receiver
      */
     public void update(IRadioWaveReceiver receiver)
     {
-        if (!receive_to_range.containsKey(receiver) || receive_to_range.get(receiver) == null || receive_to_range.get(receiver).equals(receiver.getRadioReceiverRange()))
+        ReceiverEntry entry = receivers.get(receiver);
+        Cube range = receiver.getRadioReceiverRange();
+        if (entry == null || range == null || range == RadioRegistry.INFINITE)
+        {
+            remove(receiver);
+            add(receiver);
+        }
+        else
         {
-            Cube range = receiver.getRadioReceiverRange();
-            if (range != null)
+            final int band = getBand(receiver);
+            if (band != entry.band || !range.equals(entry.range))
             {
-                updateChunkCache(receiver, range);
+                if (band != entry.band || entry.wide || isWide(range))
+                {
+                    unindex(entry);
+                    index(entry, range, band);
+                }
+                else
+                {
+                    move(entry, range);
+                }
                 updateSenderCache(receiver, range);
+                fireEvent(receiver, EVENT_UPDATED);
             }
         }
     }
 
     public boolean remove(IRadioWaveReceiver receiver)
     {
-        if(fullMapRangeReceives.contains(receiver))
+        boolean removed = fullMapRangeReceives.remove(receiver);
+        ReceiverEntry entry = receivers.remove(receiver);
+        if (entry != null)
         {
-            fullMapRangeReceives.remove(receiver);
+            unindex(entry);
+
+            //Update sender cache
+            for (List<IRadioWaveReceiver> receivers : sender_to_receivers_cache.values())
+            {
+                receivers.remove(receiver);
+            }
+            removed = true;
         }
-        if (receive_to_chunks.containsKey(receiver))
+        if (removed)
         {
-            //Clear cached chunk positions
-            for (ChunkCoordIntPair pair : receive_to_chunks.get(receiver))
+            fireEvent(receiver, EVENT_REMOVED);
+        }
+        return removed;
+    }
+
+    /**
+     * Adds a listener to be told about receivers being added, removed or changed
+     *
+     * @param listener - listener, needs to be removed when no longer used
+     */
+    public void addListener(IRadioMapListener listener)
+    {
+        if (!listeners.contains(listener))
+        {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(IRadioMapListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tells listeners about a receiver change
+     *
+     * @param receiver - receiver
+     * @param type     - {@link #EVENT_ADDED}, {@link #EVENT_REMOVED} or {@link #EVENT_UPDATED}
+     */
+    protected void fireEvent(IRadioWaveReceiver receiver, int type)
+    {
+        if (!listeners.isEmpty())
+        {
+            //Copy as listeners may remove themselves
+            for (IRadioMapListener listener : listeners.toArray(new IRadioMapListener[listeners.size()]))
             {
-                if (chunk_to_entities.containsKey(pair))
+                if (type == EVENT_ADDED)
                 {
-                    chunk_to_entities.get(pair).remove(receiver);
+                    listener.onReceiverAdded(receiver);
                 }
-            }
-            //Clear entry in receiver map
-            receive_to_chunks.remove(receiver);
-
-            //Update sender cache
-            for (IRadioWaveSender sender : sender_to_receivers_cache.keySet())
-            {
-                List<IRadioWaveReceiver> receivers = sender_to_receivers_cache.get(sender);
-                if (receivers == null)
+                else if (type == EVENT_REMOVED)
                 {
-                    receivers = new ArrayList();
+                    listener.onReceiverRemoved(receiver);
                 }
-                if (receivers.contains(receiver))
+                else
                 {
-                    receivers.remove(receiver);
+                    listener.onReceiverUpdated(receiver);
                 }
-                sender_to_receivers_cache.put(sender, receivers);
             }
-            return true;
         }
-        return false;
     }
 
     /**
@@ -184,65 +255,126 @@ public class RadioMap
      */
     public void popMessage(IRadioWaveSender sender, float hz, String header, Object[] data)
     {
-        //Cache for senders that know they will be active
-        if (sender_to_receivers_cache.containsKey(sender))
+        //Collected first as receivers may add or remove receivers when handed the message
+        List<IRadioWaveReceiver> receivers = new ArrayList();
+        getReceivers(sender, getBand(hz), receivers);
+        for (IRadioWaveReceiver receiver : receivers)
         {
-            for (IRadioWaveReceiver receiver : sender_to_receivers_cache.get(sender))
-            {
-                receiver.receiveRadioWave(hz, sender, header, data);
-            }
-            return;
+            receiver.receiveRadioWave(hz, sender, header, data);
         }
+    }
 
-        //Receivers that have full map range, used for legacy systems mainly
-        for(IRadioWaveReceiver receiver : fullMapRangeReceives)
+    /**
+     * Queues the message to be sent by {@link #dispatchMessages()}. Repeats
+     * of a queued message with the same sender, frequency and header replace
+     * its data instead of being sent again.
+     *
+     * @param sender - object that sent the message
+     * @param hz     - frequency of the message
+     * @param header - descriptive header of the message, mainly an ID system
+     * @param data   - data being sent in the message
+     */
+    public void queueMessage(IRadioWaveSender sender, float hz, String header, Object[] data)
+    {
+        RadioMessage message = new RadioMessage(sender, hz, header, data);
+        RadioMessage queued = queuedMessages.get(message);
+        if (queued != null)
         {
-            receiver.receiveRadioWave(hz, sender, header, data);
+            queued.data = data;
+            queued.count++;
+        }
+        else
+        {
+            queuedMessages.put(message, message);
         }
+    }
 
-        //Slow way to update receives with messages
-        Cube range = sender.getRadioSenderRange();
-        if (range != null)
+    /**
+     * Sends all queued messages in one pass, called at the end of the world tick.
+     * Receivers implementing {@link IRadioBatchReceiver} get all their messages in
+     * one call. Messages queued while dispatching are sent next time.
+     */
+    public void dispatchMessages()
+    {
+        if (!queuedMessages.isEmpty())
         {
-            //Use simpler method if the range of number of entries is small
-            if (receive_to_chunks.size() < 200 || range.getSizeX() > 320 || range.getSizeY() > 320) //20 chunks
+            List<RadioMessage> messages = new ArrayList(queuedMessages.values());
+            queuedMessages.clear();
+
+            IdentityHashMap<IRadioBatchReceiver, List<RadioMessage>> batches = new IdentityHashMap();
+            List<IRadioWaveReceiver> receivers = new ArrayList();
+            for (RadioMessage message : messages)
             {
-                for (IRadioWaveReceiver receiver : receive_to_chunks.keySet())
+                getReceivers(message.sender, getBand(message.hz), receivers);
+                for (IRadioWaveReceiver receiver : receivers)
                 {
-                    if (receiver != null && receiver != sender)
+                    if (receiver instanceof IRadioBatchReceiver)
                     {
-                        Cube receiverRange = receiver.getRadioReceiverRange();
-                        if (range.doesOverlap(receiverRange) || receiverRange.doesOverlap(range))
+                        List<RadioMessage> batch = batches.get(receiver);
+                        if (batch == null)
                         {
-                            receiver.receiveRadioWave(hz, sender, header, data);
+                            batch = new ArrayList();
+                            batches.put((IRadioBatchReceiver) receiver, batch);
                         }
+                        batch.add(message);
                     }
-                }
-            }
-            //Complex method only used if number of receive is very high, e.g. is faster~ish than the above method
-            else
-            {
-                List<ChunkCoordIntPair> coords = range.getChunkCoords();
-                List<IRadioWaveReceiver> receivers = new ArrayList();
-                for (ChunkCoordIntPair pair : coords)
-                {
-                    List<IRadioWaveReceiver> l = chunk_to_entities.get(pair);
-                    if (l != null && l.size() > 0)
+                    else
                     {
-                        for (IRadioWaveReceiver r : l)
-                        {
-                            if (r != null && r != sender && !receivers.contains(r))
-                            {
-                                receivers.add(r);
-                            }
-                        }
+                        receiver.receiveRadioWave(message.hz, message.sender, message.header, message.data);
                     }
                 }
-                for (IRadioWaveReceiver receiver : receivers)
+                receivers.clear();
+            }
+
+            for (Map.Entry<IRadioBatchReceiver, List<RadioMessage>> entry : batches.entrySet())
+            {
+                entry.getKey().receiveRadioWaves(entry.getValue());
+            }
+        }
+    }
+
+    /** Number of messages waiting for {@link #dispatchMessages()} */
+    public int getQueuedMessageCount()
+    {
+        return queuedMessages.size();
+    }
+
+    /**
+     * Finds the receivers that can hear a message from the sender
+     *
+     * @param sender - object sending the message
+     * @param band   - band of the message
+     * @param list   - list to add to
+     */
+    protected void getReceivers(IRadioWaveSender sender, int band, List<IRadioWaveReceiver> list)
+    {
+        //Cache for senders that know they will be active
+        List<IRadioWaveReceiver> cache = sender_to_receivers_cache.get(sender);
+        if (cache != null)
+        {
+            for (IRadioWaveReceiver receiver : cache)
+            {
+                if (canHear(receiver, band))
                 {
-                    receiver.receiveRadioWave(hz, sender, header, data);
+                    list.add(receiver);
                 }
             }
+            return;
+        }
+
+        //Receivers that have full map range, used for legacy systems mainly
+        for (IRadioWaveReceiver receiver : fullMapRangeReceives)
+        {
+            if (canHear(receiver, band))
+            {
+                list.add(receiver);
+            }
+        }
+
+        Cube range = sender.getRadioSenderRange();
+        if (range != null)
+        {
+            collect(range, band, sender, null, list);
         }
     }
 
@@ -307,29 +439,336 @@ public class RadioMap
         receivers.addAll(fullMapRangeReceives);
         if (range != null)
         {
-            for (IRadioWaveReceiver receiver : receive_to_chunks.keySet())
+            collect(range, null, null, excludeList, receivers);
+        }
+        return receivers;
+    }
+
+    /**
+     * Finds receivers whose range overlaps the range
+     *
+     * @param range       - range to search
+     * @param band        - band to search along with {@link #ALL_BANDS}, null for every band
+     * @param exclude     - optional, object to ignore
+     * @param excludeList - optional, objects to ignore
+     * @param list        - list to add to
+     */
+    protected void collect(Cube range, Integer band, Object exclude, List excludeList, List<IRadioWaveReceiver> list)
+    {
+        final int id = ++searchID;
+        if (band == null)
+        {
+            for (Integer key : bandToCells.keySet())
+            {
+                collect(key, range, id, exclude, excludeList, list);
+            }
+            for (Integer key : bandToWideReceivers.keySet())
             {
-                if (receiver != null && (excludeList == null || !excludeList.contains(receiver)))
+                if (!bandToCells.containsKey(key))
                 {
-                    Cube receiverRange = receiver.getRadioReceiverRange();
-                    if (receiverRange != null && range.doesOverlap(receiverRange))
+                    collect(key, range, id, exclude, excludeList, list);
+                }
+            }
+        }
+        else
+        {
+            collect(band, range, id, exclude, excludeList, list);
+            if (band != ALL_BANDS)
+            {
+                collect(ALL_BANDS, range, id, exclude, excludeList, list);
+            }
+        }
+    }
+
+    private void collect(int band, Cube range, int id, Object exclude, List excludeList, List<IRadioWaveReceiver> list)
+    {
+        List<ReceiverEntry> wide = bandToWideReceivers.get(band);
+        if (wide != null)
+        {
+            for (ReceiverEntry entry : wide)
+            {
+                check(entry, range, id, exclude, excludeList, list);
+            }
+        }
+
+        LongHashMap cells = bandToCells.get(band);
+        if (cells != null)
+        {
+            final int minX = getCellCoord(range.min().x());
+            final int minZ = getCellCoord(range.min().z());
+            final int maxX = getCellCoord(range.max().x());
+            final int maxZ = getCellCoord(range.max().z());
+
+            //Large senders are cheaper to check against every receiver
+            if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > receivers.size())
+            {
+                for (ReceiverEntry entry : receivers.values())
+                {
+                    if (entry.band == band && !entry.wide)
                     {
-                        receivers.add(receiver);
+                        check(entry, range, id, exclude, excludeList, list);
+                    }
+                }
+            }
+            else
+            {
+                for (int x = minX; x <= maxX; x++)
+                {
+                    for (int z = minZ; z <= maxZ; z++)
+                    {
+                        List<ReceiverEntry> entries = (List<ReceiverEntry>) cells.getValueByKey(ChunkCoordIntPair.chunkXZ2Int(x, z));
+                        if (entries != null)
+                        {
+                            for (ReceiverEntry entry : entries)
+                            {
+                                check(entry, range, id, exclude, excludeList, list);
+                            }
+                        }
                     }
                 }
             }
         }
-        return receivers;
     }
 
-    protected final ChunkCoordIntPair getChunkValue(int x, int z)
+    private void check(ReceiverEntry entry, Cube range, int id, Object exclude, List excludeList, List<IRadioWaveReceiver> list)
     {
-        return new ChunkCoordIntPair(x >> 4, z >> 4);
+        if (entry.searchID != id)
+        {
+            entry.searchID = id;
+            if (entry.receiver != exclude && (excludeList == null || !excludeList.contains(entry.receiver)))
+            {
+                if (range.doesOverlap(entry.range) || entry.range.doesOverlap(range))
+                {
+                    list.add(entry.receiver);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the entry in the cells covered by the range
+     *
+     * @param entry - entry, not indexed
+     * @param range - range of the receiver
+     * @param band  - band of the receiver
+     */
+    protected void index(ReceiverEntry entry, Cube range, int band)
+    {
+        entry.range = range;
+        entry.band = band;
+        entry.wide = isWide(range);
+        if (entry.wide)
+        {
+            List<ReceiverEntry> list = bandToWideReceivers.get(band);
+            if (list == null)
+            {
+                list = new ArrayList();
+                bandToWideReceivers.put(band, list);
+            }
+            list.add(entry);
+        }
+        else
+        {
+            entry.minX = getCellCoord(range.min().x());
+            entry.minZ = getCellCoord(range.min().z());
+            entry.maxX = getCellCoord(range.max().x());
+            entry.maxZ = getCellCoord(range.max().z());
+            for (int x = entry.minX; x <= entry.maxX; x++)
+            {
+                for (int z = entry.minZ; z <= entry.maxZ; z++)
+                {
+                    addToCell(entry, x, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the entry from all cells it is stored in
+     *
+     * @param entry - indexed entry
+     */
+    protected void unindex(ReceiverEntry entry)
+    {
+        if (entry.wide)
+        {
+            List<ReceiverEntry> list = bandToWideReceivers.get(entry.band);
+            if (list != null)
+            {
+                list.remove(entry);
+                if (list.isEmpty())
+                {
+                    bandToWideReceivers.remove(entry.band);
+                }
+            }
+        }
+        else
+        {
+            for (int x = entry.minX; x <= entry.maxX; x++)
+            {
+                for (int z = entry.minZ; z <= entry.maxZ; z++)
+                {
+                    removeFromCell(entry, x, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes the range of an entry stored in cells, only
+     * cells entered or left by the range are changed.
+     *
+     * @param entry - indexed entry, not wide
+     * @param range - new range, not wide
+     */
+    protected void move(ReceiverEntry entry, Cube range)
+    {
+        final int minX = getCellCoord(range.min().x());
+        final int minZ = getCellCoord(range.min().z());
+        final int maxX = getCellCoord(range.max().x());
+        final int maxZ = getCellCoord(range.max().z());
+
+        //Left cells
+        for (int x = entry.minX; x <= entry.maxX; x++)
+        {
+            for (int z = entry.minZ; z <= entry.maxZ; z++)
+            {
+                if (x < minX || x > maxX || z < minZ || z > maxZ)
+                {
+                    removeFromCell(entry, x, z);
+                }
+            }
+        }
+
+        //Entered cells
+        for (int x = minX; x <= maxX; x++)
+        {
+            for (int z = minZ; z <= maxZ; z++)
+            {
+                if (x < entry.minX || x > entry.maxX || z < entry.minZ || z > entry.maxZ)
+                {
+                    addToCell(entry, x, z);
+                }
+            }
+        }
+
+        entry.range = range;
+        entry.minX = minX;
+        entry.minZ = minZ;
+        entry.maxX = maxX;
+        entry.maxZ = maxZ;
+    }
+
+    private void addToCell(ReceiverEntry entry, int x, int z)
+    {
+        LongHashMap cells = bandToCells.get(entry.band);
+        if (cells == null)
+        {
+            cells = new LongHashMap();
+            bandToCells.put(entry.band, cells);
+        }
+        final long key = ChunkCoordIntPair.chunkXZ2Int(x, z);
+        List<ReceiverEntry> list = (List<ReceiverEntry>) cells.getValueByKey(key);
+        if (list == null)
+        {
+            list = new ArrayList();
+            cells.add(key, list);
+        }
+        list.add(entry);
+    }
+
+    private void removeFromCell(ReceiverEntry entry, int x, int z)
+    {
+        LongHashMap cells = bandToCells.get(entry.band);
+        if (cells != null)
+        {
+            final long key = ChunkCoordIntPair.chunkXZ2Int(x, z);
+            List<ReceiverEntry> list = (List<ReceiverEntry>) cells.getValueByKey(key);
+            if (list != null)
+            {
+                list.remove(entry);
+                if (list.isEmpty())
+                {
+                    cells.remove(key);
+                    if (cells.getNumHashElements() == 0)
+                    {
+                        bandToCells.remove(entry.band);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the range covers too many cells to be stored in them
+     *
+     * @param range - range
+     * @return true if wide
+     */
+    protected boolean isWide(Cube range)
+    {
+        final long sizeX = getCellCoord(range.max().x()) - (long) getCellCoord(range.min().x()) + 1;
+        final long sizeZ = getCellCoord(range.max().z()) - (long) getCellCoord(range.min().z()) + 1;
+        return sizeX * sizeZ > MAX_CELLS;
+    }
+
+    protected static int getCellCoord(double pos)
+    {
+        return MathHelper.floor_double(pos) >> CELL_SHIFT;
+    }
+
+    /**
+     * Gets the band the frequency is in
+     *
+     * @param hz - frequency
+     * @return band
+     */
+    public static int getBand(float hz)
+    {
+        return MathHelper.floor_float(hz / BAND_SIZE);
+    }
+
+    /**
+     * Gets the band the receiver listens to
+     *
+     * @param receiver - receiver
+     * @return band, or {@link #ALL_BANDS}
+     */
+    public static int getBand(IRadioWaveReceiver receiver)
+    {
+        if (receiver instanceof IRadioFrequencyReceiver)
+        {
+            float hz = ((IRadioFrequencyReceiver) receiver).getReceiverFrequency();
+            if (!Float.isNaN(hz))
+            {
+                return getBand(hz);
+            }
+        }
+        return ALL_BANDS;
+    }
+
+    /**
+     * Checks if the receiver listens to the band
+     *
+     * @param receiver - receiver
+     * @param band     - band of the message
+     * @return true if it should be handed the message
+     */
+    public static boolean canHear(IRadioWaveReceiver receiver, int band)
+    {
+        final int receiverBand = getBand(receiver);
+        return receiverBand == ALL_BANDS || receiverBand == band;
     }
 
     public void unloadAll()
     {
-        chunk_to_entities.clear();
+        receivers.clear();
+        bandToCells.clear();
+        bandToWideReceivers.clear();
+        sender_to_receivers_cache.clear();
+        fullMapRangeReceives.clear();
+        queuedMessages.clear();
+        listeners.clear();
     }
 
 
@@ -363,4 +802,25 @@ public class RadioMap
         return "RadioMap[" + dimID + "]";
     }
 
+    /**
+     * Receiver stored in the map with the range and band it was indexed with
+     */
+    protected static final class ReceiverEntry
+    {
+        public final IRadioWaveReceiver receiver;
+        /** Range the receiver was indexed with */
+        public Cube range;
+        public int band;
+        /** Cells covered, unused if wide */
+        public int minX, minZ, maxX, maxZ;
+        /** Range covers too many cells, stored in {@link RadioMap#bandToWideReceivers} */
+        public boolean wide;
+        /** Last search that checked this entry */
+        int searchID;
+
+        ReceiverEntry(IRadioWaveReceiver receiver)
+        {
+            this.receiver = receiver;
+        }
+    }
 }
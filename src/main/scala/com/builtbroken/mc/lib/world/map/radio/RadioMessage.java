@@ -0,0 +1,63 @@
+package com.builtbroken.mc.lib.world.map.radio;
+
+import com.builtbroken.mc.api.map.radio.IRadioWaveSender;
+
+/**
+ * Radio message waiting to be delivered by {@link RadioMap#dispatchMessages()}. Messages with the
+ * same sender, frequency and header sent in the same tick are one message holding the newest data.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class RadioMessage
+{
+    /** Object that sent the message */
+    public final IRadioWaveSender sender;
+    /** Frequency of the message */
+    public final float hz;
+    /** Descriptive header of the message, mainly an ID system */
+    public final String header;
+    /** Data of the newest message sent */
+    public Object[] data;
+    /** Number of messages collapsed into this one */
+    public int count = 1;
+
+    public RadioMessage(IRadioWaveSender sender, float hz, String header, Object[] data)
+    {
+        this.sender = sender;
+        this.hz = hz;
+        this.header = header;
+        this.data = data;
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        if (object == this)
+        {
+            return true;
+        }
+        else if (object instanceof RadioMessage)
+        {
+            RadioMessage message = (RadioMessage) object;
+            return message.sender == sender
+                    && Float.floatToIntBits(message.hz) == Float.floatToIntBits(hz)
+                    && (header == null ? message.header == null : header.equals(message.header));
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = System.identityHashCode(sender);
+        hash = hash * 31 + Float.floatToIntBits(hz);
+        hash = hash * 31 + (header != null ? header.hashCode() : 0);
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RadioMessage[" + hz + "hz, " + header + ", x" + count + "]";
+    }
+}
@@ -4,7 +4,10 @@ import com.builtbroken.mc.api.map.radio.IRadioWaveReceiver;
 import com.builtbroken.mc.api.map.radio.IRadioWaveSender;
 import com.builtbroken.mc.core.Engine;
 import com.builtbroken.mc.imp.transform.region.Cube;
+import cpw.mods.fml.common.FMLCommonHandler;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+import cpw.mods.fml.relauncher.Side;
 import net.minecraft.world.World;
 import net.minecraftforge.event.world.WorldEvent;
 
@@ -24,9 +27,20 @@ public final class RadioRegistry
     /** Used to indicate the object has full map radio range */
     public static final Cube INFINITE = new Cube(-Integer.MAX_VALUE, -Integer.MAX_VALUE, -Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
 
+    /** Queue messages from {@link #popMessage(World, IRadioWaveSender, float, String, Object...)} and send them at the end of the world tick */
+    public static boolean DEFER_MESSAGES = false;
+
     /** World id to radio maps */
     private static final HashMap<Integer, RadioMap> RADIO_MAPS = new HashMap();
 
+    private RadioRegistry()
+    {
+        //Tick events are only posted on the FML bus, needed to send queued messages
+        if (!Engine.isJUnitTest())
+        {
+            FMLCommonHandler.instance().bus().register(this);
+        }
+    }
 
     /**
      * Adds an entity to the map
@@ -44,7 +58,7 @@ public final class RadioRegistry
         if (!add(receiver))
         {
             RadioMap map = getRadarMapForDim(receiver.oldWorld().provider.dimensionId);
-            if (map.receive_to_chunks.containsKey(receiver))
+            if (map.contains(receiver))
             {
                 map.update(receiver);
                 return true;
@@ -80,13 +94,35 @@ public final class RadioRegistry
      */
     public static void popMessage(World world, IRadioWaveSender sender, float hz, String header, Object... data)
     {
-        if (RADIO_MAPS.containsKey(world.provider.dimensionId))
+        if (DEFER_MESSAGES)
+        {
+            queueMessage(world, sender, hz, header, data);
+        }
+        else if (RADIO_MAPS.containsKey(world.provider.dimensionId))
         {
             RadioMap map = getRadarMapForDim(world.provider.dimensionId);
             map.popMessage(sender, hz, header, data);
         }
     }
 
+    /**
+     * Queues a message to be sent at the end of the world tick. Repeats of the same
+     * sender, frequency and header in a tick are sent once with the newest data.
+     *
+     * @param sender - object that sent the message
+     * @param hz     - frequency of the message
+     * @param header - descriptive header of the message, mainly an ID system
+     * @param data   - data being sent in the message
+     */
+    public static void queueMessage(World world, IRadioWaveSender sender, float hz, String header, Object... data)
+    {
+        if (RADIO_MAPS.containsKey(world.provider.dimensionId))
+        {
+            RadioMap map = getRadarMapForDim(world.provider.dimensionId);
+            map.queueMessage(sender, hz, header, data);
+        }
+    }
+
     /**
      * Gets a radar map for the world
      *
@@ -132,6 +168,19 @@ public final class RadioRegistry
         return RADIO_MAPS.get(dimID);
     }
 
+    @SubscribeEvent
+    public void worldUpdateTick(TickEvent.WorldTickEvent event)
+    {
+        if (event.world.provider != null && event.side == Side.SERVER && event.phase == TickEvent.Phase.END)
+        {
+            RadioMap map = RADIO_MAPS.get(event.world.provider.dimensionId);
+            if (map != null)
+            {
+                map.dispatchMessages();
+            }
+        }
+    }
+
     @SubscribeEvent
     public void worldUnload(WorldEvent.Unload event)
     {
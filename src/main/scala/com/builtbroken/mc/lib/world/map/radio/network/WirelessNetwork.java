@@ -4,6 +4,8 @@ import com.builtbroken.mc.api.map.radio.IRadioWaveReceiver;
 import com.builtbroken.mc.api.map.radio.IRadioWaveSender;
 import com.builtbroken.mc.api.map.radio.wireless.*;
 import com.builtbroken.mc.imp.transform.region.Cube;
+import com.builtbroken.mc.lib.data.IndexedSet;
+import com.builtbroken.mc.lib.world.map.radio.IRadioMapListener;
 import com.builtbroken.mc.lib.world.map.radio.RadioMap;
 import com.builtbroken.mc.lib.world.map.radio.RadioRegistry;
 import net.minecraft.entity.Entity;
@@ -11,29 +13,50 @@ import net.minecraft.tileentity.TileEntity;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Object used to keep track of linked senders & receivers
+ * <p>
+ * Connectors are found once by scanning the hub's coverage area, after that the network listens to
+ * the {@link RadioMap} for receivers being added, removed or changing range and only updates the
+ * connectors involved. A full scan is only done again when the coverage area or radio map changes.
+ * Connectors report changes to their devices with {@link #onConnectorChanged(IWirelessConnector)},
+ * each update only pulls the devices of connectors that reported a change. Connectors that do not
+ * report changes, and devices that missed an invalidate call, are picked up by a full sweep every
+ * {@link #SWEEP_RATE} ticks, see {@link #refreshConnections()}.
  *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 4/21/2016.
  */
-public class WirelessNetwork implements IWirelessNetwork
+public class WirelessNetwork implements IWirelessNetwork, IRadioMapListener
 {
+    /** Ticks between full sweeps of every connector and device */
+    public static int SWEEP_RATE = 200;
+
     /** Primary point for the network */
     protected IWirelessNetworkHub hub;
 
     /** List of connectors to pull information from */
-    protected final List<IWirelessConnector> wirelessConnectors = new ArrayList();
+    protected final IndexedSet<IWirelessConnector> wirelessConnectors = new IndexedSet();
 
     /** Map of connectors to connections, used mainly for cleanup */
-    protected final HashMap<IWirelessConnector, List<IWirelessNetworkObject>> connectorToConnections = new HashMap();
+    protected final HashMap<IWirelessConnector, Set<IWirelessNetworkObject>> connectorToConnections = new HashMap();
     /** Devices that are attached to the wireless network */
-    protected final List<IWirelessNetworkObject> attachedDevices = new ArrayList();
+    protected final IndexedSet<IWirelessNetworkObject> attachedDevices = new IndexedSet();
     /** Quick access point for {@link #attachedDevices} that are data points */
-    protected final List<IWirelessDataPoint> dataPoints = new ArrayList();
+    protected final IndexedSet<IWirelessDataPoint> dataPoints = new IndexedSet();
+
+    /** Map the network is listening to, null until the first {@link #updateConnections()} */
+    protected RadioMap radioMap;
+    /** Coverage area connectors were last found in */
+    protected Cube coverage;
+    /** Connectors that reported a change to their devices since the last update */
+    protected final Set<IWirelessConnector> changedConnectors = new HashSet();
+    /** World time of the last full sweep, -1 if not done yet */
+    protected long lastSweep = -1;
 
     public WirelessNetwork(IWirelessNetworkHub hub)
     {
@@ -74,35 +97,28 @@ public class WirelessNetwork implements IWirelessNetwork
     @Override
     public boolean addConnection(IWirelessConnector connector, IWirelessNetworkObject object)
     {
-        if (!attachedDevices.contains(object))
+        Set<IWirelessNetworkObject> objects = connectorToConnections.get(connector);
+        if (objects == null)
         {
-            addConnection(object);
-            List<IWirelessNetworkObject> objects = connectorToConnections.get(connector);
-            if (objects == null)
-            {
-                objects = new ArrayList();
-            }
-            objects.add(object);
+            objects = new HashSet();
             connectorToConnections.put(connector, objects);
-            return true; //TODO actually check it was added
         }
-        return false;
+        boolean added = objects.add(object);
+        addConnection(object);
+        return added;
     }
 
     @Override
     public boolean removeConnection(IWirelessConnector connector, IWirelessNetworkObject object)
     {
         //TODO notify sub parts that network has changed
-        if (attachedDevices.contains(object))
+        Set<IWirelessNetworkObject> objects = connectorToConnections.get(connector);
+        if (objects != null)
         {
-            attachedDevices.remove(object);
-            List<IWirelessNetworkObject> objects = connectorToConnections.get(connector);
-            if (objects == null)
-            {
-                objects = new ArrayList();
-            }
             objects.remove(object);
-            connectorToConnections.put(connector, objects);
+        }
+        if (attachedDevices.remove(object))
+        {
             if (object instanceof IWirelessDataPoint)
             {
                 dataPoints.remove(object);
@@ -117,10 +133,11 @@ public class WirelessNetwork implements IWirelessNetwork
     public boolean removeConnector(IWirelessConnector connector)
     {
         //TODO notify sub parts that network has changed
-        if (wirelessConnectors.contains(connector))
+        if (wirelessConnectors.remove(connector))
         {
+            changedConnectors.remove(connector);
             clearConnections(connector);
-            return wirelessConnectors.remove(connector);
+            return true;
         }
         return false;
     }
@@ -128,140 +145,287 @@ public class WirelessNetwork implements IWirelessNetwork
     protected void clearConnections(IWirelessConnector connector)
     {
         //Clear cached connections
-        List<IWirelessNetworkObject> objects = connectorToConnections.get(connector);
+        Set<IWirelessNetworkObject> objects = connectorToConnections.remove(connector);
         if (objects != null)
         {
             for (IWirelessNetworkObject object : objects)
             {
-                attachedDevices.remove(object);
-                if (object instanceof IWirelessDataPoint)
-                {
-                    dataPoints.remove(object);
-                }
+                removeDevice(object);
             }
         }
-        connectorToConnections.remove(connector);
         //Double check by clearing objects that may not be cached but still added
         for (IWirelessNetworkObject obj : connector.getWirelessNetworkObjects())
         {
-            attachedDevices.remove(obj);
-            if (obj instanceof IWirelessDataPoint)
-            {
-                dataPoints.remove(obj);
-            }
+            removeDevice(obj);
         }
     }
 
+    private void removeDevice(IWirelessNetworkObject object)
+    {
+        if (attachedDevices.remove(object) && object instanceof IWirelessDataPoint)
+        {
+            dataPoints.remove(object);
+        }
+    }
 
     /**
-     * Called to update all connections
+     * Called by a connector when devices are attached to or removed from it, so they
+     * are pulled on the next update. Connectors get the network from
+     * {@link IWirelessConnector#addWirelessNetwork(IWirelessNetwork)}.
+     *
+     * @param connector - connector that changed
+     */
+    public void onConnectorChanged(IWirelessConnector connector)
+    {
+        if (wirelessConnectors.contains(connector))
+        {
+            changedConnectors.add(connector);
+        }
+    }
+
+    /**
+     * Called to update all connections. A full scan is only done when the coverage
+     * area or radio map changed, otherwise only changed connectors are checked.
      */
     public void updateConnections()
     {
         //Update list if we still have a sender
         if (hub != null && hub.getWirelessCoverageArea() != null)
         {
-            //================================
-            //==Discovery Phase===============
-            //================================
-            //Get all receivers in range
             Cube range = hub.getWirelessCoverageArea();
             RadioMap map = RadioRegistry.getRadioMapForWorld(hub.oldWorld());
-            List<IRadioWaveReceiver> receivers = map.getReceiversInRange(range, hub instanceof IRadioWaveReceiver ? (IRadioWaveReceiver) hub : null);
-            //Loop threw receivers
-            if (!receivers.isEmpty())
+            if (map != radioMap || !range.equals(coverage))
             {
-                for (IRadioWaveReceiver receiver : receivers)
-                {
-                    if (receiver instanceof IWirelessConnector)
-                    {
-                        if (!addConnector((IWirelessConnector) receiver) && wirelessConnectors.contains(receiver))
-                        {
-                            //Update connection list as connector is not going to update every tick
-                            for (IWirelessNetworkObject object : ((IWirelessConnector) receiver).getWirelessNetworkObjects())
-                            {
-                                addConnection(((IWirelessConnector) receiver), object);
-                            }
-                        }
-                    }
-                }
+                discoverConnections(map, range);
             }
+            refreshConnections();
+        }
+        else
+        {
+            kill();
+        }
+    }
 
-            //Ensure we have added the primary sender if it is a connector
-            if (getPrimarySender() instanceof IWirelessConnector)
+    /**
+     * Scans the coverage area for connectors, drops connectors that
+     * are no longer in range and starts listening to the map.
+     *
+     * @param map   - radio map of the hub's world
+     * @param range - coverage area
+     */
+    protected void discoverConnections(RadioMap map, Cube range)
+    {
+        if (radioMap != map)
+        {
+            if (radioMap != null)
+            {
+                radioMap.removeListener(this);
+            }
+            radioMap = map;
+            if (radioMap != null)
             {
-                addConnector((IWirelessConnector) getPrimarySender());
+                radioMap.addListener(this);
             }
+        }
+        coverage = range;
 
-            //================================
-            //==Clean Up Phase================
-            //================================
-            //Clear invalid connectors
-            Iterator<IWirelessConnector> it2 = wirelessConnectors.iterator();
-            while (it2.hasNext())
+        //================================
+        //==Discovery Phase===============
+        //================================
+        Set<IWirelessConnector> found = new HashSet();
+        if (radioMap != null)
+        {
+            List<IRadioWaveReceiver> receivers = radioMap.getReceiversInRange(range, hub instanceof IRadioWaveReceiver ? (IRadioWaveReceiver) hub : null);
+            for (IRadioWaveReceiver receiver : receivers)
             {
-                IWirelessConnector con = it2.next();
-                if (con instanceof TileEntity && ((TileEntity) con).isInvalid() || con instanceof Entity && !((Entity) con).isEntityAlive())
+                if (receiver instanceof IWirelessConnector && isValid(receiver))
                 {
-                    it2.remove();
-                    clearConnections(con);
-                    con.removeWirelessNetwork(this, ConnectionRemovedReason.TILE_INVALIDATE);
+                    found.add((IWirelessConnector) receiver);
+                    addConnector((IWirelessConnector) receiver);
                 }
             }
+        }
+
+        //Ensure we have added the primary sender if it is a connector
+        if (getPrimarySender() instanceof IWirelessConnector)
+        {
+            found.add((IWirelessConnector) getPrimarySender());
+            addConnector((IWirelessConnector) getPrimarySender());
+        }
 
-            //Clear invalid attached devices
-            Iterator<IWirelessNetworkObject> it = attachedDevices.iterator();
-            while (it.hasNext())
+        //================================
+        //==Clean Up Phase================
+        //================================
+        for (IWirelessConnector con : wirelessConnectors.toArray(new IWirelessConnector[wirelessConnectors.size()]))
+        {
+            if (!found.contains(con))
             {
-                IWirelessNetworkObject obj = it.next();
-                if (obj instanceof TileEntity && ((TileEntity) obj).isInvalid() || obj instanceof Entity && !((Entity) obj).isEntityAlive())
+                disconnect(con, isValid(con) ? ConnectionRemovedReason.CONNECTION_LOST : ConnectionRemovedReason.TILE_INVALIDATE);
+            }
+        }
+    }
+
+    /**
+     * Pulls the devices of connectors that reported a change. Every {@link #SWEEP_RATE}
+     * ticks all connectors are pulled and invalid connectors and devices are cleared.
+     */
+    protected void refreshConnections()
+    {
+        final long time = hub.oldWorld() != null ? hub.oldWorld().getTotalWorldTime() : 0;
+        if (lastSweep == -1 || time - lastSweep >= SWEEP_RATE || time < lastSweep)
+        {
+            lastSweep = time;
+            changedConnectors.clear();
+            for (IWirelessConnector con : wirelessConnectors.toArray(new IWirelessConnector[wirelessConnectors.size()]))
+            {
+                refreshConnector(con);
+            }
+
+            //Clear invalid attached devices, missed unload or invalidate calls
+            for (IWirelessNetworkObject obj : attachedDevices.toArray(new IWirelessNetworkObject[attachedDevices.size()]))
+            {
+                if (!isValid(obj))
                 {
-                    it.remove();
-                    obj.removeWirelessNetwork(this, ConnectionRemovedReason.TILE_INVALIDATE);
-                    if (obj instanceof IWirelessDataPoint)
-                    {
-                        dataPoints.remove(obj);
-                        //TODO notify listeners
-                    }
+                    onObjectInvalidated(obj);
                 }
             }
         }
-        else
+        else if (!changedConnectors.isEmpty())
         {
-            kill();
+            //Copied as pulling devices may report more changes
+            IWirelessConnector[] changed = changedConnectors.toArray(new IWirelessConnector[changedConnectors.size()]);
+            changedConnectors.clear();
+            for (IWirelessConnector con : changed)
+            {
+                refreshConnector(con);
+            }
+        }
+    }
+
+    /**
+     * Pulls the devices of the connector, or disconnects it if invalid
+     *
+     * @param con - connector
+     */
+    protected void refreshConnector(IWirelessConnector con)
+    {
+        if (!isValid(con))
+        {
+            disconnect(con, ConnectionRemovedReason.TILE_INVALIDATE);
+        }
+        else if (wirelessConnectors.contains(con))
+        {
+            for (IWirelessNetworkObject object : con.getWirelessNetworkObjects())
+            {
+                addConnection(con, object);
+            }
+        }
+    }
+
+    @Override
+    public void onReceiverAdded(IRadioWaveReceiver receiver)
+    {
+        if (receiver instanceof IWirelessConnector && receiver != hub && isInRange(receiver))
+        {
+            addConnector((IWirelessConnector) receiver);
+        }
+    }
+
+    @Override
+    public void onReceiverRemoved(IRadioWaveReceiver receiver)
+    {
+        //Receivers are removed from the map when unloaded or invalidated
+        if (receiver instanceof IWirelessConnector && receiver != hub && wirelessConnectors.contains(receiver))
+        {
+            disconnect((IWirelessConnector) receiver, ConnectionRemovedReason.TILE_INVALIDATE);
         }
     }
 
+    @Override
+    public void onReceiverUpdated(IRadioWaveReceiver receiver)
+    {
+        if (receiver instanceof IWirelessConnector && receiver != hub)
+        {
+            if (isInRange(receiver))
+            {
+                addConnector((IWirelessConnector) receiver);
+            }
+            else if (wirelessConnectors.contains(receiver))
+            {
+                disconnect((IWirelessConnector) receiver, ConnectionRemovedReason.CONNECTION_LOST);
+            }
+        }
+    }
+
+    /**
+     * Called when an attached device is unloaded or invalidated to remove it
+     * from the network without waiting for a scan.
+     *
+     * @param object - device
+     */
+    public void onObjectInvalidated(IWirelessNetworkObject object)
+    {
+        if (attachedDevices.remove(object))
+        {
+            for (Set<IWirelessNetworkObject> objects : connectorToConnections.values())
+            {
+                objects.remove(object);
+            }
+            if (object instanceof IWirelessDataPoint)
+            {
+                dataPoints.remove(object);
+                //TODO notify listeners
+            }
+            object.removeWirelessNetwork(this, ConnectionRemovedReason.TILE_INVALIDATE);
+        }
+        if (object instanceof IWirelessConnector && wirelessConnectors.contains(object))
+        {
+            disconnect((IWirelessConnector) object, ConnectionRemovedReason.TILE_INVALIDATE);
+        }
+    }
+
+    protected void disconnect(IWirelessConnector con, ConnectionRemovedReason reason)
+    {
+        if (wirelessConnectors.remove(con))
+        {
+            changedConnectors.remove(con);
+            clearConnections(con);
+            removeDevice(con);
+            con.removeWirelessNetwork(this, reason);
+        }
+    }
+
+    protected boolean isInRange(IRadioWaveReceiver receiver)
+    {
+        Cube range = receiver.getRadioReceiverRange();
+        return coverage != null && range != null && isValid(receiver) && (coverage.doesOverlap(range) || range.doesOverlap(coverage));
+    }
+
+    protected static boolean isValid(Object object)
+    {
+        return !(object instanceof TileEntity && ((TileEntity) object).isInvalid() || object instanceof Entity && !((Entity) object).isEntityAlive());
+    }
+
     @Override
     public boolean addConnector(IWirelessConnector receiver)
     {
         if (receiver.canConnectToNetwork(this))
         {
-            boolean added = false;
-            if (!wirelessConnectors.contains(receiver))
+            boolean added = wirelessConnectors.add(receiver);
+            if (added)
             {
-                added = wirelessConnectors.add(receiver);
-                if (added)
+                receiver.addWirelessNetwork(this);
+                if (attachedDevices.add(receiver) && receiver instanceof IWirelessDataPoint)
                 {
-                    receiver.addWirelessNetwork(this);
-                    if (!attachedDevices.contains(receiver))
-                    {
-                        attachedDevices.add(receiver);
-                        if (receiver instanceof IWirelessDataPoint)
-                        {
-                            dataPoints.add((IWirelessDataPoint) receiver);
-                        }
-                    }
+                    dataPoints.add((IWirelessDataPoint) receiver);
                 }
             }
-            //Update connections,
-            List<IWirelessNetworkObject> objects = receiver.getWirelessNetworkObjects();
-            for (IWirelessNetworkObject object : objects)
+            //Update connections
+            for (IWirelessNetworkObject object : receiver.getWirelessNetworkObjects())
             {
-                addConnection(object);
+                addConnection(receiver, object);
             }
             return added;
-
         }
         return false;
     }
@@ -269,9 +433,8 @@ public class WirelessNetwork implements IWirelessNetwork
     protected void addConnection(IWirelessNetworkObject object)
     {
         //TODO notify sub parts that network has changed
-        if (!attachedDevices.contains(object))
+        if (attachedDevices.add(object))
         {
-            attachedDevices.add(object);
             object.addWirelessNetwork(this);
             if (object instanceof IWirelessDataPoint)
             {
@@ -285,26 +448,31 @@ public class WirelessNetwork implements IWirelessNetwork
      */
     public void kill()
     {
-        Iterator<IWirelessConnector> it2 = wirelessConnectors.iterator();
-        while (it2.hasNext())
+        if (radioMap != null)
+        {
+            radioMap.removeListener(this);
+            radioMap = null;
+        }
+        coverage = null;
+
+        //Copied as connectors may call back into the network
+        IWirelessConnector[] connectors = wirelessConnectors.toArray(new IWirelessConnector[wirelessConnectors.size()]);
+        wirelessConnectors.clear();
+        connectorToConnections.clear();
+        changedConnectors.clear();
+        lastSweep = -1;
+        for (IWirelessConnector con : connectors)
         {
-            IWirelessConnector con = it2.next();
             con.removeWirelessNetwork(this, ConnectionRemovedReason.TILE_INVALIDATE);
-            it2.remove();
         }
 
-        //Clear invalid attached devices
-        Iterator<IWirelessNetworkObject> it = attachedDevices.iterator();
-        while (it.hasNext())
+        IWirelessNetworkObject[] objects = attachedDevices.toArray(new IWirelessNetworkObject[attachedDevices.size()]);
+        attachedDevices.clear();
+        dataPoints.clear();
+        for (IWirelessNetworkObject obj : objects)
         {
-            IWirelessNetworkObject obj = it.next();
-            it.remove();
             obj.removeWirelessNetwork(this, ConnectionRemovedReason.TILE_INVALIDATE);
-            if (obj instanceof IWirelessDataPoint)
-            {
-                dataPoints.remove(obj);
-                //TODO notify listeners
-            }
+            //TODO notify listeners
         }
     }
 
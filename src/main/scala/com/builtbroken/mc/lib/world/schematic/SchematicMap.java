@@ -7,7 +7,7 @@ import com.builtbroken.mc.api.edit.IWorldEdit;
 import com.builtbroken.mc.lib.helper.NBTUtility;
 import com.builtbroken.mc.imp.transform.vector.Location;
 import com.builtbroken.mc.imp.transform.vector.Pos;
-import com.builtbroken.mc.lib.world.edit.BlockEdit;
+import com.builtbroken.mc.lib.world.edit.EditBuffer;
 import net.minecraft.block.Block;
 import net.minecraft.init.Blocks;
 import net.minecraft.nbt.CompressedStreamTools;
@@ -17,7 +17,6 @@ import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.common.util.ForgeDirection;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -66,9 +65,9 @@ public class SchematicMap extends Schematic implements ISave
     {
         if (this.block_map != null)
         {
-            List<IWorldEdit> blocksToPlace = new ArrayList();
+            EditBuffer blocksToPlace = new EditBuffer(spot.world, block_map.size());
             this.getBlocksToPlace(spot, blocksToPlace, doWorldCheck, doWorldCheck);
-            for (IWorldEdit edit : blocksToPlace)
+            for (IWorldEdit edit : blocksToPlace.edits())
             {
                 edit.place();
             }
@@ -79,7 +78,7 @@ public class SchematicMap extends Schematic implements ISave
      * Gets all blocks needed to build the schematic at the given location
      *
      * @param spot                 - center point of the schematic
-     * @param blockMap             - map of blocks from the schematic file
+     * @param blockMap             - list to add edits to, pass an {@link EditBuffer} to avoid an object per block
      * @param checkWorld           - check if blocks are already placed
      * @param checkIfWorldIsLoaded - check if the area is loaded, make sure this is true if
      *                             checkWorld boolean is true as it effects the results if the chunk is unloaded. Setting this
@@ -123,7 +122,7 @@ public class SchematicMap extends Schematic implements ISave
                             continue;
                         }
                     }
-                    blockMap.add(new BlockEdit(spot.world, setPos).set(block, meta));
+                    EditBuffer.add(blockMap, spot.world, setPos.xi(), setPos.yi(), setPos.zi(), block, meta, 0);
                 }
             }
         }
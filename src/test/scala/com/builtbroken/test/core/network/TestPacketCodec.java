@@ -0,0 +1,229 @@
+package com.builtbroken.test.core.network;
+
+import com.builtbroken.mc.core.content.blast.tnt.ExplosiveHandlerTNT;
+import com.builtbroken.mc.core.network.packet.PacketSpawnParticle;
+import com.builtbroken.mc.core.network.packet.PacketSpawnParticleStream;
+import com.builtbroken.mc.core.network.packet.PacketSpawnStream;
+import com.builtbroken.mc.core.network.packet.PacketTile;
+import com.builtbroken.mc.core.network.packet.callback.PacketBlast;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
+import com.builtbroken.mc.core.network.packet.data.StringTable;
+import com.builtbroken.mc.framework.explosive.blast.Blast;
+import com.builtbroken.mc.imp.transform.vector.Pos;
+import cpw.mods.fml.common.network.ByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.ChunkPosition;
+import org.junit.Test;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestPacketCodec extends TestCase
+{
+    @Override
+    protected void tearDown()
+    {
+        StringTable.SERVER.set(new String[0]);
+        StringTable.CLIENT.set(new String[0]);
+    }
+
+    @Test
+    public void testVarInt()
+    {
+        int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        int[] sizes = {1, 1, 1, 2, 2, 3, 5, 5, 5};
+        for (int i = 0; i < values.length; i++)
+        {
+            ByteBuf buf = Unpooled.buffer();
+            PacketCodec.writeVarInt(buf, values[i]);
+            assertEquals("Size of " + values[i], sizes[i], buf.readableBytes());
+            assertEquals(values[i], PacketCodec.readVarInt(buf));
+        }
+    }
+
+    @Test
+    public void testSignedVarInt()
+    {
+        int[] values = {0, -1, 1, -64, 63, -65, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        int[] sizes = {1, 1, 1, 1, 1, 2, 5, 5};
+        for (int i = 0; i < values.length; i++)
+        {
+            ByteBuf buf = Unpooled.buffer();
+            PacketCodec.writeSignedVarInt(buf, values[i]);
+            assertEquals("Size of " + values[i], sizes[i], buf.readableBytes());
+            assertEquals(values[i], PacketCodec.readSignedVarInt(buf));
+        }
+    }
+
+    @Test
+    public void testSignedVarLong()
+    {
+        long[] values = {0, -1, 1, Long.MAX_VALUE, Long.MIN_VALUE, 1L << 40, -(1L << 40)};
+        for (long value : values)
+        {
+            ByteBuf buf = Unpooled.buffer();
+            PacketCodec.writeSignedVarLong(buf, value);
+            assertEquals(value, PacketCodec.readSignedVarLong(buf));
+            assertEquals(0, buf.readableBytes());
+        }
+    }
+
+    @Test
+    public void testBlockPos()
+    {
+        int[][] positions = {{0, 0, 0}, {15, 255, 15}, {16, 64, -1}, {-1, 0, -16}, {-17, -5, 33}, {1000, 70, -1000}, {30000000, 255, -30000000}};
+        for (int[] pos : positions)
+        {
+            ByteBuf buf = Unpooled.buffer();
+            PacketCodec.writeBlockPos(buf, pos[0], pos[1], pos[2]);
+            ChunkPosition read = PacketCodec.readBlockPos(buf);
+            assertEquals(pos[0], read.chunkPosX);
+            assertEquals(pos[1], read.chunkPosY);
+            assertEquals(pos[2], read.chunkPosZ);
+            assertEquals(0, buf.readableBytes());
+        }
+
+        //Near spawn a position is a third of three ints
+        ByteBuf buf = Unpooled.buffer();
+        PacketCodec.writeBlockPos(buf, 1000, 70, -1000);
+        assertEquals(5, buf.readableBytes());
+    }
+
+    @Test
+    public void testFixed()
+    {
+        double[] values = {0, 0.5, -0.5, 100.03125, -2000.25, 30000000.5};
+        for (double value : values)
+        {
+            ByteBuf buf = Unpooled.buffer();
+            PacketCodec.writeFixed(buf, value, PacketCodec.POSITION_SCALE);
+            assertEquals(value, PacketCodec.readFixed(buf, PacketCodec.POSITION_SCALE));
+        }
+
+        //Rounded to the nearest step
+        ByteBuf buf = Unpooled.buffer();
+        PacketCodec.writeFixed(buf, 0.123456, PacketCodec.VECTOR_SCALE);
+        assertEquals(0.123456, PacketCodec.readFixed(buf, PacketCodec.VECTOR_SCALE), 0.5 / PacketCodec.VECTOR_SCALE);
+    }
+
+    @Test
+    public void testTableString()
+    {
+        ByteBuf buf = Unpooled.buffer();
+        PacketCodec.writeTableString(buf, "icbm:tnt");
+        //Not in the table, sent in full
+        assertEquals(1 + 1 + 8, buf.readableBytes());
+        assertEquals("icbm:tnt", PacketCodec.readTableString(buf));
+
+        StringTable.SERVER.set(new String[]{"smoke", "icbm:tnt"});
+        StringTable.CLIENT.set(StringTable.SERVER.getValues());
+        assertEquals(2, StringTable.SERVER.getID("icbm:tnt"));
+        assertEquals(0, StringTable.SERVER.getID("fire"));
+
+        buf = Unpooled.buffer();
+        PacketCodec.writeTableString(buf, "icbm:tnt");
+        PacketCodec.writeTableString(buf, "fire");
+        assertEquals(1 + 1 + 1 + 4, buf.readableBytes());
+        assertEquals("icbm:tnt", PacketCodec.readTableString(buf));
+        assertEquals("fire", PacketCodec.readTableString(buf));
+
+        //Unknown ID reads as null rather than the wrong string
+        StringTable.CLIENT.set(new String[0]);
+        buf = Unpooled.buffer();
+        PacketCodec.writeTableString(buf, "smoke");
+        assertNull(PacketCodec.readTableString(buf));
+    }
+
+    @Test
+    public void testPacketSizes()
+    {
+        //Tile header, was 3 ints
+        ByteBuf legacy = Unpooled.buffer();
+        legacy.writeInt(-120);
+        legacy.writeInt(64);
+        legacy.writeInt(356);
+
+        ByteBuf buf = Unpooled.buffer();
+        new PacketTile(-120, 64, 356).encodeInto(null, buf);
+        checkSize("PacketTile header", legacy, 5, buf);
+
+        //Stream, was an int and 6 doubles
+        legacy = Unpooled.buffer();
+        legacy.writeInt(0);
+        writeDoubles(legacy, -120.5, 64.5, 356.5, -110.25, 80, 340.75);
+
+        buf = Unpooled.buffer();
+        new PacketSpawnStream(0, -120.5, 64.5, 356.5, -110.25, 80, 340.75).encodeInto(null, buf);
+        checkSize("PacketSpawnStream", legacy, 15, buf);
+
+        PacketSpawnStream stream = new PacketSpawnStream();
+        stream.decodeInto(null, buf);
+        assertEquals(-110.25, stream.vx);
+        assertEquals(340.75, stream.vz);
+
+        //Particle stream, was an int and 2 positions of 3 doubles
+        legacy = Unpooled.buffer();
+        legacy.writeInt(0);
+        writeDoubles(legacy, -120.5, 64.5, 356.5, -110.25, 80, 340.75);
+
+        buf = Unpooled.buffer();
+        new PacketSpawnParticleStream(0, new Pos(-120.5, 64.5, 356.5), new Pos(-110.25, 80, 340.75)).encodeInto(null, buf);
+        checkSize("PacketSpawnParticleStream", legacy, 15, buf);
+
+        PacketSpawnParticleStream particleStream = new PacketSpawnParticleStream();
+        particleStream.decodeInto(null, buf);
+        assertEquals(0, particleStream.dim);
+        assertEquals(-120.5, particleStream.start.x());
+        assertEquals(80.0, particleStream.end.y());
+        assertEquals(340.75, particleStream.end.z());
+
+        //Particle, was a string, an int, 6 doubles and 2 booleans
+        StringTable.SERVER.set(new String[]{"smoke", "tnt"});
+        legacy = Unpooled.buffer();
+        ByteBufUtils.writeUTF8String(legacy, "smoke");
+        legacy.writeInt(0);
+        writeDoubles(legacy, -120.5, 64.5, 356.5, 0.1, 0.2, 0);
+        legacy.writeBoolean(false);
+        legacy.writeBoolean(false);
+
+        buf = Unpooled.buffer();
+        new PacketSpawnParticle("smoke", 0, -120.5, 64.5, 356.5, 0.1, 0.2, 0).encodeInto(null, buf);
+        checkSize("PacketSpawnParticle", legacy, 16, buf);
+
+        //Blast, was an int, 4 doubles, the handler ID and a tag that always held at least one entry
+        ExplosiveHandlerTNT handler = new ExplosiveHandlerTNT();
+        handler.onRegistered("tnt", "test");
+        Blast blast = (Blast) handler.createBlastForTrigger(null, -120.5, 64.5, 356.5, null, 4, null);
+
+        legacy = Unpooled.buffer();
+        legacy.writeInt(PacketBlast.BlastPacketType.PRE_BLAST_DISPLAY.ordinal());
+        writeDoubles(legacy, -120.5, 64.5, 356.5, 4);
+        ByteBufUtils.writeUTF8String(legacy, "tnt");
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setBoolean("a", true);
+        ByteBufUtils.writeTag(legacy, tag);
+        blast.writeBytes(legacy);
+
+        buf = Unpooled.buffer();
+        new PacketBlast(blast, PacketBlast.BlastPacketType.PRE_BLAST_DISPLAY).encodeInto(null, buf);
+        //Type, 3 fixed point positions, size as a float, table ID for the handler and an empty flags byte
+        checkSize("PacketBlast", legacy, 1 + 2 + 2 + 3 + 4 + 1 + 1, buf);
+    }
+
+    private static void writeDoubles(ByteBuf buf, double... values)
+    {
+        for (double value : values)
+        {
+            buf.writeDouble(value);
+        }
+    }
+
+    private void checkSize(String name, ByteBuf legacy, int expectedSize, ByteBuf buf)
+    {
+        assertEquals(name + " size", expectedSize, buf.readableBytes());
+        assertTrue(name + " should be smaller than the old layout", buf.readableBytes() < legacy.readableBytes());
+    }
+}
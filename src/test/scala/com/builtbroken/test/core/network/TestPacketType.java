@@ -0,0 +1,154 @@
+package com.builtbroken.test.core.network;
+
+import com.builtbroken.jlib.data.network.IByteBufWriter;
+import com.builtbroken.mc.core.network.packet.PacketTile;
+import com.builtbroken.mc.core.network.packet.data.IPacketDataWriter;
+import com.builtbroken.mc.core.network.packet.data.PacketCodec;
+import com.builtbroken.mc.core.network.packet.data.PacketDataWriters;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+import net.minecraft.world.ChunkPosition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestPacketType extends TestCase
+{
+    /** Size of the position of a tile near 0,0,0 */
+    private static final int HEADER_SIZE = 4;
+
+    @Test
+    public void testWriteOrder()
+    {
+        List<Object> list = new ArrayList();
+        list.add((short) 4);
+        list.add(9L);
+        PacketTile packet = new PacketTile(1, 2, 3, 5, 2.5, 1.5f, true, (byte) 6, list, new int[]{7, 8}, new Object[]{11});
+        ByteBuf buf = encode(packet);
+
+        ChunkPosition pos = PacketCodec.readBlockPos(buf);
+        assertEquals(1, pos.chunkPosX);
+        assertEquals(2, pos.chunkPosY);
+        assertEquals(3, pos.chunkPosZ);
+        assertEquals(5, buf.readInt());
+        assertEquals(2.5, buf.readDouble());
+        assertEquals(1.5f, buf.readFloat());
+        assertTrue(buf.readBoolean());
+        assertEquals(6, buf.readByte());
+        assertEquals(4, buf.readShort());
+        assertEquals(9L, buf.readLong());
+        assertEquals(7, buf.readInt());
+        assertEquals(8, buf.readInt());
+        assertEquals(11, buf.readInt());
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    public void testTypedWrites()
+    {
+        PacketTile packet = new PacketTile(0, 0, 0);
+        packet.writeInt(3).writeDouble(4.5).writeBoolean(false).writeByte(2);
+        packet.add(5);
+
+        ByteBuf buf = encode(packet);
+        buf.skipBytes(HEADER_SIZE);
+        assertEquals(3, buf.readInt());
+        assertEquals(4.5, buf.readDouble());
+        assertFalse(buf.readBoolean());
+        assertEquals(2, buf.readByte());
+        assertEquals(5, buf.readInt());
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    public void testEncodeTwice()
+    {
+        PacketTile packet = new PacketTile(1, 2, 3, 4);
+        ByteBuf first = encode(packet);
+        ByteBuf second = encode(packet);
+        assertEquals(HEADER_SIZE + 4, first.readableBytes());
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testDeferredWriter()
+    {
+        final int[] value = {1};
+        PacketTile packet = new PacketTile(0, 0, 0);
+        packet.writeInt(5);
+        packet.add((Consumer<ByteBuf>) buf -> buf.writeInt(value[0]));
+        packet.writeInt(6);
+
+        //Writers run at encode, in the spot they were added
+        value[0] = 2;
+        ByteBuf buf = encode(packet);
+        buf.skipBytes(HEADER_SIZE);
+        assertEquals(5, buf.readInt());
+        assertEquals(2, buf.readInt());
+        assertEquals(6, buf.readInt());
+        assertEquals(0, buf.readableBytes());
+
+        //Called again for each encode
+        value[0] = 3;
+        buf = encode(packet);
+        buf.skipBytes(HEADER_SIZE + 4);
+        assertEquals(3, buf.readInt());
+    }
+
+    @Test
+    public void testWriterOrder()
+    {
+        //Resolved from the interface
+        ByteBuf buf = Unpooled.buffer();
+        PacketDataWriters.write(new Writer(), buf);
+        assertEquals(1, buf.readableBytes());
+        assertEquals(42, buf.readByte());
+
+        //Cached writer is the same
+        IPacketDataWriter<Writer> writer = PacketDataWriters.get(Writer.class);
+        assertSame(writer, PacketDataWriters.get(Writer.class));
+
+        PacketTile packet = new PacketTile(0, 0, 0);
+        packet.add(writer, new Writer());
+        buf = encode(packet);
+        buf.skipBytes(HEADER_SIZE);
+        assertEquals(42, buf.readByte());
+    }
+
+    @Test
+    public void testUnknownType()
+    {
+        ByteBuf buf = Unpooled.buffer();
+        PacketDataWriters.write(new Object(), buf);
+        assertEquals(0, buf.readableBytes());
+        assertSame(PacketDataWriters.NONE, PacketDataWriters.get(Object.class));
+    }
+
+    private ByteBuf encode(PacketTile packet)
+    {
+        ByteBuf buf = Unpooled.buffer();
+        packet.encodeInto(null, buf);
+        return buf;
+    }
+
+    private static class Writer implements IByteBufWriter, Comparable<Writer>
+    {
+        @Override
+        public ByteBuf writeBytes(ByteBuf buf)
+        {
+            return buf.writeByte(42);
+        }
+
+        @Override
+        public int compareTo(Writer o)
+        {
+            return 0;
+        }
+    }
+}
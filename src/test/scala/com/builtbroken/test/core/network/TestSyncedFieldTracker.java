@@ -0,0 +1,163 @@
+package com.builtbroken.test.core.network;
+
+import com.builtbroken.mc.core.network.sync.SyncedField;
+import com.builtbroken.mc.core.network.sync.SyncedFieldMap;
+import com.builtbroken.mc.core.network.sync.SyncedFieldTracker;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestSyncedFieldTracker extends TestCase
+{
+    @Test
+    public void testFieldOrder()
+    {
+        SyncedFieldMap map = SyncedFieldMap.get(Data.class);
+        assertEquals(6, map.size());
+        //Parent fields first, then by name
+        assertEquals("power", map.fields[0].getName());
+        assertEquals("active", map.fields[1].getName());
+        assertEquals("mode", map.fields[2].getName());
+        assertEquals("name", map.fields[3].getName());
+        assertEquals("temperature", map.fields[4].getName());
+        assertEquals("ticks", map.fields[5].getName());
+        assertEquals(0b111111, map.getFullMask());
+    }
+
+    @Test
+    public void testChanges()
+    {
+        Data data = new Data();
+        SyncedFieldTracker tracker = new SyncedFieldTracker(data);
+        assertEquals(tracker.map.getFullMask(), tracker.getChanges());
+        assertEquals(0, tracker.getChanges());
+
+        data.ticks = 20;
+        data.name = "machine";
+        assertEquals(0b101000, tracker.getChanges());
+        assertEquals(0, tracker.getChanges());
+
+        //Changed back is still a change
+        data.name = null;
+        assertEquals(0b001000, tracker.getChanges());
+    }
+
+    @Test
+    public void testDeltaSync()
+    {
+        Data server = new Data();
+        Data client = new Data();
+        SyncedFieldTracker serverTracker = new SyncedFieldTracker(server);
+        SyncedFieldTracker clientTracker = new SyncedFieldTracker(client);
+        serverTracker.getChanges();
+
+        server.power = 4000L;
+        server.mode = Mode.ON;
+        server.temperature = 300.5;
+        client.ticks = 7;
+
+        long changes = serverTracker.getChanges();
+        ByteBuf buf = Unpooled.buffer();
+        serverTracker.writeChanges(buf, changes);
+        //Mask of 6 fields fits in a byte
+        assertEquals(1 + 8 + 1 + 2 + 8, buf.readableBytes());
+
+        assertEquals(changes, clientTracker.readChanges(buf));
+        assertEquals(0, buf.readableBytes());
+        assertEquals(4000L, client.power);
+        assertEquals(Mode.ON, client.mode);
+        assertEquals(300.5, client.temperature);
+        //Not sent
+        assertEquals(7, client.ticks);
+    }
+
+    @Test
+    public void testFullSync()
+    {
+        Data server = new Data();
+        server.active = true;
+        server.name = "machine";
+        server.ticks = 5;
+
+        Data client = new Data();
+        client.name = "old";
+        client.mode = Mode.ON;
+
+        ByteBuf buf = Unpooled.buffer();
+        new SyncedFieldTracker(server).writeAll(buf);
+        new SyncedFieldTracker(client).readAll(buf);
+        assertEquals(0, buf.readableBytes());
+        assertTrue(client.active);
+        assertEquals("machine", client.name);
+        assertEquals(5, client.ticks);
+        assertNull(client.mode);
+    }
+
+    @Test
+    public void testInvalidFields()
+    {
+        try
+        {
+            SyncedFieldMap.get(BadType.class);
+            fail("Object fields are not supported");
+        }
+        catch (IllegalArgumentException e)
+        {
+            //Expected
+        }
+
+        try
+        {
+            SyncedFieldMap.get(BadFinal.class);
+            fail("Final fields can not be set");
+        }
+        catch (IllegalArgumentException e)
+        {
+            //Expected
+        }
+    }
+
+    public enum Mode
+    {
+        OFF,
+        ON
+    }
+
+    public static class Parent
+    {
+        @SyncedField
+        protected long power;
+    }
+
+    public static class Data extends Parent
+    {
+        @SyncedField
+        public int ticks;
+        @SyncedField
+        public double temperature;
+        @SyncedField
+        public boolean active;
+        @SyncedField
+        public String name;
+        @SyncedField
+        public Mode mode;
+
+        public int notSynced;
+    }
+
+    public static class BadType
+    {
+        @SyncedField
+        public Object data;
+    }
+
+    public static class BadFinal
+    {
+        @SyncedField
+        public final int data = 1;
+    }
+}
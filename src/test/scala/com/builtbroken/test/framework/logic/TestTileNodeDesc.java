@@ -0,0 +1,66 @@
+package com.builtbroken.test.framework.logic;
+
+import com.builtbroken.mc.framework.logic.TileNode;
+import io.netty.buffer.ByteBuf;
+import junit.framework.TestCase;
+import net.minecraft.entity.player.EntityPlayer;
+import org.junit.Test;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestTileNodeDesc extends TestCase
+{
+    @Test
+    public void testSharedDescData()
+    {
+        assertFalse(new Node().hasPlayerDescData());
+        assertFalse(new SharedNode().hasPlayerDescData());
+    }
+
+    @Test
+    public void testPlayerDescData()
+    {
+        assertTrue(new PlayerNode().hasPlayerDescData());
+        //Inherited from parent
+        assertTrue(new PlayerNodeChild().hasPlayerDescData());
+        //Cached result is per class
+        assertFalse(new SharedNode().hasPlayerDescData());
+    }
+
+    private static class Node extends TileNode
+    {
+        Node()
+        {
+            super("test", "test");
+        }
+
+        @Override
+        public boolean hasPlayerDescData()
+        {
+            return super.hasPlayerDescData();
+        }
+    }
+
+    private static class SharedNode extends Node
+    {
+        @Override
+        public void writeDescPacket(ByteBuf buf)
+        {
+            buf.writeInt(1);
+        }
+    }
+
+    private static class PlayerNode extends Node
+    {
+        @Override
+        public void writeDescPacket(EntityPlayer player, ByteBuf buf)
+        {
+            buf.writeBoolean(player != null);
+        }
+    }
+
+    private static class PlayerNodeChild extends PlayerNode
+    {
+    }
+}
@@ -0,0 +1,79 @@
+package com.builtbroken.test.framework.logic;
+
+import com.builtbroken.mc.framework.logic.TileNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestTileNodeGuiSync extends TestCase
+{
+    @Test
+    public void testFirstCheck()
+    {
+        TileNode.GuiSyncState state = new TileNode.GuiSyncState(null);
+        //Checked on the first tick
+        assertTrue(state.tick());
+        assertTrue(state.onCheck(data(1)));
+        assertEquals(TileNode.GUI_UPDATE_RATE, state.wait);
+    }
+
+    @Test
+    public void testBackOff()
+    {
+        TileNode.GuiSyncState state = new TileNode.GuiSyncState(null);
+        state.onCheck(data(1));
+
+        //Same data is not sent and checks slow down
+        int delay = TileNode.GUI_UPDATE_RATE;
+        for (int i = 0; i < 5; i++)
+        {
+            assertFalse(state.onCheck(data(1)));
+            delay = Math.min(delay * 2, TileNode.GUI_IDLE_UPDATE_RATE);
+            assertEquals(delay, state.delay);
+        }
+        assertEquals(TileNode.GUI_IDLE_UPDATE_RATE, state.delay);
+
+        //Change is sent and checks speed up again
+        ByteBuf changed = data(2);
+        assertTrue(state.onCheck(changed));
+        assertSame(changed, state.lastSent);
+        assertEquals(TileNode.GUI_UPDATE_RATE, state.delay);
+    }
+
+    @Test
+    public void testWait()
+    {
+        TileNode.GuiSyncState state = new TileNode.GuiSyncState(null);
+        state.onCheck(data(1));
+        for (int i = 1; i < TileNode.GUI_UPDATE_RATE; i++)
+        {
+            assertFalse(state.tick());
+        }
+        assertTrue(state.tick());
+    }
+
+    @Test
+    public void testMarkUpdate()
+    {
+        TileNode.GuiSyncState state = new TileNode.GuiSyncState(null);
+        state.onCheck(data(1));
+        state.onCheck(data(1));
+        state.onCheck(data(1));
+
+        state.markUpdate();
+        assertTrue(state.tick());
+        assertEquals(TileNode.GUI_UPDATE_RATE, state.delay);
+    }
+
+    private static ByteBuf data(int value)
+    {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(value);
+        buf.writeBoolean(true);
+        return buf;
+    }
+}
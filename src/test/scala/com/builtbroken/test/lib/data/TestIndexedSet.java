@@ -0,0 +1,72 @@
+package com.builtbroken.test.lib.data;
+
+import com.builtbroken.mc.lib.data.IndexedSet;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestIndexedSet extends TestCase
+{
+    @Test
+    public void testAdd()
+    {
+        IndexedSet<String> set = new IndexedSet();
+        assertTrue(set.add("a"));
+        assertTrue(set.add("b"));
+        assertFalse(set.add("a"));
+        assertFalse(set.add(null));
+        assertEquals(Arrays.asList("a", "b"), set);
+        assertEquals(1, set.indexOf("b"));
+        assertEquals(-1, set.indexOf("c"));
+    }
+
+    @Test
+    public void testRemove()
+    {
+        IndexedSet<String> set = new IndexedSet(Arrays.asList("a", "b", "c", "d"));
+        assertTrue(set.remove("b"));
+        assertFalse(set.remove("b"));
+        assertFalse(set.contains("b"));
+        assertEquals(Arrays.asList("a", "d", "c"), set);
+        assertEquals(1, set.indexOf("d"));
+
+        assertTrue(set.remove("c"));
+        assertEquals(Arrays.asList("a", "d"), set);
+        assertTrue(set.add("b"));
+        assertEquals(2, set.indexOf("b"));
+    }
+
+    @Test
+    public void testIteratorRemove()
+    {
+        IndexedSet<Integer> set = new IndexedSet();
+        for (int i = 0; i < 10; i++)
+        {
+            set.add(i);
+        }
+
+        HashSet<Integer> seen = new HashSet();
+        Iterator<Integer> it = set.iterator();
+        while (it.hasNext())
+        {
+            int i = it.next();
+            assertTrue(seen.add(i));
+            if (i % 2 == 0)
+            {
+                it.remove();
+            }
+        }
+        assertEquals(10, seen.size());
+        assertEquals(new HashSet(Arrays.asList(1, 3, 5, 7, 9)), new HashSet(set));
+        for (int i = 0; i < set.size(); i++)
+        {
+            assertEquals(i, set.indexOf(set.get(i)));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.builtbroken.test.lib.world.edit;
+
+import com.builtbroken.mc.api.edit.IWorldEdit;
+import com.builtbroken.mc.lib.world.edit.BlockEdit;
+import com.builtbroken.mc.lib.world.edit.EditBuffer;
+import com.builtbroken.mc.testing.junit.VoltzTestRunner;
+import com.builtbroken.mc.testing.junit.world.FakeWorld;
+import junit.framework.TestCase;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.World;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@RunWith(VoltzTestRunner.class) //Loads the block registry used to pack block states
+public class TestEditBuffer extends TestCase
+{
+    @Test
+    public void testPack()
+    {
+        for (int[] pos : new int[][]{{0, 0, 0}, {1, 2, 3}, {-1, 255, -1}, {30000000, 128, -30000000}, {-12345, 64, 54321}})
+        {
+            long packed = EditBuffer.pack(pos[0], pos[1], pos[2]);
+            assertEquals(pos[0], EditBuffer.unpackX(packed));
+            assertEquals(pos[1], EditBuffer.unpackY(packed));
+            assertEquals(pos[2], EditBuffer.unpackZ(packed));
+        }
+    }
+
+    @Test
+    public void testAddGet()
+    {
+        World world = FakeWorld.newWorld("EditBufferTest");
+        EditBuffer buffer = new EditBuffer(world, 1);
+
+        buffer.add(1, 2, 3, Blocks.stone, 0);
+        buffer.add(-4, 5, -6, Blocks.wool, 7, 10f);
+        buffer.add(new BlockEdit(world, 7, 8, 9).set(Blocks.dirt, 1));
+
+        assertEquals(3, buffer.size());
+
+        IWorldEdit edit = buffer.get(1);
+        assertEquals(-4, edit.x(), 0);
+        assertEquals(5, edit.y(), 0);
+        assertEquals(-6, edit.z(), 0);
+        assertEquals(Blocks.wool, edit.getNewBlock());
+        assertEquals(7, edit.getNewMeta());
+        assertEquals(10f, ((BlockEdit) edit).energy, 0);
+
+        assertEquals(Blocks.dirt, buffer.get(2).getNewBlock());
+        assertEquals(1, buffer.get(2).getNewMeta());
+    }
+
+    @Test
+    public void testAddToList()
+    {
+        World world = FakeWorld.newWorld("EditBufferTest");
+
+        //Buffer packs the edit
+        EditBuffer buffer = new EditBuffer(world);
+        EditBuffer.add(buffer, world, 1, 2, 3, Blocks.stone, 2, 5f);
+        assertEquals(1, buffer.size());
+        assertNull(buffer.getObject(0));
+        assertEquals(Blocks.stone, buffer.getNewBlock(0));
+        assertEquals(2, buffer.getNewMeta(0));
+        assertEquals(5f, buffer.getEnergy(0), 0);
+
+        //Any other list gets a block edit
+        List<IWorldEdit> list = new ArrayList();
+        EditBuffer.add(list, world, 1, 2, 3, Blocks.stone, 2, 5f);
+        assertEquals(1, list.size());
+        assertTrue(list.get(0) instanceof BlockEdit);
+        assertEquals(3, ((BlockEdit) list.get(0)).zi());
+        assertEquals(Blocks.stone, list.get(0).getNewBlock());
+        assertEquals(5f, ((BlockEdit) list.get(0)).energy, 0);
+    }
+
+    @Test
+    public void testCursor()
+    {
+        World world = FakeWorld.newWorld("EditBufferTest");
+        EditBuffer buffer = new EditBuffer(world);
+        for (int i = 0; i < 10; i++)
+        {
+            buffer.add(i, i, i, Blocks.stone, 0);
+        }
+
+        //Cursor writes back to the buffer
+        IWorldEdit cursor = buffer.cursor(4);
+        assertEquals(4, cursor.x(), 0);
+        ((BlockEdit) cursor).set(Blocks.glass, 2);
+        assertEquals(Blocks.glass, buffer.getNewBlock(4));
+        assertEquals(2, buffer.getNewMeta(4));
+
+        //Iterator reuses the cursor
+        int i = 0;
+        IWorldEdit last = null;
+        for (IWorldEdit edit : buffer.edits())
+        {
+            assertEquals(i++, edit.y(), 0);
+            if (last != null)
+            {
+                assertSame(last, edit);
+            }
+            last = edit;
+        }
+        assertEquals(10, i);
+    }
+
+    @Test
+    public void testRemoveContains()
+    {
+        World world = FakeWorld.newWorld("EditBufferTest");
+        EditBuffer buffer = new EditBuffer(world);
+        for (int i = 0; i < 5; i++)
+        {
+            buffer.add(i, 10, 0, Blocks.stone, i);
+        }
+
+        assertTrue(buffer.contains(new BlockEdit(world, 2, 10, 0)));
+        buffer.remove(2);
+        assertEquals(4, buffer.size());
+        assertFalse(buffer.contains(new BlockEdit(world, 2, 10, 0)));
+        assertEquals(3, buffer.getX(2));
+        assertEquals(3, buffer.getNewMeta(2));
+
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+    }
+}
@@ -3,7 +3,10 @@ package com.builtbroken.test.lib.world.map.data;
 import com.builtbroken.jlib.helpers.MathHelper;
 import com.builtbroken.mc.lib.world.map.data.s.ChunkDataShort;
 import com.builtbroken.mc.lib.world.map.data.s.ChunkSectionShort;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import junit.framework.TestCase;
+import net.minecraft.nbt.NBTTagCompound;
 import org.junit.Test;
 
 /**
@@ -43,7 +46,7 @@ public class TestChunkDataShort extends TestCase
     {
         ChunkDataShort chunk = new ChunkDataShort(10, 13);
         chunk.sections[1] = new ChunkSectionShort();
-        chunk.sections[1].data[1] = 67;
+        chunk.sections[1].set(1, (short) 67);
         assertEquals(67, chunk.getValue(0, 16, 1));
     }
 
@@ -77,4 +80,116 @@ public class TestChunkDataShort extends TestCase
             }
         }
     }
+
+    @Test
+    public void testDirty()
+    {
+        ChunkDataShort chunk = new ChunkDataShort(10, 13);
+        assertFalse(chunk.isDirty());
+        chunk.setValue(1, 2, 3, 0);
+        assertFalse(chunk.isDirty());
+        chunk.setValue(1, 2, 3, 5);
+        assertTrue(chunk.isDirty());
+        chunk.clearDirty();
+        assertFalse(chunk.isDirty());
+    }
+
+    @Test
+    public void testSaveLoad()
+    {
+        ChunkDataShort chunk = new ChunkDataShort(10, 13);
+        chunk.setValue(1, 2, 3, 5);
+        chunk.setValue(15, 200, 0, 1234);
+
+        NBTTagCompound tag = new NBTTagCompound();
+        chunk.save(tag);
+
+        ChunkDataShort loaded = new ChunkDataShort(10, 13);
+        loaded.load(tag);
+        assertEquals(5, loaded.getValue(1, 2, 3));
+        assertEquals(1234, loaded.getValue(15, 200, 0));
+        assertEquals(0, loaded.getValue(4, 2, 3));
+    }
+
+    @Test
+    public void testReadDoesNotCreateSections()
+    {
+        ChunkDataShort chunk = new ChunkDataShort(10, 13);
+        for (int y = 0; y < 256; y++)
+        {
+            assertEquals(0, chunk.getValue(3, y, 4));
+        }
+        chunk.setValue(3, 40, 4, 0);
+        for (ChunkSectionShort section : chunk.sections)
+        {
+            assertNull(section);
+        }
+    }
+
+    @Test
+    public void testSectionVersions()
+    {
+        ChunkDataShort chunk = new ChunkDataShort(10, 13);
+        assertEquals(0, chunk.getSyncMask());
+        assertEquals(0, chunk.versions[2]);
+
+        chunk.setValue(1, 40, 3, 5);
+        int version = chunk.versions[2];
+        assertTrue(version != 0);
+        assertEquals(1 << 2, chunk.getSyncMask());
+
+        //Same value is not an edit
+        chunk.setValue(1, 40, 3, 5);
+        assertEquals(version, chunk.versions[2]);
+
+        chunk.setValue(1, 41, 3, 6);
+        assertTrue(version != chunk.versions[2]);
+
+        chunk.clearSyncMask();
+        assertEquals(0, chunk.getSyncMask());
+        assertEquals(0, chunk.getChangedSections(chunk.versions.clone()));
+        assertEquals(1 << 2, chunk.getChangedSections(new int[16]));
+    }
+
+    @Test
+    public void testDeltaSync()
+    {
+        ChunkDataShort server = new ChunkDataShort(10, 13);
+        ChunkDataShort client = new ChunkDataShort(10, 13);
+        server.setValue(1, 2, 3, 5);
+        server.setValue(15, 200, 0, 1234);
+
+        //First sync sends every section with data
+        int mask = server.getChangedSections(client.versions);
+        assertEquals(1 << 0 | 1 << 12, mask);
+        sync(server, client, mask);
+        assertEquals(5, client.getValue(1, 2, 3));
+        assertEquals(1234, client.getValue(15, 200, 0));
+        assertEquals(0, server.getChangedSections(client.versions));
+
+        //Only the edited section is sent after
+        server.setValue(4, 201, 4, 7);
+        mask = server.getChangedSections(client.versions);
+        assertEquals(1 << 12, mask);
+        sync(server, client, mask);
+        assertEquals(7, client.getValue(4, 201, 4));
+        assertEquals(1234, client.getValue(15, 200, 0));
+        assertEquals(5, client.getValue(1, 2, 3));
+
+        //Server copy gone, client is told to clear
+        ChunkDataShort empty = new ChunkDataShort(10, 13);
+        mask = empty.getChangedSections(client.versions);
+        sync(empty, client, mask);
+        assertNull(client.sections[0]);
+        assertNull(client.sections[12]);
+        assertEquals(0, client.getValue(15, 200, 0));
+    }
+
+    private void sync(ChunkDataShort from, ChunkDataShort to, int mask)
+    {
+        ByteBuf buf = Unpooled.buffer();
+        from.writeSections(buf, mask);
+        to.readSections(buf, mask, from.versions);
+        assertEquals(0, buf.readableBytes());
+    }
 }
@@ -0,0 +1,177 @@
+package com.builtbroken.test.lib.world.map.data;
+
+import com.builtbroken.mc.lib.world.map.data.ChunkMapDiffusion;
+import com.builtbroken.mc.lib.world.map.data.s.ChunkSectionShort;
+import com.builtbroken.mc.lib.world.map.radiation.RadiationMap;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestChunkMapDiffusion extends TestCase
+{
+    @Test
+    public void testKeys()
+    {
+        int[] values = {0, 1, -1, 15, -16, 123456, -123456, 1875000, -1875000};
+        for (int x : values)
+        {
+            for (int z : values)
+            {
+                for (int y = 0; y < 16; y += 5)
+                {
+                    long key = ChunkMapDiffusion.getKey(x, y, z);
+                    assertEquals(x, ChunkMapDiffusion.getX(key));
+                    assertEquals(y, ChunkMapDiffusion.getY(key));
+                    assertEquals(z, ChunkMapDiffusion.getZ(key));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSpread()
+    {
+        RadiationMap map = new RadiationMap(null, 0);
+        ChunkMapDiffusion diffusion = new ChunkMapDiffusion(map, 0.1f, 0, 1);
+        map.setRadiation(8, 8, 8, (short) 1000);
+
+        step(diffusion);
+        assertEquals(400, map.getRadiation(8, 8, 8));
+        assertEquals(100, map.getRadiation(7, 8, 8));
+        assertEquals(100, map.getRadiation(9, 8, 8));
+        assertEquals(100, map.getRadiation(8, 7, 8));
+        assertEquals(100, map.getRadiation(8, 9, 8));
+        assertEquals(100, map.getRadiation(8, 8, 7));
+        assertEquals(100, map.getRadiation(8, 8, 9));
+        assertEquals(0, map.getRadiation(10, 8, 8));
+        assertEquals(1, diffusion.getSteps());
+        assertFalse(diffusion.isRunning());
+    }
+
+    @Test
+    public void testSpreadAcrossSections()
+    {
+        RadiationMap map = new RadiationMap(null, 0);
+        ChunkMapDiffusion diffusion = new ChunkMapDiffusion(map, 0.1f, 0, 1);
+        map.setRadiation(15, 15, 0, (short) 1000);
+
+        step(diffusion);
+        //Next chunk east, section above and chunk north
+        assertEquals(100, map.getRadiation(16, 15, 0));
+        assertEquals(100, map.getRadiation(15, 16, 0));
+        assertEquals(100, map.getRadiation(15, 15, -1));
+        assertEquals(400, map.getRadiation(15, 15, 0));
+    }
+
+    @Test
+    public void testWorldEdges()
+    {
+        RadiationMap map = new RadiationMap(null, 0);
+        ChunkMapDiffusion diffusion = new ChunkMapDiffusion(map, 0.1f, 0, 1);
+        map.setRadiation(8, 0, 8, (short) 1000);
+
+        //Nothing flows out of the bottom of the world
+        step(diffusion);
+        assertEquals(500, map.getRadiation(8, 0, 8));
+        assertEquals(100, map.getRadiation(8, 1, 8));
+    }
+
+    @Test
+    public void testDecay()
+    {
+        RadiationMap map = new RadiationMap(null, 0);
+        ChunkMapDiffusion diffusion = new ChunkMapDiffusion(map, 0, 0.5f, 1);
+        map.setRadiation(3, 40, 3, (short) 100);
+
+        step(diffusion);
+        assertEquals(50, map.getRadiation(3, 40, 3));
+
+        for (int i = 0; i < 10; i++)
+        {
+            step(diffusion);
+        }
+        assertEquals(0, map.getRadiation(3, 40, 3));
+
+        //Nothing left to calculate
+        assertFalse(diffusion.startStep(null));
+    }
+
+    @Test
+    public void testEditsDuringStepKept()
+    {
+        RadiationMap map = new RadiationMap(null, 0);
+        ChunkMapDiffusion diffusion = new ChunkMapDiffusion(map, 0.1f, 0, 1);
+        map.setRadiation(8, 8, 8, (short) 1000);
+
+        assertTrue(diffusion.startStep(null));
+        diffusion.calculateStep();
+        //Edited after the buffer was copied
+        map.setRadiation(8, 8, 8, (short) 1500);
+        map.setRadiation(8, 200, 8, (short) 7);
+        diffusion.applyStep(null);
+
+        assertEquals(900, map.getRadiation(8, 8, 8));
+        assertEquals(100, map.getRadiation(9, 8, 8));
+        assertEquals(7, map.getRadiation(8, 200, 8));
+    }
+
+    @Test
+    public void testCancel()
+    {
+        RadiationMap map = new RadiationMap(null, 0);
+        ChunkMapDiffusion diffusion = new ChunkMapDiffusion(map, 0.1f, 0, 1);
+        map.setRadiation(8, 8, 8, (short) 1000);
+
+        assertTrue(diffusion.startStep(null));
+        diffusion.calculateStep();
+        diffusion.cancel();
+        assertFalse(diffusion.isRunning());
+        assertEquals(1000, map.getRadiation(8, 8, 8));
+        assertEquals(0, map.getRadiation(9, 8, 8));
+    }
+
+    @Test
+    public void testKilledBeforeRun()
+    {
+        RadiationMap map = new RadiationMap(null, 0);
+        ChunkMapDiffusion diffusion = new ChunkMapDiffusion(map, 0.1f, 0, 1);
+        map.setRadiation(8, 8, 8, (short) 1000);
+
+        //Pool dropped the step before a worker ran it
+        assertTrue(diffusion.startStep(null));
+        diffusion.killAction();
+        diffusion.runProcess();
+        diffusion.applyStep(null);
+        assertFalse(diffusion.isRunning());
+        assertEquals(1000, map.getRadiation(8, 8, 8));
+
+        //Next step still runs
+        step(diffusion);
+        assertEquals(400, map.getRadiation(8, 8, 8));
+    }
+
+    @Test
+    public void testEmptySectionsSkipped()
+    {
+        RadiationMap map = new RadiationMap(null, 0);
+        ChunkMapDiffusion diffusion = new ChunkMapDiffusion(map, 0.1f, 0, 1);
+        map.setRadiation(8, 8, 8, (short) 1000);
+        map.setRadiation(8, 8, 8, (short) 0);
+        map.getChunk(0, 0).sections[5] = new ChunkSectionShort();
+
+        //Section 0 is a palette of zeros, section 5 is uniform zero
+        assertFalse(diffusion.startStep(null));
+        assertFalse(diffusion.isRunning());
+    }
+
+    private void step(ChunkMapDiffusion diffusion)
+    {
+        if (diffusion.startStep(null))
+        {
+            diffusion.calculateStep();
+            diffusion.applyStep(null);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.builtbroken.test.lib.world.map.data;
+
+import com.builtbroken.mc.lib.world.map.data.ChunkMapStorage;
+import junit.framework.TestCase;
+import net.minecraft.nbt.NBTTagCompound;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestChunkMapStorage extends TestCase
+{
+    @Test
+    public void testReadAsync()
+    {
+        ChunkMapStorage storage = new ChunkMapStorage(newFolder("read"));
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setInteger("value", 12);
+        storage.writeAsync(3, -4, tag);
+        storage.readAsync(3, -4);
+        storage.readAsync(40, 40);
+
+        //Close waits on the IO thread, so both reads are done after
+        storage.close();
+        ChunkMapStorage.ChunkRead read = storage.pollRead();
+        assertNotNull(read);
+        assertEquals(3, read.chunkX);
+        assertEquals(-4, read.chunkZ);
+        assertEquals(12, read.tag.getInteger("value"));
+
+        read = storage.pollRead();
+        assertNotNull(read);
+        assertEquals(40, read.chunkX);
+        assertNull(read.tag);
+        assertNull(storage.pollRead());
+    }
+
+    @Test
+    public void testHasRegion()
+    {
+        File folder = newFolder("region");
+        ChunkMapStorage storage = new ChunkMapStorage(folder);
+        assertFalse(storage.hasRegion(0, 0));
+
+        //Writing creates the region, cache is updated by the storage
+        storage.writeAsync(1, 1, new NBTTagCompound());
+        storage.close();
+        assertTrue(storage.hasRegion(0, 0));
+        assertTrue(storage.hasRegion(31, 31));
+        assertFalse(storage.hasRegion(32, 0));
+        assertTrue(new ChunkMapStorage(folder).hasRegion(5, 5));
+    }
+
+    private static File newFolder(String name)
+    {
+        return new File(System.getProperty("java.io.tmpdir"), "TestChunkMapStorage_" + name + "_" + System.nanoTime());
+    }
+}
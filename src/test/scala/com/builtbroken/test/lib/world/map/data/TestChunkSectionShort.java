@@ -2,7 +2,10 @@ package com.builtbroken.test.lib.world.map.data;
 
 import com.builtbroken.mc.imp.transform.vector.Pos;
 import com.builtbroken.mc.lib.world.map.data.s.ChunkSectionShort;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import junit.framework.TestCase;
+import net.minecraft.nbt.NBTTagCompound;
 import org.junit.Test;
 
 /**
@@ -51,11 +54,11 @@ public class TestChunkSectionShort extends TestCase
     public void testGetValue()
     {
         ChunkSectionShort chunk = new ChunkSectionShort();
-        chunk.data[10] = 15;
+        chunk.set(10, (short) 15);
 
         assertEquals(15, chunk.getValue(0, 0, 10));
 
-        chunk.data[256] = 357;
+        chunk.set(256, (short) 357);
         assertEquals(357, chunk.getValue(1, 0, 0));
     }
 
@@ -63,11 +66,11 @@ public class TestChunkSectionShort extends TestCase
     public void testGetValuePos()
     {
         ChunkSectionShort chunk = new ChunkSectionShort();
-        chunk.data[10] = 15;
+        chunk.set(10, (short) 15);
 
         assertEquals(15, chunk.getValue(new Pos(0, 0, 10.13)));
 
-        chunk.data[256] = 357;
+        chunk.set(256, (short) 357);
         assertEquals(357, chunk.getValue(new Pos(1, 0, 0)));
     }
 
@@ -75,13 +78,117 @@ public class TestChunkSectionShort extends TestCase
     public void testSetValue()
     {
         ChunkSectionShort chunk = new ChunkSectionShort();
-        chunk.data[10] = 15;
+        chunk.set(10, (short) 15);
 
         chunk.setValue(0, 0, 10, 20);
-        assertEquals(20, chunk.data[10]);
+        assertEquals(20, chunk.get(10));
 
-        chunk.data[256] = 357;
+        chunk.set(256, (short) 357);
         chunk.setValue(1, 0, 0, 432);
-        assertEquals(432, chunk.data[256]);
+        assertEquals(432, chunk.get(256));
+    }
+
+    @Test
+    public void testModes()
+    {
+        ChunkSectionShort chunk = new ChunkSectionShort();
+        assertEquals(ChunkSectionShort.MODE_UNIFORM, chunk.getMode());
+
+        //Setting the same value does not change the mode
+        chunk.set(5, (short) 0);
+        assertEquals(ChunkSectionShort.MODE_UNIFORM, chunk.getMode());
+
+        //Palette grows through each index size
+        for (int i = 0; i < ChunkSectionShort.MAX_PALETTE; i++)
+        {
+            chunk.set(i, (short) (i * 3));
+            assertEquals(i == 0 ? ChunkSectionShort.MODE_UNIFORM : ChunkSectionShort.MODE_PALETTE, chunk.getMode());
+        }
+        for (int i = 0; i < ChunkSectionShort.MAX_PALETTE; i++)
+        {
+            assertEquals(i * 3, chunk.get(i));
+        }
+        assertEquals(0, chunk.get(ChunkSectionShort.MAX_PALETTE));
+
+        //One more value than the palette holds
+        chunk.set(4000, (short) -7);
+        assertEquals(ChunkSectionShort.MODE_FULL, chunk.getMode());
+        assertEquals(-7, chunk.get(4000));
+        for (int i = 0; i < ChunkSectionShort.MAX_PALETTE; i++)
+        {
+            assertEquals(i * 3, chunk.get(i));
+        }
+    }
+
+    @Test
+    public void testCompact()
+    {
+        ChunkSectionShort chunk = new ChunkSectionShort();
+        chunk.set(1, (short) 4);
+        chunk.set(2, (short) 9);
+        chunk.set(1, (short) 0);
+        chunk.set(2, (short) 0);
+        assertEquals(ChunkSectionShort.MODE_PALETTE, chunk.getMode());
+        assertTrue(chunk.isEmpty());
+
+        chunk.compact();
+        assertEquals(ChunkSectionShort.MODE_UNIFORM, chunk.getMode());
+        assertEquals(0, chunk.get(1));
+    }
+
+    @Test
+    public void testSaveLoad()
+    {
+        for (int values : new int[]{1, 2, 3, 16, 200, 1000})
+        {
+            ChunkSectionShort chunk = create(values);
+
+            NBTTagCompound tag = new NBTTagCompound();
+            chunk.save(tag);
+            ChunkSectionShort loaded = new ChunkSectionShort();
+            loaded.load(tag);
+            assertEquals(chunk.getMode(), loaded.getMode());
+            assertSameValues(chunk, loaded);
+
+            ByteBuf buf = Unpooled.buffer();
+            chunk.writeBytes(buf);
+            loaded = new ChunkSectionShort();
+            loaded.readBytes(buf);
+            assertEquals(0, buf.readableBytes());
+            assertSameValues(chunk, loaded);
+        }
+    }
+
+    @Test
+    public void testLoadOldFormat()
+    {
+        //Sections used to always save as a full array
+        byte[] bytes = new byte[2 * ChunkSectionShort.SIZE];
+        bytes[21] = 15;
+        NBTTagCompound tag = new NBTTagCompound();
+        tag.setByteArray("data", bytes);
+
+        ChunkSectionShort chunk = new ChunkSectionShort();
+        chunk.load(tag);
+        assertEquals(15, chunk.get(10));
+        assertEquals(0, chunk.get(11));
+    }
+
+    private static ChunkSectionShort create(int values)
+    {
+        ChunkSectionShort chunk = new ChunkSectionShort();
+        for (int i = 0; i < ChunkSectionShort.SIZE; i++)
+        {
+            chunk.set(i, (short) (values == 1 ? 42 : (i * 7) % values));
+        }
+        return chunk;
+    }
+
+    private static void assertSameValues(ChunkSectionShort expected, ChunkSectionShort actual)
+    {
+        for (int i = 0; i < ChunkSectionShort.SIZE; i++)
+        {
+            assertEquals(expected.get(i), actual.get(i));
+        }
     }
 }
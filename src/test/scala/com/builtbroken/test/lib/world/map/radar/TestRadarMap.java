@@ -0,0 +1,378 @@
+package com.builtbroken.test.lib.world.map.radar;
+
+import com.builtbroken.mc.imp.transform.region.Cube;
+import com.builtbroken.mc.lib.world.map.radar.IRadarListener;
+import com.builtbroken.mc.lib.world.map.radar.RadarMap;
+import com.builtbroken.mc.lib.world.map.radar.RadarSubscription;
+import com.builtbroken.mc.lib.world.map.radar.data.RadarObject;
+import junit.framework.TestCase;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestRadarMap extends TestCase
+{
+    @Test
+    public void testCellSize()
+    {
+        assertEquals(RadarMap.DEFAULT_CELL_SIZE, new RadarMap(0).cellSize);
+        assertEquals(32, new RadarMap(0, 20).cellSize);
+        assertEquals(5, new RadarMap(0, 32).cellShift);
+        assertEquals(1, new RadarMap(0, 0).cellSize);
+    }
+
+    @Test
+    public void testAddRemove()
+    {
+        RadarMap map = new RadarMap(0);
+        TestObject object = new TestObject(100, 64, -100);
+        assertTrue(map.add(object));
+        assertFalse(map.add(object));
+        assertFalse(map.isEmpty());
+
+        assertEquals(1, map.getCell(6, -7).getCount());
+        for (int level = 1; level <= RadarMap.LEVELS; level++)
+        {
+            int shift = level * RadarMap.LEVEL_SHIFT;
+            assertEquals(1, map.getNode(level, 6 >> shift, -7 >> shift).getCount());
+        }
+
+        assertTrue(map.remove(object));
+        assertFalse(map.remove(object));
+        assertTrue(map.isEmpty());
+        assertNull(map.getCell(6, -7));
+        for (int level = 1; level <= RadarMap.LEVELS; level++)
+        {
+            int shift = level * RadarMap.LEVEL_SHIFT;
+            assertNull(map.getNode(level, 6 >> shift, -7 >> shift));
+        }
+    }
+
+    @Test
+    public void testCellIndex()
+    {
+        RadarMap map = new RadarMap(0);
+        TestObject a = new TestObject(0, 64, 0);
+        TestObject b = new TestObject(15.9, 64, 15.9);
+        TestObject c = new TestObject(16, 64, 0);
+        TestObject d = new TestObject(-0.1, 64, -16.1);
+        for (TestObject object : new TestObject[]{a, b, c, d})
+        {
+            map.add(object);
+        }
+
+        assertEquals(2, map.getCell(0, 0).getCount());
+        assertTrue(map.getCell(0, 0).objects.containsAll(Arrays.asList(a, b)));
+        assertEquals(1, map.getCell(1, 0).getCount());
+        assertEquals(1, map.getCell(-1, -2).getCount());
+        assertEquals(4, map.allEntities.size());
+
+        //Larger cells group more of the map
+        RadarMap large = new RadarMap(0, 32);
+        large.add(a);
+        large.add(c);
+        large.add(d);
+        assertEquals(2, large.getCell(0, 0).getCount());
+        assertEquals(1, large.getCell(-1, -1).getCount());
+    }
+
+    @Test
+    public void testMoveInsideCell()
+    {
+        RadarMap map = new RadarMap(0);
+        TestObject object = new TestObject(1, 64, 1);
+        map.add(object);
+        RadarMap.RadarCell cell = map.getCell(0, 0);
+
+        //Still inside the cell, nothing moves
+        object.x = 15;
+        runUpdate(map);
+        assertSame(cell, map.getCell(0, 0));
+        assertEquals(1, cell.getCount());
+
+        //Crossed into the next cell, old cell is dropped
+        object.x = 17;
+        runUpdate(map);
+        assertNull(map.getCell(0, 0));
+        assertEquals(1, map.getCell(1, 0).getCount());
+        assertTrue(map.remove(object));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testChunkUnload()
+    {
+        //Cell covers chunks 0,0 to 1,1
+        RadarMap map = new RadarMap(0, 32);
+        TestObject inChunk = new TestObject(5, 64, 5);
+        TestObject otherChunk = new TestObject(20, 64, 5);
+        TestObject otherCell = new TestObject(-5, 64, 5);
+        map.add(inChunk);
+        map.add(otherChunk);
+        map.add(otherCell);
+
+        map.remove(new Chunk(null, 0, 0));
+        assertFalse(map.allEntities.contains(inChunk));
+        assertEquals(1, map.getCell(0, 0).getCount());
+        assertSame(otherChunk, map.getCell(0, 0).objects.get(0));
+        assertEquals(1, map.getCell(-1, 0).getCount());
+
+        map.remove(new Chunk(null, 1, 0));
+        assertNull(map.getCell(0, 0));
+        assertEquals(1, map.allEntities.size());
+    }
+
+    @Test
+    public void testUpdate()
+    {
+        RadarMap map = new RadarMap(0);
+        TestObject moving = new TestObject(1, 64, 1);
+        TestObject dead = new TestObject(2, 64, 2);
+        map.add(moving);
+        map.add(dead);
+        assertEquals(2, map.getCell(0, 0).getCount());
+
+        moving.x = 50000;
+        dead.valid = false;
+        for (int i = 0; i <= RadarMap.UPDATE_DELAY; i++)
+        {
+            map.update();
+        }
+
+        assertNull(map.getCell(0, 0));
+        assertNull(map.getNode(RadarMap.LEVELS, 0, 0));
+        assertEquals(1, map.getCell(50000 >> 4, 0).getCount());
+        assertEquals(1, map.allEntities.size());
+        assertTrue(map.allEntities.contains(moving));
+    }
+
+    @Test
+    public void testQueries()
+    {
+        Random random = new Random(1);
+        RadarMap map = new RadarMap(0);
+        List<TestObject> objects = new ArrayList();
+        for (int i = 0; i < 500; i++)
+        {
+            TestObject object = new TestObject(random.nextGaussian() * 3000, random.nextInt(256), random.nextGaussian() * 3000);
+            objects.add(object);
+            map.add(object);
+        }
+
+        for (int i = 0; i < 50; i++)
+        {
+            final double x = random.nextGaussian() * 3000;
+            final double z = random.nextGaussian() * 3000;
+            final double radius = random.nextInt(4000);
+
+            //Radius
+            HashSet<RadarObject> expected = new HashSet();
+            for (TestObject object : objects)
+            {
+                if (distanceSq(object, x, z) <= radius * radius)
+                {
+                    expected.add(object);
+                }
+            }
+            assertEquals(expected, new HashSet(map.getRadarObjectsInRadius(x, z, radius)));
+
+            //Cube
+            Cube cube = new Cube(x - radius, 0, z - radius, x + radius, 255, z + radius);
+            expected.clear();
+            for (TestObject object : objects)
+            {
+                if (cube.isWithin(object.x, object.y, object.z))
+                {
+                    expected.add(object);
+                }
+            }
+            assertEquals(expected, new HashSet(map.getRadarObjects(cube, true)));
+
+            //Nearest
+            List<TestObject> sorted = new ArrayList(objects);
+            Collections.sort(sorted, Comparator.comparingDouble(object -> distanceSq(object, x, z)));
+            List<RadarObject> nearest = map.getNearestRadarObjects(x, z, 10, Double.POSITIVE_INFINITY, null);
+            assertEquals(sorted.subList(0, 10), nearest);
+        }
+    }
+
+    @Test
+    public void testNearestLimits()
+    {
+        RadarMap map = new RadarMap(0);
+        TestObject close = new TestObject(10, 64, 0);
+        TestObject far = new TestObject(500, 64, 0);
+        TestObject filtered = new TestObject(5, 64, 0);
+        map.add(close);
+        map.add(far);
+        map.add(filtered);
+
+        List<RadarObject> list = map.getNearestRadarObjects(0, 0, 5, 100, object -> object != filtered);
+        assertEquals(1, list.size());
+        assertSame(close, list.get(0));
+
+        list = map.getNearestRadarObjects(0, 0, 5, Double.POSITIVE_INFINITY, null);
+        assertEquals(3, list.size());
+        assertSame(filtered, list.get(0));
+        assertSame(far, list.get(2));
+
+        assertTrue(map.getNearestRadarObjects(0, 0, 0, 100, null).isEmpty());
+    }
+
+    @Test
+    public void testSubscribe()
+    {
+        RadarMap map = new RadarMap(0);
+        TestObject inside = new TestObject(10, 64, 10);
+        TestObject outside = new TestObject(500, 64, 0);
+        map.add(inside);
+        map.add(outside);
+
+        TestListener listenerA = new TestListener();
+        TestListener listenerB = new TestListener();
+        RadarSubscription subscription = map.subscribe(0, 0, 100, null, listenerA);
+        assertSame(subscription, map.subscribe(0, 0, 100, null, listenerB));
+        assertEquals(2, subscription.getListenerCount());
+        assertEquals(1, subscription.getContacts().size());
+        assertTrue(subscription.getContacts().contains(inside));
+
+        //Nothing changed
+        runUpdate(map);
+        assertEquals(0, listenerA.calls);
+
+        //Move in, move inside, add and remove
+        TestObject added = new TestObject(-20, 64, 0);
+        map.add(added);
+        outside.x = 50;
+        inside.x = 20;
+        runUpdate(map);
+        assertEquals(1, listenerA.calls);
+        assertEquals(1, listenerB.calls);
+        assertEquals(new HashSet(Arrays.asList(added, outside)), listenerA.entered);
+        assertEquals(new HashSet(Arrays.asList(inside)), listenerA.moved);
+        assertTrue(listenerA.left.isEmpty());
+        assertEquals(3, subscription.getContacts().size());
+
+        //Move out and invalid
+        outside.x = 500;
+        added.valid = false;
+        map.remove(inside);
+        runUpdate(map);
+        assertEquals(new HashSet(Arrays.asList(added, outside, inside)), listenerA.left);
+        assertTrue(subscription.getContacts().isEmpty());
+
+        assertTrue(map.unsubscribe(subscription, listenerA));
+        assertFalse(map.unsubscribe(subscription, listenerA));
+        assertTrue(map.hasSubscriptions());
+        assertTrue(map.unsubscribe(subscription, listenerB));
+        assertFalse(map.hasSubscriptions());
+    }
+
+    @Test
+    public void testSubscribeFilter()
+    {
+        RadarMap map = new RadarMap(0);
+        TestObject high = new TestObject(0, 200, 0);
+        TestObject low = new TestObject(0, 10, 0);
+        map.add(high);
+        map.add(low);
+
+        Predicate<RadarObject> filter = object -> object.y() > 100;
+        TestListener listenerA = new TestListener();
+        TestListener listenerB = new TestListener();
+        RadarSubscription subscription = map.subscribe(0, 0, 100, filter, listenerA);
+        assertNotSame(subscription, map.subscribe(0, 0, 100, null, listenerB));
+        assertNotSame(subscription, map.subscribe(new Cube(-100, 0, -100, 100, 255, 100), filter, listenerB));
+        assertEquals(1, subscription.getContacts().size());
+        assertTrue(subscription.getContacts().contains(high));
+
+        low.y = 150;
+        runUpdate(map);
+        assertEquals(new HashSet(Arrays.asList(low)), listenerA.entered);
+    }
+
+    private static void runUpdate(RadarMap map)
+    {
+        for (int i = 0; i <= RadarMap.UPDATE_DELAY; i++)
+        {
+            map.update();
+        }
+    }
+
+    private static class TestListener implements IRadarListener
+    {
+        int calls = 0;
+        HashSet<RadarObject> entered = new HashSet();
+        HashSet<RadarObject> left = new HashSet();
+        HashSet<RadarObject> moved = new HashSet();
+
+        @Override
+        public void onRadarUpdate(RadarSubscription subscription, List<RadarObject> entered, List<RadarObject> left, List<RadarObject> moved)
+        {
+            calls++;
+            this.entered = new HashSet(entered);
+            this.left = new HashSet(left);
+            this.moved = new HashSet(moved);
+        }
+    }
+
+    private static double distanceSq(TestObject object, double x, double z)
+    {
+        return (object.x - x) * (object.x - x) + (object.z - z) * (object.z - z);
+    }
+
+    private static class TestObject extends RadarObject<Object>
+    {
+        double x, y, z;
+        boolean valid = true;
+
+        TestObject(double x, double y, double z)
+        {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public boolean isValid()
+        {
+            return valid;
+        }
+
+        @Override
+        public World oldWorld()
+        {
+            return null;
+        }
+
+        @Override
+        public double x()
+        {
+            return x;
+        }
+
+        @Override
+        public double y()
+        {
+            return y;
+        }
+
+        @Override
+        public double z()
+        {
+            return z;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.builtbroken.test.thread;
+
+import com.builtbroken.mc.framework.thread.action.metrics.MetricHistogram;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestMetricHistogram extends TestCase
+{
+    @Test
+    public void testRecord()
+    {
+        MetricHistogram histogram = new MetricHistogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 1; i <= 100; i++)
+        {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(50, histogram.getMean());
+        assertEquals(100, histogram.getMax());
+
+        //Buckets are powers of two, so percentiles are within a factor of two
+        long p50 = histogram.getPercentile(0.5);
+        assertTrue("p50 was " + p50, p50 >= 50 && p50 < 100);
+        assertEquals(100, histogram.getPercentile(1));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testThreads() throws InterruptedException
+    {
+        final MetricHistogram histogram = new MetricHistogram();
+        List<Thread> threads = new ArrayList();
+        for (int t = 0; t < 4; t++)
+        {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++)
+                {
+                    histogram.record(i);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(9999, histogram.getMax());
+    }
+}
@@ -0,0 +1,92 @@
+package com.builtbroken.test.thread;
+
+import com.builtbroken.mc.framework.thread.delay.DelayedAction;
+import com.builtbroken.mc.framework.thread.delay.TimingWheel;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestTimingWheel extends TestCase
+{
+    @Test
+    public void testDelays()
+    {
+        TimingWheel wheel = new TimingWheel();
+        List<TestAction> actions = new ArrayList();
+        for (int delay : new int[]{1, 2, 255, 256, 257, 1000, 16383, 16384, 20000, 1 << 20})
+        {
+            TestAction action = new TestAction(wheel, delay);
+            wheel.add(action, delay);
+            actions.add(action);
+        }
+
+        for (int tick = 1; tick <= (1 << 20); tick++)
+        {
+            wheel.tick();
+        }
+
+        for (TestAction action : actions)
+        {
+            assertEquals("Action with delay " + action.ticksToWait, 1, action.runs.size());
+            assertEquals("Action with delay " + action.ticksToWait, action.ticksToWait, (long) action.runs.get(0));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRetryRepeatAndKill()
+    {
+        TimingWheel wheel = new TimingWheel();
+
+        TestAction retry = new TestAction(wheel, 5);
+        retry.failures = 2;
+        wheel.add(retry, 5);
+
+        TestAction repeat = new TestAction(wheel, 10);
+        repeat.setRepeat(10);
+        wheel.add(repeat, 10);
+
+        TestAction killed = new TestAction(wheel, 3);
+        wheel.add(killed, 3);
+        killed.kill();
+
+        for (int tick = 1; tick <= 35; tick++)
+        {
+            wheel.tick();
+        }
+
+        //Failed twice then finished
+        assertEquals(3, retry.runs.size());
+        assertEquals(7L, (long) retry.runs.get(2));
+
+        assertEquals(3, repeat.runs.size());
+        assertEquals(30L, (long) repeat.runs.get(2));
+
+        assertTrue(killed.runs.isEmpty());
+    }
+
+    private static class TestAction extends DelayedAction
+    {
+        final TimingWheel wheel;
+        final List<Long> runs = new ArrayList();
+        int failures = 0;
+
+        TestAction(TimingWheel wheel, int ticks)
+        {
+            super(null, ticks);
+            this.wheel = wheel;
+        }
+
+        @Override
+        public boolean trigger()
+        {
+            runs.add(wheel.getTick());
+            return failures-- <= 0;
+        }
+    }
+}
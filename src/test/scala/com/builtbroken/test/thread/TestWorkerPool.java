@@ -0,0 +1,105 @@
+package com.builtbroken.test.thread;
+
+import com.builtbroken.mc.framework.thread.IPrioritizedProcess;
+import com.builtbroken.mc.framework.thread.WorkerPool;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class TestWorkerPool extends TestCase
+{
+    @Test
+    public void testPriorityOrder() throws InterruptedException
+    {
+        WorkerPool pool = new WorkerPool("TestPriority", 1);
+        try
+        {
+            List<String> order = Collections.synchronizedList(new ArrayList());
+            CountDownLatch latch = new CountDownLatch(5);
+
+            //Queue everything while paused so the order only depends on priority
+            pool.pauseWorker();
+            pool.add(new TestProcess("background", IPrioritizedProcess.PRIORITY_BACKGROUND, order, latch));
+            pool.add(new TestProcess("normal1", IPrioritizedProcess.PRIORITY_NORMAL, order, latch));
+            pool.add(new TestProcess("player1", IPrioritizedProcess.PRIORITY_PLAYER, order, latch));
+            pool.add(new TestProcess("normal2", IPrioritizedProcess.PRIORITY_NORMAL, order, latch));
+            pool.add(new TestProcess("player2", IPrioritizedProcess.PRIORITY_PLAYER, order, latch));
+            assertEquals(5, pool.containedProcesses());
+            pool.resumeWorker();
+
+            assertTrue("Processes did not finish", latch.await(10, TimeUnit.SECONDS));
+            //Player work first, same priority keeps the order it was added
+            assertEquals(5, order.size());
+            assertEquals("player1", order.get(0));
+            assertEquals("player2", order.get(1));
+            assertEquals("normal1", order.get(2));
+            assertEquals("normal2", order.get(3));
+            assertEquals("background", order.get(4));
+        }
+        finally
+        {
+            pool.kill();
+        }
+    }
+
+    @Test
+    public void testDuplicateIgnored()
+    {
+        WorkerPool pool = new WorkerPool("TestDuplicate", 1);
+        try
+        {
+            pool.pauseWorker();
+            TestProcess process = new TestProcess("a", IPrioritizedProcess.PRIORITY_NORMAL, new ArrayList(), new CountDownLatch(1));
+            pool.add(process);
+            pool.add(process);
+            assertEquals(1, pool.containedProcesses());
+            assertTrue(pool.contains(process));
+        }
+        finally
+        {
+            pool.kill();
+        }
+    }
+
+    private static class TestProcess implements IPrioritizedProcess
+    {
+        final String name;
+        final int priority;
+        final List<String> order;
+        final CountDownLatch latch;
+
+        TestProcess(String name, int priority, List<String> order, CountDownLatch latch)
+        {
+            this.name = name;
+            this.priority = priority;
+            this.order = order;
+            this.latch = latch;
+        }
+
+        @Override
+        public void runProcess()
+        {
+            order.add(name);
+            latch.countDown();
+        }
+
+        @Override
+        public void killAction()
+        {
+        }
+
+        @Override
+        public int getPriority()
+        {
+            return priority;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.builtbroken.test.thread;
+
+import com.builtbroken.mc.api.process.IWorldAction;
+import com.builtbroken.mc.framework.thread.action.ITickBudgetPolicy;
+import com.builtbroken.mc.framework.thread.action.WorldActionQue;
+import com.builtbroken.mc.testing.junit.AbstractTest;
+import com.builtbroken.mc.testing.junit.VoltzTestRunner;
+import com.builtbroken.mc.testing.junit.world.FakeWorld;
+import cpw.mods.fml.common.gameevent.TickEvent;
+import cpw.mods.fml.relauncher.Side;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.World;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@RunWith(VoltzTestRunner.class)
+public class TestWorldActionQue extends AbstractTest
+{
+    @Test
+    public void testEditLimit()
+    {
+        World world = FakeWorld.newWorld("testQueEditLimit");
+        WorldActionQue.setBudgetPolicy(new TestPolicy(Long.MAX_VALUE, 10));
+        try
+        {
+            TestAction action = new TestAction("a", 25, null);
+            WorldActionQue.addEditQue(world, action);
+
+            tick(world);
+            assertEquals(10, action.ran);
+            tick(world);
+            assertEquals(20, action.ran);
+            tick(world);
+            assertEquals(25, action.ran);
+            assertTrue(action.isQueDone());
+            assertEquals(0, WorldActionQue.getQueDepth(world.provider.dimensionId));
+        }
+        finally
+        {
+            WorldActionQue.setBudgetPolicy(null);
+        }
+    }
+
+    @Test
+    public void testNoTimeBudget()
+    {
+        World world = FakeWorld.newWorld("testQueNoBudget");
+        TestPolicy policy = new TestPolicy(0, -1);
+        WorldActionQue.setBudgetPolicy(policy);
+        try
+        {
+            TestAction action = new TestAction("a", 5, null);
+            WorldActionQue.addEditQue(world, action);
+
+            //Out of time before the first edit, que waits for a tick with time
+            tick(world);
+            assertEquals(0, action.ran);
+            assertEquals(1, WorldActionQue.getQueDepth(world.provider.dimensionId));
+
+            policy.budget = Long.MAX_VALUE;
+            WorldActionQue.setBudgetPolicy(policy);
+            tick(world);
+            assertEquals(5, action.ran);
+            assertEquals(0, WorldActionQue.getQueDepth(world.provider.dimensionId));
+        }
+        finally
+        {
+            WorldActionQue.setBudgetPolicy(null);
+        }
+    }
+
+    @Test
+    public void testRoundRobin()
+    {
+        World world = FakeWorld.newWorld("testQueRoundRobin");
+        WorldActionQue.setBudgetPolicy(new TestPolicy(Long.MAX_VALUE, 6));
+        try
+        {
+            List<String> order = new ArrayList();
+            TestAction a = new TestAction("a", 5, order);
+            TestAction b = new TestAction("b", 5, order);
+            TestAction c = new TestAction("c", 1, order);
+            WorldActionQue.addEditQue(world, a);
+            WorldActionQue.addEditQue(world, b);
+            WorldActionQue.addEditQue(world, c);
+
+            //Each action gets a turn before any runs twice, limit is shared between them
+            tick(world);
+            assertEquals(6, order.size());
+            assertEquals("a", order.get(0));
+            assertEquals("b", order.get(1));
+            assertEquals("c", order.get(2));
+            assertEquals("a", order.get(3));
+            assertEquals("b", order.get(4));
+            assertEquals("a", order.get(5));
+            assertEquals(3, a.ran);
+            assertEquals(2, b.ran);
+            assertTrue(c.isQueDone());
+
+            tick(world);
+            assertTrue(a.isQueDone());
+            assertTrue(b.isQueDone());
+            assertEquals(0, WorldActionQue.getQueDepth(world.provider.dimensionId));
+        }
+        finally
+        {
+            WorldActionQue.setBudgetPolicy(null);
+        }
+    }
+
+    @Test
+    public void testDimensionIsolation()
+    {
+        World overworld = FakeWorld.newWorld("testQueDim0");
+        World other = FakeWorld.newWorld("testQueDim1");
+        other.provider.dimensionId = overworld.provider.dimensionId + 1;
+        WorldActionQue.setBudgetPolicy(new TestPolicy(Long.MAX_VALUE, -1));
+        try
+        {
+            TestAction action = new TestAction("a", 3, null);
+            WorldActionQue.addEditQue(other, action);
+
+            //Ticking another world does not run the que
+            tick(overworld);
+            assertEquals(0, action.ran);
+            assertEquals(1, WorldActionQue.getQueDepth(other.provider.dimensionId));
+            assertEquals(0, WorldActionQue.getQueDepth(overworld.provider.dimensionId));
+
+            tick(other);
+            assertEquals(3, action.ran);
+            assertTrue(action.lastWorld == other);
+            assertEquals(0, WorldActionQue.getQueDepth(other.provider.dimensionId));
+        }
+        finally
+        {
+            WorldActionQue.setBudgetPolicy(null);
+        }
+    }
+
+    private static void tick(World world)
+    {
+        WorldActionQue.INSTANCE.onWorldTick(new TickEvent.WorldTickEvent(Side.SERVER, TickEvent.Phase.END, world));
+    }
+
+    /**
+     * Policy with a fixed budget and edit limit
+     */
+    private static class TestPolicy implements ITickBudgetPolicy
+    {
+        long budget;
+        final int editLimit;
+
+        TestPolicy(long budget, int editLimit)
+        {
+            this.budget = budget;
+            this.editLimit = editLimit;
+        }
+
+        @Override
+        public long getTickBudget(MinecraftServer server, long usedLastTick)
+        {
+            return budget;
+        }
+
+        @Override
+        public int getEditLimit(World world)
+        {
+            return editLimit;
+        }
+    }
+
+    /**
+     * Action that applies one edit per run
+     */
+    private static class TestAction implements IWorldAction
+    {
+        final String name;
+        final int edits;
+        final List<String> order;
+        int ran = 0;
+        World lastWorld;
+
+        TestAction(String name, int edits, List<String> order)
+        {
+            this.name = name;
+            this.edits = edits;
+            this.order = order;
+        }
+
+        @Override
+        public int runQue(World world, Side side)
+        {
+            lastWorld = world;
+            ran++;
+            if (order != null)
+            {
+                order.add(name);
+            }
+            return 1;
+        }
+
+        @Override
+        public boolean isQueDone()
+        {
+            return ran >= edits;
+        }
+    }
+}
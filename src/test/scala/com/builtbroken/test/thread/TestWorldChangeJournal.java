@@ -0,0 +1,241 @@
+package com.builtbroken.test.thread;
+
+import com.builtbroken.mc.api.edit.IWorldEdit;
+import com.builtbroken.mc.framework.explosive.ExplosiveRegistry;
+import com.builtbroken.mc.framework.explosive.blast.Blast;
+import com.builtbroken.mc.framework.explosive.handler.ExplosiveHandler;
+import com.builtbroken.mc.framework.thread.WorkerPool;
+import com.builtbroken.mc.framework.thread.action.ITickBudgetPolicy;
+import com.builtbroken.mc.framework.thread.action.WCAThreadProcess;
+import com.builtbroken.mc.framework.thread.action.WorldActionQue;
+import com.builtbroken.mc.framework.thread.action.WorldChangeJournal;
+import com.builtbroken.mc.framework.thread.action.WorldEditQueue;
+import com.builtbroken.mc.imp.transform.vector.Location;
+import com.builtbroken.mc.lib.world.edit.BlockEdit;
+import com.builtbroken.mc.lib.world.edit.EditBuffer;
+import com.builtbroken.mc.testing.junit.AbstractTest;
+import com.builtbroken.mc.testing.junit.VoltzTestRunner;
+import com.builtbroken.mc.testing.junit.server.FakeDedicatedServer;
+import com.builtbroken.mc.testing.junit.world.FakeWorldServer;
+import cpw.mods.fml.common.gameevent.TickEvent;
+import cpw.mods.fml.relauncher.Side;
+import net.minecraft.init.Blocks;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@RunWith(VoltzTestRunner.class)
+public class TestWorldChangeJournal extends AbstractTest
+{
+    private static final String EXPLOSIVE_ID = "journaltest";
+
+    /** MC server instance for the entire class file to use, needed for the save folder */
+    protected MinecraftServer server;
+    /** World server to build tests inside */
+    protected FakeWorldServer world;
+    protected TestHandler handler;
+
+    @Override
+    public void setUpForEntireClass()
+    {
+        super.setUpForEntireClass();
+        server = new FakeDedicatedServer(new File(FakeWorldServer.baseFolder, "TestWorldChangeJournal"));
+        world = FakeWorldServer.newWorld(server, "TestWorldChangeJournal");
+        handler = new TestHandler();
+        ExplosiveRegistry.registerOrGetExplosive("test", EXPLOSIVE_ID, handler);
+    }
+
+    @Test
+    public void testSaveLoadEdits()
+    {
+        final int dim = world.provider.dimensionId;
+        final Blast blast = newBlast();
+
+        //Packed edits and a plain block edit with its own flags
+        EditBuffer buffer = new EditBuffer(world);
+        buffer.add(1, 70, 1, Blocks.stone, 0);
+        buffer.add(2, 70, 1, Blocks.wool, 5);
+        List<IWorldEdit> list = new ArrayList();
+        BlockEdit edit = new BlockEdit(world, 3, 70, 1).set(Blocks.glass, 0);
+        edit.checkForPrevBlockEquals = false;
+        list.add(edit);
+
+        List<WorldEditQueue> ques = new ArrayList();
+        ques.add(new WorldEditQueue(world, blast, 10, buffer));
+        ques.add(new WorldEditQueue(world, blast, 10, list));
+        WorldChangeJournal.save(world, ques, Collections.<WCAThreadProcess, Integer>emptyMap());
+
+        File file = WorldChangeJournal.getSaveFile(dim);
+        assertTrue(file.exists());
+        assertEquals(0, WorldActionQue.getQueDepth(dim));
+
+        //Loading the world restores both ques and the post action, then removes the journal
+        WorldActionQue.INSTANCE.onWorldLoad(new WorldEvent.Load(world));
+        assertFalse(file.exists());
+        assertEquals(3, WorldActionQue.getQueDepth());
+        WorldActionQue.setBudgetPolicy(new UnlimitedPolicy());
+        try
+        {
+            for (int i = 0; i < 10 && WorldActionQue.getQueDepth() > 0; i++)
+            {
+                tick();
+            }
+            assertEquals(0, WorldActionQue.getQueDepth(dim));
+        }
+        finally
+        {
+            WorldActionQue.setBudgetPolicy(null);
+        }
+
+        assertEquals(Blocks.stone, world.getBlock(1, 70, 1));
+        assertEquals(Blocks.wool, world.getBlock(2, 70, 1));
+        assertEquals(5, world.getBlockMetadata(2, 70, 1));
+        assertEquals(Blocks.glass, world.getBlock(3, 70, 1));
+    }
+
+    @Test
+    public void testSaveLoadNextLayer()
+    {
+        final int dim = world.provider.dimensionId;
+        final Blast blast = newBlast();
+
+        EditBuffer buffer = new EditBuffer(world);
+        for (int i = 0; i < 4; i++)
+        {
+            buffer.add(i, 71, 2, Blocks.stone, 0);
+        }
+        List<WorldEditQueue> ques = new ArrayList();
+        ques.add(new WorldEditQueue(world, blast, 10, buffer));
+
+        //Process stopped part way, layer 3 is next
+        WCAThreadProcess stopped = new WCAThreadProcess(new Location(world, blast.x(), blast.y(), blast.z()), blast, null);
+        stopped.killAction();
+        Map<WCAThreadProcess, Integer> unfinished = new HashMap();
+        unfinished.put(stopped, 3);
+        WorldChangeJournal.save(world, ques, unfinished);
+
+        //Hold the pool so the resumed process can be checked before it runs
+        WorkerPool pool = WorkerPool.instance();
+        pool.pauseWorker();
+        WorldActionQue.setBudgetPolicy(new UnlimitedPolicy());
+        try
+        {
+            WorldActionQue.INSTANCE.onWorldLoad(new WorldEvent.Load(world));
+            assertFalse(WorldChangeJournal.getSaveFile(dim).exists());
+
+            WCAThreadProcess resumed = null;
+            for (WCAThreadProcess process : WCAThreadProcess.getActive())
+            {
+                if (process != stopped && process.blast instanceof Blast && ((Blast) process.blast).explosiveHandler == handler)
+                {
+                    resumed = process;
+                }
+            }
+            assertNotNull(resumed);
+            assertEquals(3, resumed.startLayer);
+            assertEquals(blast.x(), ((Blast) resumed.blast).x());
+            assertEquals(blast.getYield(), ((Blast) resumed.blast).getYield());
+
+            //Restored edits are tracked by the resumed process
+            assertEquals(4, resumed.progress.getEditsPending());
+            assertTrue(pool.contains(resumed));
+
+            //Cancelling the process drops the restored edits
+            pool.clearProcesses();
+            assertTrue(resumed.progress.isCancelled());
+            tick();
+            assertEquals(0, WorldActionQue.getQueDepth(dim));
+            assertEquals(0, resumed.progress.getEditsPending());
+            assertEquals(Blocks.air, world.getBlock(0, 71, 2));
+        }
+        finally
+        {
+            WorldActionQue.setBudgetPolicy(null);
+            pool.resumeWorker();
+        }
+    }
+
+    private Blast newBlast()
+    {
+        return (Blast) handler.createBlastForTrigger(world, 2, 70, 2, null, 2, null);
+    }
+
+    private void tick()
+    {
+        WorldActionQue.INSTANCE.onWorldTick(new TickEvent.WorldTickEvent(Side.SERVER, TickEvent.Phase.END, world));
+    }
+
+    private static class UnlimitedPolicy implements ITickBudgetPolicy
+    {
+        @Override
+        public long getTickBudget(MinecraftServer server, long usedLastTick)
+        {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int getEditLimit(World world)
+        {
+            return -1;
+        }
+    }
+
+    private static class TestHandler extends ExplosiveHandler<TestBlast>
+    {
+        TestHandler()
+        {
+            super(EXPLOSIVE_ID);
+        }
+
+        @Override
+        protected TestBlast newBlast()
+        {
+            return new TestBlast(this);
+        }
+    }
+
+    private static class TestBlast extends Blast<TestBlast>
+    {
+        TestBlast(TestHandler handler)
+        {
+            super(handler);
+        }
+
+        @Override
+        public void doStartAudio()
+        {
+        }
+
+        @Override
+        public void doEndAudio()
+        {
+        }
+
+        @Override
+        public void doStartDisplay()
+        {
+        }
+
+        @Override
+        public void playAudioForEdit(IWorldEdit blocks)
+        {
+        }
+
+        @Override
+        public void displayEffectForEdit(IWorldEdit blocks)
+        {
+        }
+    }
+}